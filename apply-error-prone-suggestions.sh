@@ -1,19 +1,30 @@
 #!/usr/bin/env bash
 
 # Compiles the code using Error Prone and applies its suggestions. The set of
-# checks applied can optionally be restricted by name.
+# checks applied can optionally be restricted by name. Additionally, the code
+# matched by Refaster rules can optionally be restricted to the lines changed
+# relative to the given Git revision.
 #
 # As this script may modify the project's code, it is important to execute it
 # in a clean Git working directory.
 
 set -e -u -o pipefail
 
-if [ "${#}" -gt 1 ]; then
-  echo "Usage: ./$(basename "${0}") [PatchChecks]"
+if [ "${#}" -gt 2 ]; then
+  echo "Usage: ./$(basename "${0}") [PatchChecks] [DiffBase]"
   exit 1
 fi
 
 patchChecks=${1:-}
+diffBase=${2:-}
+
+changedLinesArgs=()
+if [ -n "${diffBase}" ]; then
+  changedLines="$(mktemp)"
+  trap 'rm -f "${changedLines}"' EXIT
+  git diff -U0 "${diffBase}" > "${changedLines}"
+  changedLinesArgs=("-Derror-prone.changed-lines=${changedLines}")
+fi
 
 mvn clean test-compile fmt:format \
   -T 1.0C \
@@ -22,4 +33,5 @@ mvn clean test-compile fmt:format \
   -Ppatch \
   -Pself-check \
   -Derror-prone.patch-checks="${patchChecks}" \
+  ${changedLinesArgs[@]+"${changedLinesArgs[@]}"} \
   -Dverification.skip
@@ -0,0 +1,309 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import static com.google.errorprone.BugPattern.LinkType.CUSTOM;
+import static com.google.errorprone.BugPattern.SeverityLevel.SUGGESTION;
+import static com.google.errorprone.BugPattern.StandardTags.PERFORMANCE;
+import static com.google.errorprone.matchers.Matchers.isSubtypeOf;
+import static com.google.errorprone.matchers.method.MethodMatchers.constructor;
+import static com.google.errorprone.matchers.method.MethodMatchers.instanceMethod;
+import static com.google.errorprone.matchers.method.MethodMatchers.staticMethod;
+import static tech.picnic.errorprone.bugpatterns.util.Documentation.BUG_PATTERNS_BASE_URL;
+
+import com.google.auto.service.AutoService;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.VariableTreeMatcher;
+import com.google.errorprone.fixes.SuggestedFix;
+import com.google.errorprone.fixes.SuggestedFixes;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.predicates.TypePredicates;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.EnhancedForLoopTree;
+import com.sun.source.tree.ExpressionStatementTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.StatementTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.tools.javac.code.Source;
+import com.sun.tools.javac.code.Symbol.VarSymbol;
+import com.sun.tools.javac.code.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.jspecify.nullness.Nullable;
+import tech.picnic.errorprone.bugpatterns.util.SourceCode;
+import tech.picnic.errorprone.bugpatterns.util.ThirdPartyLibrary;
+
+/**
+ * A {@link BugChecker} that flags local collections and Guava immutable collection builders that
+ * are created without a size hint, and that are subsequently filled by a single loop over a source
+ * of known size.
+ *
+ * <p>Such collections are resized repeatedly as elements are added. This is avoided by creating
+ * them with sufficient initial capacity, using e.g. {@code new ArrayList<>(source.size())} or
+ * {@link com.google.common.collect.ImmutableList#builderWithExpectedSize(int)}. Hash-based JDK
+ * collections are replaced with {@code HashMap.newHashMap(int)} and similar factory methods if the
+ * code under compilation targets JDK 19+, and with their Guava counterparts such as {@link
+ * com.google.common.collect.Maps#newHashMapWithExpectedSize(int)} otherwise.
+ *
+ * <p>This check complements the Refaster rules that replace such loops with {@link
+ * com.google.common.collect.ImmutableList#copyOf(Collection)} and similar expressions.
+ */
+@AutoService(BugChecker.class)
+@BugPattern(
+    summary = "Collections filled from a source of known size should be presized",
+    link = BUG_PATTERNS_BASE_URL + "CollectionPresizing",
+    linkType = CUSTOM,
+    severity = SUGGESTION,
+    tags = PERFORMANCE)
+public final class CollectionPresizing extends BugChecker implements VariableTreeMatcher {
+  private static final long serialVersionUID = 1L;
+  private static final Matcher<ExpressionTree> LIST_CONSTRUCTOR =
+      constructor().forClass(ArrayList.class.getName()).withParameters(ImmutableList.of());
+  private static final Matcher<ExpressionTree> HASH_CONSTRUCTOR =
+      constructor()
+          .forClass(
+              TypePredicates.isExactTypeAny(
+                  ImmutableList.of(
+                      HashMap.class.getName(),
+                      HashSet.class.getName(),
+                      LinkedHashMap.class.getName(),
+                      LinkedHashSet.class.getName())))
+          .withParameters(ImmutableList.of());
+  private static final Matcher<ExpressionTree> IMMUTABLE_BUILDER_FACTORY =
+      staticMethod()
+          .onClassAny(
+              "com.google.common.collect.ImmutableList",
+              "com.google.common.collect.ImmutableMap",
+              "com.google.common.collect.ImmutableSet")
+          .named("builder")
+          .withNoParameters();
+  private static final Matcher<ExpressionTree> MAP_TYPE = isSubtypeOf(Map.class);
+  private static final Matcher<ExpressionTree> COLLECTION = isSubtypeOf(Collection.class);
+  private static final Matcher<ExpressionTree> MAP_COLLECTION_VIEW =
+      instanceMethod()
+          .onDescendantOf(Map.class.getName())
+          .namedAnyOf("entrySet", "keySet", "values")
+          .withNoParameters();
+  private static final ImmutableSet<String> MAP_TYPES =
+      ImmutableSet.of(
+          HashMap.class.getName(),
+          LinkedHashMap.class.getName(),
+          "com.google.common.collect.ImmutableMap.Builder");
+  /** The JDK 19+ factory methods for presized hash-based collections, by collection type. */
+  private static final ImmutableMap<String, String> JDK_FACTORY_METHODS =
+      ImmutableMap.of(
+          HashMap.class.getName(), "newHashMap",
+          HashSet.class.getName(), "newHashSet",
+          LinkedHashMap.class.getName(), "newLinkedHashMap",
+          LinkedHashSet.class.getName(), "newLinkedHashSet");
+  /** The Guava factory methods for presized hash-based collections, by collection type. */
+  private static final ImmutableMap<String, String> GUAVA_FACTORY_METHODS =
+      ImmutableMap.of(
+          HashMap.class.getName(), "com.google.common.collect.Maps.newHashMapWithExpectedSize",
+          HashSet.class.getName(), "com.google.common.collect.Sets.newHashSetWithExpectedSize",
+          LinkedHashMap.class.getName(),
+              "com.google.common.collect.Maps.newLinkedHashMapWithExpectedSize",
+          LinkedHashSet.class.getName(),
+              "com.google.common.collect.Sets.newLinkedHashSetWithExpectedSize");
+
+  /** Instantiates a new {@link CollectionPresizing} instance. */
+  public CollectionPresizing() {}
+
+  @Override
+  public Description matchVariable(VariableTree tree, VisitorState state) {
+    ExpressionTree initializer = tree.getInitializer();
+    if (initializer == null
+        || !(LIST_CONSTRUCTOR.matches(initializer, state)
+            || HASH_CONSTRUCTOR.matches(initializer, state)
+            || IMMUTABLE_BUILDER_FACTORY.matches(initializer, state))) {
+      return Description.NO_MATCH;
+    }
+
+    VarSymbol symbol = ASTHelpers.getSymbol(tree);
+    return getFillingLoop(tree, state)
+        .filter(loop -> isFilledBy(loop, symbol, getAdditionMethod(initializer)))
+        .flatMap(loop -> getSize(loop.getExpression(), state))
+        .flatMap(size -> presize(tree, initializer, size, state))
+        .map(fix -> describeMatch(initializer, fix))
+        .orElse(Description.NO_MATCH);
+  }
+
+  /**
+   * Returns the enhanced for loop that immediately follows the given local variable declaration, if
+   * any.
+   */
+  private static Optional<EnhancedForLoopTree> getFillingLoop(
+      VariableTree tree, VisitorState state) {
+    Tree parent = state.getPath().getParentPath().getLeaf();
+    if (!(parent instanceof BlockTree)) {
+      return Optional.empty();
+    }
+
+    List<? extends StatementTree> statements = ((BlockTree) parent).getStatements();
+    int index = statements.indexOf(tree);
+    return index + 1 < statements.size() && statements.get(index + 1) instanceof EnhancedForLoopTree
+        ? Optional.of((EnhancedForLoopTree) statements.get(index + 1))
+        : Optional.empty();
+  }
+
+  /**
+   * Tells whether the body of the given loop unconditionally adds exactly one element to the
+   * collection or builder referenced by the given symbol.
+   */
+  private static boolean isFilledBy(
+      EnhancedForLoopTree loop, VarSymbol symbol, String additionMethod) {
+    StatementTree body = loop.getStatement();
+    List<? extends StatementTree> statements =
+        body instanceof BlockTree ? ((BlockTree) body).getStatements() : ImmutableList.of(body);
+    return statements.stream().filter(s -> isAddition(s, symbol, additionMethod)).count() == 1;
+  }
+
+  private static String getAdditionMethod(ExpressionTree initializer) {
+    Type type = ASTHelpers.getType(initializer);
+    return type != null && MAP_TYPES.contains(type.tsym.getQualifiedName().toString())
+        ? "put"
+        : "add";
+  }
+
+  private static boolean isAddition(StatementTree statement, VarSymbol symbol, String methodName) {
+    if (!(statement instanceof ExpressionStatementTree)) {
+      return false;
+    }
+
+    ExpressionTree expression = ((ExpressionStatementTree) statement).getExpression();
+    if (!(expression instanceof MethodInvocationTree)) {
+      return false;
+    }
+
+    ExpressionTree methodSelect = ((MethodInvocationTree) expression).getMethodSelect();
+    return methodSelect instanceof MemberSelectTree
+        && ((MemberSelectTree) methodSelect).getIdentifier().contentEquals(methodName)
+        && symbol.equals(ASTHelpers.getSymbol(((MemberSelectTree) methodSelect).getExpression()));
+  }
+
+  /**
+   * Returns the source code of an expression that evaluates to the number of elements in the given
+   * loop source, provided that the source can be evaluated more than once without side effects.
+   */
+  private static Optional<String> getSize(ExpressionTree source, VisitorState state) {
+    if (!isVariableReference(source)) {
+      return MAP_COLLECTION_VIEW.matches(source, state)
+              && isVariableReference(ASTHelpers.getReceiver(source))
+          ? Optional.of(SourceCode.treeToString(ASTHelpers.getReceiver(source), state) + ".size()")
+          : Optional.empty();
+    }
+
+    String sourceCode = SourceCode.treeToString(source, state);
+    Type type = ASTHelpers.getType(source);
+    if (type != null && state.getTypes().isArray(type)) {
+      return Optional.of(sourceCode + ".length");
+    }
+
+    return COLLECTION.matches(source, state) && !MAP_TYPE.matches(source, state)
+        ? Optional.of(sourceCode + ".size()")
+        : Optional.empty();
+  }
+
+  private static Optional<SuggestedFix> presize(
+      VariableTree tree, ExpressionTree initializer, String size, VisitorState state) {
+    if (initializer instanceof MethodInvocationTree) {
+      MethodInvocationTree invocation = (MethodInvocationTree) initializer;
+      return Optional.of(
+          SuggestedFix.builder()
+              .merge(
+                  SuggestedFixes.renameMethodInvocation(
+                      invocation, "builderWithExpectedSize", state))
+              .replace(
+                  state.getEndPosition(invocation.getMethodSelect()),
+                  state.getEndPosition(invocation),
+                  '(' + size + ')')
+              .build());
+    }
+
+    NewClassTree newClass = (NewClassTree) initializer;
+    if (newClass.getClassBody() != null) {
+      return Optional.empty();
+    }
+
+    if (LIST_CONSTRUCTOR.matches(newClass, state)) {
+      return Optional.of(
+          SuggestedFix.replace(
+              state.getEndPosition(newClass.getIdentifier()),
+              state.getEndPosition(newClass),
+              '(' + size + ')'));
+    }
+
+    /* The replacement factory method relies on the declared type for type inference. */
+    if (ASTHelpers.hasNoExplicitType(tree, state)) {
+      return Optional.empty();
+    }
+
+    String collectionType = ASTHelpers.getSymbol(newClass).owner.getQualifiedName().toString();
+    String jdkFactoryMethod = JDK_FACTORY_METHODS.get(collectionType);
+    if (jdkFactoryMethod != null && targetsJdk19OrLater(state)) {
+      SuggestedFix.Builder fix = SuggestedFix.builder();
+      String type = SuggestedFixes.qualifyType(state, fix, collectionType);
+      return Optional.of(
+          fix.replace(newClass, String.format("%s.%s(%s)", type, jdkFactoryMethod, size)).build());
+    }
+
+    String guavaFactoryMethod = GUAVA_FACTORY_METHODS.get(collectionType);
+    if (guavaFactoryMethod == null || !ThirdPartyLibrary.GUAVA.isIntroductionAllowed(state)) {
+      return Optional.empty();
+    }
+
+    int separator = guavaFactoryMethod.lastIndexOf('.');
+    SuggestedFix.Builder fix = SuggestedFix.builder();
+    String type =
+        SuggestedFixes.qualifyType(state, fix, guavaFactoryMethod.substring(0, separator));
+    return Optional.of(
+        fix.replace(
+                newClass,
+                String.format("%s.%s(%s)", type, guavaFactoryMethod.substring(separator + 1), size))
+            .build());
+  }
+
+  /**
+   * Tells whether the code under compilation targets JDK 19 or later, and may thus use the factory
+   * methods introduced in that release.
+   *
+   * <p>This is derived from the {@code --release} or {@code -source} level, rather than from the
+   * class library of the JDK performing the compilation, as the latter may be newer than the JDK on
+   * which the compiled code will run.
+   */
+  private static boolean targetsJdk19OrLater(VisitorState state) {
+    Source jdk19 = Source.lookup("19");
+    return jdk19 != null && Source.instance(state.context).compareTo(jdk19) >= 0;
+  }
+
+  /**
+   * Tells whether the given expression references {@code this}, a local variable, a parameter or a
+   * (possibly qualified) field, such that evaluating it does not have side effects.
+   */
+  private static boolean isVariableReference(@Nullable ExpressionTree tree) {
+    if (tree instanceof IdentifierTree) {
+      return ASTHelpers.getSymbol(tree) instanceof VarSymbol;
+    }
+
+    return tree instanceof MemberSelectTree
+        && ASTHelpers.getSymbol(tree) instanceof VarSymbol
+        && isVariableReference(((MemberSelectTree) tree).getExpression());
+  }
+}
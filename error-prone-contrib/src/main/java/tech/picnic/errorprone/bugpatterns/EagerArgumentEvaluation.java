@@ -0,0 +1,249 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import static com.google.errorprone.BugPattern.LinkType.CUSTOM;
+import static com.google.errorprone.BugPattern.SeverityLevel.SUGGESTION;
+import static com.google.errorprone.BugPattern.StandardTags.PERFORMANCE;
+import static com.google.errorprone.matchers.Matchers.anyOf;
+import static com.google.errorprone.matchers.method.MethodMatchers.instanceMethod;
+import static com.google.errorprone.matchers.method.MethodMatchers.staticMethod;
+import static java.util.stream.Collectors.joining;
+import static tech.picnic.errorprone.bugpatterns.util.Documentation.BUG_PATTERNS_BASE_URL;
+
+import com.google.auto.service.AutoService;
+import com.google.common.collect.Iterables;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.ErrorProneFlags;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.fixes.SuggestedFix;
+import com.google.errorprone.fixes.SuggestedFixes;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MethodInvocationTree;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import tech.picnic.errorprone.bugpatterns.util.MethodMatcherFactory;
+import tech.picnic.errorprone.bugpatterns.util.MoreASTHelpers;
+import tech.picnic.errorprone.bugpatterns.util.SourceCode;
+
+/**
+ * A {@link BugChecker} that flags computed arguments to method parameters whose value is used only
+ * under some condition.
+ *
+ * <p>Expressions such as {@code optional.orElse(computeDefault())} compute their argument even if
+ * it is not used. The following methods offer a lazily evaluated alternative:
+ *
+ * <ul>
+ *   <li>{@link Optional#orElse(Object)}, in favour of {@link Optional#orElseGet(Supplier)};
+ *   <li>{@link Objects#requireNonNullElse(Object, Object)}, in favour of {@link
+ *       Objects#requireNonNullElseGet(Object, Supplier)};
+ *   <li>{@link Objects#requireNonNull(Object, String)}, in favour of {@link
+ *       Objects#requireNonNull(Object, Supplier)};
+ *   <li>{@code Mono#defaultIfEmpty(Object)}, in favour of {@code Mono#switchIfEmpty(Mono)} combined
+ *       with {@code Mono#fromSupplier(Supplier)};
+ *   <li>Guava's {@code Preconditions} methods that accept an error message, in favour of the
+ *       overloads that accept an error message template and its arguments. Only error messages
+ *       constructed using {@link String#format(String, Object...)} are flagged.
+ * </ul>
+ *
+ * <p>Additionally, {@link Map#getOrDefault(Object, Object)} is flagged, but no fix is suggested.
+ *
+ * <p>Method invocations and object instantiations are considered computed arguments, with the
+ * exception of argument-less static factory methods named {@code of} or {@code empty*}, as these
+ * generally return a shared instance.
+ *
+ * <p>Additional methods may be specified by passing {@code
+ * -XepOpt:EagerArgumentEvaluation:ExtraConditionallyUsedArgumentMethods=<signature>,...}, where
+ * each signature has the form {@code fully.qualified.Type#method(fully.qualified.ParameterType)}.
+ * The last argument of such methods is assumed to be used only under some condition. No fix is
+ * suggested for these methods.
+ */
+@AutoService(BugChecker.class)
+@BugPattern(
+    summary = "Argument is computed even if it is not used; prefer a lazily evaluated alternative",
+    link = BUG_PATTERNS_BASE_URL + "EagerArgumentEvaluation",
+    linkType = CUSTOM,
+    severity = SUGGESTION,
+    tags = PERFORMANCE)
+public final class EagerArgumentEvaluation extends BugChecker
+    implements MethodInvocationTreeMatcher {
+  private static final long serialVersionUID = 1L;
+  private static final String FLAG_PREFIX = "EagerArgumentEvaluation:";
+  private static final String EXTRA_CONDITIONALLY_USED_ARGUMENT_METHODS_FLAG =
+      FLAG_PREFIX + "ExtraConditionallyUsedArgumentMethods";
+  /** The format string conversions that are also supported by Guava's {@code Preconditions}. */
+  private static final Pattern GUAVA_COMPATIBLE_FORMAT_CONVERSION = Pattern.compile("%s");
+
+  private static final Matcher<ExpressionTree> OPTIONAL_OR_ELSE =
+      instanceMethod().onExactClass(Optional.class.getName()).named("orElse");
+  private static final Matcher<ExpressionTree> REQUIRE_NON_NULL_ELSE =
+      staticMethod().onClass(Objects.class.getName()).named("requireNonNullElse");
+  private static final Matcher<ExpressionTree> REQUIRE_NON_NULL_WITH_MESSAGE =
+      staticMethod()
+          .onClass(Objects.class.getName())
+          .named("requireNonNull")
+          .withParameters(Object.class.getName(), String.class.getName());
+  private static final Matcher<ExpressionTree> MONO_DEFAULT_IF_EMPTY =
+      instanceMethod().onDescendantOf("reactor.core.publisher.Mono").named("defaultIfEmpty");
+  private static final Matcher<ExpressionTree> PRECONDITIONS_WITH_MESSAGE =
+      anyOf(
+          staticMethod()
+              .onClass("com.google.common.base.Preconditions")
+              .namedAnyOf("checkArgument", "checkState")
+              .withParameters("boolean", Object.class.getName()),
+          staticMethod()
+              .onClass("com.google.common.base.Preconditions")
+              .named("checkNotNull")
+              .withParameters(Object.class.getName(), Object.class.getName()));
+  private static final Matcher<ExpressionTree> MAP_GET_OR_DEFAULT =
+      instanceMethod().onDescendantOf(Map.class.getName()).named("getOrDefault");
+  private static final Matcher<ExpressionTree> STRING_FORMAT =
+      staticMethod().onClass(String.class.getName()).named("format");
+  private static final Matcher<ExpressionTree> WELL_KNOWN_CONDITIONALLY_USED_ARGUMENT_METHODS =
+      anyOf(
+          OPTIONAL_OR_ELSE,
+          REQUIRE_NON_NULL_ELSE,
+          REQUIRE_NON_NULL_WITH_MESSAGE,
+          MONO_DEFAULT_IF_EMPTY,
+          PRECONDITIONS_WITH_MESSAGE,
+          MAP_GET_OR_DEFAULT);
+
+  private final Matcher<ExpressionTree> conditionallyUsedArgumentMethods;
+
+  /** Instantiates a default {@link EagerArgumentEvaluation} instance. */
+  public EagerArgumentEvaluation() {
+    this(ErrorProneFlags.empty());
+  }
+
+  /**
+   * Instantiates a customized {@link EagerArgumentEvaluation}.
+   *
+   * @param flags Any provided command line flags.
+   */
+  public EagerArgumentEvaluation(ErrorProneFlags flags) {
+    conditionallyUsedArgumentMethods = createConditionallyUsedArgumentMethodMatcher(flags);
+  }
+
+  @Override
+  public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+    if (tree.getArguments().isEmpty() || !conditionallyUsedArgumentMethods.matches(tree, state)) {
+      return Description.NO_MATCH;
+    }
+
+    ExpressionTree argument = Iterables.getLast(tree.getArguments());
+    if (!MoreASTHelpers.isNonTrivialComputation(argument)) {
+      return Description.NO_MATCH;
+    }
+
+    if (PRECONDITIONS_WITH_MESSAGE.matches(tree, state)) {
+      return STRING_FORMAT.matches(argument, state)
+          ? describeMatch(argument, inlineFormatArguments((MethodInvocationTree) argument, state))
+          : Description.NO_MATCH;
+    }
+
+    if (MAP_GET_OR_DEFAULT.matches(tree, state)) {
+      return buildDescription(argument)
+          .setMessage(
+              "Default value is computed even if it is not used; consider "
+                  + "`Map#computeIfAbsent` if the default value may be stored in the map")
+          .build();
+    }
+
+    return describeMatch(argument, getLazyAlternative(tree, argument, state));
+  }
+
+  private Description describeMatch(ExpressionTree argument, Optional<SuggestedFix> fix) {
+    Description.Builder description = buildDescription(argument);
+    fix.ifPresent(description::addFix);
+    return description.build();
+  }
+
+  private static Optional<SuggestedFix> getLazyAlternative(
+      MethodInvocationTree tree, ExpressionTree argument, VisitorState state) {
+    if (!MoreASTHelpers.isLambdaCompatible(argument, state)) {
+      return Optional.empty();
+    }
+
+    String supplier = "() -> " + SourceCode.treeToString(argument, state);
+    if (OPTIONAL_OR_ELSE.matches(tree, state)) {
+      return Optional.of(replaceInvocation(tree, "orElseGet", argument, supplier, state));
+    }
+
+    if (REQUIRE_NON_NULL_ELSE.matches(tree, state)) {
+      return Optional.of(
+          replaceInvocation(tree, "requireNonNullElseGet", argument, supplier, state));
+    }
+
+    if (REQUIRE_NON_NULL_WITH_MESSAGE.matches(tree, state)) {
+      return Optional.of(SuggestedFix.replace(argument, supplier));
+    }
+
+    if (MONO_DEFAULT_IF_EMPTY.matches(tree, state)) {
+      SuggestedFix.Builder fix = SuggestedFix.builder();
+      String mono = SuggestedFixes.qualifyType(state, fix, "reactor.core.publisher.Mono");
+      return Optional.of(
+          fix.merge(
+                  replaceInvocation(
+                      tree,
+                      "switchIfEmpty",
+                      argument,
+                      String.format("%s.fromSupplier(%s)", mono, supplier),
+                      state))
+              .build());
+    }
+
+    return Optional.empty();
+  }
+
+  private static SuggestedFix replaceInvocation(
+      MethodInvocationTree tree,
+      String methodName,
+      ExpressionTree argument,
+      String replacement,
+      VisitorState state) {
+    return SuggestedFix.builder()
+        .merge(SuggestedFixes.renameMethodInvocation(tree, methodName, state))
+        .replace(argument, replacement)
+        .build();
+  }
+
+  /**
+   * Replaces the given {@link String#format(String, Object...)} invocation with its arguments, such
+   * that Guava's {@code Preconditions} performs the formatting only if the check fails.
+   *
+   * <p>As Guava supports only the {@code %s} conversion, no fix is suggested for format strings
+   * that contain any other conversion.
+   */
+  private static Optional<SuggestedFix> inlineFormatArguments(
+      MethodInvocationTree format, VisitorState state) {
+    List<? extends ExpressionTree> arguments = format.getArguments();
+    String template = ASTHelpers.constValue(arguments.get(0), String.class);
+    if (template == null
+        || GUAVA_COMPATIBLE_FORMAT_CONVERSION.matcher(template).replaceAll("").indexOf('%') >= 0) {
+      return Optional.empty();
+    }
+
+    return Optional.of(
+        SuggestedFix.replace(
+            format,
+            arguments.stream()
+                .map(argument -> SourceCode.treeToString(argument, state))
+                .collect(joining(", "))));
+  }
+
+  private static Matcher<ExpressionTree> createConditionallyUsedArgumentMethodMatcher(
+      ErrorProneFlags flags) {
+    return flags
+        .getList(EXTRA_CONDITIONALLY_USED_ARGUMENT_METHODS_FLAG)
+        .map(new MethodMatcherFactory()::create)
+        .map(m -> anyOf(WELL_KNOWN_CONDITIONALLY_USED_ARGUMENT_METHODS, m))
+        .orElse(WELL_KNOWN_CONDITIONALLY_USED_ARGUMENT_METHODS);
+  }
+}
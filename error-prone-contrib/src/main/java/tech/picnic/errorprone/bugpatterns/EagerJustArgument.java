@@ -0,0 +1,222 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.errorprone.BugPattern.LinkType.CUSTOM;
+import static com.google.errorprone.BugPattern.SeverityLevel.SUGGESTION;
+import static com.google.errorprone.BugPattern.StandardTags.PERFORMANCE;
+import static com.google.errorprone.matchers.Matchers.anyOf;
+import static com.google.errorprone.matchers.method.MethodMatchers.staticMethod;
+import static tech.picnic.errorprone.bugpatterns.util.Documentation.BUG_PATTERNS_BASE_URL;
+
+import com.google.auto.service.AutoService;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.fixes.SuggestedFix;
+import com.google.errorprone.fixes.SuggestedFixes;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.suppliers.Supplier;
+import com.google.errorprone.suppliers.Suppliers;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.CatchTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.TryTree;
+import com.sun.source.util.TreePath;
+import com.sun.tools.javac.code.Symbol.MethodSymbol;
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.code.Type.UnionClassType;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tech.picnic.errorprone.bugpatterns.util.MoreASTHelpers;
+import tech.picnic.errorprone.bugpatterns.util.SourceCode;
+
+/**
+ * A {@link BugChecker} that flags {@link Mono#just(Object)}, {@link Mono#justOrEmpty(Object)} and
+ * {@link Flux#just(Object[])} invocations with computed arguments, in methods that return a {@code
+ * Publisher}.
+ *
+ * <p>The arguments of such invocations are computed at assembly time, i.e. when the method is
+ * invoked. This happens on the caller's thread rather than on the scheduler of the subscriber, and
+ * happens even if the resulting publisher is never subscribed to. Conversely, the computation is
+ * not repeated when the publisher is subscribed to more than once. The computation can instead be
+ * deferred until subscription time:
+ *
+ * <ul>
+ *   <li>{@code Mono.just(compute())} and {@code Mono.justOrEmpty(compute())} become {@code
+ *       Mono.fromSupplier(() -> compute())} or, if the computation may throw a checked exception,
+ *       {@link Mono#fromCallable(Callable)};
+ *   <li>{@code Mono.justOrEmpty(computeOptional())} becomes {@code Mono.defer(() ->
+ *       Mono.justOrEmpty(computeOptional()))};
+ *   <li>{@code Flux.just(compute(), ...)} becomes {@code Flux.defer(() -> Flux.just(compute(),
+ *       ...))}.
+ * </ul>
+ *
+ * <p>Invocations inside lambda expressions are not flagged, as these generally already execute at
+ * subscription time. No fix is suggested for invocations inside a {@code try} block whose {@code
+ * catch} clauses may handle exceptions thrown by the computation, or which has a {@code finally}
+ * block, as deferring the computation would move it out of the {@code try} statement.
+ */
+// XXX: `Mono.just(null)` throws a `NullPointerException`, while a `Mono.fromSupplier` supplier that
+// yields `null` causes the resulting `Mono` to complete empty. Consider suggesting `Mono.defer`
+// instead in cases where the computed value may be `null`.
+@AutoService(BugChecker.class)
+@BugPattern(
+    summary = "Publisher values should be computed at subscription time rather than assembly time",
+    link = BUG_PATTERNS_BASE_URL + "EagerJustArgument",
+    linkType = CUSTOM,
+    severity = SUGGESTION,
+    tags = PERFORMANCE)
+public final class EagerJustArgument extends BugChecker implements MethodInvocationTreeMatcher {
+  private static final long serialVersionUID = 1L;
+  private static final Supplier<Type> PUBLISHER =
+      Suppliers.typeFromString("org.reactivestreams.Publisher");
+  private static final Matcher<ExpressionTree> MONO_JUST_OPTIONAL =
+      staticMethod()
+          .onClass("reactor.core.publisher.Mono")
+          .named("justOrEmpty")
+          .withParameters(Optional.class.getName());
+  private static final Matcher<ExpressionTree> MONO_JUST =
+      staticMethod().onClass("reactor.core.publisher.Mono").namedAnyOf("just", "justOrEmpty");
+  private static final Matcher<ExpressionTree> JUST =
+      anyOf(MONO_JUST, staticMethod().onClass("reactor.core.publisher.Flux").named("just"));
+
+  /** Instantiates a new {@link EagerJustArgument} instance. */
+  public EagerJustArgument() {}
+
+  @Override
+  public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+    if (!JUST.matches(tree, state)
+        || tree.getArguments().stream().noneMatch(MoreASTHelpers::isNonTrivialComputation)
+        || !isAssembledByEnclosingMethod(state)) {
+      return Description.NO_MATCH;
+    }
+
+    Description.Builder description = buildDescription(tree);
+    getDeferral(tree, state).ifPresent(description::addFix);
+    return description.build();
+  }
+
+  private static Optional<SuggestedFix> getDeferral(MethodInvocationTree tree, VisitorState state) {
+    if (!tree.getArguments().stream().allMatch(MoreASTHelpers::referencesOnlyEffectivelyFinalLocals)
+        || isGuardedByEnclosingTry(tree.getArguments(), state)) {
+      return Optional.empty();
+    }
+
+    SuggestedFix.Builder fix = SuggestedFix.builder();
+    if (MONO_JUST.matches(tree, state) && !MONO_JUST_OPTIONAL.matches(tree, state)) {
+      ExpressionTree value = Iterables.getOnlyElement(tree.getArguments());
+      String factory =
+          MoreASTHelpers.throwsCheckedException(value, state) ? "fromCallable" : "fromSupplier";
+      return Optional.of(
+          fix.replace(
+                  tree,
+                  String.format(
+                      "%s.%s(() -> %s)",
+                      SuggestedFixes.qualifyType(state, fix, "reactor.core.publisher.Mono"),
+                      factory,
+                      SourceCode.treeToString(value, state)))
+              .build());
+    }
+
+    if (tree.getArguments().stream()
+        .anyMatch(argument -> MoreASTHelpers.throwsCheckedException(argument, state))) {
+      return Optional.empty();
+    }
+
+    String publisherType = ASTHelpers.getSymbol(tree).owner.getQualifiedName().toString();
+    return Optional.of(
+        fix.replace(
+                tree,
+                String.format(
+                    "%s.defer(() -> %s)",
+                    SuggestedFixes.qualifyType(state, fix, publisherType),
+                    SourceCode.treeToString(tree, state)))
+            .build());
+  }
+
+  /**
+   * Tells whether the current tree is part of a {@code try} block with a {@code finally} block, or
+   * with a {@code catch} clause that may handle exceptions thrown by the given arguments.
+   */
+  private static boolean isGuardedByEnclosingTry(
+      List<? extends ExpressionTree> arguments, VisitorState state) {
+    for (TreePath path = state.getPath();
+        path.getParentPath() != null;
+        path = path.getParentPath()) {
+      Tree parent = path.getParentPath().getLeaf();
+      if (parent instanceof MethodTree
+          || parent instanceof LambdaExpressionTree
+          || parent instanceof ClassTree) {
+        return false;
+      }
+
+      if (parent instanceof TryTree
+          && path.getLeaf().equals(((TryTree) parent).getBlock())
+          && (((TryTree) parent).getFinallyBlock() != null
+              || handlesExceptions(((TryTree) parent).getCatches(), arguments, state))) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private static boolean handlesExceptions(
+      List<? extends CatchTree> catches,
+      List<? extends ExpressionTree> arguments,
+      VisitorState state) {
+    ImmutableList<Type> thrownTypes =
+        Stream.concat(
+                Stream.of(state.getSymtab().runtimeExceptionType, state.getSymtab().errorType),
+                arguments.stream()
+                    .flatMap(argument -> ASTHelpers.getThrownExceptions(argument, state).stream()))
+            .collect(toImmutableList());
+    return catches.stream()
+        .flatMap(catchTree -> getCaughtTypes(catchTree).stream())
+        .anyMatch(
+            caught ->
+                thrownTypes.stream()
+                    .anyMatch(
+                        thrown ->
+                            ASTHelpers.isSubtype(thrown, caught, state)
+                                || ASTHelpers.isSubtype(caught, thrown, state)));
+  }
+
+  private static List<? extends Type> getCaughtTypes(CatchTree catchTree) {
+    Type type = ASTHelpers.getType(catchTree.getParameter());
+    if (type instanceof UnionClassType) {
+      return ImmutableList.copyOf(((UnionClassType) type).getAlternativeTypes());
+    }
+
+    return type == null ? ImmutableList.of() : ImmutableList.of(type);
+  }
+
+  /**
+   * Tells whether the current tree is evaluated directly by a method that returns a {@code
+   * Publisher}, rather than by a lambda expression or a nested class.
+   */
+  private static boolean isAssembledByEnclosingMethod(VisitorState state) {
+    Tree enclosing =
+        state.findEnclosing(LambdaExpressionTree.class, ClassTree.class, MethodTree.class);
+    if (!(enclosing instanceof MethodTree)) {
+      return false;
+    }
+
+    MethodSymbol method = ASTHelpers.getSymbol((MethodTree) enclosing);
+    Type publisher = PUBLISHER.get(state);
+    return publisher != null && ASTHelpers.isSubtype(method.getReturnType(), publisher, state);
+  }
+}
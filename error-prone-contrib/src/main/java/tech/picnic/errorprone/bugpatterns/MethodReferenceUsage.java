@@ -10,6 +10,7 @@ import com.google.auto.service.AutoService;
 import com.google.common.base.VerifyException;
 import com.google.common.collect.ImmutableList;
 import com.google.errorprone.BugPattern;
+import com.google.errorprone.ErrorProneFlags;
 import com.google.errorprone.VisitorState;
 import com.google.errorprone.bugpatterns.BugChecker;
 import com.google.errorprone.bugpatterns.BugChecker.LambdaExpressionTreeMatcher;
@@ -34,9 +35,15 @@ import com.sun.tools.javac.code.Type;
 import java.util.List;
 import java.util.Optional;
 import javax.lang.model.element.Name;
+import tech.picnic.errorprone.bugpatterns.util.CostTiers;
+import tech.picnic.errorprone.refaster.annotation.CostTier;
 
 /**
  * A {@link BugChecker} that flags lambda expressions that can be replaced with method references.
+ *
+ * <p>This check is part of the {@link CostTier.Tier#EXPENSIVE expensive} {@link CostTier cost
+ * tier}; as such it is disabled if {@code -XepOpt:ErrorProneSupport:CheapChecksOnly=true} is
+ * passed.
  */
 // XXX: Other custom expressions we could rewrite:
 // - `a -> "str" + a` to `"str"::concat`. But only if `str` is provably non-null.
@@ -56,15 +63,32 @@ import javax.lang.model.element.Name;
     link = BUG_PATTERNS_BASE_URL + "MethodReferenceUsage",
     linkType = CUSTOM,
     severity = SUGGESTION,
-    tags = STYLE)
+    tags = {STYLE, CostTier.EXPENSIVE_TAG})
 public final class MethodReferenceUsage extends BugChecker implements LambdaExpressionTreeMatcher {
   private static final long serialVersionUID = 1L;
 
-  /** Instantiates a new {@link MethodReferenceUsage} instance. */
-  public MethodReferenceUsage() {}
+  private final boolean enabled;
+
+  /** Instantiates a default {@link MethodReferenceUsage} instance. */
+  public MethodReferenceUsage() {
+    this(ErrorProneFlags.empty());
+  }
+
+  /**
+   * Instantiates a customized {@link MethodReferenceUsage}.
+   *
+   * @param flags Any provided command line flags.
+   */
+  public MethodReferenceUsage(ErrorProneFlags flags) {
+    enabled = CostTiers.isEnabled(MethodReferenceUsage.class, flags);
+  }
 
   @Override
   public Description matchLambdaExpression(LambdaExpressionTree tree, VisitorState state) {
+    if (!enabled) {
+      return Description.NO_MATCH;
+    }
+
     /*
      * Lambda expressions can be used in several places where method references cannot, either
      * because the latter are not syntactically valid or ambiguous. Rather than encoding all these
@@ -0,0 +1,128 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import static com.google.errorprone.BugPattern.LinkType.CUSTOM;
+import static com.google.errorprone.BugPattern.SeverityLevel.SUGGESTION;
+import static com.google.errorprone.BugPattern.StandardTags.PERFORMANCE;
+import static com.google.errorprone.matchers.method.MethodMatchers.instanceMethod;
+import static tech.picnic.errorprone.bugpatterns.util.Documentation.BUG_PATTERNS_BASE_URL;
+
+import com.google.auto.service.AutoService;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.fixes.SuggestedFix;
+import com.google.errorprone.fixes.SuggestedFixes;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.MemberReferenceTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.MethodSymbol;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * A {@link BugChecker} that flags {@link Stream#map(Function)} operations that box their result,
+ * only for the subsequent operation to unbox it again.
+ *
+ * <p>Expressions such as {@code stream.map(String::length).mapToInt(Integer::intValue)} allocate a
+ * wrapper object per element. The mapping function can instead be passed to {@link
+ * Stream#mapToInt(java.util.function.ToIntFunction)}, {@link
+ * Stream#mapToLong(java.util.function.ToLongFunction)} or {@link
+ * Stream#mapToDouble(java.util.function.ToDoubleFunction)} directly. Together with the rules in
+ * {@code PrimitiveStreamSpecializationRules}, which introduce such unboxing operations, this check
+ * moves boxed {@link Stream} pipelines to their primitive specializations.
+ *
+ * <p>Only lambda expressions and method references are fused, as only these can be retargeted to a
+ * different functional interface.
+ */
+@AutoService(BugChecker.class)
+@BugPattern(
+    summary = "Map stream elements to primitives directly, rather than boxing and unboxing them",
+    link = BUG_PATTERNS_BASE_URL + "PrimitiveStreamSpecialization",
+    linkType = CUSTOM,
+    severity = SUGGESTION,
+    tags = PERFORMANCE)
+public final class PrimitiveStreamSpecialization extends BugChecker
+    implements MethodInvocationTreeMatcher {
+  private static final long serialVersionUID = 1L;
+  /** The names of the methods that unbox a wrapper type, by wrapper type. */
+  private static final ImmutableMap<String, String> UNBOXING_METHODS_BY_WRAPPER_TYPE =
+      ImmutableMap.of(
+          Integer.class.getName(), "intValue",
+          Long.class.getName(), "longValue",
+          Double.class.getName(), "doubleValue");
+
+  private static final Matcher<ExpressionTree> STREAM_MAP_TO_PRIMITIVE =
+      instanceMethod()
+          .onDescendantOf(Stream.class.getName())
+          .namedAnyOf("mapToInt", "mapToLong", "mapToDouble");
+  private static final Matcher<ExpressionTree> STREAM_MAP =
+      instanceMethod().onDescendantOf(Stream.class.getName()).named("map");
+
+  /** Instantiates a new {@link PrimitiveStreamSpecialization} instance. */
+  public PrimitiveStreamSpecialization() {}
+
+  @Override
+  public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+    if (!STREAM_MAP_TO_PRIMITIVE.matches(tree, state)
+        || !isUnboxingFunction(Iterables.getOnlyElement(tree.getArguments()))) {
+      return Description.NO_MATCH;
+    }
+
+    ExpressionTree receiver = ASTHelpers.getReceiver(tree);
+    if (!(receiver instanceof MethodInvocationTree) || !STREAM_MAP.matches(receiver, state)) {
+      return Description.NO_MATCH;
+    }
+
+    MethodInvocationTree mapInvocation = (MethodInvocationTree) receiver;
+    ExpressionTree mapper = Iterables.getOnlyElement(mapInvocation.getArguments());
+    if (!mapInvocation.getTypeArguments().isEmpty()
+        || !(mapper instanceof LambdaExpressionTree || mapper instanceof MemberReferenceTree)) {
+      return Description.NO_MATCH;
+    }
+
+    return describeMatch(
+        tree,
+        SuggestedFix.builder()
+            .merge(
+                SuggestedFixes.renameMethodInvocation(
+                    mapInvocation, ASTHelpers.getSymbol(tree).getSimpleName().toString(), state))
+            .replace(state.getEndPosition(mapInvocation), state.getEndPosition(tree), "")
+            .build());
+  }
+
+  /**
+   * Tells whether the given function merely unboxes its argument, i.e. whether it is a method
+   * reference such as {@code Integer::intValue} or an identity lambda expression.
+   */
+  private static boolean isUnboxingFunction(ExpressionTree tree) {
+    if (tree instanceof LambdaExpressionTree) {
+      LambdaExpressionTree lambda = (LambdaExpressionTree) tree;
+      return lambda.getParameters().size() == 1
+          && lambda.getBody() instanceof IdentifierTree
+          && ASTHelpers.getSymbol(lambda.getParameters().get(0))
+              .equals(ASTHelpers.getSymbol(lambda.getBody()));
+    }
+
+    if (!(tree instanceof MemberReferenceTree)) {
+      return false;
+    }
+
+    Symbol symbol = ASTHelpers.getSymbol(tree);
+    return symbol instanceof MethodSymbol
+        && !ASTHelpers.isStatic(symbol)
+        && symbol
+            .getSimpleName()
+            .contentEquals(
+                UNBOXING_METHODS_BY_WRAPPER_TYPE.getOrDefault(
+                    symbol.owner.getQualifiedName().toString(), ""));
+  }
+}
@@ -0,0 +1,565 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import static com.google.errorprone.BugPattern.LinkType.CUSTOM;
+import static com.google.errorprone.BugPattern.SeverityLevel.SUGGESTION;
+import static com.google.errorprone.BugPattern.StandardTags.PERFORMANCE;
+import static com.google.errorprone.matchers.Matchers.isSubtypeOf;
+import static com.google.errorprone.matchers.method.MethodMatchers.instanceMethod;
+import static java.util.Objects.requireNonNull;
+import static tech.picnic.errorprone.bugpatterns.util.Documentation.BUG_PATTERNS_BASE_URL;
+
+import com.google.auto.service.AutoService;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MemberReferenceTreeMatcher;
+import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.fixes.SuggestedFix;
+import com.google.errorprone.fixes.SuggestedFixes;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.util.ASTHelpers;
+import com.google.errorprone.util.FindIdentifiers;
+import com.sun.source.tree.AssignmentTree;
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.DoWhileLoopTree;
+import com.sun.source.tree.EnhancedForLoopTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.ForLoopTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.MemberReferenceTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.StatementTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.tree.WhileLoopTree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreeScanner;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import com.sun.tools.javac.code.Symbol.MethodSymbol;
+import com.sun.tools.javac.code.Symbol.VarSymbol;
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.code.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.BaseStream;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.type.TypeKind;
+import org.jspecify.nullness.Nullable;
+import tech.picnic.errorprone.bugpatterns.util.ClaimedNames;
+import tech.picnic.errorprone.bugpatterns.util.SourceCode;
+
+/**
+ * A {@link BugChecker} that flags linear-time membership tests against {@link List}s that are
+ * performed once per element of some other collection.
+ *
+ * <p>{@link List#contains(Object)}, {@link List#indexOf(Object)} and {@link
+ * List#lastIndexOf(Object)} traverse the list. Invoked inside a loop or a lambda expression passed
+ * to a {@link java.util.stream.Stream} operation, the total cost is quadratic. If the list is not
+ * modified in the loop, then it is cheaper to copy it into a {@link HashSet} once, ahead of the
+ * loop. Likewise, {@link Collection#removeAll(Collection)} and {@link
+ * Collection#retainAll(Collection)} test each element for membership in their argument, and should
+ * thus not repeatedly be passed a {@link List}.
+ *
+ * <p>A fix is suggested only if the list's element type has consistent {@link
+ * Object#equals(Object)} and {@link Object#hashCode()} implementations. No fix is suggested for
+ * {@link List#indexOf(Object)} and {@link List#lastIndexOf(Object)}, nor for lookups in a stream
+ * pipeline that is not consumed by a terminal operation in the same statement: such lookups may be
+ * evaluated only after the list is modified.
+ */
+@AutoService(BugChecker.class)
+@BugPattern(
+    summary = "Repeated membership tests against a `List` take quadratic time; prefer a `Set`",
+    link = BUG_PATTERNS_BASE_URL + "QuadraticListMembership",
+    linkType = CUSTOM,
+    severity = SUGGESTION,
+    tags = PERFORMANCE)
+public final class QuadraticListMembership extends BugChecker
+    implements MethodInvocationTreeMatcher, MemberReferenceTreeMatcher {
+  private static final long serialVersionUID = 1L;
+  private static final Matcher<ExpressionTree> LIST_CONTAINS =
+      instanceMethod()
+          .onDescendantOf(List.class.getName())
+          .named("contains")
+          .withParameters(Object.class.getName());
+  private static final Matcher<ExpressionTree> LIST_LOOKUP =
+      instanceMethod()
+          .onDescendantOf(List.class.getName())
+          .namedAnyOf("contains", "indexOf", "lastIndexOf")
+          .withParameters(Object.class.getName());
+  private static final Matcher<ExpressionTree> BULK_MEMBERSHIP_TEST =
+      instanceMethod()
+          .onDescendantOf(Collection.class.getName())
+          .namedAnyOf("removeAll", "retainAll")
+          .withParameters(Collection.class.getName());
+  private static final Matcher<ExpressionTree> STREAM_OPERATION =
+      instanceMethod().onDescendantOf(BaseStream.class.getName());
+  private static final Matcher<ExpressionTree> STREAM = isSubtypeOf(BaseStream.class);
+  private static final Matcher<ExpressionTree> LIST = isSubtypeOf(List.class);
+  private static final ImmutableSet<String> LAZY_TERMINAL_OPERATIONS =
+      ImmutableSet.of("iterator", "spliterator");
+  private static final ImmutableSet<String> MUTATING_METHODS =
+      ImmutableSet.of(
+          "add",
+          "addAll",
+          "clear",
+          "remove",
+          "removeAll",
+          "removeIf",
+          "replaceAll",
+          "retainAll",
+          "set",
+          "sort");
+
+  /** Instantiates a new {@link QuadraticListMembership} instance. */
+  public QuadraticListMembership() {}
+
+  @Override
+  public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+    if (BULK_MEMBERSHIP_TEST.matches(tree, state)) {
+      return matchBulkMembershipTest(tree, state);
+    }
+
+    if (!LIST_LOOKUP.matches(tree, state)) {
+      return Description.NO_MATCH;
+    }
+
+    return matchLookup(tree, ASTHelpers.getReceiver(tree), state);
+  }
+
+  @Override
+  public Description matchMemberReference(MemberReferenceTree tree, VisitorState state) {
+    if (!LIST_LOOKUP.matches(tree, state)) {
+      return Description.NO_MATCH;
+    }
+
+    return matchLookup(tree, tree.getQualifierExpression(), state);
+  }
+
+  private Description matchBulkMembershipTest(MethodInvocationTree tree, VisitorState state) {
+    ExpressionTree argument = tree.getArguments().get(0);
+    if (!LIST.matches(argument, state) || getRepetitions(t -> false, state).isEmpty()) {
+      return Description.NO_MATCH;
+    }
+
+    Optional<Type> elementType = getElementType(argument, state);
+    if (elementType.isEmpty() || !hasConsistentHashing(elementType.orElseThrow(), state)) {
+      return describeMatch(tree);
+    }
+
+    SuggestedFix.Builder fix = SuggestedFix.builder();
+    fix.replace(
+        argument,
+        String.format(
+            "new %s<>(%s)",
+            SuggestedFixes.qualifyType(state, fix, HashSet.class.getName()),
+            SourceCode.treeToString(argument, state)));
+    return describeMatch(tree, fix.build());
+  }
+
+  private Description matchLookup(
+      ExpressionTree tree, @Nullable ExpressionTree receiver, VisitorState state) {
+    VarSymbol list = getVariable(receiver);
+    if (list == null) {
+      return Description.NO_MATCH;
+    }
+
+    ImmutableList<TreePath> repetitions =
+        getRepetitions(t -> isDeclaredIn(t, list, state) || isModifiedIn(t, list), state);
+    if (repetitions.isEmpty()) {
+      return Description.NO_MATCH;
+    }
+
+    TreePath repetition = repetitions.get(repetitions.size() - 1);
+    ImmutableList<ExpressionTree> containsInvocations =
+        getContainsInvocations(repetition.getLeaf(), list, state);
+    if (!LIST_CONTAINS.matches(tree, state)
+        || !isHoistable(repetition, containsInvocations, state)) {
+      return describeMatch(tree);
+    }
+
+    if (!containsInvocations.get(0).equals(tree)) {
+      /* The fix suggested for the first invocation covers this invocation as well. */
+      return Description.NO_MATCH;
+    }
+
+    return describeMatch(tree, hoistIntoSet(repetition, list, containsInvocations, state));
+  }
+
+  /**
+   * Returns the loops, and lambda expressions and method references passed to stream operations,
+   * that enclose the current context, from innermost to outermost, up to but excluding the first
+   * one that matches the given predicate.
+   */
+  private static ImmutableList<TreePath> getRepetitions(
+      Predicate<Tree> isBoundary, VisitorState state) {
+    ImmutableList.Builder<TreePath> repetitions = ImmutableList.builder();
+    for (TreePath path = state.getPath();
+        path.getParentPath() != null;
+        path = path.getParentPath()) {
+      Tree child = path.getLeaf();
+      Tree parent = path.getParentPath().getLeaf();
+      if (parent instanceof MethodTree || parent instanceof ClassTree) {
+        break;
+      }
+
+      Optional<TreePath> candidate = getRepetition(path, state);
+      if (candidate.isPresent()) {
+        if (isBoundary.test(candidate.orElseThrow().getLeaf())) {
+          break;
+        }
+        repetitions.add(candidate.orElseThrow());
+      } else if (child instanceof LambdaExpressionTree || child instanceof MemberReferenceTree) {
+        /* Other functional expressions may be evaluated any number of times, including never. */
+        break;
+      }
+    }
+
+    return repetitions.build();
+  }
+
+  private static Optional<TreePath> getRepetition(TreePath path, VisitorState state) {
+    Tree child = path.getLeaf();
+    Tree parent = path.getParentPath().getLeaf();
+    if ((child instanceof LambdaExpressionTree || child instanceof MemberReferenceTree)
+        && parent instanceof MethodInvocationTree
+        && STREAM_OPERATION.matches((MethodInvocationTree) parent, state)) {
+      return Optional.of(path);
+    }
+
+    boolean isRepeated =
+        (parent instanceof ForLoopTree && !((ForLoopTree) parent).getInitializer().contains(child))
+            || (parent instanceof EnhancedForLoopTree
+                && child.equals(((EnhancedForLoopTree) parent).getStatement()))
+            || parent instanceof WhileLoopTree
+            || parent instanceof DoWhileLoopTree;
+    return isRepeated ? Optional.of(path.getParentPath()) : Optional.empty();
+  }
+
+  /**
+   * Tells whether the list on which the given {@link List#contains(Object)} invocations are
+   * performed can be copied into a {@link HashSet} ahead of the given repeatedly evaluated code.
+   *
+   * <p>This requires that the list's element type has consistent hashing, that the repeated code is
+   * part of a statement ahead of which another statement can be inserted, and that all invocations
+   * are evaluated before that statement completes, such that the list cannot be modified in the
+   * meantime.
+   */
+  private static boolean isHoistable(
+      TreePath repetition, ImmutableList<ExpressionTree> containsInvocations, VisitorState state) {
+    return getElementType(getListReference(containsInvocations.get(0)), state)
+            .filter(type -> hasConsistentHashing(type, state))
+            .isPresent()
+        && getEnclosingStatement(repetition).isPresent()
+        && containsInvocations.stream()
+            .allMatch(invocation -> isEagerlyEvaluatedIn(repetition, invocation, state));
+  }
+
+  /**
+   * Tells whether the given tree is evaluated as part of each evaluation of the given repeated
+   * code, rather than by a functional expression that may be evaluated later, if at all.
+   */
+  private static boolean isEagerlyEvaluatedIn(TreePath repetition, Tree tree, VisitorState state) {
+    return Stream.iterate(
+            requireNonNull(TreePath.getPath(repetition, tree), "Path"),
+            path -> path != null && !path.equals(repetition.getParentPath()),
+            TreePath::getParentPath)
+        .filter(
+            path ->
+                path.getLeaf() instanceof LambdaExpressionTree
+                    || path.getLeaf() instanceof MemberReferenceTree)
+        .allMatch(path -> isEagerlyEvaluatedStreamOperationArgument(path, state));
+  }
+
+  /**
+   * Tells whether the functional expression at the given path is passed to an operation of a stream
+   * pipeline that is consumed by a terminal operation as part of the same expression.
+   */
+  private static boolean isEagerlyEvaluatedStreamOperationArgument(
+      TreePath path, VisitorState state) {
+    Tree parent = path.getParentPath().getLeaf();
+    return parent instanceof MethodInvocationTree
+        && STREAM_OPERATION.matches((MethodInvocationTree) parent, state)
+        && isConsumedEagerly(path.getParentPath(), state);
+  }
+
+  /**
+   * Tells whether the result of the stream operation at the given path is, possibly after applying
+   * further intermediate operations, consumed by a terminal operation other than {@link
+   * BaseStream#iterator()} and {@link BaseStream#spliterator()}.
+   */
+  private static boolean isConsumedEagerly(TreePath operation, VisitorState state) {
+    MethodInvocationTree invocation = (MethodInvocationTree) operation.getLeaf();
+    if (!STREAM.matches(invocation, state)) {
+      return !LAZY_TERMINAL_OPERATIONS.contains(
+          ASTHelpers.getSymbol(invocation).getSimpleName().toString());
+    }
+
+    TreePath select = operation.getParentPath();
+    TreePath next = select.getParentPath();
+    return select.getLeaf() instanceof MemberSelectTree
+        && next.getLeaf() instanceof MethodInvocationTree
+        && ((MethodInvocationTree) next.getLeaf()).getMethodSelect().equals(select.getLeaf())
+        && STREAM_OPERATION.matches((MethodInvocationTree) next.getLeaf(), state)
+        && isConsumedEagerly(next, state);
+  }
+
+  /**
+   * Returns a fix that copies the given list into a {@link HashSet} ahead of the given repeatedly
+   * evaluated code, and that replaces the given {@link List#contains(Object)} invocations with
+   * lookups in this set.
+   *
+   * <p>This method assumes that the list is {@link #isHoistable(TreePath, ImmutableList,
+   * VisitorState) hoistable}.
+   */
+  private static SuggestedFix hoistIntoSet(
+      TreePath repetition,
+      VarSymbol list,
+      ImmutableList<ExpressionTree> containsInvocations,
+      VisitorState state) {
+    ExpressionTree listReference = getListReference(containsInvocations.get(0));
+    SuggestedFix.Builder fix = SuggestedFix.builder();
+    String name = getSetName(list, state);
+    fix.prefixWith(
+        getEnclosingStatement(repetition).orElseThrow(),
+        String.format(
+            "%s<%s> %s = new %s<>(%s);\n",
+            SuggestedFixes.qualifyType(state, fix, Set.class.getName()),
+            SuggestedFixes.prettyType(
+                state, fix, getElementType(listReference, state).orElseThrow()),
+            name,
+            SuggestedFixes.qualifyType(state, fix, HashSet.class.getName()),
+            SourceCode.treeToString(listReference, state)));
+    for (ExpressionTree invocation : containsInvocations) {
+      fix.replace(getListReference(invocation), name);
+    }
+    return fix.build();
+  }
+
+  private static ExpressionTree getListReference(ExpressionTree containsInvocation) {
+    return containsInvocation instanceof MemberReferenceTree
+        ? ((MemberReferenceTree) containsInvocation).getQualifierExpression()
+        : requireNonNull(ASTHelpers.getReceiver(containsInvocation), "Receiver");
+  }
+
+  /**
+   * Returns the {@link List#contains(Object)} invocations and method references on the given list
+   * inside the given tree, in source order.
+   */
+  private static ImmutableList<ExpressionTree> getContainsInvocations(
+      Tree tree, VarSymbol list, VisitorState state) {
+    List<ExpressionTree> invocations = new ArrayList<>();
+    new TreeScanner<@Nullable Void, @Nullable Void>() {
+      @Override
+      public @Nullable Void visitMethodInvocation(
+          MethodInvocationTree node, @Nullable Void unused) {
+        if (LIST_CONTAINS.matches(node, state)
+            && list.equals(getVariable(ASTHelpers.getReceiver(node)))) {
+          invocations.add(node);
+        }
+        return super.visitMethodInvocation(node, unused);
+      }
+
+      @Override
+      public @Nullable Void visitMemberReference(MemberReferenceTree node, @Nullable Void unused) {
+        if (LIST_CONTAINS.matches(node, state)
+            && list.equals(getVariable(node.getQualifierExpression()))) {
+          invocations.add(node);
+        }
+        return super.visitMemberReference(node, unused);
+      }
+    }.scan(tree, null);
+    return ImmutableList.copyOf(invocations);
+  }
+
+  /**
+   * Returns the variable referenced by the given expression, if it is a (possibly qualified)
+   * reference to a local variable, parameter or field.
+   */
+  private static @Nullable VarSymbol getVariable(@Nullable ExpressionTree tree) {
+    if (!(tree instanceof IdentifierTree || tree instanceof MemberSelectTree)) {
+      return null;
+    }
+
+    Symbol symbol = ASTHelpers.getSymbol(tree);
+    return symbol instanceof VarSymbol ? (VarSymbol) symbol : null;
+  }
+
+  private static boolean isDeclaredIn(Tree tree, VarSymbol variable, VisitorState state) {
+    if (variable.getKind() == ElementKind.FIELD) {
+      return false;
+    }
+
+    int position = variable.pos;
+    return ASTHelpers.getStartPosition(tree) <= position && position < state.getEndPosition(tree);
+  }
+
+  /** Tells whether the given tree mutates or reassigns the given variable. */
+  private static boolean isModifiedIn(Tree tree, VarSymbol variable) {
+    return Boolean.TRUE.equals(
+        new TreeScanner<@Nullable Boolean, @Nullable Void>() {
+          @Override
+          public @Nullable Boolean visitAssignment(AssignmentTree node, @Nullable Void unused) {
+            return variable.equals(ASTHelpers.getSymbol(node.getVariable()))
+                || Boolean.TRUE.equals(super.visitAssignment(node, unused));
+          }
+
+          @Override
+          public @Nullable Boolean visitMethodInvocation(
+              MethodInvocationTree node, @Nullable Void unused) {
+            return isMutation(node, ASTHelpers.getReceiver(node))
+                || Boolean.TRUE.equals(super.visitMethodInvocation(node, unused));
+          }
+
+          @Override
+          public @Nullable Boolean visitMemberReference(
+              MemberReferenceTree node, @Nullable Void unused) {
+            return isMutation(node, node.getQualifierExpression())
+                || Boolean.TRUE.equals(super.visitMemberReference(node, unused));
+          }
+
+          private boolean isMutation(ExpressionTree node, @Nullable ExpressionTree receiver) {
+            Symbol symbol = ASTHelpers.getSymbol(node);
+            return symbol != null
+                && MUTATING_METHODS.contains(symbol.getSimpleName().toString())
+                && variable.equals(getVariable(receiver));
+          }
+
+          @Override
+          public @Nullable Boolean reduce(@Nullable Boolean r1, @Nullable Boolean r2) {
+            return Boolean.TRUE.equals(r1) || Boolean.TRUE.equals(r2);
+          }
+        }.scan(tree, null));
+  }
+
+  /**
+   * Returns the statement that directly encloses the given tree and that is part of a block, such
+   * that another statement can be inserted ahead of it.
+   */
+  private static Optional<StatementTree> getEnclosingStatement(TreePath path) {
+    for (TreePath current = path;
+        current.getParentPath() != null;
+        current = current.getParentPath()) {
+      Tree parent = current.getParentPath().getLeaf();
+      if (parent instanceof BlockTree) {
+        return current.getLeaf() instanceof StatementTree
+            ? Optional.of((StatementTree) current.getLeaf())
+            : Optional.empty();
+      }
+
+      if (parent instanceof LambdaExpressionTree || parent instanceof MethodTree) {
+        return Optional.empty();
+      }
+    }
+
+    return Optional.empty();
+  }
+
+  /** Returns the (upper bound of the) element type of the given list. */
+  private static Optional<Type> getElementType(ExpressionTree list, VisitorState state) {
+    Types types = state.getTypes();
+    Type type = ASTHelpers.getType(list);
+    Type listType = type == null ? null : types.asSuper(type, state.getSymtab().listType.tsym);
+    if (listType == null || listType.getTypeArguments().size() != 1) {
+      return Optional.empty();
+    }
+
+    Type elementType =
+        types.cvarUpperBound(types.wildUpperBound(listType.getTypeArguments().get(0)));
+    return elementType.getKind() == TypeKind.DECLARED ? Optional.of(elementType) : Optional.empty();
+  }
+
+  /**
+   * Tells whether instances of the given type have {@link Object#equals(Object)} and {@link
+   * Object#hashCode()} implementations that are consistent with each other, i.e. whether the type
+   * is an enum, or a class that overrides either both or neither of these methods.
+   *
+   * <p>Interfaces are rejected, as their implementations may define equality in arbitrary ways.
+   */
+  private static boolean hasConsistentHashing(Type type, VisitorState state) {
+    if (!(type.tsym instanceof ClassSymbol) || type.tsym.isInterface()) {
+      return false;
+    }
+
+    if (type.tsym.getKind() == ElementKind.ENUM) {
+      return true;
+    }
+
+    return overridesObjectMethod(type, "equals", 1, state)
+        == overridesObjectMethod(type, "hashCode", 0, state);
+  }
+
+  private static boolean overridesObjectMethod(
+      Type type, String methodName, int parameterCount, VisitorState state) {
+    Types types = state.getTypes();
+    Type objectType = state.getSymtab().objectType;
+    for (Type current = type;
+        current.tsym instanceof ClassSymbol && !types.isSameType(current, objectType);
+        current = types.supertype(current)) {
+      if (ASTHelpers.scope(current.tsym.members())
+          .anyMatch(
+              s ->
+                  s instanceof MethodSymbol
+                      && s.getSimpleName().contentEquals(methodName)
+                      && ((MethodSymbol) s).getParameters().size() == parameterCount
+                      && !ASTHelpers.isStatic(s))) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Returns a name for a set copy of the given list that neither hides nor clashes with a variable
+   * declared elsewhere in the enclosing method, or by another fix suggested by this check.
+   */
+  private static String getSetName(VarSymbol list, VisitorState state) {
+    String listName = list.getSimpleName().toString();
+    String base =
+        listName.endsWith("List") && listName.length() > "List".length()
+            ? listName.substring(0, listName.length() - "List".length()) + "Set"
+            : listName + "Set";
+    Tree scope = requireNonNull(state.findEnclosing(MethodTree.class, ClassTree.class), "Scope");
+    ImmutableSet<String> declaredNames = getDeclaredNames(scope);
+    Set<String> claimedNames =
+        ClaimedNames.getClaimedNames(requireNonNull(ASTHelpers.getSymbol(scope), "Symbol"), state);
+    String name =
+        Stream.concat(Stream.of(base), IntStream.iterate(2, i -> i + 1).mapToObj(i -> base + i))
+            .filter(
+                n ->
+                    !declaredNames.contains(n)
+                        && !claimedNames.contains(n)
+                        && FindIdentifiers.findIdent(n, state) == null)
+            .findFirst()
+            .orElseThrow();
+    claimedNames.add(name);
+    return name;
+  }
+
+  private static ImmutableSet<String> getDeclaredNames(Tree scope) {
+    ImmutableSet.Builder<String> names = ImmutableSet.builder();
+    new TreeScanner<@Nullable Void, @Nullable Void>() {
+      @Override
+      public @Nullable Void visitVariable(VariableTree node, @Nullable Void unused) {
+        names.add(node.getName().toString());
+        return super.visitVariable(node, unused);
+      }
+    }.scan(scope, null);
+    return names.build();
+  }
+}
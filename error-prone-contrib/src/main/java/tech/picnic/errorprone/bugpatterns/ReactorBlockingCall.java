@@ -0,0 +1,277 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import static com.google.errorprone.BugPattern.LinkType.CUSTOM;
+import static com.google.errorprone.BugPattern.SeverityLevel.WARNING;
+import static com.google.errorprone.BugPattern.StandardTags.PERFORMANCE;
+import static com.google.errorprone.matchers.Matchers.anyOf;
+import static com.google.errorprone.matchers.method.MethodMatchers.instanceMethod;
+import static com.google.errorprone.matchers.method.MethodMatchers.staticMethod;
+import static tech.picnic.errorprone.bugpatterns.util.Documentation.BUG_PATTERNS_BASE_URL;
+
+import com.google.auto.service.AutoService;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.ErrorProneFlags;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MemberReferenceTreeMatcher;
+import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.fixes.SuggestedFix;
+import com.google.errorprone.fixes.SuggestedFixes;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.suppliers.Supplier;
+import com.google.errorprone.suppliers.Suppliers;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.MemberReferenceTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.tools.javac.code.Symbol.MethodSymbol;
+import com.sun.tools.javac.code.Type;
+import java.io.InputStream;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.stream.BaseStream;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tech.picnic.errorprone.bugpatterns.util.MethodMatcherFactory;
+import tech.picnic.errorprone.bugpatterns.util.SourceCode;
+
+/**
+ * A {@link BugChecker} that flags blocking method invocations on threads that execute reactive
+ * pipelines.
+ *
+ * <p>Reactor operators such as {@link Mono#map(java.util.function.Function)} and {@link
+ * Flux#filter(java.util.function.Predicate)} execute their callbacks on the thread that emits the
+ * upstream signal; in a WebFlux application this is generally a Netty event loop thread. Likewise,
+ * methods that return a {@link org.reactivestreams.Publisher} are generally invoked on such a
+ * thread. Blocking operations performed in these contexts starve the event loop, so this check
+ * flags:
+ *
+ * <ul>
+ *   <li>invocations of and method references to well-known blocking methods, such as {@link
+ *       Mono#block()}, {@link Future#get()}, {@link Thread#sleep(long)}, JDBC statement execution
+ *       and {@link InputStream} reads;
+ *   <li>that are part of a lambda expression or method reference passed to an instance method of a
+ *       {@link org.reactivestreams.Publisher}, or that are part of a method returning a {@link
+ *       org.reactivestreams.Publisher}.
+ * </ul>
+ *
+ * <p>Lambda expressions and method references passed to other methods or constructors are not
+ * inspected, as these may be executed on another thread. Examples include {@link
+ * java.util.concurrent.ExecutorService#submit(java.util.concurrent.Callable)} and static Reactor
+ * factory methods such as {@link Mono#fromCallable(java.util.concurrent.Callable)}; the latter are
+ * the preferred means of offloading blocking work using {@code
+ * subscribeOn(Schedulers.boundedElastic())}. Callbacks passed to {@link java.util.stream.Stream}
+ * and {@link Optional} methods are the exception, as these are executed on the calling thread.
+ *
+ * <p>Additional blocking methods can be specified using the {@code
+ * ReactorBlockingCall:ExtraBlockingMethods} flag.
+ */
+// XXX: Callbacks that follow a `publishOn(Schedulers.boundedElastic())` operator may legitimately
+// block. Consider not flagging such cases.
+@AutoService(BugChecker.class)
+@BugPattern(
+    summary =
+        "Avoid blocking calls in reactive pipelines; offload them using "
+            + "`subscribeOn(Schedulers.boundedElastic())` or use a non-blocking alternative",
+    link = BUG_PATTERNS_BASE_URL + "ReactorBlockingCall",
+    linkType = CUSTOM,
+    severity = WARNING,
+    tags = PERFORMANCE)
+public final class ReactorBlockingCall extends BugChecker
+    implements MethodInvocationTreeMatcher, MemberReferenceTreeMatcher {
+  private static final long serialVersionUID = 1L;
+  private static final String FLAG_PREFIX = "ReactorBlockingCall:";
+  private static final String EXTRA_BLOCKING_METHODS_FLAG = FLAG_PREFIX + "ExtraBlockingMethods";
+  private static final Supplier<Type> PUBLISHER =
+      Suppliers.typeFromString("org.reactivestreams.Publisher");
+  private static final Supplier<Type> MONO =
+      Suppliers.typeFromString("reactor.core.publisher.Mono");
+  private static final Supplier<Type> FLUX =
+      Suppliers.typeFromString("reactor.core.publisher.Flux");
+
+  private static final Matcher<ExpressionTree> MONO_BLOCK =
+      instanceMethod().onDescendantOf(MONO).named("block").withNoParameters();
+  private static final Matcher<ExpressionTree> WELL_KNOWN_BLOCKING_METHODS =
+      anyOf(
+          instanceMethod().onDescendantOf(MONO).namedAnyOf("block", "blockOptional"),
+          instanceMethod()
+              .onDescendantOf(FLUX)
+              .namedAnyOf("blockFirst", "blockLast", "toIterable", "toStream"),
+          instanceMethod().onDescendantOf(Future.class.getName()).named("get"),
+          instanceMethod().onDescendantOf(CompletableFuture.class.getName()).named("join"),
+          staticMethod().onClass(Thread.class.getName()).named("sleep"),
+          instanceMethod()
+              .onDescendantOf("java.sql.Statement")
+              .namedAnyOf(
+                  "execute",
+                  "executeBatch",
+                  "executeLargeBatch",
+                  "executeLargeUpdate",
+                  "executeQuery",
+                  "executeUpdate"),
+          instanceMethod().onDescendantOf("java.sql.Connection").namedAnyOf("commit", "rollback"),
+          instanceMethod().onDescendantOf("javax.sql.DataSource").named("getConnection"),
+          instanceMethod()
+              .onDescendantOf(InputStream.class.getName())
+              .namedAnyOf("read", "readAllBytes", "readNBytes", "skip", "transferTo"));
+
+  private static final Matcher<ExpressionTree> PUBLISHER_OPERATOR =
+      instanceMethod().onDescendantOf(PUBLISHER);
+  private static final Matcher<ExpressionTree> SYNCHRONOUS_CALLBACK_METHODS =
+      instanceMethod().onDescendantOfAny(BaseStream.class.getName(), Optional.class.getName());
+  private static final Matcher<ExpressionTree> MONO_MAP =
+      instanceMethod().onDescendantOf(MONO).named("map");
+  private static final Matcher<ExpressionTree> FLUX_MAP =
+      instanceMethod().onDescendantOf(FLUX).named("map");
+
+  private final Matcher<ExpressionTree> blockingMethods;
+
+  /** Instantiates a default {@link ReactorBlockingCall} instance. */
+  public ReactorBlockingCall() {
+    this(ErrorProneFlags.empty());
+  }
+
+  /**
+   * Instantiates a customized {@link ReactorBlockingCall}.
+   *
+   * @param flags Any provided command line flags.
+   */
+  public ReactorBlockingCall(ErrorProneFlags flags) {
+    blockingMethods = createBlockingMethodMatcher(flags);
+  }
+
+  @Override
+  public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+    if (!blockingMethods.matches(tree, state) || !isExecutedOnReactiveThread(state)) {
+      return Description.NO_MATCH;
+    }
+
+    Description.Builder description = buildDescription(tree);
+    getOffloadingFix(tree, state).ifPresent(description::addFix);
+    return description.build();
+  }
+
+  @Override
+  public Description matchMemberReference(MemberReferenceTree tree, VisitorState state) {
+    if (!blockingMethods.matches(tree, state) || !isExecutedOnReactiveThread(state)) {
+      return Description.NO_MATCH;
+    }
+
+    return describeMatch(tree);
+  }
+
+  /**
+   * Tells whether the current tree is evaluated as part of a callback passed to a {@link
+   * org.reactivestreams.Publisher} operator, or as part of a method that returns a {@link
+   * org.reactivestreams.Publisher}.
+   */
+  private static boolean isExecutedOnReactiveThread(VisitorState state) {
+    for (TreePath path = state.getPath();
+        path.getParentPath() != null;
+        path = path.getParentPath()) {
+      Tree tree = path.getLeaf();
+      if (tree instanceof ClassTree) {
+        return false;
+      }
+
+      if (tree instanceof MethodTree) {
+        MethodSymbol method = ASTHelpers.getSymbol((MethodTree) tree);
+        Type publisher = PUBLISHER.get(state);
+        return publisher != null && ASTHelpers.isSubtype(method.getReturnType(), publisher, state);
+      }
+
+      Tree parent = path.getParentPath().getLeaf();
+      if ((tree instanceof LambdaExpressionTree || tree instanceof MemberReferenceTree)
+          && isArgumentOf(parent, tree)) {
+        if (!(parent instanceof MethodInvocationTree)) {
+          return false;
+        }
+
+        VisitorState parentState = state.withPath(path.getParentPath());
+        if (!SYNCHRONOUS_CALLBACK_METHODS.matches((MethodInvocationTree) parent, parentState)) {
+          return PUBLISHER_OPERATOR.matches((MethodInvocationTree) parent, parentState);
+        }
+      }
+    }
+
+    return false;
+  }
+
+  private static boolean isArgumentOf(Tree invocation, Tree argument) {
+    if (invocation instanceof MethodInvocationTree) {
+      return ((MethodInvocationTree) invocation).getArguments().contains(argument);
+    }
+
+    return invocation instanceof NewClassTree
+        && ((NewClassTree) invocation).getArguments().contains(argument);
+  }
+
+  /**
+   * Suggests a non-blocking alternative for the given blocking invocation, in case it constitutes
+   * the body of a lambda expression passed to {@link Mono#map(java.util.function.Function)} or
+   * {@link Flux#map(java.util.function.Function)}.
+   *
+   * <p>The blocking invocation is wrapped in a {@link
+   * Mono#fromCallable(java.util.concurrent.Callable)} that is subscribed to on {@link
+   * reactor.core.scheduler.Schedulers#boundedElastic()}, or, in the case of {@link Mono#block()},
+   * replaced with the blocked-upon {@link Mono}.
+   */
+  private static Optional<SuggestedFix> getOffloadingFix(
+      MethodInvocationTree tree, VisitorState state) {
+    TreePath lambdaPath = state.getPath().getParentPath();
+    Tree lambda = lambdaPath.getLeaf();
+    if (!(lambda instanceof LambdaExpressionTree)
+        || ((LambdaExpressionTree) lambda).getBody() != tree) {
+      return Optional.empty();
+    }
+
+    Tree operator = lambdaPath.getParentPath().getLeaf();
+    if (!(operator instanceof MethodInvocationTree)) {
+      return Optional.empty();
+    }
+
+    MethodInvocationTree invocation = (MethodInvocationTree) operator;
+    String replacementOperator;
+    if (MONO_MAP.matches(invocation, state)) {
+      replacementOperator = "flatMap";
+    } else if (FLUX_MAP.matches(invocation, state)) {
+      replacementOperator = "concatMap";
+    } else {
+      return Optional.empty();
+    }
+
+    SuggestedFix.Builder fix =
+        SuggestedFix.builder()
+            .merge(SuggestedFixes.renameMethodInvocation(invocation, replacementOperator, state));
+    ExpressionTree receiver = ASTHelpers.getReceiver(tree);
+    if (MONO_BLOCK.matches(tree, state) && receiver != null) {
+      return Optional.of(fix.replace(tree, SourceCode.treeToString(receiver, state)).build());
+    }
+
+    return Optional.of(
+        fix.replace(
+                tree,
+                String.format(
+                    "%s.fromCallable(() -> %s).subscribeOn(%s.boundedElastic())",
+                    SuggestedFixes.qualifyType(state, fix, "reactor.core.publisher.Mono"),
+                    SourceCode.treeToString(tree, state),
+                    SuggestedFixes.qualifyType(state, fix, "reactor.core.scheduler.Schedulers")))
+            .build());
+  }
+
+  private static Matcher<ExpressionTree> createBlockingMethodMatcher(ErrorProneFlags flags) {
+    return flags
+        .getList(EXTRA_BLOCKING_METHODS_FLAG)
+        .map(new MethodMatcherFactory()::create)
+        .map(m -> anyOf(WELL_KNOWN_BLOCKING_METHODS, m))
+        .orElse(WELL_KNOWN_BLOCKING_METHODS);
+  }
+}
@@ -0,0 +1,262 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.errorprone.BugPattern.LinkType.CUSTOM;
+import static com.google.errorprone.BugPattern.SeverityLevel.SUGGESTION;
+import static com.google.errorprone.BugPattern.StandardTags.PERFORMANCE;
+import static com.google.errorprone.matchers.Matchers.anyOf;
+import static com.google.errorprone.matchers.method.MethodMatchers.instanceMethod;
+import static com.google.errorprone.matchers.method.MethodMatchers.staticMethod;
+import static tech.picnic.errorprone.bugpatterns.util.Documentation.BUG_PATTERNS_BASE_URL;
+
+import com.google.auto.service.AutoService;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.ErrorProneFlags;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.fixes.SuggestedFix;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MemberReferenceTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.tools.javac.code.Flags;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import com.sun.tools.javac.code.Type;
+import java.util.List;
+import java.util.Optional;
+import org.jspecify.nullness.Nullable;
+import tech.picnic.errorprone.bugpatterns.util.MethodMatcherFactory;
+import tech.picnic.errorprone.bugpatterns.util.SourceCode;
+import tech.picnic.errorprone.bugpatterns.util.StaticConstants;
+
+/**
+ * A {@link BugChecker} that flags expressions that repeatedly create the same immutable object,
+ * while it could instead be created once and stored in a {@code private static final} field.
+ *
+ * <p>Objects such as {@link java.util.regex.Pattern}s, {@link java.time.format.DateTimeFormatter}s
+ * and Guava {@link com.google.common.base.Splitter}s are relatively expensive to create, while they
+ * can safely be shared. Yet they are often created inside methods, loops and lambda expressions.
+ * This check flags invocations of well-known factory methods of such objects, provided that all
+ * arguments are constant. Arguments are considered constant if they are compile-time constants,
+ * references to {@code static final} fields, method references and lambda expressions that do not
+ * capture any state, or themselves such factory method invocations. Expressions that are already
+ * part of a static field initializer or static initializer block are not flagged.
+ *
+ * <p>Additional factory methods may be specified by passing {@code
+ * -XepOpt:RecomputedConstant:ExtraFactoryMethods=<signature>,...}, where each signature has the
+ * form {@code fully.qualified.Type#method(fully.qualified.ParameterType)}. Matching instance
+ * methods are treated as deriving a new immutable object from their receiver.
+ *
+ * <p>Constructor invocations are not flagged: objects such as Jackson's {@code ObjectMapper} are
+ * commonly configured after construction, in which case they cannot be shared.
+ */
+@AutoService(BugChecker.class)
+@BugPattern(
+    summary =
+        "Immutable object with constant arguments should be created once and stored in a "
+            + "`private static final` field",
+    link = BUG_PATTERNS_BASE_URL + "RecomputedConstant",
+    linkType = CUSTOM,
+    severity = SUGGESTION,
+    tags = PERFORMANCE)
+public final class RecomputedConstant extends BugChecker implements MethodInvocationTreeMatcher {
+  private static final long serialVersionUID = 1L;
+  private static final String FLAG_PREFIX = "RecomputedConstant:";
+  private static final String EXTRA_FACTORY_METHODS_FLAG = FLAG_PREFIX + "ExtraFactoryMethods";
+
+  /** Static methods that create immutable objects, by declaring type. */
+  @VisibleForTesting
+  static final ImmutableSetMultimap<String, String> IMMUTABLE_FACTORY_METHODS =
+      ImmutableSetMultimap.<String, String>builder()
+          .putAll("com.google.common.base.Joiner", "on")
+          .putAll("com.google.common.base.Splitter", "fixedLength", "on", "onPattern")
+          .putAll("java.time.ZoneId", "of")
+          .putAll("java.time.format.DateTimeFormatter", "ofPattern")
+          .putAll(
+              "java.util.Comparator",
+              "comparing",
+              "comparingDouble",
+              "comparingInt",
+              "comparingLong")
+          .putAll("java.util.regex.Pattern", "compile")
+          .build();
+
+  /** Instance methods that derive an immutable object from their receiver, by declaring type. */
+  @VisibleForTesting
+  static final ImmutableSetMultimap<String, String> IMMUTABLE_DERIVATION_METHODS =
+      ImmutableSetMultimap.<String, String>builder()
+          .putAll(
+              "com.google.common.base.Joiner", "skipNulls", "useForNull", "withKeyValueSeparator")
+          .putAll(
+              "com.google.common.base.Splitter",
+              "limit",
+              "omitEmptyStrings",
+              "trimResults",
+              "withKeyValueSeparator")
+          .putAll(
+              "java.time.format.DateTimeFormatter",
+              "withChronology",
+              "withDecimalStyle",
+              "withLocale",
+              "withResolverStyle",
+              "withZone")
+          .putAll(
+              "java.util.Comparator",
+              "reversed",
+              "thenComparing",
+              "thenComparingDouble",
+              "thenComparingInt",
+              "thenComparingLong")
+          .build();
+
+  private static final Matcher<ExpressionTree> WELL_KNOWN_FACTORY_METHODS =
+      anyOf(
+          IMMUTABLE_FACTORY_METHODS.asMap().entrySet().stream()
+              .map(e -> staticMethod().onClass(e.getKey()).namedAnyOf(e.getValue()))
+              .collect(toImmutableList()));
+  private static final Matcher<ExpressionTree> WELL_KNOWN_DERIVATION_METHODS =
+      anyOf(
+          IMMUTABLE_DERIVATION_METHODS.asMap().entrySet().stream()
+              .map(e -> instanceMethod().onDescendantOf(e.getKey()).namedAnyOf(e.getValue()))
+              .collect(toImmutableList()));
+
+  private final Matcher<ExpressionTree> factoryMethodMatcher;
+
+  /** Instantiates a default {@link RecomputedConstant} instance. */
+  public RecomputedConstant() {
+    this(ErrorProneFlags.empty());
+  }
+
+  /**
+   * Instantiates a customized {@link RecomputedConstant}.
+   *
+   * @param flags Any provided command line flags.
+   */
+  public RecomputedConstant(ErrorProneFlags flags) {
+    factoryMethodMatcher = createFactoryMethodMatcher(flags);
+  }
+
+  @Override
+  public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+    if (!isConstantFactoryInvocation(tree, state)
+        || StaticConstants.isInStaticInitializer(state)
+        || isPartOfLargerConstant(state)) {
+      return Description.NO_MATCH;
+    }
+
+    Type type = ASTHelpers.getType(tree);
+    if (type == null) {
+      return Description.NO_MATCH;
+    }
+
+    SuggestedFix.Builder fix = SuggestedFix.builder();
+    Optional<String> constant =
+        StaticConstants.declareConstant(
+            fix, type, SourceCode.treeToString(tree, state), tree, state);
+    return constant.isEmpty()
+        ? describeMatch(tree)
+        : describeMatch(tree, fix.replace(tree, constant.orElseThrow()).build());
+  }
+
+  private boolean isConstant(@Nullable ExpressionTree tree, VisitorState state) {
+    if (tree == null) {
+      return false;
+    }
+
+    ExpressionTree expression = ASTHelpers.stripParentheses(tree);
+    if (ASTHelpers.constValue(expression) != null) {
+      /* Compile-time constants may reference local constant variables. */
+      return StaticConstants.isStateless(expression);
+    }
+
+    switch (expression.getKind()) {
+      case IDENTIFIER:
+      case MEMBER_SELECT:
+        return isStaticFinalFieldOrClassLiteral(expression);
+      case MEMBER_REFERENCE:
+        return isStateless((MemberReferenceTree) expression, state);
+      case LAMBDA_EXPRESSION:
+        return StaticConstants.isStateless(expression);
+      case METHOD_INVOCATION:
+        return isConstantFactoryInvocation(expression, state);
+      default:
+        return false;
+    }
+  }
+
+  private boolean isConstantFactoryInvocation(ExpressionTree tree, VisitorState state) {
+    if (!(tree instanceof MethodInvocationTree) || !factoryMethodMatcher.matches(tree, state)) {
+      return false;
+    }
+
+    MethodInvocationTree invocation = (MethodInvocationTree) tree;
+    Symbol symbol = ASTHelpers.getSymbol(invocation);
+    return (ASTHelpers.isStatic(symbol) || isConstant(ASTHelpers.getReceiver(invocation), state))
+        && areConstant(invocation.getArguments(), state);
+  }
+
+  private boolean areConstant(List<? extends ExpressionTree> trees, VisitorState state) {
+    return trees.stream().allMatch(tree -> isConstant(tree, state));
+  }
+
+  private static boolean isStaticFinalFieldOrClassLiteral(ExpressionTree tree) {
+    if (tree instanceof MemberSelectTree
+        && ((MemberSelectTree) tree).getIdentifier().contentEquals("class")) {
+      return true;
+    }
+
+    Symbol symbol = ASTHelpers.getSymbol(tree);
+    return symbol != null
+        && symbol.getKind().isField()
+        && ASTHelpers.isStatic(symbol)
+        && (symbol.flags() & Flags.FINAL) != 0;
+  }
+
+  private boolean isStateless(MemberReferenceTree tree, VisitorState state) {
+    ExpressionTree qualifier = tree.getQualifierExpression();
+    return ASTHelpers.getSymbol(qualifier) instanceof ClassSymbol || isConstant(qualifier, state);
+  }
+
+  /**
+   * Tells whether the expression under consideration is a subexpression of a larger expression that
+   * is flagged by this check, in which case only the latter is reported.
+   */
+  private boolean isPartOfLargerConstant(VisitorState state) {
+    for (TreePath path = state.getPath().getParentPath();
+        path != null;
+        path = path.getParentPath()) {
+      Tree tree = path.getLeaf();
+      if (tree instanceof MethodTree || tree instanceof ClassTree) {
+        return false;
+      }
+
+      if (tree instanceof MethodInvocationTree
+          && isConstantFactoryInvocation((ExpressionTree) tree, state)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private static Matcher<ExpressionTree> createFactoryMethodMatcher(ErrorProneFlags flags) {
+    Matcher<ExpressionTree> wellKnownMethods =
+        anyOf(WELL_KNOWN_FACTORY_METHODS, WELL_KNOWN_DERIVATION_METHODS);
+    return flags
+        .getList(EXTRA_FACTORY_METHODS_FLAG)
+        .map(new MethodMatcherFactory()::create)
+        .map(m -> anyOf(wellKnownMethods, m))
+        .orElse(wellKnownMethods);
+  }
+}
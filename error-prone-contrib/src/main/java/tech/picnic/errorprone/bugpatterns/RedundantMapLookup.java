@@ -0,0 +1,666 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import static com.google.errorprone.BugPattern.LinkType.CUSTOM;
+import static com.google.errorprone.BugPattern.SeverityLevel.SUGGESTION;
+import static com.google.errorprone.BugPattern.StandardTags.PERFORMANCE;
+import static com.google.errorprone.matchers.Matchers.anyOf;
+import static com.google.errorprone.matchers.Matchers.isSubtypeOf;
+import static com.google.errorprone.matchers.method.MethodMatchers.instanceMethod;
+import static java.util.Objects.requireNonNull;
+import static tech.picnic.errorprone.bugpatterns.util.Documentation.BUG_PATTERNS_BASE_URL;
+
+import com.google.auto.service.AutoService;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.EnhancedForLoopTreeMatcher;
+import com.google.errorprone.bugpatterns.BugChecker.IfTreeMatcher;
+import com.google.errorprone.fixes.SuggestedFix;
+import com.google.errorprone.fixes.SuggestedFixes;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.util.ASTHelpers;
+import com.google.errorprone.util.FindIdentifiers;
+import com.sun.source.tree.AssignmentTree;
+import com.sun.source.tree.BinaryTree;
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompoundAssignmentTree;
+import com.sun.source.tree.ConditionalExpressionTree;
+import com.sun.source.tree.DoWhileLoopTree;
+import com.sun.source.tree.EnhancedForLoopTree;
+import com.sun.source.tree.ExpressionStatementTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.ForLoopTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.IfTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.MemberReferenceTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.StatementTree;
+import com.sun.source.tree.SwitchTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.Tree.Kind;
+import com.sun.source.tree.TryTree;
+import com.sun.source.tree.UnaryTree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.tree.WhileLoopTree;
+import com.sun.source.util.TreeScanner;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.VarSymbol;
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.code.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import javax.lang.model.type.TypeKind;
+import org.jspecify.nullness.Nullable;
+import tech.picnic.errorprone.bugpatterns.util.ClaimedNames;
+import tech.picnic.errorprone.bugpatterns.util.MoreASTHelpers;
+import tech.picnic.errorprone.bugpatterns.util.SourceCode;
+
+/**
+ * A {@link BugChecker} that flags statements that look up the same {@link Map} key more than once.
+ *
+ * <p>The following patterns are rewritten:
+ *
+ * <ul>
+ *   <li>{@code if (map.containsKey(key)) { ... map.get(key) ... }} is rewritten to perform a single
+ *       {@link Map#get(Object)} lookup ahead of the {@code if} statement. Unless the map is known
+ *       not to contain {@code null} values, the presence test is retained as a fallback for {@code
+ *       null} lookup results.
+ *   <li>{@code if (!map.containsKey(key)) { map.put(key, value); }} or {@code if (map.get(key) ==
+ *       null) { map.put(key, value); }}, followed by a statement that unconditionally looks up the
+ *       same key, is rewritten to use {@link Map#computeIfAbsent(Object, Function)}.
+ *   <li>{@code for (K key : map.keySet()) { ... map.get(key) ... }} is rewritten to iterate over
+ *       {@link Map#entrySet()}.
+ * </ul>
+ *
+ * <p>The map must be referenced through a variable, and the key must be a variable reference or a
+ * compile-time constant. Neither may be modified in the affected statements.
+ *
+ * <p>The {@code MapLookupRules} Refaster rule collection complements this check by rewriting lookup
+ * patterns that are contained in a single expression.
+ */
+@AutoService(BugChecker.class)
+@BugPattern(
+    summary = "Avoid looking up the same map key more than once",
+    link = BUG_PATTERNS_BASE_URL + "RedundantMapLookup",
+    linkType = CUSTOM,
+    severity = SUGGESTION,
+    tags = PERFORMANCE)
+public final class RedundantMapLookup extends BugChecker
+    implements EnhancedForLoopTreeMatcher, IfTreeMatcher {
+  private static final long serialVersionUID = 1L;
+  private static final Matcher<ExpressionTree> MAP_CONTAINS_KEY =
+      instanceMethod().onDescendantOf(Map.class.getName()).named("containsKey");
+  private static final Matcher<ExpressionTree> MAP_GET =
+      instanceMethod()
+          .onDescendantOf(Map.class.getName())
+          .named("get")
+          .withParameters(Object.class.getName());
+  private static final Matcher<ExpressionTree> MAP_PUT =
+      instanceMethod().onDescendantOf(Map.class.getName()).named("put");
+  private static final Matcher<ExpressionTree> MAP_KEY_SET =
+      instanceMethod().onDescendantOf(Map.class.getName()).named("keySet");
+  private static final Matcher<Tree> NULL_HOSTILE_MAP =
+      anyOf(isSubtypeOf(ImmutableMap.class.getName()), isSubtypeOf(ConcurrentMap.class.getName()));
+
+  private static final ImmutableSet<String> MUTATING_METHODS =
+      ImmutableSet.of(
+          "clear",
+          "compute",
+          "computeIfAbsent",
+          "computeIfPresent",
+          "merge",
+          "put",
+          "putAll",
+          "putIfAbsent",
+          "remove",
+          "replace",
+          "replaceAll");
+
+  /** Instantiates a new {@link RedundantMapLookup} instance. */
+  public RedundantMapLookup() {}
+
+  @Override
+  public Description matchIf(IfTree tree, VisitorState state) {
+    Tree parent = state.getPath().getParentPath().getLeaf();
+    if (!(parent instanceof BlockTree)) {
+      return Description.NO_MATCH;
+    }
+
+    ExpressionTree condition = ASTHelpers.stripParentheses(tree.getCondition());
+    if (MAP_CONTAINS_KEY.matches(condition, state)) {
+      return matchGuardedLookup(tree, (MethodInvocationTree) condition, state);
+    }
+
+    return getAbsenceTest(condition, state)
+        .map(test -> matchConditionalPut(tree, test, (BlockTree) parent, state))
+        .orElse(Description.NO_MATCH);
+  }
+
+  @Override
+  public Description matchEnhancedForLoop(EnhancedForLoopTree tree, VisitorState state) {
+    ExpressionTree expression = ASTHelpers.stripParentheses(tree.getExpression());
+    if (!MAP_KEY_SET.matches(expression, state) || !(tree.getStatement() instanceof BlockTree)) {
+      return Description.NO_MATCH;
+    }
+
+    ExpressionTree mapReference = requireNonNull(ASTHelpers.getReceiver(expression), "Receiver");
+    VarSymbol map = getVariable(mapReference);
+    if (map == null) {
+      return Description.NO_MATCH;
+    }
+
+    VarSymbol key = ASTHelpers.getSymbol(tree.getVariable());
+    BlockTree body = (BlockTree) tree.getStatement();
+    ImmutableList<MethodInvocationTree> lookups = getLookups(body, map, key, state);
+    Optional<Type> mapType = getMapType(map, state);
+    if (lookups.isEmpty() || mapType.isEmpty() || isModifiedIn(body, map, key)) {
+      return Description.NO_MATCH;
+    }
+
+    SuggestedFix.Builder fix = SuggestedFix.builder();
+    String entry = getUnusedName("entry", state);
+    List<Type> typeArguments = mapType.orElseThrow().getTypeArguments();
+    fix.replace(
+        ASTHelpers.getStartPosition(tree.getVariable()),
+        state.getEndPosition(expression),
+        String.format(
+            "%s<%s, %s> %s : %s.entrySet()",
+            SuggestedFixes.qualifyType(state, fix, Map.Entry.class.getCanonicalName()),
+            SuggestedFixes.prettyType(state, fix, typeArguments.get(0)),
+            SuggestedFixes.prettyType(state, fix, typeArguments.get(1)),
+            entry,
+            SourceCode.treeToString(mapReference, state)));
+    if (countReferences(body, key) > lookups.size()) {
+      StatementTree firstStatement = body.getStatements().get(0);
+      fix.prefixWith(
+          firstStatement,
+          String.format(
+              "%s = %s.getKey();\n%s",
+              SourceCode.treeToString(tree.getVariable(), state),
+              entry,
+              SourceCode.getIndentation(firstStatement, state)));
+    }
+    for (MethodInvocationTree lookup : lookups) {
+      fix.replace(lookup, entry + ".getValue()");
+    }
+
+    return describeMatch(tree, fix.build());
+  }
+
+  /**
+   * Matches {@code if (map.containsKey(key)) { ... map.get(key) ... }}, replacing the lookups with
+   * a local variable that is initialized ahead of the {@code if} statement.
+   */
+  private Description matchGuardedLookup(
+      IfTree tree, MethodInvocationTree containsKey, VisitorState state) {
+    ExpressionTree mapReference = requireNonNull(ASTHelpers.getReceiver(containsKey), "Receiver");
+    VarSymbol map = getVariable(mapReference);
+    if (map == null) {
+      return Description.NO_MATCH;
+    }
+
+    ExpressionTree key = Iterables.getOnlyElement(containsKey.getArguments());
+    StatementTree thenStatement = tree.getThenStatement();
+    ImmutableList<MethodInvocationTree> lookups = getLookups(thenStatement, map, key, state);
+    Optional<Type> valueType = getValueType(map, state);
+    if (lookups.isEmpty()
+        || valueType.isEmpty()
+        || isModifiedIn(thenStatement, map, ASTHelpers.getSymbol(key))) {
+      return Description.NO_MATCH;
+    }
+
+    SuggestedFix.Builder fix = SuggestedFix.builder();
+    String value = getUnusedName("value", state);
+    fix.prefixWith(
+        tree,
+        String.format(
+            "%s %s = %s;\n%s",
+            SuggestedFixes.prettyType(state, fix, valueType.orElseThrow()),
+            value,
+            SourceCode.treeToString(lookups.get(0), state),
+            SourceCode.getIndentation(tree, state)));
+    fix.replace(
+        containsKey,
+        NULL_HOSTILE_MAP.matches(mapReference, state)
+            ? value + " != null"
+            : String.format(
+                "%s != null || %s", value, SourceCode.treeToString(containsKey, state)));
+    for (MethodInvocationTree lookup : lookups) {
+      fix.replace(lookup, value);
+    }
+
+    return describeMatch(tree, fix.build());
+  }
+
+  /**
+   * Matches {@code if (<absent>) { map.put(key, value); }} followed by a statement that looks up
+   * the same key, replacing the first such lookup with a {@link Map#computeIfAbsent(Object,
+   * Function)} invocation.
+   */
+  private Description matchConditionalPut(
+      IfTree tree, MethodInvocationTree absenceTest, BlockTree block, VisitorState state) {
+    ExpressionTree mapReference = requireNonNull(ASTHelpers.getReceiver(absenceTest), "Receiver");
+    VarSymbol map = getVariable(mapReference);
+    if (map == null) {
+      return Description.NO_MATCH;
+    }
+
+    ExpressionTree key = Iterables.getOnlyElement(absenceTest.getArguments());
+    Optional<MethodInvocationTree> put = getOnlyPut(tree, map, key, state);
+    int index = block.getStatements().indexOf(tree);
+    if (put.isEmpty()
+        || tree.getElseStatement() != null
+        || index == block.getStatements().size() - 1) {
+      return Description.NO_MATCH;
+    }
+
+    ExpressionTree value = put.orElseThrow().getArguments().get(1);
+    StatementTree nextStatement = block.getStatements().get(index + 1);
+    Optional<MethodInvocationTree> lookup =
+        getLookups(nextStatement, map, key, state).stream().findFirst();
+    boolean testsPresence = MAP_CONTAINS_KEY.matches(absenceTest, state);
+    if (lookup.isEmpty()
+        || !isUnconditionallyEvaluated(lookup.orElseThrow(), nextStatement)
+        || (testsPresence ? !isDereferenced(lookup.orElseThrow(), nextStatement) : isTrivial(value))
+        || !MoreASTHelpers.isLambdaCompatible(value, state)
+        || isModifiedIn(value, map, null)) {
+      return Description.NO_MATCH;
+    }
+
+    return describeMatch(
+        tree,
+        SuggestedFix.builder()
+            .replace(
+                ASTHelpers.getStartPosition(tree), ASTHelpers.getStartPosition(nextStatement), "")
+            .replace(
+                lookup.orElseThrow(),
+                String.format(
+                    "%s.computeIfAbsent(%s, %s -> %s)",
+                    SourceCode.treeToString(mapReference, state),
+                    SourceCode.treeToString(key, state),
+                    getUnusedName("k", state),
+                    SourceCode.treeToString(value, state)))
+            .build());
+  }
+
+  /**
+   * Returns the {@link Map#containsKey(Object)} or {@link Map#get(Object)} invocation on which the
+   * given condition bases its conclusion that a key is absent, if any.
+   */
+  private static Optional<MethodInvocationTree> getAbsenceTest(
+      ExpressionTree condition, VisitorState state) {
+    if (condition.getKind() == Kind.LOGICAL_COMPLEMENT) {
+      ExpressionTree operand = ASTHelpers.stripParentheses(((UnaryTree) condition).getExpression());
+      return MAP_CONTAINS_KEY.matches(operand, state)
+          ? Optional.of((MethodInvocationTree) operand)
+          : Optional.empty();
+    }
+
+    if (condition.getKind() != Kind.EQUAL_TO) {
+      return Optional.empty();
+    }
+
+    BinaryTree comparison = (BinaryTree) condition;
+    return Stream.of(
+            ImmutableList.of(comparison.getLeftOperand(), comparison.getRightOperand()),
+            ImmutableList.of(comparison.getRightOperand(), comparison.getLeftOperand()))
+        .filter(
+            operands ->
+                operands.get(1).getKind() == Kind.NULL_LITERAL
+                    && MAP_GET.matches(operands.get(0), state))
+        .map(operands -> (MethodInvocationTree) operands.get(0))
+        .findFirst();
+  }
+
+  /**
+   * Returns the {@link Map#put(Object, Object)} invocation that constitutes the sole statement of
+   * the given {@code if} statement's then-branch, provided that it updates the given map entry.
+   */
+  private static Optional<MethodInvocationTree> getOnlyPut(
+      IfTree tree, VarSymbol map, ExpressionTree key, VisitorState state) {
+    StatementTree thenStatement = tree.getThenStatement();
+    List<? extends StatementTree> statements =
+        thenStatement instanceof BlockTree
+            ? ((BlockTree) thenStatement).getStatements()
+            : ImmutableList.of(thenStatement);
+    if (statements.size() != 1) {
+      return Optional.empty();
+    }
+
+    StatementTree statement = statements.get(0);
+    if (!(statement instanceof ExpressionStatementTree)) {
+      return Optional.empty();
+    }
+
+    ExpressionTree expression = ((ExpressionStatementTree) statement).getExpression();
+    return MAP_PUT.matches(expression, state)
+            && isLookupOf(((MethodInvocationTree) expression), map, key)
+        ? Optional.of((MethodInvocationTree) expression)
+        : Optional.empty();
+  }
+
+  /**
+   * Returns the {@link Map#get(Object)} invocations on the given map and key inside the given tree,
+   * in source order.
+   */
+  private static ImmutableList<MethodInvocationTree> getLookups(
+      Tree tree, VarSymbol map, ExpressionTree key, VisitorState state) {
+    return getLookups(tree, map, ASTHelpers.getSymbol(key), ASTHelpers.constValue(key), state);
+  }
+
+  private static ImmutableList<MethodInvocationTree> getLookups(
+      Tree tree, VarSymbol map, @Nullable Symbol key, VisitorState state) {
+    return getLookups(tree, map, key, null, state);
+  }
+
+  private static ImmutableList<MethodInvocationTree> getLookups(
+      Tree tree,
+      VarSymbol map,
+      @Nullable Symbol keyVariable,
+      @Nullable Object keyConstant,
+      VisitorState state) {
+    if (!(keyVariable instanceof VarSymbol || keyConstant != null)) {
+      return ImmutableList.of();
+    }
+
+    List<MethodInvocationTree> lookups = new ArrayList<>();
+    new TreeScanner<@Nullable Void, @Nullable Void>() {
+      @Override
+      public @Nullable Void visitMethodInvocation(
+          MethodInvocationTree node, @Nullable Void unused) {
+        if (MAP_GET.matches(node, state)
+            && map.equals(getVariable(ASTHelpers.getReceiver(node)))
+            && isKey(Iterables.getOnlyElement(node.getArguments()), keyVariable, keyConstant)) {
+          lookups.add(node);
+        }
+        return super.visitMethodInvocation(node, unused);
+      }
+    }.scan(tree, null);
+    return ImmutableList.copyOf(lookups);
+  }
+
+  private static boolean isLookupOf(
+      MethodInvocationTree invocation, VarSymbol map, ExpressionTree key) {
+    return map.equals(getVariable(ASTHelpers.getReceiver(invocation)))
+        && isKey(
+            invocation.getArguments().get(0),
+            ASTHelpers.getSymbol(key),
+            ASTHelpers.constValue(key));
+  }
+
+  private static boolean isKey(
+      ExpressionTree tree, @Nullable Symbol keyVariable, @Nullable Object keyConstant) {
+    if (keyVariable instanceof VarSymbol) {
+      return keyVariable.equals(getVariable(tree));
+    }
+
+    return keyConstant != null && keyConstant.equals(ASTHelpers.constValue(tree));
+  }
+
+  /**
+   * Returns the variable referenced by the given expression, if it is a (possibly qualified)
+   * reference to a local variable, parameter or field.
+   */
+  private static @Nullable VarSymbol getVariable(@Nullable ExpressionTree tree) {
+    if (!(tree instanceof IdentifierTree || tree instanceof MemberSelectTree)) {
+      return null;
+    }
+
+    Symbol symbol = ASTHelpers.getSymbol(tree);
+    return symbol instanceof VarSymbol ? (VarSymbol) symbol : null;
+  }
+
+  /**
+   * Tells whether the given tree mutates or reassigns the given map, or reassigns the given key.
+   */
+  private static boolean isModifiedIn(Tree tree, VarSymbol map, @Nullable Symbol key) {
+    return Boolean.TRUE.equals(
+        new TreeScanner<@Nullable Boolean, @Nullable Void>() {
+          @Override
+          public @Nullable Boolean visitAssignment(AssignmentTree node, @Nullable Void unused) {
+            return isReassigned(node.getVariable())
+                || Boolean.TRUE.equals(super.visitAssignment(node, unused));
+          }
+
+          @Override
+          public @Nullable Boolean visitCompoundAssignment(
+              CompoundAssignmentTree node, @Nullable Void unused) {
+            return isReassigned(node.getVariable())
+                || Boolean.TRUE.equals(super.visitCompoundAssignment(node, unused));
+          }
+
+          @Override
+          public @Nullable Boolean visitUnary(UnaryTree node, @Nullable Void unused) {
+            return isReassigned(node.getExpression())
+                || Boolean.TRUE.equals(super.visitUnary(node, unused));
+          }
+
+          @Override
+          public @Nullable Boolean visitMethodInvocation(
+              MethodInvocationTree node, @Nullable Void unused) {
+            return isMutation(node, ASTHelpers.getReceiver(node))
+                || Boolean.TRUE.equals(super.visitMethodInvocation(node, unused));
+          }
+
+          @Override
+          public @Nullable Boolean visitMemberReference(
+              MemberReferenceTree node, @Nullable Void unused) {
+            return isMutation(node, node.getQualifierExpression())
+                || Boolean.TRUE.equals(super.visitMemberReference(node, unused));
+          }
+
+          private boolean isReassigned(ExpressionTree variable) {
+            Symbol symbol = ASTHelpers.getSymbol(variable);
+            return map.equals(symbol) || (key != null && key.equals(symbol));
+          }
+
+          private boolean isMutation(ExpressionTree node, @Nullable ExpressionTree receiver) {
+            Symbol symbol = ASTHelpers.getSymbol(node);
+            return symbol != null
+                && MUTATING_METHODS.contains(symbol.getSimpleName().toString())
+                && map.equals(getVariable(receiver));
+          }
+
+          @Override
+          public @Nullable Boolean reduce(@Nullable Boolean r1, @Nullable Boolean r2) {
+            return Boolean.TRUE.equals(r1) || Boolean.TRUE.equals(r2);
+          }
+        }.scan(tree, null));
+  }
+
+  /**
+   * Tells whether the given expression is evaluated whenever the given statement is executed, i.e.
+   * whether it is not part of a conditionally or repeatedly evaluated subtree, nor of a lambda
+   * expression or class body, the evaluation of which may be deferred.
+   */
+  private static boolean isUnconditionallyEvaluated(
+      ExpressionTree expression, StatementTree statement) {
+    return Boolean.TRUE.equals(
+        new TreeScanner<@Nullable Boolean, @Nullable Void>() {
+          @Override
+          public @Nullable Boolean scan(Tree tree, @Nullable Void unused) {
+            return expression.equals(tree) || Boolean.TRUE.equals(super.scan(tree, unused));
+          }
+
+          @Override
+          public @Nullable Boolean visitBinary(BinaryTree node, @Nullable Void unused) {
+            return node.getKind() == Kind.CONDITIONAL_AND || node.getKind() == Kind.CONDITIONAL_OR
+                ? scan(node.getLeftOperand(), unused)
+                : super.visitBinary(node, unused);
+          }
+
+          @Override
+          public @Nullable Boolean visitConditionalExpression(
+              ConditionalExpressionTree node, @Nullable Void unused) {
+            return scan(node.getCondition(), unused);
+          }
+
+          @Override
+          public @Nullable Boolean visitIf(IfTree node, @Nullable Void unused) {
+            return scan(node.getCondition(), unused);
+          }
+
+          @Override
+          public @Nullable Boolean visitSwitch(SwitchTree node, @Nullable Void unused) {
+            return scan(node.getExpression(), unused);
+          }
+
+          @Override
+          public @Nullable Boolean visitEnhancedForLoop(
+              EnhancedForLoopTree node, @Nullable Void unused) {
+            return scan(node.getExpression(), unused);
+          }
+
+          @Override
+          public @Nullable Boolean visitForLoop(ForLoopTree node, @Nullable Void unused) {
+            return scan(node.getInitializer(), unused);
+          }
+
+          @Override
+          public @Nullable Boolean visitWhileLoop(WhileLoopTree node, @Nullable Void unused) {
+            return false;
+          }
+
+          @Override
+          public @Nullable Boolean visitDoWhileLoop(DoWhileLoopTree node, @Nullable Void unused) {
+            return false;
+          }
+
+          @Override
+          public @Nullable Boolean visitBlock(BlockTree node, @Nullable Void unused) {
+            return false;
+          }
+
+          @Override
+          public @Nullable Boolean visitTry(TryTree node, @Nullable Void unused) {
+            return false;
+          }
+
+          @Override
+          public @Nullable Boolean visitLambdaExpression(
+              LambdaExpressionTree node, @Nullable Void unused) {
+            return false;
+          }
+
+          @Override
+          public @Nullable Boolean visitClass(ClassTree node, @Nullable Void unused) {
+            return false;
+          }
+
+          @Override
+          public @Nullable Boolean reduce(@Nullable Boolean r1, @Nullable Boolean r2) {
+            return Boolean.TRUE.equals(r1) || Boolean.TRUE.equals(r2);
+          }
+        }.scan(statement, null));
+  }
+
+  /** Tells whether the given expression is the receiver of a method invocation or field access. */
+  private static boolean isDereferenced(ExpressionTree expression, Tree tree) {
+    return Boolean.TRUE.equals(
+        new TreeScanner<@Nullable Boolean, @Nullable Void>() {
+          @Override
+          public @Nullable Boolean visitMemberSelect(MemberSelectTree node, @Nullable Void unused) {
+            return node.getExpression().equals(expression)
+                || Boolean.TRUE.equals(super.visitMemberSelect(node, unused));
+          }
+
+          @Override
+          public @Nullable Boolean reduce(@Nullable Boolean r1, @Nullable Boolean r2) {
+            return Boolean.TRUE.equals(r1) || Boolean.TRUE.equals(r2);
+          }
+        }.scan(tree, null));
+  }
+
+  /**
+   * Tells whether the given value is trivial to compute, in which case the {@code MapLookupRules}
+   * Refaster rule collection suggests {@link Map#putIfAbsent(Object, Object)} instead.
+   */
+  private static boolean isTrivial(ExpressionTree value) {
+    return ASTHelpers.constValue(value) != null || value instanceof IdentifierTree;
+  }
+
+  private static int countReferences(Tree tree, Symbol variable) {
+    int[] count = {0};
+    new TreeScanner<@Nullable Void, @Nullable Void>() {
+      @Override
+      public @Nullable Void visitIdentifier(IdentifierTree node, @Nullable Void unused) {
+        if (variable.equals(ASTHelpers.getSymbol(node))) {
+          count[0]++;
+        }
+        return super.visitIdentifier(node, unused);
+      }
+    }.scan(tree, null);
+    return count[0];
+  }
+
+  /** Returns the parameterized {@link Map} supertype of the given variable's declared type. */
+  private static Optional<Type> getMapType(VarSymbol map, VisitorState state) {
+    Type rawMapType = state.getTypeFromString(Map.class.getName());
+    Type mapType = rawMapType == null ? null : state.getTypes().asSuper(map.type, rawMapType.tsym);
+    return mapType == null || mapType.getTypeArguments().size() != 2
+        ? Optional.empty()
+        : Optional.of(mapType);
+  }
+
+  /** Returns the (upper bound of the) value type of the given map. */
+  private static Optional<Type> getValueType(VarSymbol map, VisitorState state) {
+    Types types = state.getTypes();
+    return getMapType(map, state)
+        .map(mapType -> types.wildUpperBound(mapType.getTypeArguments().get(1)))
+        .filter(
+            valueType ->
+                valueType.getKind() == TypeKind.DECLARED
+                    || valueType.getKind() == TypeKind.ARRAY
+                    || valueType.getKind() == TypeKind.TYPEVAR);
+  }
+
+  /**
+   * Returns a variable name derived from the given base name that neither hides nor clashes with a
+   * variable declared elsewhere in the enclosing method, or by another fix suggested by this check.
+   */
+  private static String getUnusedName(String base, VisitorState state) {
+    Tree scope = requireNonNull(state.findEnclosing(MethodTree.class, ClassTree.class), "Scope");
+    ImmutableSet<String> declaredNames = getDeclaredNames(scope);
+    Set<String> claimedNames =
+        ClaimedNames.getClaimedNames(requireNonNull(ASTHelpers.getSymbol(scope), "Symbol"), state);
+    String name =
+        Stream.concat(Stream.of(base), IntStream.iterate(2, i -> i + 1).mapToObj(i -> base + i))
+            .filter(
+                n ->
+                    !declaredNames.contains(n)
+                        && !claimedNames.contains(n)
+                        && FindIdentifiers.findIdent(n, state) == null)
+            .findFirst()
+            .orElseThrow();
+    claimedNames.add(name);
+    return name;
+  }
+
+  private static ImmutableSet<String> getDeclaredNames(Tree scope) {
+    ImmutableSet.Builder<String> names = ImmutableSet.builder();
+    new TreeScanner<@Nullable Void, @Nullable Void>() {
+      @Override
+      public @Nullable Void visitVariable(VariableTree node, @Nullable Void unused) {
+        names.add(node.getName().toString());
+        return super.visitVariable(node, unused);
+      }
+    }.scan(scope, null);
+    return names.build();
+  }
+}
@@ -0,0 +1,217 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import static com.google.errorprone.BugPattern.LinkType.CUSTOM;
+import static com.google.errorprone.BugPattern.SeverityLevel.SUGGESTION;
+import static com.google.errorprone.BugPattern.StandardTags.PERFORMANCE;
+import static com.google.errorprone.matchers.Matchers.anyOf;
+import static com.google.errorprone.matchers.method.MethodMatchers.instanceMethod;
+import static com.google.errorprone.matchers.method.MethodMatchers.staticMethod;
+import static java.util.Objects.requireNonNull;
+import static tech.picnic.errorprone.bugpatterns.util.Documentation.BUG_PATTERNS_BASE_URL;
+
+import com.google.auto.service.AutoService;
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.fixes.SuggestedFix;
+import com.google.errorprone.fixes.SuggestedFixes;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.suppliers.Supplier;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.tools.javac.code.Type;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import tech.picnic.errorprone.bugpatterns.util.SourceCode;
+import tech.picnic.errorprone.bugpatterns.util.StaticConstants;
+
+/**
+ * A {@link BugChecker} that flags {@link String} and {@link Pattern} convenience methods that
+ * compile a constant regular expression on each invocation.
+ *
+ * <p>Methods such as {@link String#matches(String)} and {@link String#replaceAll(String, String)}
+ * compile their regular expression argument into a new {@link Pattern} every time they are invoked.
+ * If the regular expression is constant, it is more efficient to compile it once and store the
+ * result in a {@code private static final} field.
+ *
+ * <p>{@link String#split(String)} and {@link String#split(String, int)} are not flagged if the
+ * regular expression represents a single literal character, as these methods then avoid the regular
+ * expression engine altogether.
+ */
+@AutoService(BugChecker.class)
+@BugPattern(
+    summary = "Constant regular expressions should be compiled only once",
+    link = BUG_PATTERNS_BASE_URL + "RegexPrecompilation",
+    linkType = CUSTOM,
+    severity = SUGGESTION,
+    tags = PERFORMANCE)
+public final class RegexPrecompilation extends BugChecker implements MethodInvocationTreeMatcher {
+  private static final long serialVersionUID = 1L;
+  /**
+   * The {@link Pattern} type, looked up independently of whether the current compilation unit
+   * references it.
+   */
+  private static final Supplier<Type> PATTERN =
+      state ->
+          state
+              .getSymtab()
+              .enterClass(state.getSymtab().java_base, state.getName(Pattern.class.getName()))
+              .type;
+
+  private static final Matcher<ExpressionTree> STRING_MATCHES =
+      instanceMethod().onExactClass(String.class.getName()).named("matches");
+  private static final Matcher<ExpressionTree> STRING_REPLACE =
+      instanceMethod()
+          .onExactClass(String.class.getName())
+          .namedAnyOf("replaceAll", "replaceFirst");
+  private static final Matcher<ExpressionTree> STRING_SPLIT =
+      instanceMethod().onExactClass(String.class.getName()).named("split");
+  private static final Matcher<ExpressionTree> PATTERN_MATCHES =
+      staticMethod().onClass(Pattern.class.getName()).named("matches");
+  private static final Matcher<ExpressionTree> REGEX_METHODS =
+      anyOf(STRING_MATCHES, STRING_REPLACE, STRING_SPLIT, PATTERN_MATCHES);
+  /**
+   * The characters that {@link String#split(String)} treats as regular expression metacharacters.
+   */
+  private static final String SPLIT_METACHARACTERS = ".$|()[{^?*+\\";
+
+  /** Instantiates a new {@link RegexPrecompilation} instance. */
+  public RegexPrecompilation() {}
+
+  @Override
+  public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+    if (!REGEX_METHODS.matches(tree, state)) {
+      return Description.NO_MATCH;
+    }
+
+    List<? extends ExpressionTree> arguments = tree.getArguments();
+    ExpressionTree regexArgument = arguments.get(0);
+    String regex = ASTHelpers.constValue(regexArgument, String.class);
+    if (regex == null
+        || (STRING_SPLIT.matches(tree, state) && isFastPathSplitRegex(regex))
+        || StaticConstants.isInStaticInitializer(state)) {
+      return Description.NO_MATCH;
+    }
+
+    Type patternType = PATTERN.get(state);
+    if (patternType == null) {
+      return describeMatch(tree);
+    }
+
+    SuggestedFix.Builder fix = SuggestedFix.builder();
+    String initializer =
+        String.format(
+            "%s.compile(%s)",
+            SuggestedFixes.qualifyType(state, fix, Pattern.class.getName()),
+            StaticConstants.isStateless(regexArgument)
+                ? SourceCode.treeToString(regexArgument, state)
+                : state.getConstantExpression(regex));
+    Optional<String> pattern =
+        StaticConstants.declareConstant(fix, patternType, initializer, regexArgument, state);
+    if (pattern.isEmpty()) {
+      return describeMatch(tree);
+    }
+
+    replaceRetainingOperands(tree, pattern.orElseThrow(), fix, state);
+    return describeMatch(tree, fix.build());
+  }
+
+  /**
+   * Replaces the given regular expression method invocation with an equivalent expression in terms
+   * of the given {@link Pattern} constant.
+   *
+   * <p>The receiver and the arguments other than the regular expression are left untouched, such
+   * that the fix does not conflict with fixes for any nested method invocations.
+   */
+  private static void replaceRetainingOperands(
+      MethodInvocationTree tree, String pattern, SuggestedFix.Builder fix, VisitorState state) {
+    List<? extends ExpressionTree> arguments = tree.getArguments();
+    if (PATTERN_MATCHES.matches(tree, state)) {
+      replaceRetainingOperands(
+          tree,
+          ImmutableList.of(arguments.get(1)),
+          ImmutableList.of(pattern + ".matcher(", ").matches()"),
+          fix,
+          state);
+      return;
+    }
+
+    ExpressionTree receiver = requireNonNull(ASTHelpers.getReceiver(tree), "Receiver");
+    if (STRING_MATCHES.matches(tree, state)) {
+      replaceRetainingOperands(
+          tree,
+          ImmutableList.of(receiver),
+          ImmutableList.of(pattern + ".matcher(", ").matches()"),
+          fix,
+          state);
+    } else if (STRING_REPLACE.matches(tree, state)) {
+      replaceRetainingOperands(
+          tree,
+          ImmutableList.of(receiver, arguments.get(1)),
+          ImmutableList.of(
+              pattern + ".matcher(", ")." + ASTHelpers.getSymbol(tree).getSimpleName() + '(', ")"),
+          fix,
+          state);
+    } else if (arguments.size() == 1) {
+      replaceRetainingOperands(
+          tree, ImmutableList.of(receiver), ImmutableList.of(pattern + ".split(", ")"), fix, state);
+    } else {
+      replaceRetainingOperands(
+          tree,
+          ImmutableList.of(receiver, arguments.get(1)),
+          ImmutableList.of(pattern + ".split(", ", ", ")"),
+          fix,
+          state);
+    }
+  }
+
+  /**
+   * Replaces the source code of the given tree that surrounds the given operands with the given
+   * fragments.
+   */
+  private static void replaceRetainingOperands(
+      ExpressionTree tree,
+      ImmutableList<ExpressionTree> operands,
+      ImmutableList<String> fragments,
+      SuggestedFix.Builder fix,
+      VisitorState state) {
+    for (int i = 0; i <= operands.size(); i++) {
+      int start =
+          i == 0 ? ASTHelpers.getStartPosition(tree) : state.getEndPosition(operands.get(i - 1));
+      int end =
+          i == operands.size()
+              ? state.getEndPosition(tree)
+              : ASTHelpers.getStartPosition(operands.get(i));
+      fix.replace(start, end, fragments.get(i));
+    }
+  }
+
+  /**
+   * Tells whether {@link String#split(String)} splits on the given regular expression without
+   * compiling it, because it represents a single literal character.
+   *
+   * @see String#split(String, int)
+   */
+  private static boolean isFastPathSplitRegex(String regex) {
+    if (regex.length() == 1) {
+      char c = regex.charAt(0);
+      return SPLIT_METACHARACTERS.indexOf(c) < 0 && !Character.isSurrogate(c);
+    }
+
+    if (regex.length() == 2 && regex.charAt(0) == '\\') {
+      char c = regex.charAt(1);
+      return !isAsciiLetterOrDigit(c) && !Character.isSurrogate(c);
+    }
+
+    return false;
+  }
+
+  private static boolean isAsciiLetterOrDigit(char c) {
+    return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+}
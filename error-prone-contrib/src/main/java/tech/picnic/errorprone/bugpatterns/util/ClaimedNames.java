@@ -0,0 +1,44 @@
+package tech.picnic.errorprone.bugpatterns.util;
+
+import com.google.errorprone.VisitorState;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.util.Context;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A per-compilation registry of the names of declarations introduced by suggested fixes.
+ *
+ * <p>Fixes are suggested independently of one another, yet may all be applied. By claiming the
+ * names they introduce, fixes suggested for the same scope avoid introducing conflicting
+ * declarations.
+ */
+public final class ClaimedNames {
+  private static final Context.Key<Map<Symbol, Set<String>>> CLAIMED_NAMES_KEY =
+      new Context.Key<>();
+
+  private ClaimedNames() {}
+
+  /**
+   * Returns the names claimed so far in the given scope, during the current compilation.
+   *
+   * @param scope The symbol of the method or class in which names are declared.
+   * @param state A {@link VisitorState} describing the current compilation.
+   * @return A mutable, thread-safe set to which newly claimed names should be added.
+   */
+  public static Set<String> getClaimedNames(Symbol scope, VisitorState state) {
+    return getClaimedNamesByScope(state).computeIfAbsent(scope, s -> ConcurrentHashMap.newKeySet());
+  }
+
+  private static Map<Symbol, Set<String>> getClaimedNamesByScope(VisitorState state) {
+    Map<Symbol, Set<String>> claimedNames = state.context.get(CLAIMED_NAMES_KEY);
+    if (claimedNames != null) {
+      return claimedNames;
+    }
+
+    Map<Symbol, Set<String>> newClaimedNames = new ConcurrentHashMap<>();
+    state.context.put(CLAIMED_NAMES_KEY, newClaimedNames);
+    return newClaimedNames;
+  }
+}
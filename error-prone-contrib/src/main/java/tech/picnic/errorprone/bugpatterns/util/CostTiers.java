@@ -0,0 +1,36 @@
+package tech.picnic.errorprone.bugpatterns.util;
+
+import static tech.picnic.errorprone.refaster.ErrorProneSupportFlags.CHEAP_CHECKS_ONLY_FLAG;
+
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.ErrorProneFlags;
+import com.google.errorprone.bugpatterns.BugChecker;
+import java.util.Arrays;
+import tech.picnic.errorprone.refaster.annotation.CostTier;
+
+/**
+ * Utility methods for determining whether a {@link BugChecker} should run, given its {@link
+ * CostTier cost tier}.
+ */
+public final class CostTiers {
+  private CostTiers() {}
+
+  /**
+   * Tells whether the given {@link BugChecker} is enabled.
+   *
+   * <p>Bug checkers that list {@link CostTier#EXPENSIVE_TAG} among their {@link BugPattern#tags()}
+   * are disabled if {@code -XepOpt:ErrorProneSupport:CheapChecksOnly=true} is passed.
+   *
+   * @param checker The type of the bug checker of interest.
+   * @param flags Any provided command line flags.
+   * @return {@code true} iff the bug checker should report matches.
+   */
+  public static boolean isEnabled(Class<? extends BugChecker> checker, ErrorProneFlags flags) {
+    return !flags.getBoolean(CHEAP_CHECKS_ONLY_FLAG).orElse(false) || !isExpensive(checker);
+  }
+
+  private static boolean isExpensive(Class<? extends BugChecker> checker) {
+    BugPattern bugPattern = checker.getAnnotation(BugPattern.class);
+    return bugPattern != null && Arrays.asList(bugPattern.tags()).contains(CostTier.EXPENSIVE_TAG);
+  }
+}
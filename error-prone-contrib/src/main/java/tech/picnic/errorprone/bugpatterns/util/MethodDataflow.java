@@ -0,0 +1,200 @@
+package tech.picnic.errorprone.bugpatterns.util;
+
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.dataflow.ConstantPropagationAnalysis;
+import com.google.errorprone.dataflow.nullnesspropagation.Nullness;
+import com.google.errorprone.dataflow.nullnesspropagation.NullnessAnalysis;
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+import com.sun.tools.javac.util.Context;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import org.jspecify.nullness.Nullable;
+
+/**
+ * Nullness and constant propagation dataflow results, computed at most once per method body and
+ * shared by all checks.
+ *
+ * <p>Error Prone's {@link NullnessAnalysis} and {@link ConstantPropagationAnalysis} cache the
+ * analysis of only a single method, lambda expression or initializer at a time. As a result, checks
+ * that query the dataflow results of expressions in different such bodies in alternation (e.g.
+ * expressions inside and outside a lambda expression) trigger repeated reanalysis of the same code.
+ * This class instead records the results for all expressions in a body at once, upon the first
+ * query concerning that body. The results are retained until another compilation unit is analyzed.
+ */
+public final class MethodDataflow {
+  private static final Context.Key<MethodDataflow> METHOD_DATAFLOW_KEY = new Context.Key<>();
+
+  private final Map<Tree, Map<Tree, Nullness>> nullness = new HashMap<>();
+  private final Map<Tree, Map<Tree, Optional<Number>>> constants = new HashMap<>();
+  private @Nullable CompilationUnitTree compilationUnit;
+
+  private MethodDataflow() {}
+
+  /**
+   * Tells whether the given expression is known to be non-{@code null}.
+   *
+   * @param tree The expression of interest; a descendant of the tree currently being visited.
+   * @param state The context in which the expression is evaluated.
+   * @return {@code true} iff dataflow analysis determines that the expression is non-{@code null}.
+   */
+  public static boolean isNonNull(ExpressionTree tree, VisitorState state) {
+    return getNullness(tree, state) == Nullness.NONNULL;
+  }
+
+  /**
+   * Returns the nullness of the given expression, as determined by dataflow analysis.
+   *
+   * @param tree The expression of interest; a descendant of the tree currently being visited.
+   * @param state The context in which the expression is evaluated.
+   * @return The non-{@code null} nullness of the expression; {@link Nullness#NULLABLE} if the
+   *     expression is not part of the current compilation unit.
+   */
+  public static Nullness getNullness(ExpressionTree tree, VisitorState state) {
+    MethodDataflow dataflow = instance(state);
+    return dataflow.lookup(
+        tree,
+        state,
+        dataflow.nullness,
+        (path, context) -> NullnessAnalysis.instance(context).getNullness(path, context),
+        Nullness.NULLABLE);
+  }
+
+  /**
+   * Returns the numeric value of the given expression, if known to be constant.
+   *
+   * @param tree The expression of interest; a descendant of the tree currently being visited.
+   * @param state The context in which the expression is evaluated.
+   * @return The expression's numeric value, if dataflow analysis determines it to be constant.
+   */
+  public static Optional<Number> getConstantValue(ExpressionTree tree, VisitorState state) {
+    MethodDataflow dataflow = instance(state);
+    return dataflow.lookup(
+        tree,
+        state,
+        dataflow.constants,
+        (path, context) ->
+            Optional.ofNullable(ConstantPropagationAnalysis.numberValue(path, context)),
+        Optional.empty());
+  }
+
+  private static MethodDataflow instance(VisitorState state) {
+    MethodDataflow instance = state.context.get(METHOD_DATAFLOW_KEY);
+    if (instance != null) {
+      return instance;
+    }
+
+    MethodDataflow newInstance = new MethodDataflow();
+    state.context.put(METHOD_DATAFLOW_KEY, newInstance);
+    return newInstance;
+  }
+
+  private <T> T lookup(
+      ExpressionTree tree,
+      VisitorState state,
+      Map<Tree, Map<Tree, T>> cache,
+      BiFunction<TreePath, Context, T> analysis,
+      T unknown) {
+    TreePath path = findPath(tree, state);
+    if (path == null) {
+      return unknown;
+    }
+
+    TreePath root = findEnclosingAnalysisRoot(path);
+    if (root == null) {
+      return analysis.apply(path, state.context);
+    }
+
+    if (compilationUnit != path.getCompilationUnit()) {
+      nullness.clear();
+      constants.clear();
+      compilationUnit = path.getCompilationUnit();
+    }
+
+    Map<Tree, T> results =
+        cache.computeIfAbsent(root.getLeaf(), r -> analyzeAll(root, analysis, state.context));
+    T result = results.get(tree);
+    return result != null ? result : analysis.apply(path, state.context);
+  }
+
+  /**
+   * Returns the path to the given tree, which is expected to be a descendant of the tree currently
+   * being visited, or else to be part of the current compilation unit.
+   */
+  private static @Nullable TreePath findPath(Tree tree, VisitorState state) {
+    TreePath path = state.getPath();
+    if (path.getLeaf() == tree) {
+      return path;
+    }
+
+    TreePath descendantPath = TreePath.getPath(path, tree);
+    return descendantPath != null
+        ? descendantPath
+        : TreePath.getPath(path.getCompilationUnit(), tree);
+  }
+
+  /**
+   * Returns the path to the method, lambda expression or initializer whose body is analyzed as a
+   * whole when determining dataflow results for the tree referenced by the given path, if any.
+   */
+  private static @Nullable TreePath findEnclosingAnalysisRoot(TreePath path) {
+    for (TreePath current = path; current != null; current = current.getParentPath()) {
+      Tree leaf = current.getLeaf();
+      if (leaf instanceof MethodTree || leaf instanceof LambdaExpressionTree) {
+        return current;
+      }
+
+      TreePath parent = current.getParentPath();
+      if (parent != null
+          && parent.getLeaf() instanceof ClassTree
+          && (leaf instanceof VariableTree || leaf instanceof BlockTree)) {
+        return current;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Computes the dataflow results of all expressions in the given body, excluding those in nested
+   * lambda expressions and classes (as those are analyzed separately).
+   *
+   * <p>As the underlying analysis of the body is cached while no other body is analyzed, this
+   * requires only a single analysis, after which each result is a cheap lookup.
+   */
+  private static <T> Map<Tree, T> analyzeAll(
+      TreePath root, BiFunction<TreePath, Context, T> analysis, Context context) {
+    Map<Tree, T> results = new HashMap<>();
+    new TreePathScanner<@Nullable Void, @Nullable Void>() {
+      @Override
+      public @Nullable Void scan(@Nullable Tree tree, @Nullable Void unused) {
+        if (tree instanceof ExpressionTree) {
+          results.put(tree, analysis.apply(new TreePath(getCurrentPath(), tree), context));
+        }
+        return super.scan(tree, null);
+      }
+
+      @Override
+      public @Nullable Void visitLambdaExpression(
+          LambdaExpressionTree node, @Nullable Void unused) {
+        return node == root.getLeaf() ? super.visitLambdaExpression(node, null) : null;
+      }
+
+      @Override
+      public @Nullable Void visitClass(ClassTree node, @Nullable Void unused) {
+        return null;
+      }
+    }.scan(root, null);
+    return results;
+  }
+}
@@ -0,0 +1,112 @@
+package tech.picnic.errorprone.bugpatterns.util;
+
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreeScanner;
+import com.sun.tools.javac.code.Flags;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.VarSymbol;
+import javax.lang.model.element.ElementKind;
+import org.jspecify.nullness.Nullable;
+
+/**
+ * A collection of helper methods for working with the AST.
+ *
+ * <p>These methods are additions to the ones found in {@link ASTHelpers}.
+ */
+public final class MoreASTHelpers {
+  private MoreASTHelpers() {}
+
+  /**
+   * Tells whether the given tree may throw a checked exception.
+   *
+   * @param tree The tree of interest.
+   * @param state The {@link VisitorState} describing the context in which the given tree is found.
+   * @return Whether evaluation of the given tree may throw an exception that is neither a {@link
+   *     RuntimeException} nor an {@link Error}.
+   */
+  public static boolean throwsCheckedException(Tree tree, VisitorState state) {
+    return !ASTHelpers.getThrownExceptions(tree, state).stream()
+        .allMatch(
+            t ->
+                ASTHelpers.isSubtype(t, state.getSymtab().runtimeExceptionType, state)
+                    || ASTHelpers.isSubtype(t, state.getSymtab().errorType, state));
+  }
+
+  /**
+   * Tells whether the given expression can be moved into the body of a lambda expression, such that
+   * its evaluation is deferred.
+   *
+   * @param expression The expression of interest.
+   * @param state The {@link VisitorState} describing the context in which the given expression is
+   *     found.
+   * @return Whether the given expression does not throw checked exceptions, and references only
+   *     local variables that are final or effectively final.
+   */
+  public static boolean isLambdaCompatible(ExpressionTree expression, VisitorState state) {
+    return !throwsCheckedException(expression, state)
+        && referencesOnlyEffectivelyFinalLocals(expression);
+  }
+
+  /**
+   * Tells whether the given tree references only local variables that are final or effectively
+   * final, such that it may be moved into the body of a lambda expression.
+   *
+   * @param tree The tree of interest.
+   * @return Whether the given tree does not reference any local variable or parameter that is
+   *     reassigned.
+   */
+  public static boolean referencesOnlyEffectivelyFinalLocals(Tree tree) {
+    return !Boolean.TRUE.equals(
+        new TreeScanner<@Nullable Boolean, @Nullable Void>() {
+          @Override
+          public @Nullable Boolean visitIdentifier(IdentifierTree node, @Nullable Void unused) {
+            Symbol symbol = ASTHelpers.getSymbol(node);
+            return symbol instanceof VarSymbol
+                && symbol.getKind() != ElementKind.FIELD
+                && (symbol.flags() & (Flags.FINAL | Flags.EFFECTIVELY_FINAL)) == 0;
+          }
+
+          @Override
+          public @Nullable Boolean reduce(@Nullable Boolean r1, @Nullable Boolean r2) {
+            return Boolean.TRUE.equals(r1) || Boolean.TRUE.equals(r2);
+          }
+        }.scan(tree, null));
+  }
+
+  /**
+   * Tells whether the given expression performs a non-trivial computation, i.e. whether it is a
+   * method invocation or object instantiation.
+   *
+   * <p>Argument-less static factory methods named {@code of} or {@code empty*} are considered
+   * trivial, as they generally return a shared instance.
+   *
+   * @param expression The expression of interest.
+   * @return Whether the given expression is a method invocation or object instantiation that does
+   *     not obviously return a shared instance.
+   */
+  public static boolean isNonTrivialComputation(ExpressionTree expression) {
+    ExpressionTree tree = ASTHelpers.stripParentheses(expression);
+    if (tree instanceof NewClassTree) {
+      return true;
+    }
+
+    if (!(tree instanceof MethodInvocationTree)) {
+      return false;
+    }
+
+    Symbol symbol = ASTHelpers.getSymbol(tree);
+    if (symbol == null || !ASTHelpers.isStatic(symbol)) {
+      return true;
+    }
+
+    String name = symbol.getSimpleName().toString();
+    return !((MethodInvocationTree) tree).getArguments().isEmpty()
+        || !(name.equals("of") || name.startsWith("empty"));
+  }
+}
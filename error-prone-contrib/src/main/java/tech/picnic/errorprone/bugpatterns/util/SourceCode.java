@@ -1,6 +1,9 @@
 package tech.picnic.errorprone.bugpatterns.util;
 
+import static java.util.Objects.requireNonNull;
+
 import com.google.errorprone.VisitorState;
+import com.google.errorprone.util.ASTHelpers;
 import com.sun.source.tree.Tree;
 
 /**
@@ -24,4 +27,18 @@ public final class SourceCode {
     String src = state.getSourceForNode(tree);
     return src != null ? src : tree.toString();
   }
+
+  /**
+   * Returns the whitespace that precedes the given {@link Tree} on the line on which it starts.
+   *
+   * @param tree The AST node of interest.
+   * @param state A {@link VisitorState} describing the context in which the given {@link Tree} is
+   *     found.
+   * @return The indentation of the given tree, assuming that it is the first token on its line.
+   */
+  public static String getIndentation(Tree tree, VisitorState state) {
+    String source = requireNonNull(state.getSourceCode(), "Source code").toString();
+    int start = ASTHelpers.getStartPosition(tree);
+    return source.substring(source.lastIndexOf('\n', start - 1) + 1, start);
+  }
 }
@@ -0,0 +1,304 @@
+package tech.picnic.errorprone.bugpatterns.util;
+
+import static com.google.common.base.CaseFormat.UPPER_CAMEL;
+import static com.google.common.base.CaseFormat.UPPER_UNDERSCORE;
+
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.fixes.SuggestedFix;
+import com.google.errorprone.fixes.SuggestedFixes;
+import com.google.errorprone.fixes.SuggestedFixes.AdditionPosition;
+import com.google.errorprone.util.ASTHelpers;
+import com.google.errorprone.util.FindIdentifiers;
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreeScanner;
+import com.sun.tools.javac.code.Flags;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import com.sun.tools.javac.code.Symbol.VarSymbol;
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.code.Type.ArrayType;
+import com.sun.tools.javac.code.Type.WildcardType;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.type.TypeKind;
+import org.jspecify.nullness.Nullable;
+
+/**
+ * A collection of Error Prone utility methods for introducing {@code private static final} fields,
+ * and for determining whether code can be moved into such fields.
+ */
+public final class StaticConstants {
+  private StaticConstants() {}
+
+  /**
+   * Adds to the given fix the declaration of a {@code private static final} field with the given
+   * type and initializer, in the class enclosing the given context.
+   *
+   * <p>The name of the field is derived from the simple name of the given type, such that it does
+   * not clash with any other identifier visible in the given context, nor with any other field
+   * declared by this method in the same class.
+   *
+   * <p>The field is declared directly after the last static field that precedes the class member
+   * enclosing the given context, or after the last static field referenced by the initializer, if
+   * that field is declared later. This way the initializer does not contain illegal forward
+   * references, while the given context may reference the new field.
+   *
+   * @param fix The fix to which to add the field declaration and any required imports.
+   * @param type The type of the field.
+   * @param initializer The source code of the expression with which to initialize the field. This
+   *     expression may reference only static members.
+   * @param initializerSource The AST node from which the initializer is derived; this tree must
+   *     reference any static fields of the enclosing class that are referenced by the initializer.
+   * @param state A {@link VisitorState} describing the context in which the field will be
+   *     referenced.
+   * @return The name of the declared field, unless no such field can be declared, for example
+   *     because the enclosing class is an inner class, enum or interface, or because the given type
+   *     references a type variable.
+   */
+  public static Optional<String> declareConstant(
+      SuggestedFix.Builder fix,
+      Type type,
+      String initializer,
+      Tree initializerSource,
+      VisitorState state) {
+    Optional<ClassTree> enclosingClass = getEnclosingClass(state);
+    if (enclosingClass.isEmpty() || !isDenotableOutsideMember(type)) {
+      return Optional.empty();
+    }
+
+    ClassTree classTree = enclosingClass.orElseThrow();
+    String name = getUnusedName(getNameBase(type, state), classTree, state);
+    String declaration =
+        String.format(
+            "private static final %s %s = %s;",
+            SuggestedFixes.prettyType(state, fix, type), name, initializer);
+    Optional<VariableTree> precedingField =
+        getLastRequiredPrecedingStaticField(classTree, initializerSource, state);
+    if (precedingField.isPresent()) {
+      VariableTree field = precedingField.orElseThrow();
+      fix.postfixWith(field, '\n' + SourceCode.getIndentation(field, state) + declaration);
+    } else {
+      fix.merge(SuggestedFixes.addMembers(classTree, state, AdditionPosition.FIRST, declaration));
+    }
+    return Optional.of(name);
+  }
+
+  /**
+   * Tells whether the given context is part of a static field initializer or static initializer
+   * block, and is thus evaluated only once.
+   *
+   * @param state A {@link VisitorState} describing the context of interest.
+   * @return {@code true} iff the given context is evaluated only upon class initialization.
+   */
+  public static boolean isInStaticInitializer(VisitorState state) {
+    for (TreePath path = state.getPath();
+        path.getParentPath() != null;
+        path = path.getParentPath()) {
+      Tree child = path.getLeaf();
+      Tree parent = path.getParentPath().getLeaf();
+      if (parent instanceof ClassTree) {
+        return (child instanceof VariableTree || child instanceof BlockTree)
+            && isStaticMember(child);
+      }
+
+      if (parent instanceof MethodTree || parent instanceof LambdaExpressionTree) {
+        return false;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Tells whether the given tree can be moved into a static context, i.e. whether it references
+   * neither instance members nor local variables declared outside of it.
+   *
+   * @param tree The AST node of interest.
+   * @return {@code true} iff the given tree does not depend on any local or instance state.
+   */
+  public static boolean isStateless(Tree tree) {
+    int startPosition = ASTHelpers.getStartPosition(tree);
+    return !Boolean.TRUE.equals(
+        new TreeScanner<@Nullable Boolean, @Nullable Void>() {
+          @Override
+          public @Nullable Boolean visitIdentifier(IdentifierTree node, @Nullable Void unused) {
+            Symbol symbol = ASTHelpers.getSymbol(node);
+            return symbol != null && isState(symbol, startPosition);
+          }
+
+          @Override
+          public @Nullable Boolean reduce(@Nullable Boolean r1, @Nullable Boolean r2) {
+            return Boolean.TRUE.equals(r1) || Boolean.TRUE.equals(r2);
+          }
+        }.scan(tree, null));
+  }
+
+  /**
+   * Returns the innermost class enclosing the given context, if it is not an enum and it may
+   * declare a {@code private static final} field.
+   *
+   * <p>Prior to Java 16, inner classes may not declare static fields other than compile-time
+   * constants. Interfaces and annotation types may not declare private fields at all.
+   */
+  private static Optional<ClassTree> getEnclosingClass(VisitorState state) {
+    ClassTree classTree = state.findEnclosing(ClassTree.class);
+    if (classTree == null) {
+      return Optional.empty();
+    }
+
+    ClassSymbol symbol = ASTHelpers.getSymbol(classTree);
+    if (symbol.getKind() == ElementKind.ENUM) {
+      /* Fields cannot be declared ahead of an enum's constants. */
+      return Optional.empty();
+    }
+
+    if (symbol.isInterface()) {
+      /* This includes annotation types. */
+      return Optional.empty();
+    }
+
+    NestingKind nestingKind = symbol.getNestingKind();
+    return nestingKind == NestingKind.TOP_LEVEL
+            || (nestingKind == NestingKind.MEMBER && (symbol.flags() & Flags.STATIC) != 0)
+        ? Optional.of(classTree)
+        : Optional.empty();
+  }
+
+  /**
+   * Tells whether the given type can be written down in a static context, i.e. whether it does not
+   * reference type variables or captured wildcards.
+   */
+  private static boolean isDenotableOutsideMember(Type type) {
+    if (type.getKind() == TypeKind.TYPEVAR
+        || type.getKind() == TypeKind.ERROR
+        || type.getKind() == TypeKind.INTERSECTION) {
+      return false;
+    }
+
+    if (type instanceof ArrayType) {
+      return isDenotableOutsideMember(((ArrayType) type).getComponentType());
+    }
+
+    if (type instanceof WildcardType) {
+      Type bound = ((WildcardType) type).type;
+      return bound == null || isDenotableOutsideMember(bound);
+    }
+
+    return type.getTypeArguments().stream().allMatch(StaticConstants::isDenotableOutsideMember);
+  }
+
+  /**
+   * Returns the last static field of the given class that is either declared before the member
+   * enclosing the given context, or referenced by the given initializer source, if any.
+   */
+  private static Optional<VariableTree> getLastRequiredPrecedingStaticField(
+      ClassTree classTree, Tree initializerSource, VisitorState state) {
+    List<? extends Tree> members = classTree.getMembers();
+    int enclosingMemberIndex = members.indexOf(getEnclosingMember(classTree, state));
+    Set<Symbol> referencedSymbols = getReferencedSymbols(initializerSource);
+    return IntStream.range(0, members.size())
+        .filter(
+            i ->
+                members.get(i) instanceof VariableTree
+                    && isStaticMember(members.get(i))
+                    && (i < enclosingMemberIndex
+                        || referencedSymbols.contains(ASTHelpers.getSymbol(members.get(i)))))
+        .mapToObj(i -> (VariableTree) members.get(i))
+        .reduce((first, second) -> second);
+  }
+
+  private static Set<Symbol> getReferencedSymbols(Tree tree) {
+    Set<Symbol> symbols = new HashSet<>();
+    new TreeScanner<@Nullable Void, @Nullable Void>() {
+      @Override
+      public @Nullable Void visitIdentifier(IdentifierTree node, @Nullable Void unused) {
+        addSymbol(node);
+        return super.visitIdentifier(node, null);
+      }
+
+      @Override
+      public @Nullable Void visitMemberSelect(MemberSelectTree node, @Nullable Void unused) {
+        addSymbol(node);
+        return super.visitMemberSelect(node, null);
+      }
+
+      private void addSymbol(Tree node) {
+        Symbol symbol = ASTHelpers.getSymbol(node);
+        if (symbol != null) {
+          symbols.add(symbol);
+        }
+      }
+    }.scan(tree, null);
+    return symbols;
+  }
+
+  private static @Nullable Tree getEnclosingMember(ClassTree classTree, VisitorState state) {
+    for (TreePath path = state.getPath();
+        path.getParentPath() != null;
+        path = path.getParentPath()) {
+      if (path.getParentPath().getLeaf().equals(classTree)) {
+        return path.getLeaf();
+      }
+    }
+
+    return null;
+  }
+
+  private static String getNameBase(Type type, VisitorState state) {
+    return UPPER_CAMEL.to(
+        UPPER_UNDERSCORE, state.getTypes().erasure(type).tsym.getSimpleName().toString());
+  }
+
+  private static String getUnusedName(String base, ClassTree classTree, VisitorState state) {
+    Set<String> claimedNames = ClaimedNames.getClaimedNames(ASTHelpers.getSymbol(classTree), state);
+    String name =
+        Stream.concat(
+                Stream.of(base), IntStream.iterate(2, i -> i + 1).mapToObj(i -> base + '_' + i))
+            .filter(n -> !claimedNames.contains(n) && FindIdentifiers.findIdent(n, state) == null)
+            .findFirst()
+            .orElseThrow();
+    claimedNames.add(name);
+    return name;
+  }
+
+  private static boolean isStaticMember(Tree tree) {
+    if (tree instanceof BlockTree) {
+      return ((BlockTree) tree).isStatic();
+    }
+
+    Symbol symbol = ASTHelpers.getSymbol(tree);
+    return symbol != null && ASTHelpers.isStatic(symbol);
+  }
+
+  private static boolean isState(Symbol symbol, int treeStartPosition) {
+    switch (symbol.getKind()) {
+      case LOCAL_VARIABLE:
+      case PARAMETER:
+      case EXCEPTION_PARAMETER:
+      case RESOURCE_VARIABLE:
+        /* Only variables declared inside the tree itself may be referenced. */
+        return ((VarSymbol) symbol).pos < treeStartPosition;
+      case FIELD:
+      case METHOD:
+        return !ASTHelpers.isStatic(symbol);
+      case CLASS:
+        return ((ClassSymbol) symbol).hasOuterInstance();
+      default:
+        return symbol.getKind() == ElementKind.TYPE_PARAMETER;
+    }
+  }
+}
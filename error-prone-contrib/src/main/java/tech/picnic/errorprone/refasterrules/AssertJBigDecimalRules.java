@@ -10,6 +10,8 @@ import java.math.BigDecimal;
 import org.assertj.core.api.AbstractBigDecimalAssert;
 import org.assertj.core.api.BigDecimalAssert;
 import tech.picnic.errorprone.refaster.annotation.OnlineDocumentation;
+import tech.picnic.errorprone.refaster.annotation.Scope;
+import tech.picnic.errorprone.refaster.annotation.Scope.SourceSet;
 
 /**
  * Refaster rules related to AssertJ assertions over {@link BigDecimal}s.
@@ -22,6 +24,7 @@ import tech.picnic.errorprone.refaster.annotation.OnlineDocumentation;
  * would actually subtly change the assertion's semantics.
  */
 @OnlineDocumentation
+@Scope(SourceSet.TEST)
 final class AssertJBigDecimalRules {
   private AssertJBigDecimalRules() {}
 
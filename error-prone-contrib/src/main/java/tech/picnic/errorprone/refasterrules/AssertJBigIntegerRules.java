@@ -9,10 +9,13 @@ import com.google.errorprone.refaster.annotation.BeforeTemplate;
 import java.math.BigInteger;
 import org.assertj.core.api.AbstractBigIntegerAssert;
 import tech.picnic.errorprone.refaster.annotation.OnlineDocumentation;
+import tech.picnic.errorprone.refaster.annotation.Scope;
+import tech.picnic.errorprone.refaster.annotation.Scope.SourceSet;
 
 // XXX: If we add a rule that drops unnecessary `L` suffixes from literal longs, then the `0L`/`1L`
 // cases below can go.
 @OnlineDocumentation
+@Scope(SourceSet.TEST)
 final class AssertJBigIntegerRules {
   private AssertJBigIntegerRules() {}
 
@@ -8,8 +8,11 @@ import com.google.errorprone.refaster.annotation.AfterTemplate;
 import com.google.errorprone.refaster.annotation.BeforeTemplate;
 import org.assertj.core.api.AbstractByteAssert;
 import tech.picnic.errorprone.refaster.annotation.OnlineDocumentation;
+import tech.picnic.errorprone.refaster.annotation.Scope;
+import tech.picnic.errorprone.refaster.annotation.Scope.SourceSet;
 
 @OnlineDocumentation
+@Scope(SourceSet.TEST)
 final class AssertJByteRules {
   private AssertJByteRules() {}
 
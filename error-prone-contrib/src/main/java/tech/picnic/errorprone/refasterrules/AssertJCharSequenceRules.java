@@ -9,8 +9,11 @@ import com.google.errorprone.refaster.annotation.BeforeTemplate;
 import com.google.errorprone.refaster.annotation.UseImportPolicy;
 import org.assertj.core.api.AbstractAssert;
 import tech.picnic.errorprone.refaster.annotation.OnlineDocumentation;
+import tech.picnic.errorprone.refaster.annotation.Scope;
+import tech.picnic.errorprone.refaster.annotation.Scope.SourceSet;
 
 @OnlineDocumentation
+@Scope(SourceSet.TEST)
 final class AssertJCharSequenceRules {
   private AssertJCharSequenceRules() {}
 
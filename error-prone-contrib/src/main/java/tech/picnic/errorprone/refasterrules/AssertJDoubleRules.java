@@ -9,8 +9,11 @@ import com.google.errorprone.refaster.annotation.BeforeTemplate;
 import org.assertj.core.api.AbstractDoubleAssert;
 import org.assertj.core.data.Offset;
 import tech.picnic.errorprone.refaster.annotation.OnlineDocumentation;
+import tech.picnic.errorprone.refaster.annotation.Scope;
+import tech.picnic.errorprone.refaster.annotation.Scope.SourceSet;
 
 @OnlineDocumentation
+@Scope(SourceSet.TEST)
 final class AssertJDoubleRules {
   private AssertJDoubleRules() {}
 
@@ -20,9 +20,12 @@ import org.assertj.core.api.AbstractLongAssert;
 import org.assertj.core.api.AbstractShortAssert;
 import org.assertj.core.api.NumberAssert;
 import tech.picnic.errorprone.refaster.annotation.OnlineDocumentation;
+import tech.picnic.errorprone.refaster.annotation.Scope;
+import tech.picnic.errorprone.refaster.annotation.Scope.SourceSet;
 import tech.picnic.errorprone.refaster.matchers.IsCharacter;
 
 @OnlineDocumentation
+@Scope(SourceSet.TEST)
 final class AssertJNumberRules {
   private AssertJNumberRules() {}
 
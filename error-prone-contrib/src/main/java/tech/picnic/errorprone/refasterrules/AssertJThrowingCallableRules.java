@@ -17,6 +17,8 @@ import org.assertj.core.api.AbstractObjectAssert;
 import org.assertj.core.api.AbstractThrowableAssert;
 import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
 import tech.picnic.errorprone.refaster.annotation.OnlineDocumentation;
+import tech.picnic.errorprone.refaster.annotation.Scope;
+import tech.picnic.errorprone.refaster.annotation.Scope.SourceSet;
 
 /**
  * Refaster rules related to AssertJ assertions over expressions that may throw a {@link Throwable}
@@ -28,6 +30,7 @@ import tech.picnic.errorprone.refaster.annotation.OnlineDocumentation;
  * cases would require the implementation of an Error Prone check instead.
  */
 @OnlineDocumentation
+@Scope(SourceSet.TEST)
 final class AssertJThrowingCallableRules {
   private AssertJThrowingCallableRules() {}
 
@@ -9,9 +9,12 @@ import com.google.errorprone.refaster.annotation.Repeated;
 import com.google.errorprone.refaster.annotation.UseImportPolicy;
 import org.junit.jupiter.params.provider.Arguments;
 import tech.picnic.errorprone.refaster.annotation.OnlineDocumentation;
+import tech.picnic.errorprone.refaster.annotation.Scope;
+import tech.picnic.errorprone.refaster.annotation.Scope.SourceSet;
 
 /** Refaster rules related to JUnit expressions and statements. */
 @OnlineDocumentation
+@Scope(SourceSet.TEST)
 final class JUnitRules {
   private JUnitRules() {}
 
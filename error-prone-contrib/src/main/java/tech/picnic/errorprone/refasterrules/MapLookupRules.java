@@ -0,0 +1,154 @@
+package tech.picnic.errorprone.refasterrules;
+
+import com.google.errorprone.refaster.annotation.AfterTemplate;
+import com.google.errorprone.refaster.annotation.BeforeTemplate;
+import com.google.errorprone.refaster.annotation.Matches;
+import java.util.Map;
+import java.util.function.BiFunction;
+import org.jspecify.nullness.Nullable;
+import tech.picnic.errorprone.refaster.annotation.OnlineDocumentation;
+import tech.picnic.errorprone.refaster.matchers.IsCompileTimeConstant;
+import tech.picnic.errorprone.refaster.matchers.IsEffectivelyFinalLocal;
+
+/**
+ * Refaster rules that replace repeated {@link Map} lookups of the same key with a single lookup.
+ *
+ * <p>Each rule retains the original code's treatment of keys mapped to {@code null}. Rules that
+ * would cause a value to be computed unconditionally, while the original code computes it only if
+ * the key is absent, apply only to values that are trivial to compute.
+ *
+ * <p>The {@code RedundantMapLookup} check complements these rules by rewriting lookup patterns that
+ * span multiple statements.
+ */
+@OnlineDocumentation
+final class MapLookupRules {
+  private MapLookupRules() {}
+
+  /** Prefer {@link Map#containsKey(Object)} over less efficient alternatives. */
+  static final class MapContainsKey<K, V> {
+    @BeforeTemplate
+    boolean before(Map<K, V> map, Object key) {
+      return map.keySet().contains(key);
+    }
+
+    @AfterTemplate
+    boolean after(Map<K, V> map, Object key) {
+      return map.containsKey(key);
+    }
+  }
+
+  /** Don't test for the presence of a key before looking it up. */
+  static final class MapGet<K, V> {
+    @BeforeTemplate
+    @Nullable V before(Map<K, V> map, Object key) {
+      return map.containsKey(key) ? map.get(key) : null;
+    }
+
+    @AfterTemplate
+    @Nullable V after(Map<K, V> map, Object key) {
+      return map.get(key);
+    }
+  }
+
+  /** Prefer {@link Map#getOrDefault(Object, Object)} over a separate presence test. */
+  // XXX: This rule only applies to default values that are trivial to compute, as the replacement
+  // evaluates the default value unconditionally.
+  static final class MapGetOrDefault<K, V> {
+    @BeforeTemplate
+    V before(Map<K, V> map, Object key, @Matches(IsCompileTimeConstant.class) V defaultValue) {
+      return map.containsKey(key) ? map.get(key) : defaultValue;
+    }
+
+    @BeforeTemplate
+    V before2(Map<K, V> map, Object key, @Matches(IsEffectivelyFinalLocal.class) V defaultValue) {
+      return map.containsKey(key) ? map.get(key) : defaultValue;
+    }
+
+    @AfterTemplate
+    V after(Map<K, V> map, Object key, V defaultValue) {
+      return map.getOrDefault(key, defaultValue);
+    }
+  }
+
+  /**
+   * Prefer {@link Map#putIfAbsent(Object, Object)} over a separate lookup.
+   *
+   * <p>Like the original code, {@link Map#putIfAbsent(Object, Object)} replaces a {@code null}
+   * value associated with the given key.
+   */
+  // XXX: This rule only applies to values that are trivial to compute, as the replacement evaluates
+  // the value unconditionally. The `RedundantMapLookup` check covers other values.
+  static final class MapPutIfAbsent<K, V> {
+    @BeforeTemplate
+    void before(K key, Map<K, V> map, @Matches(IsCompileTimeConstant.class) V value) {
+      if (map.get(key) == null) {
+        map.put(key, value);
+      }
+    }
+
+    @BeforeTemplate
+    void before2(K key, Map<K, V> map, @Matches(IsEffectivelyFinalLocal.class) V value) {
+      if (map.get(key) == null) {
+        map.put(key, value);
+      }
+    }
+
+    @AfterTemplate
+    void after(K key, Map<K, V> map, V value) {
+      map.putIfAbsent(key, value);
+    }
+  }
+
+  /**
+   * Prefer {@link Map#putIfAbsent(Object, Object)} over a separate lookup.
+   *
+   * <p>Both expressions yield the value associated with the given key prior to the update, or
+   * {@code null} if there was no such value.
+   */
+  static final class MapPutIfAbsentExpression<K, V> {
+    @BeforeTemplate
+    V before(K key, Map<K, V> map, @Matches(IsCompileTimeConstant.class) V value) {
+      return map.get(key) == null ? map.put(key, value) : map.get(key);
+    }
+
+    @BeforeTemplate
+    V before2(K key, Map<K, V> map, @Matches(IsEffectivelyFinalLocal.class) V value) {
+      return map.get(key) == null ? map.put(key, value) : map.get(key);
+    }
+
+    @AfterTemplate
+    V after(K key, Map<K, V> map, V value) {
+      return map.putIfAbsent(key, value);
+    }
+  }
+
+  /** Prefer {@link Map#merge(Object, Object, BiFunction)} over a separate lookup. */
+  // XXX: If the key is mapped to `null`, then the original code throws a `NullPointerException`,
+  // while the replacement associates the key with the given value.
+  static final class MapMergeIntegerSum<K> {
+    @BeforeTemplate
+    void before(Map<K, Integer> map, K key, int value) {
+      map.put(key, map.getOrDefault(key, 0) + value);
+    }
+
+    @AfterTemplate
+    void after(Map<K, Integer> map, K key, int value) {
+      map.merge(key, value, Integer::sum);
+    }
+  }
+
+  /** Prefer {@link Map#merge(Object, Object, BiFunction)} over a separate lookup. */
+  // XXX: If the key is mapped to `null`, then the original code throws a `NullPointerException`,
+  // while the replacement associates the key with the given value.
+  static final class MapMergeLongSum<K> {
+    @BeforeTemplate
+    void before(Map<K, Long> map, K key, long value) {
+      map.put(key, map.getOrDefault(key, 0L) + value);
+    }
+
+    @AfterTemplate
+    void after(Map<K, Long> map, K key, long value) {
+      map.merge(key, value, Long::sum);
+    }
+  }
+}
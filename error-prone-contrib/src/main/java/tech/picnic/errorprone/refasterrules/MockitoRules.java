@@ -11,9 +11,12 @@ import com.google.errorprone.refaster.annotation.UseImportPolicy;
 import org.mockito.Mockito;
 import org.mockito.verification.VerificationMode;
 import tech.picnic.errorprone.refaster.annotation.OnlineDocumentation;
+import tech.picnic.errorprone.refaster.annotation.Scope;
+import tech.picnic.errorprone.refaster.annotation.Scope.SourceSet;
 
 /** Refaster rules related to Mockito expressions and statements. */
 @OnlineDocumentation
+@Scope(SourceSet.TEST)
 final class MockitoRules {
   private MockitoRules() {}
 
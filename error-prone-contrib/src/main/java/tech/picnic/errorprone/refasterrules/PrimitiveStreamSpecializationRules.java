@@ -0,0 +1,273 @@
+package tech.picnic.errorprone.refasterrules;
+
+import static java.util.stream.Collectors.averagingDouble;
+import static java.util.stream.Collectors.averagingInt;
+import static java.util.stream.Collectors.averagingLong;
+import static java.util.stream.Collectors.summarizingDouble;
+import static java.util.stream.Collectors.summarizingInt;
+import static java.util.stream.Collectors.summarizingLong;
+import static java.util.stream.Collectors.summingDouble;
+import static java.util.stream.Collectors.summingInt;
+import static java.util.stream.Collectors.summingLong;
+
+import com.google.errorprone.refaster.Refaster;
+import com.google.errorprone.refaster.annotation.AfterTemplate;
+import com.google.errorprone.refaster.annotation.BeforeTemplate;
+import java.util.DoubleSummaryStatistics;
+import java.util.IntSummaryStatistics;
+import java.util.LongSummaryStatistics;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import tech.picnic.errorprone.refaster.annotation.OnlineDocumentation;
+
+/**
+ * Refaster rules that replace {@link Stream} operations on boxed primitives with operations on
+ * {@link IntStream}s, {@link LongStream}s and {@link DoubleStream}s, thus avoiding the allocation
+ * of a wrapper object per element.
+ *
+ * <p>The {@code PrimitiveStreamSpecialization} check complements these rules by fusing a preceding
+ * {@link Stream#map(java.util.function.Function)} operation into the resulting {@code mapToInt},
+ * {@code mapToLong} or {@code mapToDouble} operation.
+ */
+// XXX: Several of these rules replace an expression of a boxed type with an expression of the
+// associated primitive type. In (rare) contexts that require the boxed type, such as a method
+// invocation on the result, the replacement does not compile.
+@OnlineDocumentation
+final class PrimitiveStreamSpecializationRules {
+  private PrimitiveStreamSpecializationRules() {}
+
+  /** Prefer {@link IntStream#sum()} over the boxing alternative. */
+  static final class StreamMapToIntSum<T> {
+    @BeforeTemplate
+    Integer before(Stream<T> stream, ToIntFunction<T> mapper) {
+      return stream.collect(summingInt(mapper));
+    }
+
+    @AfterTemplate
+    int after(Stream<T> stream, ToIntFunction<T> mapper) {
+      return stream.mapToInt(mapper).sum();
+    }
+  }
+
+  /** Prefer {@link IntStream#average()} over the boxing alternative. */
+  static final class StreamMapToIntAverage<T> {
+    @BeforeTemplate
+    Double before(Stream<T> stream, ToIntFunction<T> mapper) {
+      return stream.collect(averagingInt(mapper));
+    }
+
+    @AfterTemplate
+    double after(Stream<T> stream, ToIntFunction<T> mapper) {
+      return stream.mapToInt(mapper).average().orElse(0);
+    }
+  }
+
+  /** Prefer {@link IntStream#summaryStatistics()} over the boxing alternative. */
+  static final class StreamMapToIntSummaryStatistics<T> {
+    @BeforeTemplate
+    IntSummaryStatistics before(Stream<T> stream, ToIntFunction<T> mapper) {
+      return stream.collect(summarizingInt(mapper));
+    }
+
+    @AfterTemplate
+    IntSummaryStatistics after(Stream<T> stream, ToIntFunction<T> mapper) {
+      return stream.mapToInt(mapper).summaryStatistics();
+    }
+  }
+
+  /** Prefer {@link IntStream#sum()} over reducing a stream of {@link Integer}s. */
+  static final class IntegerStreamSum {
+    @BeforeTemplate
+    Integer before(Stream<Integer> stream) {
+      return stream.reduce(0, Integer::sum);
+    }
+
+    @AfterTemplate
+    int after(Stream<Integer> stream) {
+      return stream.mapToInt(Integer::intValue).sum();
+    }
+  }
+
+  /** Sort an {@link IntStream} before boxing its elements. */
+  static final class IntStreamSortedBoxed {
+    @BeforeTemplate
+    Stream<Integer> before(IntStream stream) {
+      return stream.boxed().sorted();
+    }
+
+    @AfterTemplate
+    Stream<Integer> after(IntStream stream) {
+      return stream.sorted().boxed();
+    }
+  }
+
+  /** Don't unnecessarily box and unbox the elements of an {@link IntStream}. */
+  static final class IntStreamBoxedMapToInt {
+    @BeforeTemplate
+    IntStream before(IntStream stream) {
+      return Refaster.anyOf(
+          stream.boxed().mapToInt(Integer::intValue),
+          stream.mapToObj(Integer::valueOf).mapToInt(Integer::intValue));
+    }
+
+    @AfterTemplate
+    IntStream after(IntStream stream) {
+      return stream;
+    }
+  }
+
+  /** Prefer {@link LongStream#sum()} over the boxing alternative. */
+  static final class StreamMapToLongSum<T> {
+    @BeforeTemplate
+    Long before(Stream<T> stream, ToLongFunction<T> mapper) {
+      return stream.collect(summingLong(mapper));
+    }
+
+    @AfterTemplate
+    long after(Stream<T> stream, ToLongFunction<T> mapper) {
+      return stream.mapToLong(mapper).sum();
+    }
+  }
+
+  /** Prefer {@link LongStream#average()} over the boxing alternative. */
+  static final class StreamMapToLongAverage<T> {
+    @BeforeTemplate
+    Double before(Stream<T> stream, ToLongFunction<T> mapper) {
+      return stream.collect(averagingLong(mapper));
+    }
+
+    @AfterTemplate
+    double after(Stream<T> stream, ToLongFunction<T> mapper) {
+      return stream.mapToLong(mapper).average().orElse(0);
+    }
+  }
+
+  /** Prefer {@link LongStream#summaryStatistics()} over the boxing alternative. */
+  static final class StreamMapToLongSummaryStatistics<T> {
+    @BeforeTemplate
+    LongSummaryStatistics before(Stream<T> stream, ToLongFunction<T> mapper) {
+      return stream.collect(summarizingLong(mapper));
+    }
+
+    @AfterTemplate
+    LongSummaryStatistics after(Stream<T> stream, ToLongFunction<T> mapper) {
+      return stream.mapToLong(mapper).summaryStatistics();
+    }
+  }
+
+  /** Prefer {@link LongStream#sum()} over reducing a stream of {@link Long}s. */
+  static final class LongStreamSum {
+    @BeforeTemplate
+    Long before(Stream<Long> stream) {
+      return stream.reduce(0L, Long::sum);
+    }
+
+    @AfterTemplate
+    long after(Stream<Long> stream) {
+      return stream.mapToLong(Long::longValue).sum();
+    }
+  }
+
+  /** Sort a {@link LongStream} before boxing its elements. */
+  static final class LongStreamSortedBoxed {
+    @BeforeTemplate
+    Stream<Long> before(LongStream stream) {
+      return stream.boxed().sorted();
+    }
+
+    @AfterTemplate
+    Stream<Long> after(LongStream stream) {
+      return stream.sorted().boxed();
+    }
+  }
+
+  /** Don't unnecessarily box and unbox the elements of a {@link LongStream}. */
+  static final class LongStreamBoxedMapToLong {
+    @BeforeTemplate
+    LongStream before(LongStream stream) {
+      return Refaster.anyOf(
+          stream.boxed().mapToLong(Long::longValue),
+          stream.mapToObj(Long::valueOf).mapToLong(Long::longValue));
+    }
+
+    @AfterTemplate
+    LongStream after(LongStream stream) {
+      return stream;
+    }
+  }
+
+  /** Prefer {@link DoubleStream#sum()} over the boxing alternative. */
+  static final class StreamMapToDoubleSum<T> {
+    @BeforeTemplate
+    Double before(Stream<T> stream, ToDoubleFunction<T> mapper) {
+      return stream.collect(summingDouble(mapper));
+    }
+
+    @AfterTemplate
+    double after(Stream<T> stream, ToDoubleFunction<T> mapper) {
+      return stream.mapToDouble(mapper).sum();
+    }
+  }
+
+  /** Prefer {@link DoubleStream#average()} over the boxing alternative. */
+  static final class StreamMapToDoubleAverage<T> {
+    @BeforeTemplate
+    Double before(Stream<T> stream, ToDoubleFunction<T> mapper) {
+      return stream.collect(averagingDouble(mapper));
+    }
+
+    @AfterTemplate
+    double after(Stream<T> stream, ToDoubleFunction<T> mapper) {
+      return stream.mapToDouble(mapper).average().orElse(0);
+    }
+  }
+
+  /** Prefer {@link DoubleStream#summaryStatistics()} over the boxing alternative. */
+  static final class StreamMapToDoubleSummaryStatistics<T> {
+    @BeforeTemplate
+    DoubleSummaryStatistics before(Stream<T> stream, ToDoubleFunction<T> mapper) {
+      return stream.collect(summarizingDouble(mapper));
+    }
+
+    @AfterTemplate
+    DoubleSummaryStatistics after(Stream<T> stream, ToDoubleFunction<T> mapper) {
+      return stream.mapToDouble(mapper).summaryStatistics();
+    }
+  }
+
+  // XXX: There is no `DoubleStreamSum` rule, as `DoubleStream#sum()` uses compensated summation
+  // and may thus yield a different result than `stream.reduce(0.0, Double::sum)`.
+
+  /** Sort a {@link DoubleStream} before boxing its elements. */
+  static final class DoubleStreamSortedBoxed {
+    @BeforeTemplate
+    Stream<Double> before(DoubleStream stream) {
+      return stream.boxed().sorted();
+    }
+
+    @AfterTemplate
+    Stream<Double> after(DoubleStream stream) {
+      return stream.sorted().boxed();
+    }
+  }
+
+  /** Don't unnecessarily box and unbox the elements of a {@link DoubleStream}. */
+  static final class DoubleStreamBoxedMapToDouble {
+    @BeforeTemplate
+    DoubleStream before(DoubleStream stream) {
+      return Refaster.anyOf(
+          stream.boxed().mapToDouble(Double::doubleValue),
+          stream.mapToObj(Double::valueOf).mapToDouble(Double::doubleValue));
+    }
+
+    @AfterTemplate
+    DoubleStream after(DoubleStream stream) {
+      return stream;
+    }
+  }
+}
@@ -35,6 +35,8 @@ import reactor.util.context.Context;
 import reactor.util.function.Tuple2;
 import tech.picnic.errorprone.refaster.annotation.Description;
 import tech.picnic.errorprone.refaster.annotation.OnlineDocumentation;
+import tech.picnic.errorprone.refaster.annotation.Scope;
+import tech.picnic.errorprone.refaster.annotation.Scope.SourceSet;
 import tech.picnic.errorprone.refaster.annotation.Severity;
 import tech.picnic.errorprone.refaster.matchers.ThrowsCheckedException;
 
@@ -948,6 +950,7 @@ final class ReactorRules {
   }
 
   /** Prefer {@link PublisherProbe#empty()}} over more verbose alternatives. */
+  @Scope(SourceSet.TEST)
   static final class PublisherProbeEmpty<T> {
     @BeforeTemplate
     PublisherProbe<T> before() {
@@ -961,6 +964,7 @@ final class ReactorRules {
   }
 
   /** Prefer {@link Mono#as(Function)} when creating a {@link StepVerifier}. */
+  @Scope(SourceSet.TEST)
   static final class StepVerifierFromMono<T> {
     @BeforeTemplate
     StepVerifier.FirstStep<? extends T> before(Mono<T> mono) {
@@ -974,6 +978,7 @@ final class ReactorRules {
   }
 
   /** Prefer {@link Flux#as(Function)} when creating a {@link StepVerifier}. */
+  @Scope(SourceSet.TEST)
   static final class StepVerifierFromFlux<T> {
     @BeforeTemplate
     StepVerifier.FirstStep<? extends T> before(Flux<T> flux) {
@@ -987,6 +992,7 @@ final class ReactorRules {
   }
 
   /** Don't unnecessarily call {@link StepVerifier.Step#expectNext(Object[])}. */
+  @Scope(SourceSet.TEST)
   static final class StepVerifierStepExpectNextEmpty<T> {
     @BeforeTemplate
     @SuppressWarnings("unchecked")
@@ -1001,6 +1007,7 @@ final class ReactorRules {
   }
 
   /** Prefer {@link StepVerifier.Step#expectNext(Object)} over more verbose alternatives. */
+  @Scope(SourceSet.TEST)
   static final class StepVerifierStepExpectNext<T> {
     @BeforeTemplate
     StepVerifier.Step<T> before(StepVerifier.Step<T> step, T object) {
@@ -1015,6 +1022,7 @@ final class ReactorRules {
   }
 
   /** Prefer {@link StepVerifier.LastStep#verifyComplete()} over more verbose alternatives. */
+  @Scope(SourceSet.TEST)
   static final class StepVerifierLastStepVerifyComplete {
     @BeforeTemplate
     Duration before(StepVerifier.LastStep step) {
@@ -1028,6 +1036,7 @@ final class ReactorRules {
   }
 
   /** Prefer {@link StepVerifier.LastStep#verifyError()} over more verbose alternatives. */
+  @Scope(SourceSet.TEST)
   static final class StepVerifierLastStepVerifyError {
     @BeforeTemplate
     Duration before(StepVerifier.LastStep step) {
@@ -1041,6 +1050,7 @@ final class ReactorRules {
   }
 
   /** Prefer {@link StepVerifier.LastStep#verifyError(Class)} over more verbose alternatives. */
+  @Scope(SourceSet.TEST)
   static final class StepVerifierLastStepVerifyErrorClass<T extends Throwable> {
     @BeforeTemplate
     Duration before(StepVerifier.LastStep step, Class<T> clazz) {
@@ -1059,6 +1069,7 @@ final class ReactorRules {
    * Prefer {@link StepVerifier.LastStep#verifyErrorMatches(Predicate)} over more verbose
    * alternatives.
    */
+  @Scope(SourceSet.TEST)
   static final class StepVerifierLastStepVerifyErrorMatches {
     @BeforeTemplate
     Duration before(StepVerifier.LastStep step, Predicate<Throwable> predicate) {
@@ -1075,6 +1086,7 @@ final class ReactorRules {
    * Prefer {@link StepVerifier.LastStep#verifyErrorSatisfies(Consumer)} over more verbose
    * alternatives.
    */
+  @Scope(SourceSet.TEST)
   static final class StepVerifierLastStepVerifyErrorSatisfies {
     @BeforeTemplate
     Duration before(StepVerifier.LastStep step, Consumer<Throwable> consumer) {
@@ -1090,6 +1102,7 @@ final class ReactorRules {
   /**
    * Prefer {@link StepVerifier.LastStep#verifyErrorMessage(String)} over more verbose alternatives.
    */
+  @Scope(SourceSet.TEST)
   static final class StepVerifierLastStepVerifyErrorMessage {
     @BeforeTemplate
     Duration before(StepVerifier.LastStep step, String message) {
@@ -1105,6 +1118,7 @@ final class ReactorRules {
   /**
    * Prefer {@link StepVerifier.LastStep#verifyTimeout(Duration)} over more verbose alternatives.
    */
+  @Scope(SourceSet.TEST)
   static final class StepVerifierLastStepVerifyTimeout {
     @BeforeTemplate
     Duration before(StepVerifier.LastStep step, Duration duration) {
@@ -0,0 +1,188 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import com.google.errorprone.BugCheckerRefactoringTestHelper;
+import com.google.errorprone.BugCheckerRefactoringTestHelper.TestMode;
+import com.google.errorprone.CompilationTestHelper;
+import org.junit.jupiter.api.Test;
+
+final class CollectionPresizingTest {
+  private final CompilationTestHelper compilationTestHelper =
+      CompilationTestHelper.newInstance(CollectionPresizing.class, getClass());
+  private final BugCheckerRefactoringTestHelper refactoringTestHelper =
+      BugCheckerRefactoringTestHelper.newInstance(CollectionPresizing.class, getClass());
+
+  @Test
+  void identification() {
+    compilationTestHelper
+        .addSourceLines(
+            "A.java",
+            "import com.google.common.collect.ImmutableList;",
+            "import java.util.ArrayList;",
+            "import java.util.HashMap;",
+            "import java.util.HashSet;",
+            "import java.util.LinkedList;",
+            "import java.util.List;",
+            "import java.util.Map;",
+            "import java.util.Set;",
+            "",
+            "class A {",
+            "  private final List<String> field = new ArrayList<>();",
+            "",
+            "  void m(List<String> list, Map<String, Integer> map, String[] array, Iterable<String> it) {",
+            "    List<String> l1 = new ArrayList<>(list.size());",
+            "    for (String s : list) {",
+            "      l1.add(s);",
+            "    }",
+            "",
+            "    List<String> l2 = new ArrayList<>();",
+            "    for (String s : it) {",
+            "      l2.add(s);",
+            "    }",
+            "",
+            "    List<String> l3 = new ArrayList<>();",
+            "    for (String s : list) {",
+            "      if (s.isEmpty()) {",
+            "        l3.add(s);",
+            "      }",
+            "    }",
+            "",
+            "    List<String> l4 = new ArrayList<>();",
+            "    for (String s : list) {",
+            "      l4.add(s);",
+            "      l4.add(s);",
+            "    }",
+            "",
+            "    List<String> l5 = new ArrayList<>();",
+            "    l5.add(\"foo\");",
+            "    for (String s : list) {",
+            "      l5.add(s);",
+            "    }",
+            "",
+            "    List<String> l6 = new LinkedList<>();",
+            "    for (String s : list) {",
+            "      l6.add(s);",
+            "    }",
+            "",
+            "    List<String> l7 = new ArrayList<>();",
+            "    for (String s : m2()) {",
+            "      l7.add(s);",
+            "    }",
+            "",
+            "    var set = new HashSet<String>();",
+            "    for (String s : list) {",
+            "      set.add(s);",
+            "    }",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    List<String> l8 = new ArrayList<>();",
+            "    for (String s : list) {",
+            "      l8.add(s + s);",
+            "    }",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    List<Integer> l9 = new ArrayList<>();",
+            "    for (String s : array) l9.add(s.length());",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    Set<String> s1 = new HashSet<>();",
+            "    for (Map.Entry<String, Integer> e : map.entrySet()) {",
+            "      String key = e.getKey();",
+            "      s1.add(key);",
+            "    }",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    Map<String, Integer> m1 = new HashMap<>();",
+            "    for (String s : list) {",
+            "      m1.put(s, s.length());",
+            "    }",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    ImmutableList.Builder<String> b1 = ImmutableList.builder();",
+            "    for (String s : this.field) {",
+            "      b1.add(s);",
+            "    }",
+            "  }",
+            "",
+            "  List<String> m2() {",
+            "    return field;",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void replacement() {
+    refactoringTestHelper
+        .setArgs("--release", "11")
+        .addInputLines(
+            "A.java",
+            "import com.google.common.collect.ImmutableMap;",
+            "import com.google.common.collect.ImmutableSet;",
+            "import java.util.ArrayList;",
+            "import java.util.Collection;",
+            "import java.util.LinkedHashMap;",
+            "import java.util.List;",
+            "import java.util.Map;",
+            "",
+            "class A {",
+            "  void m(Collection<String> collection, Map<String, Integer> map, int[] array) {",
+            "    List<String> list = new ArrayList<String>();",
+            "    for (String s : collection) {",
+            "      list.add(s);",
+            "    }",
+            "",
+            "    Map<Integer, Integer> linkedMap = new LinkedHashMap<>();",
+            "    for (int i : array) {",
+            "      linkedMap.put(i, i);",
+            "    }",
+            "",
+            "    ImmutableSet.Builder<String> setBuilder = ImmutableSet.<String>builder();",
+            "    for (String key : map.keySet()) {",
+            "      setBuilder.add(key);",
+            "    }",
+            "",
+            "    ImmutableMap.Builder<String, Integer> mapBuilder = ImmutableMap.builder();",
+            "    for (String s : list) {",
+            "      mapBuilder.put(s, s.length());",
+            "    }",
+            "  }",
+            "}")
+        .addOutputLines(
+            "A.java",
+            "import com.google.common.collect.ImmutableMap;",
+            "import com.google.common.collect.ImmutableSet;",
+            "import com.google.common.collect.Maps;",
+            "import java.util.ArrayList;",
+            "import java.util.Collection;",
+            "import java.util.LinkedHashMap;",
+            "import java.util.List;",
+            "import java.util.Map;",
+            "",
+            "class A {",
+            "  void m(Collection<String> collection, Map<String, Integer> map, int[] array) {",
+            "    List<String> list = new ArrayList<String>(collection.size());",
+            "    for (String s : collection) {",
+            "      list.add(s);",
+            "    }",
+            "",
+            "    Map<Integer, Integer> linkedMap = Maps.newLinkedHashMapWithExpectedSize(array.length);",
+            "    for (int i : array) {",
+            "      linkedMap.put(i, i);",
+            "    }",
+            "",
+            "    ImmutableSet.Builder<String> setBuilder =",
+            "        ImmutableSet.<String>builderWithExpectedSize(map.size());",
+            "    for (String key : map.keySet()) {",
+            "      setBuilder.add(key);",
+            "    }",
+            "",
+            "    ImmutableMap.Builder<String, Integer> mapBuilder =",
+            "        ImmutableMap.builderWithExpectedSize(list.size());",
+            "    for (String s : list) {",
+            "      mapBuilder.put(s, s.length());",
+            "    }",
+            "  }",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+}
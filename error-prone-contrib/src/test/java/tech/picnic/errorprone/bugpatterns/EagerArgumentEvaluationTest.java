@@ -0,0 +1,172 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.BugCheckerRefactoringTestHelper;
+import com.google.errorprone.BugCheckerRefactoringTestHelper.TestMode;
+import com.google.errorprone.CompilationTestHelper;
+import org.junit.jupiter.api.Test;
+
+final class EagerArgumentEvaluationTest {
+  private final CompilationTestHelper compilationTestHelper =
+      CompilationTestHelper.newInstance(EagerArgumentEvaluation.class, getClass());
+  private final CompilationTestHelper customizedCompilationTestHelper =
+      CompilationTestHelper.newInstance(EagerArgumentEvaluation.class, getClass())
+          .setArgs(
+              ImmutableList.of(
+                  "-XepOpt:EagerArgumentEvaluation:ExtraConditionallyUsedArgumentMethods=java.util.Optional#or(java.util.function.Supplier)"));
+  private final BugCheckerRefactoringTestHelper refactoringTestHelper =
+      BugCheckerRefactoringTestHelper.newInstance(EagerArgumentEvaluation.class, getClass());
+
+  @Test
+  void identification() {
+    compilationTestHelper
+        .addSourceLines(
+            "A.java",
+            "import static com.google.common.base.Preconditions.checkArgument;",
+            "import static com.google.common.base.Preconditions.checkNotNull;",
+            "",
+            "import com.google.common.collect.ImmutableList;",
+            "import java.util.ArrayList;",
+            "import java.util.List;",
+            "import java.util.Map;",
+            "import java.util.Objects;",
+            "import java.util.Optional;",
+            "import reactor.core.publisher.Mono;",
+            "",
+            "class A {",
+            "  private static final String DEFAULT = \"foo\";",
+            "",
+            "  void m(Optional<String> optional, Map<String, String> map, String s, List<String> list) {",
+            "    optional.orElse(null);",
+            "    optional.orElse(\"foo\");",
+            "    optional.orElse(DEFAULT);",
+            "    optional.orElse(s);",
+            "    optional.orElse((s));",
+            "    Optional.of(list).orElse(ImmutableList.of());",
+            "    Optional.of(list).orElse(List.of());",
+            "    optional.orElseGet(() -> s.trim());",
+            "    // BUG: Diagnostic contains:",
+            "    optional.orElse(s.trim());",
+            "    // BUG: Diagnostic contains:",
+            "    optional.orElse((s.trim()));",
+            "    // BUG: Diagnostic contains:",
+            "    Optional.of(list).orElse(new ArrayList<>());",
+            "    // BUG: Diagnostic contains:",
+            "    Optional.of(list).orElse(List.of(\"foo\"));",
+            "",
+            "    map.getOrDefault(s, \"foo\");",
+            "    // BUG: Diagnostic contains: consider `Map#computeIfAbsent`",
+            "    map.getOrDefault(s, s.trim());",
+            "",
+            "    Objects.requireNonNullElse(s, DEFAULT);",
+            "    Objects.requireNonNull(s, \"Message\");",
+            "    // BUG: Diagnostic contains:",
+            "    Objects.requireNonNullElse(s, s.trim());",
+            "    // BUG: Diagnostic contains:",
+            "    Objects.requireNonNull(s, String.format(\"Missing %s\", DEFAULT));",
+            "",
+            "    checkArgument(s.isEmpty(), \"Message\");",
+            "    checkArgument(s.isEmpty(), \"Message %s\", s);",
+            "    checkArgument(s.isEmpty(), s.trim());",
+            "    // BUG: Diagnostic contains:",
+            "    checkArgument(s.isEmpty(), String.format(\"Message %s\", s));",
+            "    // BUG: Diagnostic contains:",
+            "    checkNotNull(s, String.format(\"Message %s\", s));",
+            "",
+            "    Mono.just(s).defaultIfEmpty(DEFAULT);",
+            "    // BUG: Diagnostic contains:",
+            "    Mono.just(s).defaultIfEmpty(s.trim());",
+            "",
+            "    optional.or(() -> Optional.of(s.trim()));",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void identificationWithCustomMethods() {
+    customizedCompilationTestHelper
+        .addSourceLines(
+            "A.java",
+            "import java.util.Optional;",
+            "",
+            "class A {",
+            "  void m(Optional<String> optional, String s) {",
+            "    // BUG: Diagnostic contains:",
+            "    optional.orElse(s.trim());",
+            "    // BUG: Diagnostic contains:",
+            "    optional.or(supplier());",
+            "    optional.or(() -> Optional.of(s.trim()));",
+            "  }",
+            "",
+            "  private java.util.function.Supplier<Optional<String>> supplier() {",
+            "    return Optional::empty;",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void replacement() {
+    refactoringTestHelper
+        .addInputLines(
+            "A.java",
+            "import static com.google.common.base.Preconditions.checkArgument;",
+            "import static com.google.common.base.Preconditions.checkState;",
+            "",
+            "import java.io.IOException;",
+            "import java.util.Objects;",
+            "import java.util.Optional;",
+            "import reactor.core.publisher.Mono;",
+            "",
+            "class A {",
+            "  void m(Optional<String> optional, String s, int i) throws IOException {",
+            "    optional.orElse(s.trim());",
+            "    optional.orElse(load());",
+            "    Objects.requireNonNullElse(s, String.valueOf(i));",
+            "    Objects.requireNonNull(s, String.format(\"Missing %s\", i));",
+            "    checkArgument(s.isEmpty(), String.format(\"Unexpected %s (%s)\", s, i));",
+            "    checkState(s.isEmpty(), String.format(\"Unexpected %d\", i));",
+            "    Mono.just(s).defaultIfEmpty(s.trim());",
+            "",
+            "    String mutable = s;",
+            "    mutable = mutable.trim();",
+            "    optional.orElse(mutable.trim());",
+            "  }",
+            "",
+            "  private static String load() throws IOException {",
+            "    return \"foo\";",
+            "  }",
+            "}")
+        .addOutputLines(
+            "A.java",
+            "import static com.google.common.base.Preconditions.checkArgument;",
+            "import static com.google.common.base.Preconditions.checkState;",
+            "",
+            "import java.io.IOException;",
+            "import java.util.Objects;",
+            "import java.util.Optional;",
+            "import reactor.core.publisher.Mono;",
+            "",
+            "class A {",
+            "  void m(Optional<String> optional, String s, int i) throws IOException {",
+            "    optional.orElseGet(() -> s.trim());",
+            "    optional.orElse(load());",
+            "    Objects.requireNonNullElseGet(s, () -> String.valueOf(i));",
+            "    Objects.requireNonNull(s, () -> String.format(\"Missing %s\", i));",
+            "    checkArgument(s.isEmpty(), \"Unexpected %s (%s)\", s, i);",
+            "    checkState(s.isEmpty(), String.format(\"Unexpected %d\", i));",
+            "    Mono.just(s).switchIfEmpty(Mono.fromSupplier(() -> s.trim()));",
+            "",
+            "    String mutable = s;",
+            "    mutable = mutable.trim();",
+            "    optional.orElse(mutable.trim());",
+            "  }",
+            "",
+            "  private static String load() throws IOException {",
+            "    return \"foo\";",
+            "  }",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+}
@@ -0,0 +1,206 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import com.google.errorprone.BugCheckerRefactoringTestHelper;
+import com.google.errorprone.BugCheckerRefactoringTestHelper.TestMode;
+import com.google.errorprone.CompilationTestHelper;
+import org.junit.jupiter.api.Test;
+
+final class EagerJustArgumentTest {
+  private final CompilationTestHelper compilationTestHelper =
+      CompilationTestHelper.newInstance(EagerJustArgument.class, getClass());
+  private final BugCheckerRefactoringTestHelper refactoringTestHelper =
+      BugCheckerRefactoringTestHelper.newInstance(EagerJustArgument.class, getClass());
+
+  @Test
+  void identification() {
+    compilationTestHelper
+        .addSourceLines(
+            "A.java",
+            "import com.google.common.collect.ImmutableList;",
+            "import java.util.List;",
+            "import java.util.Optional;",
+            "import org.reactivestreams.Publisher;",
+            "import reactor.core.publisher.Flux;",
+            "import reactor.core.publisher.Mono;",
+            "",
+            "class A {",
+            "  private static final String CONSTANT = \"foo\";",
+            "",
+            "  String m1(String s) {",
+            "    Mono.just(s.trim());",
+            "    return s;",
+            "  }",
+            "",
+            "  Mono<String> m2(String s) {",
+            "    Mono.just(CONSTANT);",
+            "    Mono.just(s);",
+            "    Mono.justOrEmpty(Optional.empty());",
+            "    Flux.just(CONSTANT, s);",
+            "    Mono.just(s).map(v -> Mono.just(v.trim()));",
+            "    Mono.defer(() -> Mono.just(s.trim()));",
+            "    Flux.just(ImmutableList.of());",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    Mono.justOrEmpty(s.trim());",
+            "    // BUG: Diagnostic contains:",
+            "    Mono.justOrEmpty(Optional.of(s));",
+            "    // BUG: Diagnostic contains:",
+            "    Flux.just(CONSTANT, s.trim());",
+            "    // BUG: Diagnostic contains:",
+            "    return Mono.just(s.trim());",
+            "  }",
+            "",
+            "  Publisher<List<String>> m3() {",
+            "    // BUG: Diagnostic contains:",
+            "    return Flux.just(List.of(\"foo\"));",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void replacement() {
+    refactoringTestHelper
+        .addInputLines(
+            "A.java",
+            "import java.io.IOException;",
+            "import java.util.Optional;",
+            "import reactor.core.publisher.Flux;",
+            "import reactor.core.publisher.Mono;",
+            "",
+            "class A {",
+            "  Mono<String> m1(String s) {",
+            "    return Mono.just(s.trim());",
+            "  }",
+            "",
+            "  Mono<String> m2(String s) throws IOException {",
+            "    return Mono.justOrEmpty(load(s));",
+            "  }",
+            "",
+            "  Mono<String> m3(String s) {",
+            "    return Mono.justOrEmpty(Optional.of(s.trim()));",
+            "  }",
+            "",
+            "  Flux<String> m4(String s) {",
+            "    return Flux.just(s, s.trim());",
+            "  }",
+            "",
+            "  Flux<String> m5(String s) throws IOException {",
+            "    return Flux.just(load(s));",
+            "  }",
+            "",
+            "  Mono<String> m6(String s) {",
+            "    s = s.trim();",
+            "    return Mono.just(s.toUpperCase());",
+            "  }",
+            "",
+            "  Mono<String> m7(String s) {",
+            "    try {",
+            "      return Mono.just(s.trim());",
+            "    } catch (NullPointerException e) {",
+            "      return Mono.empty();",
+            "    }",
+            "  }",
+            "",
+            "  Mono<String> m8(String s) {",
+            "    try {",
+            "      return Mono.just(load(s));",
+            "    } catch (IOException | IllegalStateException e) {",
+            "      return Mono.empty();",
+            "    }",
+            "  }",
+            "",
+            "  Mono<String> m9(String s) {",
+            "    try {",
+            "      return Mono.just(s.trim());",
+            "    } finally {",
+            "      System.out.println(s);",
+            "    }",
+            "  }",
+            "",
+            "  Mono<String> m10(String s) {",
+            "    try {",
+            "      load(s);",
+            "      return Mono.just(s.trim());",
+            "    } catch (IOException e) {",
+            "      return Mono.empty();",
+            "    }",
+            "  }",
+            "",
+            "  private static String load(String s) throws IOException {",
+            "    return s;",
+            "  }",
+            "}")
+        .addOutputLines(
+            "A.java",
+            "import java.io.IOException;",
+            "import java.util.Optional;",
+            "import reactor.core.publisher.Flux;",
+            "import reactor.core.publisher.Mono;",
+            "",
+            "class A {",
+            "  Mono<String> m1(String s) {",
+            "    return Mono.fromSupplier(() -> s.trim());",
+            "  }",
+            "",
+            "  Mono<String> m2(String s) throws IOException {",
+            "    return Mono.fromCallable(() -> load(s));",
+            "  }",
+            "",
+            "  Mono<String> m3(String s) {",
+            "    return Mono.defer(() -> Mono.justOrEmpty(Optional.of(s.trim())));",
+            "  }",
+            "",
+            "  Flux<String> m4(String s) {",
+            "    return Flux.defer(() -> Flux.just(s, s.trim()));",
+            "  }",
+            "",
+            "  Flux<String> m5(String s) throws IOException {",
+            "    return Flux.just(load(s));",
+            "  }",
+            "",
+            "  Mono<String> m6(String s) {",
+            "    s = s.trim();",
+            "    return Mono.just(s.toUpperCase());",
+            "  }",
+            "",
+            "  Mono<String> m7(String s) {",
+            "    try {",
+            "      return Mono.just(s.trim());",
+            "    } catch (NullPointerException e) {",
+            "      return Mono.empty();",
+            "    }",
+            "  }",
+            "",
+            "  Mono<String> m8(String s) {",
+            "    try {",
+            "      return Mono.just(load(s));",
+            "    } catch (IOException | IllegalStateException e) {",
+            "      return Mono.empty();",
+            "    }",
+            "  }",
+            "",
+            "  Mono<String> m9(String s) {",
+            "    try {",
+            "      return Mono.just(s.trim());",
+            "    } finally {",
+            "      System.out.println(s);",
+            "    }",
+            "  }",
+            "",
+            "  Mono<String> m10(String s) {",
+            "    try {",
+            "      load(s);",
+            "      return Mono.fromSupplier(() -> s.trim());",
+            "    } catch (IOException e) {",
+            "      return Mono.empty();",
+            "    }",
+            "  }",
+            "",
+            "  private static String load(String s) throws IOException {",
+            "    return s;",
+            "  }",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+}
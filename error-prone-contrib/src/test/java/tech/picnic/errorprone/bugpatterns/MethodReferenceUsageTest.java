@@ -321,6 +321,22 @@ final class MethodReferenceUsageTest {
         .doTest();
   }
 
+  @Test
+  void identificationCheapChecksOnly() {
+    compilationTestHelper
+        .setArgs("-XepOpt:ErrorProneSupport:CheapChecksOnly=true")
+        .addSourceLines(
+            "A.java",
+            "import java.util.stream.Stream;",
+            "",
+            "class A {",
+            "  void m() {",
+            "    Stream.of(1).forEach(v -> String.valueOf(v));",
+            "  }",
+            "}")
+        .doTest();
+  }
+
   @Test
   void replacement() {
     refactoringTestHelper
@@ -0,0 +1,91 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import com.google.errorprone.BugCheckerRefactoringTestHelper;
+import com.google.errorprone.BugCheckerRefactoringTestHelper.TestMode;
+import com.google.errorprone.CompilationTestHelper;
+import org.junit.jupiter.api.Test;
+
+final class PrimitiveStreamSpecializationTest {
+  private final CompilationTestHelper compilationTestHelper =
+      CompilationTestHelper.newInstance(PrimitiveStreamSpecialization.class, getClass());
+  private final BugCheckerRefactoringTestHelper refactoringTestHelper =
+      BugCheckerRefactoringTestHelper.newInstance(PrimitiveStreamSpecialization.class, getClass());
+
+  @Test
+  void identification() {
+    compilationTestHelper
+        .addSourceLines(
+            "A.java",
+            "import java.util.function.Function;",
+            "import java.util.stream.Stream;",
+            "",
+            "class A {",
+            "  void m(Stream<String> stream, Function<String, Integer> function) {",
+            "    stream.mapToInt(String::length);",
+            "    stream.map(String::length).mapToLong(Integer::longValue);",
+            "    stream.map(String::length).mapToInt(i -> i + 1);",
+            "    stream.map(function).mapToInt(Integer::intValue);",
+            "    stream.<Integer>map(String::length).mapToInt(Integer::intValue);",
+            "    stream.map(s -> (Number) s.length()).mapToInt(Number::intValue);",
+            "    stream.map(String::length).filter(i -> i > 0).mapToInt(Integer::intValue);",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    stream.map(String::length).mapToInt(Integer::intValue);",
+            "    // BUG: Diagnostic contains:",
+            "    stream.map(s -> s.length()).mapToInt(i -> i);",
+            "    // BUG: Diagnostic contains:",
+            "    stream.map(Long::valueOf).mapToLong(Long::longValue);",
+            "    // BUG: Diagnostic contains:",
+            "    stream.map(Double::parseDouble).mapToDouble(d -> d);",
+            "    // BUG: Diagnostic contains:",
+            "    stream.map(s -> s.charAt(0)).mapToInt(c -> c);",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void replacement() {
+    refactoringTestHelper
+        .addInputLines(
+            "A.java",
+            "import java.util.List;",
+            "",
+            "class A {",
+            "  int m1(List<String> list) {",
+            "    return list.stream().map(String::length).mapToInt(Integer::intValue).sum();",
+            "  }",
+            "",
+            "  long m2(List<List<String>> lists) {",
+            "    return lists.stream()",
+            "        .map(",
+            "            l -> {",
+            "              return l.stream().map(String::length).mapToLong(i -> i).sum();",
+            "            })",
+            "        .mapToLong(Long::longValue)",
+            "        .max()",
+            "        .orElse(0);",
+            "  }",
+            "}")
+        .addOutputLines(
+            "A.java",
+            "import java.util.List;",
+            "",
+            "class A {",
+            "  int m1(List<String> list) {",
+            "    return list.stream().mapToInt(String::length).sum();",
+            "  }",
+            "",
+            "  long m2(List<List<String>> lists) {",
+            "    return lists.stream()",
+            "        .mapToLong(",
+            "            l -> {",
+            "              return l.stream().mapToLong(String::length).sum();",
+            "            })",
+            "        .max()",
+            "        .orElse(0);",
+            "  }",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+}
@@ -0,0 +1,247 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import com.google.errorprone.BugCheckerRefactoringTestHelper;
+import com.google.errorprone.BugCheckerRefactoringTestHelper.TestMode;
+import com.google.errorprone.CompilationTestHelper;
+import org.junit.jupiter.api.Test;
+
+final class QuadraticListMembershipTest {
+  private final CompilationTestHelper compilationTestHelper =
+      CompilationTestHelper.newInstance(QuadraticListMembership.class, getClass());
+  private final BugCheckerRefactoringTestHelper refactoringTestHelper =
+      BugCheckerRefactoringTestHelper.newInstance(QuadraticListMembership.class, getClass());
+
+  @Test
+  void identification() {
+    compilationTestHelper
+        .addSourceLines(
+            "A.java",
+            "import com.google.common.collect.ImmutableList;",
+            "import java.util.Collection;",
+            "import java.util.List;",
+            "import java.util.Optional;",
+            "import java.util.Set;",
+            "import java.util.stream.Stream;",
+            "",
+            "class A {",
+            "  void m(List<String> list, Set<String> set, Collection<String> collection) {",
+            "    list.contains(\"foo\");",
+            "    set.contains(\"foo\");",
+            "    set.removeAll(collection);",
+            "    set.removeAll(list);",
+            "    collection.retainAll(ImmutableList.of(\"foo\"));",
+            "    Optional.of(\"foo\").filter(list::contains);",
+            "",
+            "    for (String s : list) {",
+            "      set.contains(s);",
+            "      collection.contains(s);",
+            "      List<String> local = ImmutableList.of(s);",
+            "      local.contains(s);",
+            "      m2().contains(s);",
+            "    }",
+            "",
+            "    for (String s : collection) {",
+            "      if (list.contains(s)) {",
+            "        list.add(s);",
+            "      }",
+            "    }",
+            "",
+            "    for (String s : list) {",
+            "      // BUG: Diagnostic contains:",
+            "      set.removeAll(list);",
+            "    }",
+            "",
+            "    while (!collection.isEmpty()) {",
+            "      // BUG: Diagnostic contains:",
+            "      collection.retainAll(ImmutableList.of(\"foo\"));",
+            "    }",
+            "",
+            "    for (String s : collection) {",
+            "      // BUG: Diagnostic contains:",
+            "      list.contains(s);",
+            "      list.contains(s + s);",
+            "      // BUG: Diagnostic contains:",
+            "      list.indexOf(s);",
+            "    }",
+            "",
+            "    for (int i = 0; i < 10; i++) {",
+            "      // BUG: Diagnostic contains:",
+            "      list.lastIndexOf(String.valueOf(i));",
+            "    }",
+            "",
+            "    while (set.isEmpty()) {",
+            "      // BUG: Diagnostic contains:",
+            "      if (list.contains(\"foo\")) {",
+            "        set.add(\"bar\");",
+            "      }",
+            "    }",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    collection.stream().filter(list::contains);",
+            "    // BUG: Diagnostic contains:",
+            "    Stream.of(\"foo\").anyMatch(s -> list.contains(s.trim()));",
+            "  }",
+            "",
+            "  List<String> m2() {",
+            "    return ImmutableList.of();",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void replacement() {
+    refactoringTestHelper
+        .addInputLines(
+            "A.java",
+            "import java.util.Collection;",
+            "import java.util.Iterator;",
+            "import java.util.List;",
+            "import java.util.stream.Collectors;",
+            "import java.util.stream.Stream;",
+            "",
+            "class A {",
+            "  enum E {",
+            "    V",
+            "  }",
+            "",
+            "  static final class Equal {",
+            "    @Override",
+            "    public boolean equals(Object o) {",
+            "      return o instanceof Equal;",
+            "    }",
+            "  }",
+            "",
+            "  int m1(Collection<String> collection, List<String> excludedList) {",
+            "    int count = 0;",
+            "    for (String s : collection) {",
+            "      if (!excludedList.contains(s) && !excludedList.contains(s.trim())) {",
+            "        count++;",
+            "      }",
+            "    }",
+            "    return count;",
+            "  }",
+            "",
+            "  List<E> m2(Collection<E> collection, List<? extends E> allowed) {",
+            "    return collection.stream().filter(allowed::contains).collect(Collectors.toList());",
+            "  }",
+            "",
+            "  void m3(Collection<Equal> collection, List<Equal> equals) {",
+            "    for (Equal e : collection) {",
+            "      equals.contains(e);",
+            "    }",
+            "  }",
+            "",
+            "  void m4(Collection<Collection<String>> collections, List<String> list) {",
+            "    for (Collection<String> collection : collections) {",
+            "      collection.removeAll(list);",
+            "    }",
+            "  }",
+            "",
+            "  Stream<String> m5(Collection<String> collection, List<String> list) {",
+            "    Stream<String> stream = collection.stream().filter(list::contains);",
+            "    list.add(\"foo\");",
+            "    return stream;",
+            "  }",
+            "",
+            "  Iterator<String> m6(Collection<String> collection, List<String> list) {",
+            "    return collection.stream().filter(s -> list.contains(s)).iterator();",
+            "  }",
+            "",
+            "  void m7(Collection<String> collection, List<String> list, List<Stream<String>> streams) {",
+            "    for (String s : collection) {",
+            "      streams.add(Stream.of(s).filter(list::contains));",
+            "    }",
+            "  }",
+            "",
+            "  long m8(Collection<String> collection, List<String> list) {",
+            "    long count = collection.stream().filter(list::contains).count();",
+            "    for (String s : collection) {",
+            "      if (list.contains(s)) {",
+            "        count++;",
+            "      }",
+            "    }",
+            "    return count;",
+            "  }",
+            "}")
+        .addOutputLines(
+            "A.java",
+            "import java.util.Collection;",
+            "import java.util.HashSet;",
+            "import java.util.Iterator;",
+            "import java.util.List;",
+            "import java.util.Set;",
+            "import java.util.stream.Collectors;",
+            "import java.util.stream.Stream;",
+            "",
+            "class A {",
+            "  enum E {",
+            "    V",
+            "  }",
+            "",
+            "  static final class Equal {",
+            "    @Override",
+            "    public boolean equals(Object o) {",
+            "      return o instanceof Equal;",
+            "    }",
+            "  }",
+            "",
+            "  int m1(Collection<String> collection, List<String> excludedList) {",
+            "    int count = 0;",
+            "    Set<String> excludedSet = new HashSet<>(excludedList);",
+            "    for (String s : collection) {",
+            "      if (!excludedSet.contains(s) && !excludedSet.contains(s.trim())) {",
+            "        count++;",
+            "      }",
+            "    }",
+            "    return count;",
+            "  }",
+            "",
+            "  List<E> m2(Collection<E> collection, List<? extends E> allowed) {",
+            "    Set<E> allowedSet = new HashSet<>(allowed);",
+            "    return collection.stream().filter(allowedSet::contains).collect(Collectors.toList());",
+            "  }",
+            "",
+            "  void m3(Collection<Equal> collection, List<Equal> equals) {",
+            "    for (Equal e : collection) {",
+            "      equals.contains(e);",
+            "    }",
+            "  }",
+            "",
+            "  void m4(Collection<Collection<String>> collections, List<String> list) {",
+            "    for (Collection<String> collection : collections) {",
+            "      collection.removeAll(new HashSet<>(list));",
+            "    }",
+            "  }",
+            "",
+            "  Stream<String> m5(Collection<String> collection, List<String> list) {",
+            "    Stream<String> stream = collection.stream().filter(list::contains);",
+            "    list.add(\"foo\");",
+            "    return stream;",
+            "  }",
+            "",
+            "  Iterator<String> m6(Collection<String> collection, List<String> list) {",
+            "    return collection.stream().filter(s -> list.contains(s)).iterator();",
+            "  }",
+            "",
+            "  void m7(Collection<String> collection, List<String> list, List<Stream<String>> streams) {",
+            "    for (String s : collection) {",
+            "      streams.add(Stream.of(s).filter(list::contains));",
+            "    }",
+            "  }",
+            "",
+            "  long m8(Collection<String> collection, List<String> list) {",
+            "    Set<String> listSet = new HashSet<>(list);",
+            "    long count = collection.stream().filter(listSet::contains).count();",
+            "    Set<String> listSet2 = new HashSet<>(list);",
+            "    for (String s : collection) {",
+            "      if (listSet2.contains(s)) {",
+            "        count++;",
+            "      }",
+            "    }",
+            "    return count;",
+            "  }",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+}
@@ -0,0 +1,161 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.BugCheckerRefactoringTestHelper;
+import com.google.errorprone.BugCheckerRefactoringTestHelper.TestMode;
+import com.google.errorprone.CompilationTestHelper;
+import org.junit.jupiter.api.Test;
+
+final class ReactorBlockingCallTest {
+  private final CompilationTestHelper compilationTestHelper =
+      CompilationTestHelper.newInstance(ReactorBlockingCall.class, getClass());
+  private final CompilationTestHelper customizedCompilationTestHelper =
+      CompilationTestHelper.newInstance(ReactorBlockingCall.class, getClass())
+          .setArgs(
+              ImmutableList.of(
+                  "-XepOpt:ReactorBlockingCall:ExtraBlockingMethods=java.util.concurrent.CountDownLatch#await()"));
+  private final BugCheckerRefactoringTestHelper refactoringTestHelper =
+      BugCheckerRefactoringTestHelper.newInstance(ReactorBlockingCall.class, getClass());
+
+  @Test
+  void identification() {
+    compilationTestHelper
+        .addSourceLines(
+            "A.java",
+            "import java.io.InputStream;",
+            "import java.sql.Connection;",
+            "import java.util.List;",
+            "import java.util.concurrent.CompletableFuture;",
+            "import java.util.concurrent.ExecutorService;",
+            "import java.util.concurrent.Future;",
+            "import reactor.core.publisher.Flux;",
+            "import reactor.core.publisher.Mono;",
+            "import reactor.core.scheduler.Schedulers;",
+            "",
+            "class A {",
+            "  void m1(Mono<String> mono, Future<String> future) throws Exception {",
+            "    mono.block();",
+            "    future.get();",
+            "    Thread.sleep(1);",
+            "    Runnable r = () -> mono.block();",
+            "  }",
+            "",
+            "  Mono<String> m2(",
+            "      Mono<String> mono, Flux<String> flux, Future<String> future, ExecutorService executor)",
+            "      throws Exception {",
+            "    Mono.fromCallable(() -> future.get()).subscribeOn(Schedulers.boundedElastic());",
+            "    Mono.fromCallable(future::get).subscribeOn(Schedulers.boundedElastic());",
+            "    flux.flatMap(v -> Mono.fromCallable(() -> future.get()), 1);",
+            "    flux.map(String::length);",
+            "    executor.submit(",
+            "        () -> {",
+            "          Thread.sleep(10);",
+            "          return 1;",
+            "        });",
+            "    CompletableFuture.runAsync(mono::block);",
+            "    new Thread(() -> mono.block());",
+            "    new Runnable() {",
+            "      @Override",
+            "      public void run() {",
+            "        mono.block();",
+            "      }",
+            "    };",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    flux.blockFirst();",
+            "    // BUG: Diagnostic contains:",
+            "    flux.blockLast();",
+            "    // BUG: Diagnostic contains:",
+            "    Thread.sleep(1);",
+            "    // BUG: Diagnostic contains:",
+            "    return Mono.just(future.get());",
+            "  }",
+            "",
+            "  void m3(",
+            "      Mono<String> mono,",
+            "      Flux<InputStream> flux,",
+            "      Flux<CompletableFuture<String>> futures,",
+            "      Connection connection,",
+            "      CompletableFuture<String> future,",
+            "      List<String> list) {",
+            "    // BUG: Diagnostic contains:",
+            "    mono.map(v -> future.join());",
+            "    // BUG: Diagnostic contains:",
+            "    mono.filter(v -> mono.block().isEmpty());",
+            "    // BUG: Diagnostic contains:",
+            "    mono.flatMap(v -> Mono.just(list.stream().map(s -> future.join()).count()));",
+            "    // BUG: Diagnostic contains:",
+            "    mono.subscribe(v -> mono.blockOptional());",
+            "    // BUG: Diagnostic contains:",
+            "    futures.map(CompletableFuture::join);",
+            "    flux.map(",
+            "        s -> {",
+            "          try {",
+            "            // BUG: Diagnostic contains:",
+            "            connection.commit();",
+            "            // BUG: Diagnostic contains:",
+            "            return s.read();",
+            "          } catch (Exception e) {",
+            "            return -1;",
+            "          }",
+            "        });",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void identificationWithCustomMethods() {
+    customizedCompilationTestHelper
+        .addSourceLines(
+            "A.java",
+            "import java.util.concurrent.CountDownLatch;",
+            "import reactor.core.publisher.Mono;",
+            "",
+            "class A {",
+            "  Mono<String> m(Mono<String> mono, CountDownLatch latch) throws InterruptedException {",
+            "    latch.countDown();",
+            "    // BUG: Diagnostic contains:",
+            "    latch.await();",
+            "    // BUG: Diagnostic contains:",
+            "    return Mono.just(mono.block());",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void replacement() {
+    refactoringTestHelper
+        .addInputLines(
+            "A.java",
+            "import java.util.concurrent.CompletableFuture;",
+            "import reactor.core.publisher.Flux;",
+            "import reactor.core.publisher.Mono;",
+            "",
+            "class A {",
+            "  void m(Mono<String> mono, Flux<String> flux, CompletableFuture<String> future) {",
+            "    mono.map(v -> future.join());",
+            "    flux.map(v -> future.join());",
+            "    mono.map(v -> Mono.just(v).block());",
+            "    mono.map(v -> future.join().length());",
+            "  }",
+            "}")
+        .addOutputLines(
+            "A.java",
+            "import java.util.concurrent.CompletableFuture;",
+            "import reactor.core.publisher.Flux;",
+            "import reactor.core.publisher.Mono;",
+            "import reactor.core.scheduler.Schedulers;",
+            "",
+            "class A {",
+            "  void m(Mono<String> mono, Flux<String> flux, CompletableFuture<String> future) {",
+            "    mono.flatMap(v -> Mono.fromCallable(() -> future.join()).subscribeOn(Schedulers.boundedElastic()));",
+            "    flux.concatMap(v -> Mono.fromCallable(() -> future.join()).subscribeOn(Schedulers.boundedElastic()));",
+            "    mono.flatMap(v -> Mono.just(v));",
+            "    mono.map(v -> future.join().length());",
+            "  }",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+}
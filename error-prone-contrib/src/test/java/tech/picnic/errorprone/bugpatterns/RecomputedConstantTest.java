@@ -0,0 +1,296 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.BugCheckerRefactoringTestHelper;
+import com.google.errorprone.BugCheckerRefactoringTestHelper.TestMode;
+import com.google.errorprone.CompilationTestHelper;
+import org.junit.jupiter.api.Test;
+
+final class RecomputedConstantTest {
+  private final CompilationTestHelper compilationTestHelper =
+      CompilationTestHelper.newInstance(RecomputedConstant.class, getClass());
+  private final CompilationTestHelper customizedCompilationTestHelper =
+      CompilationTestHelper.newInstance(RecomputedConstant.class, getClass())
+          .setArgs(
+              ImmutableList.of(
+                  "-XepOpt:RecomputedConstant:ExtraFactoryMethods=java.util.Locale#forLanguageTag(java.lang.String),java.math.BigDecimal#negate()"));
+  private final BugCheckerRefactoringTestHelper refactoringTestHelper =
+      BugCheckerRefactoringTestHelper.newInstance(RecomputedConstant.class, getClass());
+
+  @Test
+  void identification() {
+    compilationTestHelper
+        .addSourceLines(
+            "A.java",
+            "import com.google.common.base.Joiner;",
+            "import com.google.common.base.Splitter;",
+            "import java.time.ZoneId;",
+            "import java.time.format.DateTimeFormatter;",
+            "import java.util.Comparator;",
+            "import java.util.List;",
+            "import java.util.Locale;",
+            "import java.util.function.Supplier;",
+            "import java.util.regex.Pattern;",
+            "import java.util.stream.Stream;",
+            "",
+            "class A {",
+            "  private static final String REGEX = \"[a-z]+\";",
+            "  private static final Pattern PATTERN = Pattern.compile(\"foo\");",
+            "  private static final Supplier<Pattern> PATTERN_SUPPLIER =",
+            "      // BUG: Diagnostic contains:",
+            "      () -> Pattern.compile(\"bar\");",
+            "",
+            "  static {",
+            "    Pattern.compile(\"baz\");",
+            "  }",
+            "",
+            "  // BUG: Diagnostic contains:",
+            "  private final Pattern instancePattern = Pattern.compile(REGEX);",
+            "  private String instanceRegex = \"[0-9]+\";",
+            "",
+            "  void m(String regex, int i, List<String> list, Stream<String> stream) {",
+            "    Pattern.compile(regex);",
+            "    Pattern.compile(instanceRegex);",
+            "    Pattern.compile(regex, Pattern.CASE_INSENSITIVE);",
+            "    // BUG: Diagnostic contains:",
+            "    Pattern.compile(REGEX);",
+            "    // BUG: Diagnostic contains:",
+            "    Pattern.compile(\"foo\" + REGEX, Pattern.CASE_INSENSITIVE);",
+            "    // BUG: Diagnostic contains:",
+            "    Pattern.compile(\"qux\").matcher(regex).matches();",
+            "",
+            "    DateTimeFormatter.ofPattern(regex);",
+            "    // BUG: Diagnostic contains:",
+            "    DateTimeFormatter.ofPattern(\"yyyy\").withZone(ZoneId.of(regex));",
+            "    // BUG: Diagnostic contains:",
+            "    DateTimeFormatter.ofPattern(\"yyyy\").withZone(ZoneId.of(\"UTC\"));",
+            "    // BUG: Diagnostic contains:",
+            "    DateTimeFormatter.ofPattern(\"yyyy\", Locale.ROOT);",
+            "",
+            "    Splitter.on(regex);",
+            "    // BUG: Diagnostic contains:",
+            "    Splitter.on(',').limit(i);",
+            "    // BUG: Diagnostic contains:",
+            "    Splitter.on(',').trimResults().omitEmptyStrings();",
+            "    // BUG: Diagnostic contains:",
+            "    Joiner.on(',').skipNulls();",
+            "    // BUG: Diagnostic contains:",
+            "    Joiner.on(',').join(list);",
+            "",
+            "    Comparator.comparing((String s) -> s.length() + i);",
+            "    Comparator.comparing(this::key);",
+            "    Comparator.comparing((String s) -> key(s));",
+            "    // BUG: Diagnostic contains:",
+            "    Comparator.comparing(String::length).thenComparing(this::key);",
+            "    // BUG: Diagnostic contains:",
+            "    Comparator.comparing((String s) -> s.length());",
+            "    // BUG: Diagnostic contains:",
+            "    Comparator.comparing((String s) -> staticKey(s));",
+            "    // BUG: Diagnostic contains:",
+            "    Comparator.comparing(String::length).thenComparing(String::isEmpty).reversed();",
+            "",
+            "    for (String s : list) {",
+            "      // BUG: Diagnostic contains:",
+            "      Pattern.compile(\"quux\").matcher(s).matches();",
+            "    }",
+            "",
+            "    stream.filter(",
+            "        // BUG: Diagnostic contains:",
+            "        s -> Pattern.compile(\"quuz\").matcher(s).matches());",
+            "",
+            "    Locale.forLanguageTag(\"nl\");",
+            "  }",
+            "",
+            "  String key(String s) {",
+            "    return s;",
+            "  }",
+            "",
+            "  static String staticKey(String s) {",
+            "    return s;",
+            "  }",
+            "",
+            "  class Inner {",
+            "    void m() {",
+            "      // BUG: Diagnostic contains:",
+            "      Pattern.compile(\"corge\");",
+            "    }",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void identificationOfConstructorInvocations() {
+    compilationTestHelper
+        .addSourceLines(
+            "ObjectMapper.java",
+            "package com.fasterxml.jackson.databind;",
+            "",
+            "public class ObjectMapper {",
+            "  public ObjectMapper registerModule(Object module) {",
+            "    return this;",
+            "  }",
+            "}")
+        .addSourceLines(
+            "A.java",
+            "import com.fasterxml.jackson.databind.ObjectMapper;",
+            "",
+            "class A {",
+            "  ObjectMapper m1() {",
+            "    return new ObjectMapper();",
+            "  }",
+            "",
+            "  ObjectMapper m2(Object module) {",
+            "    ObjectMapper mapper = new ObjectMapper();",
+            "    mapper.registerModule(module);",
+            "    return mapper;",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void identificationOfCustomFactoryMethods() {
+    customizedCompilationTestHelper
+        .addSourceLines(
+            "A.java",
+            "import java.math.BigDecimal;",
+            "import java.util.Locale;",
+            "",
+            "class A {",
+            "  void m(String languageTag, BigDecimal value) {",
+            "    Locale.forLanguageTag(languageTag);",
+            "    value.negate();",
+            "    // BUG: Diagnostic contains:",
+            "    Locale.forLanguageTag(\"nl\");",
+            "    // BUG: Diagnostic contains:",
+            "    BigDecimal.TEN.negate();",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void replacement() {
+    refactoringTestHelper
+        .addInputLines(
+            "A.java",
+            "import java.util.Comparator;",
+            "import java.util.List;",
+            "import java.util.regex.Pattern;",
+            "",
+            "class A {",
+            "  private static final int PATTERN = 1;",
+            "",
+            "  boolean m1(String s) {",
+            "    return Pattern.compile(\"foo\").matcher(s).matches();",
+            "  }",
+            "",
+            "  void m2(List<String> list) {",
+            "    list.sort(Comparator.comparing(String::length));",
+            "  }",
+            "",
+            "  <T> Comparator<List<T>> m3() {",
+            "    return Comparator.comparing(List::size);",
+            "  }",
+            "}")
+        .addOutputLines(
+            "A.java",
+            "import java.util.Comparator;",
+            "import java.util.List;",
+            "import java.util.regex.Pattern;",
+            "",
+            "class A {",
+            "  private static final int PATTERN = 1;",
+            "  private static final Pattern PATTERN_2 = Pattern.compile(\"foo\");",
+            "  private static final Comparator<String> COMPARATOR = Comparator.comparing(String::length);",
+            "",
+            "  boolean m1(String s) {",
+            "    return PATTERN_2.matcher(s).matches();",
+            "  }",
+            "",
+            "  void m2(List<String> list) {",
+            "    list.sort(COMPARATOR);",
+            "  }",
+            "",
+            "  <T> Comparator<List<T>> m3() {",
+            "    return Comparator.comparing(List::size);",
+            "  }",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+
+  @Test
+  void replacementWithForwardReference() {
+    refactoringTestHelper
+        .addInputLines(
+            "A.java",
+            "import java.util.regex.Pattern;",
+            "",
+            "class A {",
+            "  private static final String PREFIX = \"foo\";",
+            "",
+            "  boolean m(String s) {",
+            "    return Pattern.compile(REGEX).matcher(s).matches();",
+            "  }",
+            "",
+            "  private static final String REGEX = PREFIX + \"[a-z]+\";",
+            "  private static final int MAX = 1;",
+            "}")
+        .addOutputLines(
+            "A.java",
+            "import java.util.regex.Pattern;",
+            "",
+            "class A {",
+            "  private static final String PREFIX = \"foo\";",
+            "",
+            "  boolean m(String s) {",
+            "    return PATTERN.matcher(s).matches();",
+            "  }",
+            "",
+            "  private static final String REGEX = PREFIX + \"[a-z]+\";",
+            "  private static final Pattern PATTERN = Pattern.compile(REGEX);",
+            "  private static final int MAX = 1;",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+
+  @Test
+  void replacementInInterface() {
+    refactoringTestHelper
+        .addInputLines(
+            "A.java",
+            "import java.util.regex.Pattern;",
+            "",
+            "interface A {",
+            "  default boolean m(String s) {",
+            "    return Pattern.compile(\"foo\").matcher(s).matches();",
+            "  }",
+            "",
+            "  class B {",
+            "    boolean m(String s) {",
+            "      return Pattern.compile(\"bar\").matcher(s).matches();",
+            "    }",
+            "  }",
+            "}")
+        .addOutputLines(
+            "A.java",
+            "import java.util.regex.Pattern;",
+            "",
+            "interface A {",
+            "  default boolean m(String s) {",
+            "    return Pattern.compile(\"foo\").matcher(s).matches();",
+            "  }",
+            "",
+            "  class B {",
+            "",
+            "    private static final Pattern PATTERN = Pattern.compile(\"bar\");",
+            "",
+            "    boolean m(String s) {",
+            "      return PATTERN.matcher(s).matches();",
+            "    }",
+            "  }",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+}
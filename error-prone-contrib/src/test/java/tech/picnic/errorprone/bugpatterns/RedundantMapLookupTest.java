@@ -0,0 +1,215 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import com.google.errorprone.BugCheckerRefactoringTestHelper;
+import com.google.errorprone.BugCheckerRefactoringTestHelper.TestMode;
+import com.google.errorprone.CompilationTestHelper;
+import org.junit.jupiter.api.Test;
+
+final class RedundantMapLookupTest {
+  private final CompilationTestHelper compilationTestHelper =
+      CompilationTestHelper.newInstance(RedundantMapLookup.class, getClass());
+  private final BugCheckerRefactoringTestHelper refactoringTestHelper =
+      BugCheckerRefactoringTestHelper.newInstance(RedundantMapLookup.class, getClass());
+
+  @Test
+  void identification() {
+    compilationTestHelper
+        .addSourceLines(
+            "A.java",
+            "import java.io.IOException;",
+            "import java.util.ArrayList;",
+            "import java.util.List;",
+            "import java.util.Map;",
+            "",
+            "class A {",
+            "  void m1(Map<String, Integer> map, String key, String otherKey) {",
+            "    if (map.containsKey(key)) {",
+            "      map.get(otherKey);",
+            "    }",
+            "    if (map.containsKey(key)) {",
+            "      map.remove(key);",
+            "      map.get(key);",
+            "    }",
+            "    if (map.containsKey(key.trim())) {",
+            "      map.get(key.trim());",
+            "    }",
+            "    // BUG: Diagnostic contains:",
+            "    if (map.containsKey(key)) {",
+            "      map.get(key);",
+            "    }",
+            "    // BUG: Diagnostic contains:",
+            "    if (map.containsKey(\"foo\")) {",
+            "      map.get(\"foo\");",
+            "    }",
+            "  }",
+            "",
+            "  void m2(Map<String, List<String>> map, String key, List<String> list) throws IOException {",
+            "    if (!map.containsKey(key)) {",
+            "      map.put(key, new ArrayList<>());",
+            "    }",
+            "    map.size();",
+            "",
+            "    if (!map.containsKey(key)) {",
+            "      map.put(key, new ArrayList<>());",
+            "    }",
+            "    List<String> values = map.get(key);",
+            "",
+            "    if (map.get(key) == null) {",
+            "      map.put(key, list);",
+            "    }",
+            "    map.get(key).add(\"foo\");",
+            "",
+            "    if (map.get(key) == null) {",
+            "      map.put(key, load());",
+            "    }",
+            "    map.get(key).add(\"bar\");",
+            "",
+            "    if (map.get(key) == null) {",
+            "      map.put(key, new ArrayList<>());",
+            "    } else {",
+            "      map.clear();",
+            "    }",
+            "    map.get(key).add(\"baz\");",
+            "",
+            "    if (!map.containsKey(key)) {",
+            "      map.put(key, new ArrayList<>());",
+            "    }",
+            "    if (list.isEmpty()) {",
+            "      map.get(key).add(\"foo\");",
+            "    }",
+            "",
+            "    if (!map.containsKey(key)) {",
+            "      map.put(key, new ArrayList<>());",
+            "    }",
+            "    values = list.isEmpty() ? map.get(key) : list;",
+            "",
+            "    if (!map.containsKey(key)) {",
+            "      map.put(key, new ArrayList<>());",
+            "    }",
+            "    boolean b = list.isEmpty() && map.get(key).isEmpty();",
+            "",
+            "    if (!map.containsKey(key)) {",
+            "      map.put(key, new ArrayList<>());",
+            "    }",
+            "    for (String s : list) {",
+            "      map.get(key).add(s);",
+            "    }",
+            "",
+            "    if (!map.containsKey(key)) {",
+            "      map.put(key, new ArrayList<>());",
+            "    }",
+            "    list.forEach(s -> map.get(key).add(s));",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    if (!map.containsKey(key)) {",
+            "      map.put(key, new ArrayList<>());",
+            "    }",
+            "    map.get(key).add(\"qux\");",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    if (map.get(key) == null) {",
+            "      map.put(key, new ArrayList<>());",
+            "    }",
+            "    values = map.get(key);",
+            "  }",
+            "",
+            "  void m3(Map<String, Integer> map, Map<String, Integer> otherMap) {",
+            "    for (String key : map.keySet()) {",
+            "      otherMap.get(key);",
+            "    }",
+            "    for (String key : map.keySet()) {",
+            "      map.put(key, map.get(key) + 1);",
+            "    }",
+            "    // BUG: Diagnostic contains:",
+            "    for (String key : map.keySet()) {",
+            "      otherMap.put(key, map.get(key));",
+            "    }",
+            "  }",
+            "",
+            "  private static List<String> load() throws IOException {",
+            "    return new ArrayList<>();",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void replacement() {
+    refactoringTestHelper
+        .addInputLines(
+            "A.java",
+            "import com.google.common.collect.ImmutableMap;",
+            "import java.util.ArrayList;",
+            "import java.util.List;",
+            "import java.util.Map;",
+            "",
+            "class A {",
+            "  int m1(Map<String, Integer> map, ImmutableMap<String, Integer> immutableMap, String k) {",
+            "    if (map.containsKey(k)) {",
+            "      return map.get(k) + map.get(k);",
+            "    }",
+            "    if (immutableMap.containsKey(k)) {",
+            "      return immutableMap.get(k);",
+            "    }",
+            "    return 0;",
+            "  }",
+            "",
+            "  void m2(Map<String, List<String>> map, String k, String suffix) {",
+            "    if (!map.containsKey(k)) {",
+            "      map.put(k, new ArrayList<>());",
+            "    }",
+            "    map.get(k).add(\"foo\");",
+            "    if (map.get(k + suffix) == null) {",
+            "      map.put(k + suffix, new ArrayList<>(map.get(k)));",
+            "    }",
+            "  }",
+            "",
+            "  void m3(Map<String, ? extends Number> map, Map<String, Long> otherMap) {",
+            "    for (String key : map.keySet()) {",
+            "      otherMap.put(key, map.get(key).longValue());",
+            "    }",
+            "    for (final String key : map.keySet()) {",
+            "      System.out.println(map.get(key));",
+            "    }",
+            "  }",
+            "}")
+        .addOutputLines(
+            "A.java",
+            "import com.google.common.collect.ImmutableMap;",
+            "import java.util.ArrayList;",
+            "import java.util.List;",
+            "import java.util.Map;",
+            "",
+            "class A {",
+            "  int m1(Map<String, Integer> map, ImmutableMap<String, Integer> immutableMap, String k) {",
+            "    Integer value = map.get(k);",
+            "    if (value != null || map.containsKey(k)) {",
+            "      return value + value;",
+            "    }",
+            "    Integer value2 = immutableMap.get(k);",
+            "    if (value2 != null) {",
+            "      return value2;",
+            "    }",
+            "    return 0;",
+            "  }",
+            "",
+            "  void m2(Map<String, List<String>> map, String k, String suffix) {",
+            "    map.computeIfAbsent(k, k2 -> new ArrayList<>()).add(\"foo\");",
+            "    if (map.get(k + suffix) == null) {",
+            "      map.put(k + suffix, new ArrayList<>(map.get(k)));",
+            "    }",
+            "  }",
+            "",
+            "  void m3(Map<String, ? extends Number> map, Map<String, Long> otherMap) {",
+            "    for (Map.Entry<String, ? extends Number> entry : map.entrySet()) {",
+            "      String key = entry.getKey();",
+            "      otherMap.put(key, entry.getValue().longValue());",
+            "    }",
+            "    for (Map.Entry<String, ? extends Number> entry2 : map.entrySet()) {",
+            "      System.out.println(entry2.getValue());",
+            "    }",
+            "  }",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+}
@@ -0,0 +1,186 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import com.google.errorprone.BugCheckerRefactoringTestHelper;
+import com.google.errorprone.BugCheckerRefactoringTestHelper.TestMode;
+import com.google.errorprone.CompilationTestHelper;
+import org.junit.jupiter.api.Test;
+
+final class RegexPrecompilationTest {
+  private final CompilationTestHelper compilationTestHelper =
+      CompilationTestHelper.newInstance(RegexPrecompilation.class, getClass());
+  private final BugCheckerRefactoringTestHelper refactoringTestHelper =
+      BugCheckerRefactoringTestHelper.newInstance(RegexPrecompilation.class, getClass());
+
+  @Test
+  void identification() {
+    compilationTestHelper
+        .addSourceLines(
+            "A.java",
+            "import java.util.regex.Pattern;",
+            "",
+            "class A {",
+            "  private static final String REGEX = \"[a-z]+\";",
+            "  private static final boolean MATCHES = \"foo\".matches(REGEX);",
+            "",
+            "  void m(String s, String regex) {",
+            "    s.matches(regex);",
+            "    s.replaceAll(regex, \"\");",
+            "    s.replaceFirst(regex, \"\");",
+            "    s.split(regex);",
+            "    Pattern.matches(regex, s);",
+            "    s.replace(\"a\", \"b\");",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    s.matches(REGEX);",
+            "    // BUG: Diagnostic contains:",
+            "    s.replaceAll(\"[0-9]\", \"\");",
+            "    // BUG: Diagnostic contains:",
+            "    s.replaceFirst(\"a\" + REGEX, regex);",
+            "    // BUG: Diagnostic contains:",
+            "    Pattern.matches(REGEX, s);",
+            "",
+            "    s.split(\",\");",
+            "    s.split(\"\\\\.\");",
+            "    s.split(\"\\\\|\", 2);",
+            "    // BUG: Diagnostic contains:",
+            "    s.split(\".\");",
+            "    // BUG: Diagnostic contains:",
+            "    s.split(\"\\\\d\");",
+            "    // BUG: Diagnostic contains:",
+            "    s.split(\", \", 2);",
+            "  }",
+            "",
+            "  class Inner {",
+            "    void m(String s) {",
+            "      // BUG: Diagnostic contains:",
+            "      s.matches(REGEX);",
+            "    }",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void replacement() {
+    refactoringTestHelper
+        .addInputLines(
+            "A.java",
+            "import java.util.List;",
+            "",
+            "class A {",
+            "  private static final String REGEX = \"[a-z]+\";",
+            "",
+            "  boolean m1(String s) {",
+            "    final String localRegex = \"[0-9]+\";",
+            "    return s.matches(REGEX) || s.trim().matches(localRegex);",
+            "  }",
+            "",
+            "  String m2(String s) {",
+            "    return s.replaceAll(\"\\\\s+\", \" \").replaceFirst(\"^ \", \"\");",
+            "  }",
+            "",
+            "  String[] m3(String s) {",
+            "    return java.util.regex.Pattern.matches(\"a+\", s) ? s.split(\"; \") : s.split(\"; \", 2);",
+            "  }",
+            "}")
+        .addOutputLines(
+            "A.java",
+            "import java.util.List;",
+            "import java.util.regex.Pattern;",
+            "",
+            "class A {",
+            "  private static final String REGEX = \"[a-z]+\";",
+            "  private static final Pattern PATTERN = Pattern.compile(REGEX);",
+            "  private static final Pattern PATTERN_2 = Pattern.compile(\"[0-9]+\");",
+            "  private static final Pattern PATTERN_3 = Pattern.compile(\"^ \");",
+            "  private static final Pattern PATTERN_4 = Pattern.compile(\"\\\\s+\");",
+            "  private static final Pattern PATTERN_5 = Pattern.compile(\"a+\");",
+            "  private static final Pattern PATTERN_6 = Pattern.compile(\"; \");",
+            "  private static final Pattern PATTERN_7 = Pattern.compile(\"; \");",
+            "",
+            "  boolean m1(String s) {",
+            "    final String localRegex = \"[0-9]+\";",
+            "    return PATTERN.matcher(s).matches() || PATTERN_2.matcher(s.trim()).matches();",
+            "  }",
+            "",
+            "  String m2(String s) {",
+            "    return PATTERN_3.matcher(PATTERN_4.matcher(s).replaceAll(\" \")).replaceFirst(\"\");",
+            "  }",
+            "",
+            "  String[] m3(String s) {",
+            "    return PATTERN_5.matcher(s).matches() ? PATTERN_6.split(s) : PATTERN_7.split(s, 2);",
+            "  }",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+
+  @Test
+  void replacementWithoutPatternReference() {
+    refactoringTestHelper
+        .addInputLines(
+            "A.java",
+            "class A {",
+            "  boolean m(String s) {",
+            "    return s.matches(\"[a-z]+\");",
+            "  }",
+            "}")
+        .addOutputLines(
+            "A.java",
+            "import java.util.regex.Pattern;",
+            "",
+            "class A {",
+            "",
+            "  private static final Pattern PATTERN = Pattern.compile(\"[a-z]+\");",
+            "",
+            "  boolean m(String s) {",
+            "    return PATTERN.matcher(s).matches();",
+            "  }",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+
+  @Test
+  void replacementInInterface() {
+    refactoringTestHelper
+        .addInputLines(
+            "A.java",
+            "interface A {",
+            "  static boolean m(String s) {",
+            "    return s.matches(\"[a-z]+\");",
+            "  }",
+            "",
+            "  @interface B {",
+            "    String[] VALUES = \"a,b\".split(\", \");",
+            "  }",
+            "",
+            "  class C {",
+            "    boolean m(String s) {",
+            "      return s.matches(\"[0-9]+\");",
+            "    }",
+            "  }",
+            "}")
+        .addOutputLines(
+            "A.java",
+            "import java.util.regex.Pattern;",
+            "",
+            "interface A {",
+            "  static boolean m(String s) {",
+            "    return s.matches(\"[a-z]+\");",
+            "  }",
+            "",
+            "  @interface B {",
+            "    String[] VALUES = \"a,b\".split(\", \");",
+            "  }",
+            "",
+            "  class C {",
+            "",
+            "    private static final Pattern PATTERN = Pattern.compile(\"[0-9]+\");",
+            "",
+            "    boolean m(String s) {",
+            "      return PATTERN.matcher(s).matches();",
+            "    }",
+            "  }",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+}
@@ -0,0 +1,91 @@
+package tech.picnic.errorprone.bugpatterns.util;
+
+import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
+
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.CompilationTestHelper;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MethodInvocationTree;
+import org.junit.jupiter.api.Test;
+
+final class MethodDataflowTest {
+  private final CompilationTestHelper compilationTestHelper =
+      CompilationTestHelper.newInstance(TestChecker.class, getClass());
+
+  @Test
+  void dataflowResults() {
+    compilationTestHelper
+        .addSourceLines(
+            "A.java",
+            "import java.util.function.Supplier;",
+            "",
+            "class A {",
+            "  private static final Supplier<Object> FIELD =",
+            "      () -> {",
+            "        int i = 1;",
+            "        // BUG: Diagnostic contains: Nullness: Non-null, constant: 1",
+            "        return sink(i);",
+            "      };",
+            "",
+            "  static Object sink(Object o) {",
+            "    return o;",
+            "  }",
+            "",
+            "  void m(String nullable) {",
+            "    String s = \"foo\";",
+            "    int i = 2;",
+            "    // BUG: Diagnostic contains: Nullness: Non-null, constant: none",
+            "    sink(s);",
+            "    // BUG: Diagnostic contains: Nullness: Nullable, constant: none",
+            "    sink(nullable);",
+            "    Supplier<Object> supplier =",
+            "        () -> {",
+            "          int j = 3;",
+            "          // BUG: Diagnostic contains: Nullness: Non-null, constant: 3",
+            "          return sink(j);",
+            "        };",
+            "    // BUG: Diagnostic contains: Nullness: Non-null, constant: 2",
+            "    sink(i);",
+            "    // BUG: Diagnostic contains: Nullness: Non-null, constant: 2",
+            "    sink(((i)));",
+            "    if (nullable != null) {",
+            "      // BUG: Diagnostic contains: Nullness: Non-null, constant: none",
+            "      sink(nullable);",
+            "    }",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  /**
+   * A {@link BugChecker} that flags the (unparenthesized) argument of {@code sink} method
+   * invocations, reporting its nullness and constant value.
+   */
+  @BugPattern(summary = "Interacts with `MethodDataflow` for testing purposes", severity = ERROR)
+  public static final class TestChecker extends BugChecker implements MethodInvocationTreeMatcher {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+      if (!ASTHelpers.getSymbol(tree).getSimpleName().contentEquals("sink")) {
+        return Description.NO_MATCH;
+      }
+
+      ExpressionTree argument = ASTHelpers.stripParentheses(tree.getArguments().get(0));
+      return buildDescription(argument)
+          .setMessage(
+              String.format(
+                  "Nullness: %s, constant: %s",
+                  MethodDataflow.getNullness(argument, state),
+                  MethodDataflow.getConstantValue(argument, state)
+                      .map(String::valueOf)
+                      .orElse("none")))
+          .build();
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package tech.picnic.errorprone.bugpatterns.util;
+
+import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
+
+import com.google.common.collect.Iterables;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.CompilationTestHelper;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MethodInvocationTree;
+import org.junit.jupiter.api.Test;
+
+final class MoreASTHelpersTest {
+  @Test
+  void expressionProperties() {
+    CompilationTestHelper.newInstance(ArgumentPropertiesFlagger.class, getClass())
+        .addSourceLines(
+            "A.java",
+            "import java.io.IOException;",
+            "",
+            "class A {",
+            "  private String field = \"foo\";",
+            "",
+            "  void m(String parameter) throws Exception {",
+            "    final String finalLocal = \"bar\";",
+            "    String effectivelyFinalLocal = \"baz\";",
+            "    String mutableLocal = \"qux\";",
+            "    mutableLocal = mutableLocal.trim();",
+            "",
+            "    // BUG: Diagnostic contains: throwsCheckedException=false, isLambdaCompatible=true, isNonTrivialComputation=false",
+            "    inspect(\"quux\");",
+            "    // BUG: Diagnostic contains: throwsCheckedException=false, isLambdaCompatible=true, isNonTrivialComputation=true",
+            "    inspect(field.trim());",
+            "    // BUG: Diagnostic contains: throwsCheckedException=false, isLambdaCompatible=true, isNonTrivialComputation=false",
+            "    inspect(parameter + finalLocal + effectivelyFinalLocal);",
+            "    // BUG: Diagnostic contains: throwsCheckedException=false, isLambdaCompatible=false, isNonTrivialComputation=false",
+            "    inspect(mutableLocal);",
+            "    // BUG: Diagnostic contains: throwsCheckedException=false, isLambdaCompatible=false, isNonTrivialComputation=false",
+            "    inspect(parameter + mutableLocal.trim());",
+            "    // BUG: Diagnostic contains: throwsCheckedException=false, isLambdaCompatible=true, isNonTrivialComputation=true",
+            "    inspect(uncheckedLoad());",
+            "    // BUG: Diagnostic contains: throwsCheckedException=true, isLambdaCompatible=false, isNonTrivialComputation=true",
+            "    inspect(checkedLoad());",
+            "    // BUG: Diagnostic contains: throwsCheckedException=true, isLambdaCompatible=false, isNonTrivialComputation=false",
+            "    inspect(parameter + checkedLoad());",
+            "    // BUG: Diagnostic contains: isNonTrivialComputation=true",
+            "    inspect(new String(\"foo\"));",
+            "    // BUG: Diagnostic contains: isNonTrivialComputation=false",
+            "    inspect(emptyValue());",
+            "  }",
+            "",
+            "  private static String checkedLoad() throws IOException {",
+            "    return \"foo\";",
+            "  }",
+            "",
+            "  private static String uncheckedLoad() throws IllegalStateException {",
+            "    return \"foo\";",
+            "  }",
+            "",
+            "  private static String emptyValue() {",
+            "    return \"\";",
+            "  }",
+            "",
+            "  private static void inspect(String value) {}",
+            "}")
+        .doTest();
+  }
+
+  /**
+   * A {@link BugChecker} that flags the argument of {@code inspect} method invocations, describing
+   * the results of {@link MoreASTHelpers#throwsCheckedException(com.sun.source.tree.Tree,
+   * VisitorState)}, {@link MoreASTHelpers#isLambdaCompatible(ExpressionTree, VisitorState)} and
+   * {@link MoreASTHelpers#isNonTrivialComputation(ExpressionTree)}.
+   */
+  @BugPattern(summary = "Describes properties of the inspected expressions", severity = ERROR)
+  public static final class ArgumentPropertiesFlagger extends BugChecker
+      implements MethodInvocationTreeMatcher {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+      if (!ASTHelpers.getSymbol(tree).getSimpleName().contentEquals("inspect")) {
+        return Description.NO_MATCH;
+      }
+
+      ExpressionTree argument = Iterables.getOnlyElement(tree.getArguments());
+      return buildDescription(argument)
+          .setMessage(
+              String.format(
+                  "throwsCheckedException=%s, isLambdaCompatible=%s, isNonTrivialComputation=%s",
+                  MoreASTHelpers.throwsCheckedException(argument, state),
+                  MoreASTHelpers.isLambdaCompatible(argument, state),
+                  MoreASTHelpers.isNonTrivialComputation(argument)))
+          .build();
+    }
+  }
+}
@@ -52,12 +52,14 @@ final class RefasterRulesTest {
           JUnitRules.class,
           LongStreamRules.class,
           MapEntryRules.class,
+          MapLookupRules.class,
           MockitoRules.class,
           MultimapRules.class,
           NullRules.class,
           OptionalRules.class,
           PreconditionsRules.class,
           PrimitiveRules.class,
+          PrimitiveStreamSpecializationRules.class,
           ReactorRules.class,
           RxJava2AdapterRules.class,
           StreamRules.class,
@@ -0,0 +1,178 @@
+package tech.picnic.errorprone.refasterrules;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.joining;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.ErrorProneJavaCompiler;
+import com.google.errorprone.FileObjects;
+import com.google.errorprone.scanner.ScannerSupplier;
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.stream.Stream;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import tech.picnic.errorprone.refaster.runner.Refaster;
+
+/**
+ * Verifies that the time and memory required to apply all Refaster rules grow at most linearly with
+ * the size of the code under analysis.
+ *
+ * <p>The code under analysis is generated by {@link SyntheticCorpus}. For each corpus size the
+ * smallest of several measurements is taken, in order to reduce the impact of garbage collection
+ * and JIT compilation. The resultant curves are published through the {@link TestReporter}.
+ *
+ * <p>As these measurements are slow and sensitive to machine load, this test is not run by default;
+ * it is enabled by the {@code performance-tests} Maven profile.
+ */
+// XXX: The measured growth includes the cost of parsing and attributing the generated code. If
+// this proves too noisy, consider measuring `CheckerMatchEvent`s instead.
+@Isolated
+@Tag("performance")
+final class RefasterScalabilityTest {
+  private static final ImmutableList<Integer> CORPUS_SIZES = ImmutableList.of(2, 4, 8, 16);
+  private static final int REPETITIONS = 3;
+  /**
+   * The largest tolerated exponent {@code e} such that measurements grow as {@code n^e} with the
+   * corpus size {@code n}. Given the fixed cost of each compilation, linear scaling yields an
+   * exponent well below one; quadratic scaling approaches two.
+   */
+  private static final double MAX_GROWTH_EXPONENT = 1.5;
+
+  private static Stream<Arguments> scalabilityTestCases() {
+    /* { ruleCollection, matchDensity, restrictToRuleCollection } */
+    return Stream.of(
+        arguments("StringRules", 1.0, false),
+        arguments("StringRules", 1.0, true),
+        arguments("OptionalRules", 0.25, false));
+  }
+
+  @MethodSource("scalabilityTestCases")
+  @ParameterizedTest
+  void scalability(
+      String ruleCollection,
+      double matchDensity,
+      boolean restrictToRuleCollection,
+      TestReporter testReporter) {
+    SyntheticCorpus corpus = SyntheticCorpus.forRuleCollection(ruleCollection);
+    /* Rule matches are reported as warnings, as errors would cut compilation short. */
+    ImmutableList<String> args =
+        restrictToRuleCollection
+            ? ImmutableList.of(
+                "-XepAllErrorsAsWarnings",
+                "-XepOpt:Refaster:NamePattern=.*\\." + ruleCollection + "\\$.*")
+            : ImmutableList.of("-XepAllErrorsAsWarnings");
+
+    /* Warm up, such that the first measurement is not dominated by class loading. */
+    compile(corpus, corpus.generate(CORPUS_SIZES.get(0), matchDensity), args);
+
+    ImmutableList.Builder<Measurement> measurements = ImmutableList.builder();
+    for (int size : CORPUS_SIZES) {
+      measurements.add(measure(corpus, size, matchDensity, args));
+    }
+
+    ImmutableList<Measurement> curve = measurements.build();
+    String report =
+        String.format(
+            "%s (match density %s, restricted rules: %s): %s",
+            ruleCollection,
+            matchDensity,
+            restrictToRuleCollection,
+            curve.stream().map(Measurement::toString).collect(joining(", ")));
+    testReporter.publishEntry("curve", report);
+
+    Measurement first = curve.get(0);
+    Measurement last = curve.get(curve.size() - 1);
+    double sizeRatio = (double) last.size / first.size;
+    assertThat(getGrowthExponent((double) last.nanos / first.nanos, sizeRatio))
+        .as("Time growth exponent of %s", report)
+        .isLessThanOrEqualTo(MAX_GROWTH_EXPONENT);
+    assertThat(getGrowthExponent((double) last.allocatedBytes / first.allocatedBytes, sizeRatio))
+        .as("Memory growth exponent of %s", report)
+        .isLessThanOrEqualTo(MAX_GROWTH_EXPONENT);
+  }
+
+  private static Measurement measure(
+      SyntheticCorpus corpus, int size, double matchDensity, ImmutableList<String> args) {
+    String source = corpus.generate(size, matchDensity);
+    ThreadMXBean threadMxBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+
+    ImmutableList.Builder<Measurement> repetitions = ImmutableList.builder();
+    for (int i = 0; i < REPETITIONS; i++) {
+      long allocatedBytesBefore = threadMxBean.getThreadAllocatedBytes(threadId);
+      Stopwatch stopwatch = Stopwatch.createStarted();
+      compile(corpus, source, args);
+      repetitions.add(
+          new Measurement(
+              size,
+              stopwatch.elapsed().toNanos(),
+              threadMxBean.getThreadAllocatedBytes(threadId) - allocatedBytesBefore));
+    }
+
+    ImmutableList<Measurement> measurements = repetitions.build();
+    return new Measurement(
+        size,
+        measurements.stream().mapToLong(m -> m.nanos).min().orElseThrow(),
+        measurements.stream().mapToLong(m -> m.allocatedBytes).min().orElseThrow());
+  }
+
+  /**
+   * Compiles the given source code up to and including flow analysis, during which Error Prone
+   * applies Refaster rules.
+   */
+  private static void compile(SyntheticCorpus corpus, String source, ImmutableList<String> args) {
+    JavaCompiler compiler =
+        new ErrorProneJavaCompiler(ScannerSupplier.fromBugCheckerClasses(Refaster.class));
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    compiler
+        .getTask(
+            null,
+            compiler.getStandardFileManager(null, null, UTF_8),
+            diagnostics,
+            ImmutableList.<String>builder()
+                .add("-proc:none", "-XDshould-stop.ifNoError=FLOW", "-Xep:Refaster:WARN")
+                .addAll(args)
+                .build(),
+            null,
+            ImmutableList.of(FileObjects.forSourceLines(corpus.className() + ".java", source)))
+        .call();
+
+    assertThat(diagnostics.getDiagnostics())
+        .extracting(Diagnostic::getKind)
+        .doesNotContain(Diagnostic.Kind.ERROR);
+  }
+
+  private static double getGrowthExponent(double measurementRatio, double sizeRatio) {
+    return Math.log(measurementRatio) / Math.log(sizeRatio);
+  }
+
+  private static final class Measurement {
+    private final int size;
+    private final long nanos;
+    private final long allocatedBytes;
+
+    Measurement(int size, long nanos, long allocatedBytes) {
+      this.size = size;
+      this.nanos = nanos;
+      this.allocatedBytes = allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%s copies in %s ms using %s KiB", size, nanos / 1_000_000, allocatedBytes / 1024);
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package tech.picnic.errorprone.refasterrules;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableSortedSet.toImmutableSortedSet;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Comparator.naturalOrder;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Iterables;
+import com.google.common.io.Resources;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Synthesizes compilation units of configurable size from the {@code *TestInput.java} and {@code
+ * *TestOutput.java} resources of a Refaster rule collection.
+ *
+ * <p>A generated compilation unit declares a single top-level class, which in turn declares the
+ * requested number of static nested classes. Each nested class is a copy of either the test input
+ * or the test output of the rule collection; as the latter (in principle) contains no Refaster rule
+ * matches, the ratio between the two determines the density of matches in the generated code.
+ */
+final class SyntheticCorpus {
+  private static final Pattern TEST_CLASS_DECLARATION =
+      Pattern.compile("^final class \\w+ implements RefasterRuleCollectionTestCase \\{$");
+  private static final Splitter LINE_SPLITTER = Splitter.on('\n');
+
+  private final String className;
+  private final ImmutableSortedSet<String> imports;
+  private final ImmutableList<String> inputBody;
+  private final ImmutableList<String> outputBody;
+
+  private SyntheticCorpus(
+      String className,
+      ImmutableSortedSet<String> imports,
+      ImmutableList<String> inputBody,
+      ImmutableList<String> outputBody) {
+    this.className = className;
+    this.imports = imports;
+    this.inputBody = inputBody;
+    this.outputBody = outputBody;
+  }
+
+  /**
+   * Creates a corpus generator based on the test resources of the given Refaster rule collection.
+   *
+   * @param ruleCollection The simple name of a Refaster rule collection in this package, such as
+   *     {@code StringRules}.
+   * @return A non-{@code null} {@link SyntheticCorpus}.
+   */
+  static SyntheticCorpus forRuleCollection(String ruleCollection) {
+    ImmutableList<String> input = readLines(ruleCollection + "TestInput.java");
+    ImmutableList<String> output = readLines(ruleCollection + "TestOutput.java");
+    return new SyntheticCorpus(
+        ruleCollection + "Corpus",
+        Stream.concat(input.stream(), output.stream())
+            .filter(line -> line.startsWith("import "))
+            .collect(toImmutableSortedSet(naturalOrder())),
+        getClassBody(input),
+        getClassBody(output));
+  }
+
+  /**
+   * Generates a compilation unit consisting of the given number of copies of the rule collection's
+   * test code.
+   *
+   * @param copies The number of nested classes to declare; must be positive.
+   * @param matchDensity The fraction of nested classes that are copies of the test input, rather
+   *     than the test output; must be between zero and one (inclusive).
+   * @return The source code of a compilation unit declaring the class named {@link #className()}.
+   */
+  String generate(int copies, double matchDensity) {
+    checkArgument(copies > 0, "Number of copies must be positive");
+    checkArgument(
+        matchDensity >= 0 && matchDensity <= 1, "Match density must be between zero and one");
+
+    StringBuilder source = new StringBuilder("package tech.picnic.errorprone.refasterrules;\n\n");
+    imports.forEach(line -> source.append(line).append('\n'));
+    source.append("\nfinal class ").append(className).append(" {\n");
+    for (int i = 0; i < copies; i++) {
+      boolean isInput = Math.floor((i + 1) * matchDensity) > Math.floor(i * matchDensity);
+      source
+          .append("  static final class Copy")
+          .append(i)
+          .append(" implements RefasterRuleCollectionTestCase {\n");
+      (isInput ? inputBody : outputBody)
+          .forEach(line -> source.append(line.isEmpty() ? "" : "  ").append(line).append('\n'));
+      source.append("  }\n\n");
+    }
+    return source.append("}\n").toString();
+  }
+
+  /**
+   * Returns the simple name of the top-level class declared by the generated compilation units.
+   *
+   * @return A non-{@code null} class name.
+   */
+  String className() {
+    return className;
+  }
+
+  private static ImmutableList<String> readLines(String resourceName) {
+    try {
+      return ImmutableList.copyOf(
+          LINE_SPLITTER.split(
+              Resources.toString(
+                  Resources.getResource(SyntheticCorpus.class, resourceName), UTF_8)));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read resource " + resourceName, e);
+    }
+  }
+
+  /** Returns the lines between the rule collection test class declaration and its closing brace. */
+  private static ImmutableList<String> getClassBody(ImmutableList<String> lines) {
+    int start = Iterables.indexOf(lines, line -> TEST_CLASS_DECLARATION.matcher(line).matches());
+    checkArgument(start >= 0, "No Refaster rule collection test class found");
+
+    int end = lines.lastIndexOf("}");
+    checkArgument(end > start, "Refaster rule collection test class is not terminated");
+    return lines.subList(start + 1, end);
+  }
+}
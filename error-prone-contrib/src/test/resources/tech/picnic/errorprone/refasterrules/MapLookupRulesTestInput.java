@@ -0,0 +1,57 @@
+package tech.picnic.errorprone.refasterrules;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.HashMap;
+import java.util.Map;
+import tech.picnic.errorprone.refaster.test.RefasterRuleCollectionTestCase;
+
+final class MapLookupRulesTest implements RefasterRuleCollectionTestCase {
+  boolean testMapContainsKey() {
+    return ImmutableMap.of("foo", 1).keySet().contains("bar");
+  }
+
+  Integer testMapGet() {
+    return ImmutableMap.of("foo", 1).containsKey("bar")
+        ? ImmutableMap.of("foo", 1).get("bar")
+        : null;
+  }
+
+  ImmutableSet<String> testMapGetOrDefault(String defaultValue) {
+    return ImmutableSet.of(
+        ImmutableMap.of(1, "foo").containsKey(2) ? ImmutableMap.of(1, "foo").get(2) : "bar",
+        ImmutableMap.of(3, "baz").containsKey(4) ? ImmutableMap.of(3, "baz").get(4) : defaultValue,
+        ImmutableMap.of(5, "qux").containsKey(6)
+            ? ImmutableMap.of(5, "qux").get(6)
+            : defaultValue.toUpperCase());
+  }
+
+  void testMapPutIfAbsent(Map<String, String> map, String value) {
+    if (map.get("foo") == null) {
+      map.put("foo", "bar");
+    }
+    if (map.get("baz") == null) {
+      map.put("baz", value);
+    }
+    if (map.get("qux") == null) {
+      map.put("qux", value.toUpperCase());
+    }
+  }
+
+  ImmutableSet<String> testMapPutIfAbsentExpression(Map<String, String> map, String value) {
+    return ImmutableSet.of(
+        map.get("foo") == null ? map.put("foo", "bar") : map.get("foo"),
+        map.get("baz") == null ? map.put("baz", value) : map.get("baz"),
+        map.get("qux") == null ? map.put("qux", value.toUpperCase()) : map.get("qux"));
+  }
+
+  void testMapMergeIntegerSum() {
+    new HashMap<String, Integer>()
+        .put("foo", new HashMap<String, Integer>().getOrDefault("foo", 0) + 1);
+  }
+
+  void testMapMergeLongSum() {
+    new HashMap<String, Long>()
+        .put("foo", new HashMap<String, Long>().getOrDefault("foo", 0L) + 1L);
+  }
+}
@@ -0,0 +1,49 @@
+package tech.picnic.errorprone.refasterrules;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.HashMap;
+import java.util.Map;
+import tech.picnic.errorprone.refaster.test.RefasterRuleCollectionTestCase;
+
+final class MapLookupRulesTest implements RefasterRuleCollectionTestCase {
+  boolean testMapContainsKey() {
+    return ImmutableMap.of("foo", 1).containsKey("bar");
+  }
+
+  Integer testMapGet() {
+    return ImmutableMap.of("foo", 1).get("bar");
+  }
+
+  ImmutableSet<String> testMapGetOrDefault(String defaultValue) {
+    return ImmutableSet.of(
+        ImmutableMap.of(1, "foo").getOrDefault(2, "bar"),
+        ImmutableMap.of(3, "baz").getOrDefault(4, defaultValue),
+        ImmutableMap.of(5, "qux").containsKey(6)
+            ? ImmutableMap.of(5, "qux").get(6)
+            : defaultValue.toUpperCase());
+  }
+
+  void testMapPutIfAbsent(Map<String, String> map, String value) {
+    map.putIfAbsent("foo", "bar");
+    map.putIfAbsent("baz", value);
+    if (map.get("qux") == null) {
+      map.put("qux", value.toUpperCase());
+    }
+  }
+
+  ImmutableSet<String> testMapPutIfAbsentExpression(Map<String, String> map, String value) {
+    return ImmutableSet.of(
+        map.putIfAbsent("foo", "bar"),
+        map.putIfAbsent("baz", value),
+        map.get("qux") == null ? map.put("qux", value.toUpperCase()) : map.get("qux"));
+  }
+
+  void testMapMergeIntegerSum() {
+    new HashMap<String, Integer>().merge("foo", 1, Integer::sum);
+  }
+
+  void testMapMergeLongSum() {
+    new HashMap<String, Long>().merge("foo", 1L, Long::sum);
+  }
+}
@@ -0,0 +1,111 @@
+package tech.picnic.errorprone.refasterrules;
+
+import static java.util.stream.Collectors.averagingDouble;
+import static java.util.stream.Collectors.averagingInt;
+import static java.util.stream.Collectors.averagingLong;
+import static java.util.stream.Collectors.summarizingDouble;
+import static java.util.stream.Collectors.summarizingInt;
+import static java.util.stream.Collectors.summarizingLong;
+import static java.util.stream.Collectors.summingDouble;
+import static java.util.stream.Collectors.summingInt;
+import static java.util.stream.Collectors.summingLong;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.DoubleSummaryStatistics;
+import java.util.IntSummaryStatistics;
+import java.util.LongSummaryStatistics;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import tech.picnic.errorprone.refaster.test.RefasterRuleCollectionTestCase;
+
+final class PrimitiveStreamSpecializationRulesTest implements RefasterRuleCollectionTestCase {
+  @Override
+  public ImmutableSet<?> elidedTypesAndStaticImports() {
+    return ImmutableSet.of(
+        averagingDouble(null),
+        averagingInt(null),
+        averagingLong(null),
+        summarizingDouble(null),
+        summarizingInt(null),
+        summarizingLong(null),
+        summingDouble(null),
+        summingInt(null),
+        summingLong(null));
+  }
+
+  int testStreamMapToIntSum() {
+    return Stream.of("foo").collect(summingInt(String::length));
+  }
+
+  double testStreamMapToIntAverage() {
+    return Stream.of("foo").collect(averagingInt(String::length));
+  }
+
+  IntSummaryStatistics testStreamMapToIntSummaryStatistics() {
+    return Stream.of("foo").collect(summarizingInt(String::length));
+  }
+
+  int testIntegerStreamSum() {
+    return Stream.of(1).reduce(0, Integer::sum);
+  }
+
+  Stream<Integer> testIntStreamSortedBoxed() {
+    return IntStream.of(2, 1).boxed().sorted();
+  }
+
+  ImmutableSet<IntStream> testIntStreamBoxedMapToInt() {
+    return ImmutableSet.of(
+        IntStream.of(1).boxed().mapToInt(Integer::intValue),
+        IntStream.of(2).mapToObj(Integer::valueOf).mapToInt(Integer::intValue));
+  }
+
+  long testStreamMapToLongSum() {
+    return Stream.of(1L).collect(summingLong(Long::longValue));
+  }
+
+  double testStreamMapToLongAverage() {
+    return Stream.of(1L).collect(averagingLong(Long::longValue));
+  }
+
+  LongSummaryStatistics testStreamMapToLongSummaryStatistics() {
+    return Stream.of(1L).collect(summarizingLong(Long::longValue));
+  }
+
+  long testLongStreamSum() {
+    return Stream.of(1L).reduce(0L, Long::sum);
+  }
+
+  Stream<Long> testLongStreamSortedBoxed() {
+    return LongStream.of(2, 1).boxed().sorted();
+  }
+
+  ImmutableSet<LongStream> testLongStreamBoxedMapToLong() {
+    return ImmutableSet.of(
+        LongStream.of(1).boxed().mapToLong(Long::longValue),
+        LongStream.of(2).mapToObj(Long::valueOf).mapToLong(Long::longValue));
+  }
+
+  double testStreamMapToDoubleSum() {
+    return Stream.of(1.0).collect(summingDouble(Double::doubleValue));
+  }
+
+  double testStreamMapToDoubleAverage() {
+    return Stream.of(1.0).collect(averagingDouble(Double::doubleValue));
+  }
+
+  DoubleSummaryStatistics testStreamMapToDoubleSummaryStatistics() {
+    return Stream.of(1.0).collect(summarizingDouble(Double::doubleValue));
+  }
+
+  Stream<Double> testDoubleStreamSortedBoxed() {
+    return DoubleStream.of(2, 1).boxed().sorted();
+  }
+
+  ImmutableSet<DoubleStream> testDoubleStreamBoxedMapToDouble() {
+    return ImmutableSet.of(
+        DoubleStream.of(1).boxed().mapToDouble(Double::doubleValue),
+        DoubleStream.of(2).mapToObj(Double::valueOf).mapToDouble(Double::doubleValue));
+  }
+}
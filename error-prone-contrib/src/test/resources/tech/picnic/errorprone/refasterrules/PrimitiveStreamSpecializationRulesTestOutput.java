@@ -0,0 +1,105 @@
+package tech.picnic.errorprone.refasterrules;
+
+import static java.util.stream.Collectors.averagingDouble;
+import static java.util.stream.Collectors.averagingInt;
+import static java.util.stream.Collectors.averagingLong;
+import static java.util.stream.Collectors.summarizingDouble;
+import static java.util.stream.Collectors.summarizingInt;
+import static java.util.stream.Collectors.summarizingLong;
+import static java.util.stream.Collectors.summingDouble;
+import static java.util.stream.Collectors.summingInt;
+import static java.util.stream.Collectors.summingLong;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.DoubleSummaryStatistics;
+import java.util.IntSummaryStatistics;
+import java.util.LongSummaryStatistics;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import tech.picnic.errorprone.refaster.test.RefasterRuleCollectionTestCase;
+
+final class PrimitiveStreamSpecializationRulesTest implements RefasterRuleCollectionTestCase {
+  @Override
+  public ImmutableSet<?> elidedTypesAndStaticImports() {
+    return ImmutableSet.of(
+        averagingDouble(null),
+        averagingInt(null),
+        averagingLong(null),
+        summarizingDouble(null),
+        summarizingInt(null),
+        summarizingLong(null),
+        summingDouble(null),
+        summingInt(null),
+        summingLong(null));
+  }
+
+  int testStreamMapToIntSum() {
+    return Stream.of("foo").mapToInt(String::length).sum();
+  }
+
+  double testStreamMapToIntAverage() {
+    return Stream.of("foo").mapToInt(String::length).average().orElse(0);
+  }
+
+  IntSummaryStatistics testStreamMapToIntSummaryStatistics() {
+    return Stream.of("foo").mapToInt(String::length).summaryStatistics();
+  }
+
+  int testIntegerStreamSum() {
+    return Stream.of(1).mapToInt(Integer::intValue).sum();
+  }
+
+  Stream<Integer> testIntStreamSortedBoxed() {
+    return IntStream.of(2, 1).sorted().boxed();
+  }
+
+  ImmutableSet<IntStream> testIntStreamBoxedMapToInt() {
+    return ImmutableSet.of(IntStream.of(1), IntStream.of(2));
+  }
+
+  long testStreamMapToLongSum() {
+    return Stream.of(1L).mapToLong(Long::longValue).sum();
+  }
+
+  double testStreamMapToLongAverage() {
+    return Stream.of(1L).mapToLong(Long::longValue).average().orElse(0);
+  }
+
+  LongSummaryStatistics testStreamMapToLongSummaryStatistics() {
+    return Stream.of(1L).mapToLong(Long::longValue).summaryStatistics();
+  }
+
+  long testLongStreamSum() {
+    return Stream.of(1L).mapToLong(Long::longValue).sum();
+  }
+
+  Stream<Long> testLongStreamSortedBoxed() {
+    return LongStream.of(2, 1).sorted().boxed();
+  }
+
+  ImmutableSet<LongStream> testLongStreamBoxedMapToLong() {
+    return ImmutableSet.of(LongStream.of(1), LongStream.of(2));
+  }
+
+  double testStreamMapToDoubleSum() {
+    return Stream.of(1.0).mapToDouble(Double::doubleValue).sum();
+  }
+
+  double testStreamMapToDoubleAverage() {
+    return Stream.of(1.0).mapToDouble(Double::doubleValue).average().orElse(0);
+  }
+
+  DoubleSummaryStatistics testStreamMapToDoubleSummaryStatistics() {
+    return Stream.of(1.0).mapToDouble(Double::doubleValue).summaryStatistics();
+  }
+
+  Stream<Double> testDoubleStreamSortedBoxed() {
+    return DoubleStream.of(2, 1).sorted().boxed();
+  }
+
+  ImmutableSet<DoubleStream> testDoubleStreamBoxedMapToDouble() {
+    return ImmutableSet.of(DoubleStream.of(1), DoubleStream.of(2));
+  }
+}
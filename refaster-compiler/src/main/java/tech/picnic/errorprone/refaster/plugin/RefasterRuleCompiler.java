@@ -1,17 +1,33 @@
 package tech.picnic.errorprone.refaster.plugin;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+
 import com.google.auto.service.AutoService;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
 import com.sun.source.util.JavacTask;
 import com.sun.source.util.Plugin;
 import com.sun.tools.javac.api.BasicJavacTask;
+import java.util.Arrays;
 
 /**
  * A variant of {@code com.google.errorprone.refaster.RefasterRuleCompiler} that outputs a {@code
  * fully/qualified/Class.refaster} file for each compiled {@code fully.qualified.Class} that
  * contains a Refaster rule.
+ *
+ * <p>The estimated matching cost of each compiled Refaster rule is written to an accompanying
+ * {@code .refaster-cost} file. By passing {@value #WARNING_COST_THRESHOLD_ARG}{@code =<cost>}
+ * and/or {@value #ERROR_COST_THRESHOLD_ARG}{@code =<cost>} as plugin arguments (e.g. {@code
+ * -Xplugin:RefasterRuleCompiler WarnAboveCost=100}), rules with a higher total estimated cost are
+ * reported as warnings or errors, respectively.
  */
 @AutoService(Plugin.class)
 public final class RefasterRuleCompiler implements Plugin {
+  private static final String WARNING_COST_THRESHOLD_ARG = "WarnAboveCost";
+  private static final String ERROR_COST_THRESHOLD_ARG = "FailAboveCost";
+  private static final Splitter ARG_SPLITTER = Splitter.on('=').limit(2);
+
   /** Instantiates a new {@link RefasterRuleCompiler} instance. */
   public RefasterRuleCompiler() {}
 
@@ -22,7 +38,25 @@ public final class RefasterRuleCompiler implements Plugin {
 
   @Override
   public void init(JavacTask javacTask, String... args) {
+    ImmutableMap<String, Integer> thresholds = parseCostThresholds(args);
     javacTask.addTaskListener(
-        new RefasterRuleCompilerTaskListener(((BasicJavacTask) javacTask).getContext()));
+        new RefasterRuleCompilerTaskListener(
+            ((BasicJavacTask) javacTask).getContext(),
+            thresholds.getOrDefault(WARNING_COST_THRESHOLD_ARG, Integer.MAX_VALUE),
+            thresholds.getOrDefault(ERROR_COST_THRESHOLD_ARG, Integer.MAX_VALUE)));
+  }
+
+  private static ImmutableMap<String, Integer> parseCostThresholds(String... args) {
+    return Arrays.stream(args)
+        .map(ARG_SPLITTER::splitToList)
+        .peek(
+            arg ->
+                checkArgument(
+                    arg.size() == 2
+                        && (arg.get(0).equals(WARNING_COST_THRESHOLD_ARG)
+                            || arg.get(0).equals(ERROR_COST_THRESHOLD_ARG)),
+                    "Unsupported argument '%s'",
+                    String.join("=", arg)))
+        .collect(toImmutableMap(arg -> arg.get(0), arg -> Integer.parseInt(arg.get(1))));
   }
 }
@@ -1,5 +1,7 @@
 package tech.picnic.errorprone.refaster.plugin;
 
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+
 import com.google.common.collect.ImmutableClassToInstanceMap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -11,6 +13,8 @@ import com.google.errorprone.refaster.annotation.BeforeTemplate;
 import com.google.errorprone.util.ASTHelpers;
 import com.sun.source.tree.AnnotationTree;
 import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
 import com.sun.source.util.TaskEvent;
 import com.sun.source.util.TaskEvent.Kind;
 import com.sun.source.util.TaskListener;
@@ -24,15 +28,17 @@ import com.sun.tools.javac.util.Context;
 import com.sun.tools.javac.util.Name;
 import java.io.IOException;
 import java.io.ObjectOutput;
-import java.io.ObjectOutputStream;
 import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.util.Map;
+import javax.tools.Diagnostic;
 import javax.tools.FileObject;
 import javax.tools.JavaFileManager;
 import javax.tools.StandardLocation;
 import org.jspecify.nullness.Nullable;
 import tech.picnic.errorprone.refaster.AnnotatedCompositeCodeTransformer;
+import tech.picnic.errorprone.refaster.RefasterRuleSerialization;
 
 /**
  * A variant of {@code com.google.errorprone.refaster.RefasterRuleCompilerAnalyzer} that stores
@@ -40,12 +46,22 @@ import tech.picnic.errorprone.refaster.AnnotatedCompositeCodeTransformer;
  * rather than at a fixed location.
  *
  * <p>This {@link TaskListener} thus supports compilation of multiple Refaster rules.
+ *
+ * <p>Additionally, the matching cost of each {@code @BeforeTemplate} method is estimated using
+ * {@link RefasterRuleCostEstimator}. These estimates are written to a {@code .refaster-cost} file
+ * next to the associated {@code .refaster} file. Rules whose total estimated cost exceeds the
+ * configured thresholds are reported as warnings or errors.
  */
 final class RefasterRuleCompilerTaskListener implements TaskListener {
   private final Context context;
+  private final int warningCostThreshold;
+  private final int errorCostThreshold;
 
-  RefasterRuleCompilerTaskListener(Context context) {
+  RefasterRuleCompilerTaskListener(
+      Context context, int warningCostThreshold, int errorCostThreshold) {
     this.context = context;
+    this.warningCostThreshold = warningCostThreshold;
+    this.errorCostThreshold = errorCostThreshold;
   }
 
   @Override
@@ -61,14 +77,61 @@ final class RefasterRuleCompilerTaskListener implements TaskListener {
 
     ImmutableMap<ClassTree, CodeTransformer> rules = compileRefasterRules(tree);
     for (Map.Entry<ClassTree, CodeTransformer> rule : rules.entrySet()) {
+      ImmutableMap<String, Integer> costs = estimateCosts(rule.getKey());
       try {
-        outputCodeTransformer(rule.getValue(), getOutputFile(taskEvent, rule.getKey()));
+        outputCodeTransformer(
+            rule.getValue(), getOutputFile(taskEvent, rule.getKey(), ".refaster"));
+        outputCostEstimates(costs, getOutputFile(taskEvent, rule.getKey(), ".refaster-cost"));
       } catch (IOException e) {
         throw new UncheckedIOException("Failed to persist compiled Refaster rules", e);
       }
+      reportExcessiveCost(rule.getKey(), costs, taskEvent.getCompilationUnit());
     }
   }
 
+  /** Returns the estimated matching cost of each of the given rule's {@code @BeforeTemplate}s. */
+  private static ImmutableMap<String, Integer> estimateCosts(ClassTree rule) {
+    return rule.getMembers().stream()
+        .filter(MethodTree.class::isInstance)
+        .map(MethodTree.class::cast)
+        .filter(RefasterRuleCompilerTaskListener::isBeforeTemplate)
+        .collect(
+            toImmutableMap(
+                m -> m.getName().toString(),
+                RefasterRuleCostEstimator::estimateCost,
+                Integer::sum));
+  }
+
+  private static boolean isBeforeTemplate(MethodTree method) {
+    return method.getModifiers().getAnnotations().stream()
+        .map(ASTHelpers::getSymbol)
+        .anyMatch(
+            sym ->
+                sym != null
+                    && sym.getQualifiedName()
+                        .contentEquals(BeforeTemplate.class.getCanonicalName()));
+  }
+
+  private void reportExcessiveCost(
+      ClassTree rule, ImmutableMap<String, Integer> costs, CompilationUnitTree compilationUnit) {
+    int totalCost = costs.values().stream().mapToInt(Integer::intValue).sum();
+    if (totalCost <= warningCostThreshold && totalCost <= errorCostThreshold) {
+      return;
+    }
+
+    Diagnostic.Kind kind =
+        totalCost > errorCostThreshold ? Diagnostic.Kind.ERROR : Diagnostic.Kind.WARNING;
+    JavacTrees.instance(context)
+        .printMessage(
+            kind,
+            String.format(
+                "Refaster rule has an estimated matching cost of %s, exceeding the threshold of %s",
+                totalCost,
+                kind == Diagnostic.Kind.ERROR ? errorCostThreshold : warningCostThreshold),
+            rule,
+            compilationUnit);
+  }
+
   private ImmutableMap<ClassTree, CodeTransformer> compileRefasterRules(ClassTree tree) {
     ImmutableMap.Builder<ClassTree, CodeTransformer> rules = ImmutableMap.builder();
     new TreeScanner<@Nullable Void, ImmutableClassToInstanceMap<Annotation>>() {
@@ -76,6 +139,8 @@ final class RefasterRuleCompilerTaskListener implements TaskListener {
       public @Nullable Void visitClass(
           ClassTree node, ImmutableClassToInstanceMap<Annotation> annotations) {
         ClassSymbol symbol = ASTHelpers.getSymbol(node);
+        ImmutableClassToInstanceMap<Annotation> effectiveAnnotations =
+            merge(annotations, UTemplater.annotationMap(symbol));
 
         ImmutableList<CodeTransformer> transformers =
             ImmutableList.copyOf(RefasterRuleBuilderScanner.extractRules(node, context));
@@ -83,23 +148,24 @@ final class RefasterRuleCompilerTaskListener implements TaskListener {
           rules.put(
               node,
               AnnotatedCompositeCodeTransformer.create(
-                  toPackageName(symbol), transformers, annotations));
+                  toPackageName(symbol), toRuleName(symbol), transformers, effectiveAnnotations));
         }
 
-        return super.visitClass(node, merge(annotations, UTemplater.annotationMap(symbol)));
+        return super.visitClass(node, effectiveAnnotations);
       }
     }.scan(tree, ImmutableClassToInstanceMap.of());
     return rules.buildOrThrow();
   }
 
-  private FileObject getOutputFile(TaskEvent taskEvent, ClassTree tree) throws IOException {
+  private FileObject getOutputFile(TaskEvent taskEvent, ClassTree tree, String extension)
+      throws IOException {
     ClassSymbol symbol = ASTHelpers.getSymbol(tree);
 
     JavaFileManager fileManager = context.get(JavaFileManager.class);
     return fileManager.getFileForOutput(
         StandardLocation.CLASS_OUTPUT,
         toPackageName(symbol),
-        toSimpleFlatName(symbol) + ".refaster",
+        toSimpleFlatName(symbol) + extension,
         taskEvent.getSourceFile());
   }
 
@@ -137,15 +203,33 @@ final class RefasterRuleCompilerTaskListener implements TaskListener {
     return enclosingPackage == null ? "" : enclosingPackage.toString();
   }
 
+  private static String toRuleName(ClassSymbol symbol) {
+    PackageSymbol enclosingPackage = ASTHelpers.enclosingPackage(symbol);
+    String qualifiedName = symbol.getQualifiedName().toString();
+    return enclosingPackage == null || enclosingPackage.isUnnamed()
+        ? qualifiedName
+        : qualifiedName.substring(enclosingPackage.getQualifiedName().length() + 1);
+  }
+
   private static CharSequence toSimpleFlatName(ClassSymbol symbol) {
     Name flatName = symbol.flatName();
     int lastDot = flatName.lastIndexOf((byte) '.');
     return lastDot < 0 ? flatName : flatName.subSequence(lastDot + 1, flatName.length());
   }
 
+  private static void outputCostEstimates(ImmutableMap<String, Integer> costs, FileObject target)
+      throws IOException {
+    try (Writer writer = target.openWriter()) {
+      for (Map.Entry<String, Integer> cost : costs.entrySet()) {
+        writer.write(cost.getKey() + '=' + cost.getValue() + '\n');
+      }
+    }
+  }
+
   private static void outputCodeTransformer(CodeTransformer codeTransformer, FileObject target)
       throws IOException {
-    try (ObjectOutput output = new ObjectOutputStream(target.openOutputStream())) {
+    try (ObjectOutput output =
+        RefasterRuleSerialization.newObjectOutputStream(target.openOutputStream())) {
       output.writeObject(codeTransformer);
     }
   }
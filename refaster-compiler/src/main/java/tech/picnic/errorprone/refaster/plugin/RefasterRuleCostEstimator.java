@@ -0,0 +1,202 @@
+package tech.picnic.errorprone.refaster.plugin;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.errorprone.refaster.Refaster;
+import com.google.errorprone.refaster.annotation.Matches;
+import com.google.errorprone.refaster.annotation.NotMatches;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.BinaryTree;
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.CompoundAssignmentTree;
+import com.sun.source.tree.ConditionalExpressionTree;
+import com.sun.source.tree.ExpressionStatementTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.InstanceOfTree;
+import com.sun.source.tree.LiteralTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.ReturnTree;
+import com.sun.source.tree.StatementTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.TypeCastTree;
+import com.sun.source.tree.UnaryTree;
+import com.sun.source.util.TreeScanner;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.MethodSymbol;
+import com.sun.tools.javac.code.Type.TypeVar;
+import javax.lang.model.element.ElementKind;
+import org.jspecify.nullness.Nullable;
+
+/**
+ * Estimates the cost of matching a {@code @BeforeTemplate} method against arbitrary code.
+ *
+ * <p>Refaster attempts to unify each template with every node of the same kind as the template's
+ * root node. The estimate is thus based on the following properties of the template:
+ *
+ * <ul>
+ *   <li>the kind of the root node: templates rooted in a method invocation or constructor call are
+ *       unified with relatively few nodes, while templates rooted in an operator, a literal or
+ *       (worse) a template parameter are unified with many more;
+ *   <li>the specificity of the root symbol: methods declared by {@link Object} are invoked much
+ *       more often than most other methods, while a template parameter of a type variable type
+ *       matches any expression at all;
+ *   <li>the {@link Refaster#anyOf(Object[])} fan-out: each alternative is unified separately;
+ *   <li>the number of {@link Matches} and {@link NotMatches} constraints, each of which is
+ *       evaluated for every successful unification.
+ * </ul>
+ *
+ * <p>The resultant number is a relative measure; it is not expressed in any particular unit.
+ */
+final class RefasterRuleCostEstimator {
+  private static final int SPECIFIC_SYMBOL_COST = 1;
+  private static final int COMMON_SYMBOL_COST = 4;
+  private static final int LITERAL_COST = 3;
+  private static final int OPERATOR_COST = 5;
+  private static final int OTHER_NODE_COST = 10;
+  private static final int PARAMETER_COST = 50;
+  private static final int TYPE_VARIABLE_PARAMETER_COST = 100;
+  private static final int MATCHER_COST = 2;
+  private static final ImmutableSet<Class<? extends Tree>> OPERATOR_TYPES =
+      ImmutableSet.of(
+          BinaryTree.class,
+          CompoundAssignmentTree.class,
+          ConditionalExpressionTree.class,
+          InstanceOfTree.class,
+          TypeCastTree.class,
+          UnaryTree.class);
+  private static final ImmutableSet<String> MATCHER_ANNOTATIONS =
+      ImmutableSet.of(Matches.class.getCanonicalName(), NotMatches.class.getCanonicalName());
+
+  private RefasterRuleCostEstimator() {}
+
+  /**
+   * Estimates the cost of matching the given {@code @BeforeTemplate} method.
+   *
+   * @param template The template method of interest.
+   * @return A positive number; the higher, the more expensive the template is to match.
+   */
+  static int estimateCost(MethodTree template) {
+    ExpressionTree root = getRootExpression(template);
+    int rootCost = root == null ? OTHER_NODE_COST : getExpressionCost(root);
+    return Math.addExact(
+        Math.multiplyExact(rootCost, getNestedFanOut(template, root)),
+        Math.multiplyExact(MATCHER_COST, getMatcherCount(template)));
+  }
+
+  /**
+   * Returns the expression at the root of the given template, if any.
+   *
+   * <p>For expression templates this is the returned expression, while for block templates this is
+   * the expression of the first statement, provided that it is an expression statement.
+   */
+  private static @Nullable ExpressionTree getRootExpression(MethodTree template) {
+    BlockTree body = template.getBody();
+    if (body == null || body.getStatements().isEmpty()) {
+      return null;
+    }
+
+    StatementTree statement = body.getStatements().get(0);
+    if (statement instanceof ReturnTree) {
+      ExpressionTree expression = ((ReturnTree) statement).getExpression();
+      return expression == null ? null : ASTHelpers.stripParentheses(expression);
+    }
+
+    return statement instanceof ExpressionStatementTree
+        ? ASTHelpers.stripParentheses(((ExpressionStatementTree) statement).getExpression())
+        : null;
+  }
+
+  private static int getExpressionCost(ExpressionTree tree) {
+    ExpressionTree expression = ASTHelpers.stripParentheses(tree);
+    if (isAnyOf(expression)) {
+      return ((MethodInvocationTree) expression)
+          .getArguments().stream().mapToInt(RefasterRuleCostEstimator::getExpressionCost).sum();
+    }
+
+    switch (expression.getKind()) {
+      case METHOD_INVOCATION:
+      case NEW_CLASS:
+      case MEMBER_REFERENCE:
+        return getInvocationCost(ASTHelpers.getSymbol(expression));
+      case IDENTIFIER:
+      case MEMBER_SELECT:
+        return getIdentifierCost(ASTHelpers.getSymbol(expression));
+      default:
+        if (expression instanceof LiteralTree) {
+          return LITERAL_COST;
+        }
+
+        return OPERATOR_TYPES.contains(expression.getKind().asInterface())
+            ? OPERATOR_COST
+            : OTHER_NODE_COST;
+    }
+  }
+
+  private static int getInvocationCost(@Nullable Symbol symbol) {
+    if (!(symbol instanceof MethodSymbol)) {
+      return OTHER_NODE_COST;
+    }
+
+    return symbol.owner.getQualifiedName().contentEquals(Object.class.getName())
+        ? COMMON_SYMBOL_COST
+        : SPECIFIC_SYMBOL_COST;
+  }
+
+  private static int getIdentifierCost(@Nullable Symbol symbol) {
+    if (symbol == null || symbol.getKind() != ElementKind.PARAMETER) {
+      return SPECIFIC_SYMBOL_COST;
+    }
+
+    return symbol.type instanceof TypeVar ? TYPE_VARIABLE_PARAMETER_COST : PARAMETER_COST;
+  }
+
+  /**
+   * Returns the number of combinations of {@link Refaster#anyOf(Object[])} alternatives that may
+   * need to be tried for a single candidate node, disregarding the alternatives of the root
+   * expression (as those are already accounted for by the root cost).
+   */
+  private static int getNestedFanOut(MethodTree template, @Nullable ExpressionTree root) {
+    Integer fanOut =
+        new TreeScanner<Integer, @Nullable Void>() {
+          @Override
+          public Integer visitMethodInvocation(MethodInvocationTree node, @Nullable Void unused) {
+            int nested = reduce(super.visitMethodInvocation(node, null), null);
+            return isAnyOf(node) && node != root
+                ? Math.multiplyExact(node.getArguments().size(), nested)
+                : nested;
+          }
+
+          @Override
+          public Integer reduce(@Nullable Integer r1, @Nullable Integer r2) {
+            return Math.multiplyExact(r1 == null ? 1 : r1, r2 == null ? 1 : r2);
+          }
+        }.scan(template.getBody(), null);
+    return fanOut == null ? 1 : fanOut;
+  }
+
+  private static int getMatcherCount(MethodTree template) {
+    return (int)
+        template.getParameters().stream()
+            .filter(
+                parameter ->
+                    parameter.getModifiers().getAnnotations().stream()
+                        .map(ASTHelpers::getSymbol)
+                        .anyMatch(
+                            annotation ->
+                                annotation != null
+                                    && MATCHER_ANNOTATIONS.contains(
+                                        annotation.getQualifiedName().toString())))
+            .count();
+  }
+
+  private static boolean isAnyOf(ExpressionTree tree) {
+    if (!(tree instanceof MethodInvocationTree)) {
+      return false;
+    }
+
+    Symbol symbol = ASTHelpers.getSymbol(tree);
+    return symbol != null
+        && symbol.getSimpleName().contentEquals("anyOf")
+        && symbol.owner.getQualifiedName().contentEquals(Refaster.class.getName());
+  }
+}
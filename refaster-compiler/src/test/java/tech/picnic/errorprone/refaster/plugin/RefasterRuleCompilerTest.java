@@ -0,0 +1,100 @@
+package tech.picnic.errorprone.refaster.plugin;
+
+import static com.google.common.base.Predicates.containsPattern;
+import static com.google.errorprone.BugPattern.SeverityLevel.SUGGESTION;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.CompilationTestHelper;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.sun.tools.javac.main.Main.Result;
+import org.junit.jupiter.api.Test;
+
+final class RefasterRuleCompilerTest {
+  private final CompilationTestHelper compilationTestHelper =
+      CompilationTestHelper.newInstance(NoOpTestChecker.class, getClass())
+          .matchAllDiagnostics()
+          .addSourceLines(
+              "A.java",
+              "import com.google.errorprone.refaster.annotation.AfterTemplate;",
+              "import com.google.errorprone.refaster.annotation.BeforeTemplate;",
+              "",
+              "class A {",
+              "  // BUG: Diagnostic matches: Cost",
+              "  static final class ExpensiveRule {",
+              "    @BeforeTemplate",
+              "    String before(String str) {",
+              "      return str;",
+              "    }",
+              "",
+              "    @AfterTemplate",
+              "    String after(String str) {",
+              "      return str.strip();",
+              "    }",
+              "  }",
+              "",
+              "  static final class CheapRule {",
+              "    @BeforeTemplate",
+              "    boolean before(String str) {",
+              "      return str.length() == 0;",
+              "    }",
+              "",
+              "    @AfterTemplate",
+              "    boolean after(String str) {",
+              "      return str.isEmpty();",
+              "    }",
+              "  }",
+              "}");
+
+  @Test
+  void withoutCostThresholds() {
+    compilationTestHelper.setArgs("-Xplugin:RefasterRuleCompiler").expectNoDiagnostics().doTest();
+  }
+
+  @Test
+  void withWarningCostThreshold() {
+    compilationTestHelper
+        .setArgs("-Xplugin:RefasterRuleCompiler WarnAboveCost=5")
+        .expectErrorMessage(
+            "Cost", containsPattern("estimated matching cost of 50, exceeding the threshold of 5$"))
+        .expectResult(Result.OK)
+        .doTest();
+  }
+
+  @Test
+  void withErrorCostThreshold() {
+    compilationTestHelper
+        .setArgs("-Xplugin:RefasterRuleCompiler WarnAboveCost=5 FailAboveCost=49")
+        .expectErrorMessage(
+            "Cost",
+            containsPattern("estimated matching cost of 50, exceeding the threshold of 49$"))
+        .expectResult(Result.ERROR)
+        .doTest();
+  }
+
+  @Test
+  void withUnsupportedArgument() {
+    assertThatThrownBy(
+            () ->
+                compilationTestHelper
+                    .setArgs("-Xplugin:RefasterRuleCompiler WarnAboveCost")
+                    .doTest())
+        .hasStackTraceContaining("Unsupported argument 'WarnAboveCost'");
+  }
+
+  @Test
+  void withNonNumericCostThreshold() {
+    assertThatThrownBy(
+            () ->
+                compilationTestHelper
+                    .setArgs("-Xplugin:RefasterRuleCompiler FailAboveCost=high")
+                    .doTest())
+        .hasStackTraceContaining("For input string: \"high\"");
+  }
+
+  /** A {@link BugChecker} that does not flag anything. */
+  @BugPattern(summary = "Flags nothing", severity = SUGGESTION)
+  public static final class NoOpTestChecker extends BugChecker {
+    private static final long serialVersionUID = 1L;
+  }
+}
@@ -0,0 +1,124 @@
+package tech.picnic.errorprone.refaster.plugin;
+
+import static com.google.errorprone.BugPattern.SeverityLevel.SUGGESTION;
+
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.CompilationTestHelper;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MethodTreeMatcher;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.refaster.annotation.BeforeTemplate;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.MethodTree;
+import org.junit.jupiter.api.Test;
+
+final class RefasterRuleCostEstimatorTest {
+  @Test
+  void estimateCost() {
+    CompilationTestHelper.newInstance(CostReportingTestChecker.class, getClass())
+        .addSourceLines(
+            "A.java",
+            "import com.google.errorprone.VisitorState;",
+            "import com.google.errorprone.matchers.Matcher;",
+            "import com.google.errorprone.refaster.Refaster;",
+            "import com.google.errorprone.refaster.annotation.BeforeTemplate;",
+            "import com.google.errorprone.refaster.annotation.Matches;",
+            "import com.google.errorprone.refaster.annotation.NotMatches;",
+            "import com.sun.source.tree.ExpressionTree;",
+            "import java.util.List;",
+            "",
+            "class A {",
+            "  @BeforeTemplate",
+            "  // BUG: Diagnostic contains: (cost 1)",
+            "  boolean specificMethod(String str) {",
+            "    return str.isEmpty();",
+            "  }",
+            "",
+            "  @BeforeTemplate",
+            "  // BUG: Diagnostic contains: (cost 4)",
+            "  int objectMethod(Object obj) {",
+            "    return obj.hashCode();",
+            "  }",
+            "",
+            "  @BeforeTemplate",
+            "  // BUG: Diagnostic contains: (cost 3)",
+            "  String literal() {",
+            "    return \"foo\";",
+            "  }",
+            "",
+            "  @BeforeTemplate",
+            "  // BUG: Diagnostic contains: (cost 5)",
+            "  boolean operator(String str) {",
+            "    return (str.length() == 0);",
+            "  }",
+            "",
+            "  @BeforeTemplate",
+            "  // BUG: Diagnostic contains: (cost 50)",
+            "  String parameter(String str) {",
+            "    return str;",
+            "  }",
+            "",
+            "  @BeforeTemplate",
+            "  // BUG: Diagnostic contains: (cost 100)",
+            "  <T> T typeVariableParameter(T value) {",
+            "    return value;",
+            "  }",
+            "",
+            "  @BeforeTemplate",
+            "  // BUG: Diagnostic contains: (cost 10)",
+            "  void emptyBlock() {}",
+            "",
+            "  @BeforeTemplate",
+            "  // BUG: Diagnostic contains: (cost 1)",
+            "  void blockTemplate(List<String> list) {",
+            "    list.clear();",
+            "  }",
+            "",
+            "  @BeforeTemplate",
+            "  // BUG: Diagnostic contains: (cost 6)",
+            "  boolean rootAnyOf(String str) {",
+            "    return Refaster.anyOf(str.isEmpty(), str.length() == 0);",
+            "  }",
+            "",
+            "  @BeforeTemplate",
+            "  // BUG: Diagnostic contains: (cost 7)",
+            "  String nestedAnyOf(",
+            "      @Matches(IsAnything.class) Object first,",
+            "      @NotMatches(IsAnything.class) Object second,",
+            "      Object third) {",
+            "    return String.valueOf(Refaster.anyOf(first, second, third));",
+            "  }",
+            "",
+            "  int notATemplate(Object obj) {",
+            "    return obj.hashCode();",
+            "  }",
+            "",
+            "  static final class IsAnything implements Matcher<ExpressionTree> {",
+            "    @Override",
+            "    public boolean matches(ExpressionTree tree, VisitorState state) {",
+            "      return true;",
+            "    }",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  /** A {@link BugChecker} that reports the estimated cost of each {@link BeforeTemplate} method. */
+  @BugPattern(summary = "Reports the estimated Refaster template cost", severity = SUGGESTION)
+  public static final class CostReportingTestChecker extends BugChecker
+      implements MethodTreeMatcher {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Description matchMethod(MethodTree tree, VisitorState state) {
+      if (!ASTHelpers.hasAnnotation(tree, BeforeTemplate.class, state)) {
+        return Description.NO_MATCH;
+      }
+
+      return buildDescription(tree)
+          .setMessage(String.format("(cost %s)", RefasterRuleCostEstimator.estimateCost(tree)))
+          .build();
+    }
+  }
+}
@@ -0,0 +1,175 @@
+package tech.picnic.errorprone.refaster.runner;
+
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.ImmutableSetMultimap.toImmutableSetMultimap;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableRangeSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Range;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.jspecify.nullness.Nullable;
+
+/**
+ * The (1-based, inclusive) ranges of source code lines that were changed, indexed by source file
+ * path.
+ *
+ * <p>Instances are created from either a unified diff (such as produced by {@code git diff -U0}),
+ * or from a file in which each line has the form {@code <path>:<line>} or {@code
+ * <path>:<firstLine>-<lastLine>}. Paths are typically relative; a source file is associated with
+ * the ranges of the longest path that is a suffix of the source file's path.
+ */
+final class ChangedLines implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private static final Splitter LINE_SPLITTER = Splitter.onPattern("\\r?\\n");
+  private static final Pattern DIFF_FILE_HEADER = Pattern.compile("(?m)^--- .*\\R\\+\\+\\+ ");
+  private static final Pattern DIFF_TARGET_FILE = Pattern.compile("^\\+\\+\\+ (?:b/)?([^\\t]+)");
+  private static final Pattern DIFF_HUNK_HEADER =
+      Pattern.compile("^@@ -\\d+(?:,(\\d+))? \\+(\\d+)(?:,(\\d+))? @@");
+  private static final Pattern LINE_RANGE = Pattern.compile("(?m)^(.+):(\\d+)(?:-(\\d+))?\\s*$");
+  private static final String DELETED_FILE = "/dev/null";
+
+  private final ImmutableMap<String, ImmutableRangeSet<Integer>> changedLines;
+
+  private ChangedLines(ImmutableSetMultimap<String, Range<Integer>> changedLines) {
+    this.changedLines =
+        changedLines.asMap().entrySet().stream()
+            .collect(
+                toImmutableMap(
+                    e -> normalize(e.getKey()), e -> ImmutableRangeSet.unionOf(e.getValue())));
+  }
+
+  /**
+   * Reads the changed line ranges from the given file.
+   *
+   * @param file A unified diff or line range file.
+   * @return A non-{@code null} {@link ChangedLines} instance.
+   */
+  static ChangedLines load(Path file) {
+    try {
+      return parse(Files.readString(file, UTF_8));
+    } catch (IOException e) {
+      throw new UncheckedIOException(
+          String.format("Failed to read changed line ranges from '%s'", file), e);
+    }
+  }
+
+  /**
+   * Parses the given unified diff or line range file content.
+   *
+   * @param content The content to be parsed.
+   * @return A non-{@code null} {@link ChangedLines} instance.
+   */
+  static ChangedLines parse(String content) {
+    return new ChangedLines(
+        DIFF_FILE_HEADER.matcher(content).find()
+            ? new UnifiedDiffParser().parse(content)
+            : parseLineRanges(content));
+  }
+
+  /**
+   * Returns the ranges of lines that were changed in the given source file.
+   *
+   * @param sourceFile The path of the source file of interest.
+   * @return A possibly-empty set of 1-based line ranges.
+   */
+  ImmutableRangeSet<Integer> get(String sourceFile) {
+    String path = normalize(sourceFile);
+    return changedLines.entrySet().stream()
+        .filter(e -> path.equals(e.getKey()) || path.endsWith('/' + e.getKey()))
+        .max(Map.Entry.comparingByKey((a, b) -> Integer.compare(a.length(), b.length())))
+        .map(Map.Entry::getValue)
+        .orElseGet(ImmutableRangeSet::of);
+  }
+
+  private static ImmutableSetMultimap<String, Range<Integer>> parseLineRanges(String content) {
+    return LINE_RANGE
+        .matcher(content)
+        .results()
+        .collect(
+            toImmutableSetMultimap(
+                r -> r.group(1).strip(),
+                r ->
+                    Range.closed(
+                        Integer.parseInt(r.group(2)),
+                        Integer.parseInt(r.group(r.group(3) == null ? 2 : 3)))));
+  }
+
+  private static String normalize(String path) {
+    return path.replace('\\', '/').strip();
+  }
+
+  /**
+   * A parser of unified diffs.
+   *
+   * <p>The line counts of each hunk header are tracked, such that hunk content lines that happen to
+   * resemble a file or hunk header are not mistaken for one. File headers are recognized only
+   * outside of hunks, as a {@code +++ } line that directly follows a {@code --- } line.
+   */
+  private static final class UnifiedDiffParser {
+    private final ImmutableSetMultimap.Builder<String, Range<Integer>> changedLines =
+        ImmutableSetMultimap.builder();
+    private String targetFile = DELETED_FILE;
+    private String previousLine = "";
+    private int remainingSourceLines;
+    private int remainingTargetLines;
+
+    ImmutableSetMultimap<String, Range<Integer>> parse(String diff) {
+      for (String line : LINE_SPLITTER.split(diff)) {
+        if (remainingSourceLines > 0 || remainingTargetLines > 0) {
+          consumeHunkLine(line);
+        } else {
+          consumeHeaderLine(line);
+        }
+        previousLine = line;
+      }
+
+      return changedLines.build();
+    }
+
+    private void consumeHunkLine(String line) {
+      if (line.startsWith("+")) {
+        remainingTargetLines--;
+      } else if (line.startsWith("-")) {
+        remainingSourceLines--;
+      } else if (!line.startsWith("\\")) {
+        /* Context line; lines starting with a backslash are "No newline at end of file" markers. */
+        remainingSourceLines--;
+        remainingTargetLines--;
+      }
+    }
+
+    private void consumeHeaderLine(String line) {
+      Matcher targetFileMatcher = DIFF_TARGET_FILE.matcher(line);
+      if (previousLine.startsWith("--- ") && targetFileMatcher.find()) {
+        targetFile = targetFileMatcher.group(1);
+        return;
+      }
+
+      Matcher hunkHeaderMatcher = DIFF_HUNK_HEADER.matcher(line);
+      if (hunkHeaderMatcher.find()) {
+        remainingSourceLines = getLineCount(hunkHeaderMatcher.group(1));
+        remainingTargetLines = getLineCount(hunkHeaderMatcher.group(3));
+        if (!targetFile.equals(DELETED_FILE)) {
+          int start = Integer.parseInt(hunkHeaderMatcher.group(2));
+          /* A hunk that only removes lines is associated with the line preceding the removal. */
+          changedLines.put(
+              targetFile, Range.closed(start, start + Math.max(remainingTargetLines, 1) - 1));
+        }
+      }
+    }
+
+    private static int getLineCount(@Nullable String count) {
+      return count == null ? 1 : Integer.parseInt(count);
+    }
+  }
+}
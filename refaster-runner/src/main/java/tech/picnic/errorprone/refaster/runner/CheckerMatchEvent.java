@@ -0,0 +1,54 @@
+package tech.picnic.errorprone.refaster.runner;
+
+import com.sun.source.tree.CompilationUnitTree;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.jspecify.nullness.Nullable;
+
+/**
+ * A Java Flight Recorder event that describes the invocation of a bug checker on a compilation
+ * unit.
+ *
+ * <p>Event details are computed only if the event is actually recorded, so the overhead of this
+ * event is negligible in the absence of an active recording.
+ */
+@Name("tech.picnic.errorprone.CheckerMatch")
+@Label("Checker Match")
+@Category({"Error Prone Support", "Bug Checkers"})
+@Description("The invocation of a bug checker on a compilation unit")
+@StackTrace(false)
+final class CheckerMatchEvent extends Event {
+  @Label("Checker Name")
+  @SuppressWarnings("UnusedVariable" /* Read by the Java Flight Recorder. */)
+  private @Nullable String checkerName;
+
+  @Label("Compilation Unit")
+  @SuppressWarnings("UnusedVariable" /* Read by the Java Flight Recorder. */)
+  private @Nullable String compilationUnit;
+
+  @Label("Match Count")
+  @SuppressWarnings("UnusedVariable" /* Read by the Java Flight Recorder. */)
+  private int matchCount;
+
+  /**
+   * Ends the timing of this event and commits it, if it is enabled and exceeds the configured
+   * threshold.
+   *
+   * @param checker The name of the bug checker that was invoked.
+   * @param tree The compilation unit on which the bug checker was invoked.
+   * @param matches The number of matches reported by the bug checker.
+   */
+  void complete(String checker, CompilationUnitTree tree, int matches) {
+    end();
+    if (shouldCommit()) {
+      checkerName = checker;
+      compilationUnit = tree.getSourceFile().getName();
+      matchCount = matches;
+      commit();
+    }
+  }
+}
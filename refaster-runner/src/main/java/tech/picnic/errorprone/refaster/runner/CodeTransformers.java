@@ -3,6 +3,8 @@ package tech.picnic.errorprone.refaster.runner;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.reflect.ClassPath;
 import com.google.common.reflect.ClassPath.ResourceInfo;
 import com.google.errorprone.CodeTransformer;
@@ -13,6 +15,7 @@ import java.io.UncheckedIOException;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.function.Supplier;
+import tech.picnic.errorprone.refaster.RefasterRuleSerialization;
 
 /**
  * Scans the classpath for {@value #REFASTER_RULE_SUFFIX} files and loads them as {@link
@@ -40,17 +43,21 @@ public final class CodeTransformers {
    * Scans the classpath for compiled Refaster rules and returns the associated deserialized {@link
    * CodeTransformer}s, indexed by their name.
    *
+   * <p>Structurally equal template nodes are shared across the deserialized {@link
+   * CodeTransformer}s; see {@link RefasterRuleSerialization}.
+   *
    * @return A mapping from Refaster rule names to associated {@link CodeTransformer}s.
    */
   private static ImmutableListMultimap<String, CodeTransformer> loadAllCodeTransformers() {
     ImmutableListMultimap.Builder<String, CodeTransformer> transformers =
         ImmutableListMultimap.builder();
+    Interner<Object> interner = Interners.newStrongInterner();
 
     for (ResourceInfo resource : getClassPathResources()) {
       getRefasterRuleName(resource)
           .ifPresent(
               ruleName ->
-                  loadCodeTransformer(resource)
+                  loadCodeTransformer(resource, interner)
                       .ifPresent(transformer -> transformers.put(ruleName, transformer)));
     }
 
@@ -77,9 +84,10 @@ public final class CodeTransformers {
     return Optional.of(resourceName.substring(beginIndex, endIndex));
   }
 
-  private static Optional<CodeTransformer> loadCodeTransformer(ResourceInfo resource) {
+  private static Optional<CodeTransformer> loadCodeTransformer(
+      ResourceInfo resource, Interner<Object> interner) {
     try (InputStream in = resource.url().openStream();
-        ObjectInputStream ois = new ObjectInputStream(in)) {
+        ObjectInputStream ois = RefasterRuleSerialization.newObjectInputStream(in, interner)) {
       @SuppressWarnings("BanSerializableRead" /* Part of the Refaster API. */)
       CodeTransformer codeTransformer = (CodeTransformer) ois.readObject();
       return Optional.of(codeTransformer);
@@ -0,0 +1,135 @@
+package tech.picnic.errorprone.refaster.runner;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multiset;
+import com.google.errorprone.matchers.Description;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.tools.javac.api.BasicJavacTask;
+import com.sun.tools.javac.util.Context;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The number of matches per Refaster rule, accumulated over the course of a single compilation.
+ *
+ * <p>The counts are written to a file once compilation completes. Each line of this file has the
+ * form {@code <count><TAB><rule>}, with the most frequently matched rules listed first. If the file
+ * already exists, then the counts it lists are added to those of the current compilation; as such
+ * multiple (possibly concurrent) compilations may share a match counts file.
+ */
+final class MatchCounts {
+  private static final Context.Key<MatchCounts> MATCH_COUNTS_KEY = new Context.Key<>();
+  private static final Splitter LINE_SPLITTER = Splitter.onPattern("\\r?\\n").omitEmptyStrings();
+  private static final Pattern MATCH_COUNT = Pattern.compile("(\\d+)\\t(.+)");
+
+  private final Path file;
+  private final Multiset<String> counts = HashMultiset.create();
+
+  private MatchCounts(Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Returns the match counts associated with the given compilation, creating them if necessary.
+   *
+   * @param context The context of the current compilation.
+   * @param file The file to which the match counts should be written once compilation completes.
+   * @return The match counts of the current compilation.
+   */
+  static MatchCounts instance(Context context, Path file) {
+    MatchCounts instance = context.get(MATCH_COUNTS_KEY);
+    if (instance != null) {
+      return instance;
+    }
+
+    MatchCounts newInstance = new MatchCounts(file);
+    context.put(MATCH_COUNTS_KEY, newInstance);
+    BasicJavacTask.instance(context)
+        .addTaskListener(
+            new TaskListener() {
+              @Override
+              public void finished(TaskEvent event) {
+                if (event.getKind() == TaskEvent.Kind.COMPILATION) {
+                  newInstance.write();
+                }
+              }
+            });
+    return newInstance;
+  }
+
+  /**
+   * Adds the given matches to the per-rule match counts.
+   *
+   * @param matches The matches to be counted, each identified by the name of the Refaster rule that
+   *     produced it.
+   */
+  void add(Iterable<Description> matches) {
+    for (Description match : matches) {
+      counts.add(match.checkName);
+    }
+  }
+
+  /**
+   * Merges the accumulated match counts into the associated file.
+   *
+   * <p>The file is locked while it is being updated, such that concurrent compilations sharing the
+   * same file do not lose each other's counts.
+   */
+  private void write() {
+    try (FileChannel channel =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      /* The lock is released once the channel is closed. */
+      channel.lock();
+      Multiset<String> mergedCounts = HashMultiset.create(counts);
+      for (String line : LINE_SPLITTER.split(read(channel))) {
+        Matcher matcher = MATCH_COUNT.matcher(line);
+        if (!matcher.matches()) {
+          throw new IllegalStateException(
+              String.format("Malformed line in match counts file '%s': %s", file, line));
+        }
+        mergedCounts.add(matcher.group(2), Integer.parseInt(matcher.group(1)));
+      }
+
+      ByteBuffer content = UTF_8.encode(String.join("\n", toLines(mergedCounts)));
+      channel.truncate(0).position(0);
+      while (content.hasRemaining()) {
+        channel.write(content);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(
+          String.format("Failed to write Refaster rule match counts to '%s'", file), e);
+    }
+  }
+
+  private static String read(FileChannel channel) throws IOException {
+    ByteBuffer content = ByteBuffer.allocate(Math.toIntExact(channel.size()));
+    while (content.hasRemaining() && channel.read(content) >= 0) {
+      /* Keep reading until the whole file has been consumed. */
+    }
+    return UTF_8.decode(content.flip()).toString();
+  }
+
+  private static ImmutableList<String> toLines(Multiset<String> counts) {
+    return counts.entrySet().stream()
+        .sorted(
+            Comparator.<Multiset.Entry<String>>comparingInt(Multiset.Entry::getCount)
+                .reversed()
+                .thenComparing(Multiset.Entry::getElement))
+        .map(e -> e.getCount() + "\t" + e.getElement())
+        .collect(toImmutableList());
+  }
+}
@@ -1,26 +1,39 @@
 package tech.picnic.errorprone.refaster.runner;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableListMultimap.toImmutableListMultimap;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static com.google.common.collect.ImmutableRangeSet.toImmutableRangeSet;
 import static com.google.errorprone.BugPattern.LinkType.NONE;
 import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
 import static com.google.errorprone.BugPattern.SeverityLevel.SUGGESTION;
 import static com.google.errorprone.BugPattern.SeverityLevel.WARNING;
 import static com.google.errorprone.BugPattern.StandardTags.SIMPLIFICATION;
+import static java.util.function.Function.identity;
 import static java.util.function.Predicate.not;
+import static java.util.stream.Collectors.joining;
+import static tech.picnic.errorprone.refaster.ErrorProneSupportFlags.CHEAP_CHECKS_ONLY_FLAG;
 
 import com.google.auto.service.AutoService;
-import com.google.common.collect.ImmutableCollection;
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableRangeSet;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multimaps;
 import com.google.common.collect.Range;
 import com.google.common.collect.RangeSet;
 import com.google.common.collect.TreeRangeSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.errorprone.BugPattern;
 import com.google.errorprone.BugPattern.SeverityLevel;
 import com.google.errorprone.CodeTransformer;
-import com.google.errorprone.CompositeCodeTransformer;
 import com.google.errorprone.ErrorProneFlags;
 import com.google.errorprone.ErrorProneOptions.Severity;
 import com.google.errorprone.SubContext;
@@ -30,16 +43,46 @@ import com.google.errorprone.bugpatterns.BugChecker;
 import com.google.errorprone.bugpatterns.BugChecker.CompilationUnitTreeMatcher;
 import com.google.errorprone.fixes.Replacement;
 import com.google.errorprone.matchers.Description;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.LineMap;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.tools.javac.code.Symbol.ClassSymbol;
 import com.sun.tools.javac.tree.EndPosTable;
+import com.sun.tools.javac.tree.JCTree;
 import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.JCDiagnostic;
+import com.sun.tools.javac.util.Log;
+import com.sun.tools.javac.util.Position;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
+import org.jspecify.nullness.Nullable;
+import tech.picnic.errorprone.refaster.AnnotatedCompositeCodeTransformer;
+import tech.picnic.errorprone.refaster.MatchReport;
+import tech.picnic.errorprone.refaster.annotation.CostTier;
+import tech.picnic.errorprone.refaster.annotation.CostTier.Tier;
+import tech.picnic.errorprone.refaster.annotation.Scope;
+import tech.picnic.errorprone.refaster.annotation.Scope.SourceSet;
 
 /**
  * A {@link BugChecker} that flags code that can be simplified using Refaster rules located on the
@@ -48,6 +91,58 @@ import java.util.stream.Stream;
  * <p>This checker locates all {@code *.refaster} classpath resources and assumes that they contain
  * a {@link CodeTransformer}. The set of loaded Refaster rules can be restricted by passing {@code
  * -XepOpt:Refaster:NamePattern=<someRegex>}.
+ *
+ * <p>By passing {@code -XepOpt:Refaster:SkipGeneratedCode=true}, source files located below a
+ * generated-sources directory and top-level types annotated with a well-known {@code @Generated}
+ * annotation are not matched against any Refaster rules.
+ *
+ * <p>Refaster rules annotated with {@link Scope} are only applied to source code of the indicated
+ * {@link SourceSet}. The source set of a compilation unit is derived from its path (i.e., whether
+ * it is located below a {@code src/main} or {@code src/test} directory), or from Error Prone's
+ * {@code -XepCompilingTestOnlyCode} option. It can also be specified explicitly by passing {@code
+ * -XepOpt:Refaster:SourceSet=<MAIN|TEST>}. Rules are not filtered for compilation units of unknown
+ * source set.
+ *
+ * <p>By passing {@code -XepOpt:Refaster:ChangedLines=<path>}, matching is restricted to the
+ * subtrees of each compilation unit that overlap with the changed lines listed in the referenced
+ * file. This file is either a unified diff (as produced by e.g. {@code git diff -U0}), or a file in
+ * which each line has the form {@code <path>:<firstLine>[-<lastLine>]}. Source files not listed in
+ * this file are not matched at all.
+ *
+ * <p>By passing {@code -XepOpt:Refaster:MatchCountsFile=<path>}, this checker operates in
+ * count-only mode: rather than reporting matches and suggesting fixes, it counts the number of
+ * matches of each Refaster rule, and adds these counts to the referenced file once compilation
+ * completes. Each line of this file has the form {@code <count><TAB><rule>}, with the most
+ * frequently matched rules listed first. Only the matches that would otherwise be reported are
+ * counted; i.e., of any overlapping matches, only one is counted.
+ *
+ * <p>By passing {@code -XepOpt:ErrorProneSupport:MatchReportFile=<path>}, matches are not reported
+ * as javac diagnostics, but are instead appended to the referenced file in a machine-readable
+ * format. See {@link MatchReport} for details.
+ *
+ * <p>The time spent on and the number of matches found in a single compilation unit can be bounded
+ * by passing {@code -XepOpt:Refaster:MatchingTimeBudgetMillis=<millis>} and {@code
+ * -XepOpt:Refaster:MatchBudget=<count>}, respectively. Once either budget is exhausted, the
+ * remaining Refaster rules are not applied to the compilation unit at hand; this is logged as a
+ * javac note, alongside the rules that took longest to apply. Note that the budgets are checked
+ * only between the application of subsequent Refaster rules: a single rule that takes long to apply
+ * or that produces many matches may cause a budget to be exceeded by an arbitrary amount.
+ *
+ * <p>By passing {@code -XepOpt:Refaster:ParallelMatchingThreads=<count>} (with a count larger than
+ * one), this checker operates in an experimental parallel mode: the declarations of each
+ * compilation unit, down to the members of (nested) classes, are matched against Refaster rules
+ * concurrently, using the given number of worker threads. The matches are merged in the order in
+ * which they would have been found sequentially, so the reported matches do not depend on this
+ * setting. This mode cannot be combined with a matching budget. See {@link
+ * #PARALLEL_MATCHING_THREADS_FLAG} for its limitations.
+ *
+ * <p>Applying all Refaster rules is considerably more expensive than running most other checks. As
+ * such, if {@code -XepOpt:ErrorProneSupport:CheapChecksOnly=true} is passed, only the Refaster
+ * rules explicitly placed in the {@link Tier#CHEAP cheap} {@link CostTier cost tier} are applied.
+ *
+ * <p>Each invocation of this checker is reported as a {@code CheckerMatch} Java Flight Recorder
+ * event, while the application of each individual Refaster rule is reported as a {@code
+ * RefasterRuleApplied} event.
  */
 @AutoService(BugChecker.class)
 @BugPattern(
@@ -58,11 +153,98 @@ import java.util.stream.Stream;
 public final class Refaster extends BugChecker implements CompilationUnitTreeMatcher {
   /** Flag to pass a pattern that restricts which Refaster rules are loaded. */
   public static final String INCLUDED_RULES_PATTERN_FLAG = "Refaster:NamePattern";
+  /** Flag to indicate that generated code should not be matched against Refaster rules. */
+  public static final String SKIP_GENERATED_CODE_FLAG = "Refaster:SkipGeneratedCode";
+  /**
+   * Flag to pass the {@link SourceSet} of the code being compiled, such that Refaster rules scoped
+   * to another source set are not applied.
+   */
+  public static final String SOURCE_SET_FLAG = "Refaster:SourceSet";
+  /**
+   * Flag to pass the path to a unified diff or line range file that restricts which source code
+   * lines are matched against Refaster rules.
+   */
+  public static final String CHANGED_LINES_FLAG = "Refaster:ChangedLines";
+  /**
+   * Flag to pass the path to a file to which the number of matches per Refaster rule is written,
+   * instead of reporting the matches themselves.
+   */
+  public static final String MATCH_COUNTS_FILE_FLAG = "Refaster:MatchCountsFile";
+  /**
+   * Flag to pass the number of milliseconds after which no further Refaster rules are applied to a
+   * compilation unit.
+   */
+  public static final String MATCHING_TIME_BUDGET_FLAG = "Refaster:MatchingTimeBudgetMillis";
+  /**
+   * Flag to pass the number of matches after which no further Refaster rules are applied to a
+   * compilation unit.
+   */
+  public static final String MATCH_BUDGET_FLAG = "Refaster:MatchBudget";
+  /**
+   * Flag to pass the number of worker threads used to match the declarations of a compilation unit
+   * against Refaster rules concurrently.
+   *
+   * <p>Type declarations are recursively split into their members, such that also the members of a
+   * single class are matched concurrently. Classes that Refaster does not match as the mere sum of
+   * their members (e.g. because they carry a {@code SuppressWarnings} annotation) are matched as a
+   * whole. The matches are merged in the order in which they would have been found sequentially.
+   *
+   * <p>This mode is experimental. Refaster rule unification is mostly read-only, and each worker
+   * uses its own {@link SubContext}, such that {@code Unifier}s and {@code Inliner}s are not
+   * shared. However, javac's compiler-wide state is not designed for concurrent access. Notably:
+   *
+   * <ul>
+   *   <li>{@code Types} caches (e.g. of type closures and method implementations) are populated
+   *       lazily, without synchronization;
+   *   <li>symbols referenced by a Refaster rule, but not yet by the code under compilation, are
+   *       completed (i.e., read from the classpath) lazily, without synchronization;
+   *   <li>{@code Names} interns new names without synchronization;
+   *   <li>the {@code TreeMaker} used to construct suggested replacements is shared by all workers,
+   *       and tracks the position of the trees it creates in a mutable field.
+   * </ul>
+   *
+   * <p>As such, this mode should be used only to evaluate its performance impact.
+   */
+  public static final String PARALLEL_MATCHING_THREADS_FLAG = "Refaster:ParallelMatchingThreads";
 
   private static final long serialVersionUID = 1L;
+  private static final int REPORTED_SLOWEST_RULES = 3;
+  private static final Duration MATCHING_THREAD_KEEP_ALIVE = Duration.ofSeconds(10);
+  private static final String BEFORE_TEMPLATE_ANNOTATION =
+      "com.google.errorprone.refaster.annotation.BeforeTemplate";
+  private static final ImmutableSet<String> GENERATED_ANNOTATIONS =
+      ImmutableSet.of(
+          "jakarta.annotation.Generated",
+          "javax.annotation.Generated",
+          "javax.annotation.processing.Generated",
+          "org.immutables.value.Generated");
+  /** Matches the paths of source files generated as part of a Maven or Gradle build. */
+  private static final Pattern GENERATED_SOURCE_ROOT =
+      Pattern.compile(
+          "[/\\\\](?:generated-sources|generated-test-sources|build[/\\\\]generated)[/\\\\]");
+  /** Matches the paths of source files located in a Maven or Gradle production source root. */
+  private static final Pattern MAIN_SOURCE_ROOT =
+      Pattern.compile("[/\\\\](?:src[/\\\\]main|generated-sources)[/\\\\]");
+  /** Matches the paths of source files located in a Maven or Gradle test source root. */
+  private static final Pattern TEST_SOURCE_ROOT =
+      Pattern.compile("[/\\\\](?:src[/\\\\]test|generated-test-sources)[/\\\\]");
+
+  @SuppressWarnings("serial" /* Concrete instances will be `Serializable`. */)
+  private final ImmutableListMultimap<String, CodeTransformer> codeTransformers;
+
+  @SuppressWarnings("serial" /* Concrete instances will be `Serializable`. */)
+  private final ImmutableMap<SourceSet, ImmutableListMultimap<String, CodeTransformer>>
+      scopedCodeTransformers;
 
-  @SuppressWarnings("serial" /* Concrete instance will be `Serializable`. */)
-  private final CodeTransformer codeTransformer;
+  private final @Nullable SourceSet sourceSet;
+  private final boolean skipGeneratedCode;
+  private final @Nullable ChangedLines changedLines;
+  private final @Nullable String matchCountsFile;
+  private final long matchingTimeBudgetMillis;
+  private final int matchBudget;
+  private final int parallelMatchingThreads;
+  private final transient Supplier<ExecutorService> matchingExecutor =
+      Suppliers.memoize(this::createMatchingExecutor);
 
   /** Instantiates a default {@link Refaster} instance. */
   public Refaster() {
@@ -75,43 +257,397 @@ public final class Refaster extends BugChecker implements CompilationUnitTreeMat
    * @param flags Any provided command line flags.
    */
   public Refaster(ErrorProneFlags flags) {
-    codeTransformer = createCompositeCodeTransformer(flags);
+    matchCountsFile = flags.get(MATCH_COUNTS_FILE_FLAG).orElse(null);
+    codeTransformers =
+        getCodeTransformers(
+            flags, matchCountsFile != null, flags.getBoolean(CHEAP_CHECKS_ONLY_FLAG).orElse(false));
+    scopedCodeTransformers =
+        Arrays.stream(SourceSet.values())
+            .collect(
+                toImmutableMap(identity(), s -> getScopedCodeTransformers(codeTransformers, s)));
+    sourceSet = flags.getEnum(SOURCE_SET_FLAG, SourceSet.class).orElse(null);
+    skipGeneratedCode = flags.getBoolean(SKIP_GENERATED_CODE_FLAG).orElse(false);
+    changedLines = flags.get(CHANGED_LINES_FLAG).map(Path::of).map(ChangedLines::load).orElse(null);
+    matchingTimeBudgetMillis =
+        flags.getInteger(MATCHING_TIME_BUDGET_FLAG).map(Long::valueOf).orElse(Long.MAX_VALUE);
+    matchBudget = flags.getInteger(MATCH_BUDGET_FLAG).orElse(Integer.MAX_VALUE);
+    checkArgument(matchingTimeBudgetMillis > 0, "Matching time budget must be positive");
+    parallelMatchingThreads = flags.getInteger(PARALLEL_MATCHING_THREADS_FLAG).orElse(1);
+    checkArgument(matchBudget > 0, "Match budget must be positive");
+    checkArgument(parallelMatchingThreads > 0, "Number of matching threads must be positive");
+    checkArgument(
+        parallelMatchingThreads == 1
+            || (matchingTimeBudgetMillis == Long.MAX_VALUE && matchBudget == Integer.MAX_VALUE),
+        "Parallel matching cannot be combined with a matching budget");
   }
 
   @CanIgnoreReturnValue
   @Override
   public Description matchCompilationUnit(CompilationUnitTree tree, VisitorState state) {
+    CheckerMatchEvent event = new CheckerMatchEvent();
+    event.begin();
+
     /* First, collect all matches. */
     List<Description> matches = new ArrayList<>();
+    Context context = new SubContext(state.context);
+    ImmutableListMultimap<String, CodeTransformer> rules =
+        getApplicableCodeTransformers(tree, state);
+    ImmutableList<TreePath> paths = getPathsToMatch(tree, state);
+    Map<String, Duration> matchingTimes = new HashMap<>();
+    Stopwatch stopwatch = Stopwatch.createStarted();
     try {
-      codeTransformer.apply(state.getPath(), new SubContext(state.context), matches::add);
+      if (parallelMatchingThreads > 1) {
+        matches.addAll(collectMatchesInParallel(rules, paths, state));
+      } else {
+        for (Map.Entry<String, CodeTransformer> rule : rules.entries()) {
+          if (isBudgetExhausted(stopwatch.elapsed(), matches.size())) {
+            reportBudgetExhaustion(
+                tree, rules, matchingTimes, stopwatch.elapsed(), matches.size(), state);
+            break;
+          }
+
+          Stopwatch ruleStopwatch = Stopwatch.createStarted();
+          for (TreePath path : paths) {
+            rule.getValue().apply(path, context, matches::add);
+          }
+          matchingTimes.merge(rule.getKey(), ruleStopwatch.elapsed(), Duration::plus);
+        }
+      }
     } catch (LinkageError e) {
       // XXX: This `try/catch` block handles the issue described and resolved in
       // https://github.com/google/error-prone/pull/2456. Drop this block once that change is
       // released.
       // XXX: Find a way to identify that we're running Picnic's Error Prone fork and disable this
       // fallback if so, as it might hide other bugs.
+      event.complete(canonicalName(), tree, 0);
       return Description.NO_MATCH;
     }
-    /* Then apply them. */
-    applyMatches(matches, ((JCCompilationUnit) tree).endPositions, state);
+    /* Then apply them, or merely count them. */
+    ImmutableList<Description> nonOverlappingMatches =
+        selectNonOverlappingMatches(matches, ((JCCompilationUnit) tree).endPositions);
+    if (matchCountsFile == null) {
+      applyMatches(nonOverlappingMatches, state);
+    } else {
+      MatchCounts.instance(state.context, Path.of(matchCountsFile)).add(nonOverlappingMatches);
+    }
+
+    event.complete(canonicalName(), tree, matches.size());
 
     /* Any matches were already reported by the code above, directly to the `VisitorState`. */
     return Description.NO_MATCH;
   }
 
   /**
-   * Reports a subset of the given matches, such that no two reported matches suggest a replacement
+   * Matches the given rules against the given paths using {@link #parallelMatchingThreads} worker
+   * threads, each of which operates on a disjoint subset of the paths.
+   *
+   * <p>The matches are merged in an order that does not depend on thread scheduling: first by rule,
+   * then by path, and finally in the order reported by the rule. As the paths matched by different
+   * workers are disjoint, this yields the same set of suggested fixes as sequential matching.
+   */
+  private List<Description> collectMatchesInParallel(
+      ImmutableListMultimap<String, CodeTransformer> rules,
+      ImmutableList<TreePath> paths,
+      VisitorState state) {
+    ImmutableList<TreePath> partitions =
+        paths.stream().flatMap(path -> partition(path, state)).collect(toImmutableList());
+    ImmutableList<Callable<List<List<Description>>>> tasks =
+        partitions.stream()
+            .map(
+                path -> (Callable<List<List<Description>>>) () -> match(rules, path, state.context))
+            .collect(toImmutableList());
+
+    try {
+      List<List<List<Description>>> results = new ArrayList<>();
+      for (Future<List<List<Description>>> future : matchingExecutor.get().invokeAll(tasks)) {
+        results.add(getUninterruptibly(future));
+      }
+
+      List<Description> matches = new ArrayList<>();
+      for (int i = 0; i < rules.size(); i++) {
+        for (List<List<Description>> result : results) {
+          matches.addAll(result.get(i));
+        }
+      }
+      return matches;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while matching Refaster rules", e);
+    }
+  }
+
+  /**
+   * Creates the {@link ExecutorService} used to match Refaster rules in parallel, which is shared
+   * by all compilation units matched by this checker.
+   *
+   * <p>The executor's daemon threads are terminated once idle for some time, such that no explicit
+   * shutdown is required.
+   */
+  private ExecutorService createMatchingExecutor() {
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            parallelMatchingThreads,
+            parallelMatchingThreads,
+            MATCHING_THREAD_KEEP_ALIVE.toMillis(),
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("refaster-matcher-%d")
+                .build());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * Recursively splits the given path into paths that may be matched independently; a compilation
+   * unit is split into its package declaration, imports and type declarations, while a class is
+   * split into its members, if {@link #isPartitionable(ClassTree, VisitorState) permitted}.
+   *
+   * <p>The resultant paths are ordered as they would be visited by a sequential scan.
+   */
+  private static Stream<TreePath> partition(TreePath path, VisitorState state) {
+    Tree tree = path.getLeaf();
+    if (tree instanceof JCCompilationUnit) {
+      return ((JCCompilationUnit) tree)
+          .defs.stream().flatMap(def -> partition(new TreePath(path, def), state));
+    }
+
+    if (tree instanceof ClassTree && isPartitionable((ClassTree) tree, state)) {
+      return ((ClassTree) tree)
+          .getMembers().stream().flatMap(member -> partition(new TreePath(path, member), state));
+    }
+
+    return Stream.of(path);
+  }
+
+  /**
+   * Tells whether the members of the given class may be matched independently of one another.
+   *
+   * <p>This is not the case if matching the class as a whole differs from matching each of its
+   * members: Refaster does not match a rule against a class annotated with {@code SuppressWarnings}
+   * for it, nor against the rule's own template class, while it matches a class's initializer
+   * blocks as a single block.
+   */
+  private static boolean isPartitionable(ClassTree tree, VisitorState state) {
+    return !ASTHelpers.hasAnnotation(tree, SuppressWarnings.class.getName(), state)
+        && tree.getMembers().stream()
+            .noneMatch(
+                member ->
+                    member.getKind() == Tree.Kind.BLOCK
+                        || (member instanceof MethodTree
+                            && ASTHelpers.hasAnnotation(
+                                member, BEFORE_TEMPLATE_ANNOTATION, state)));
+  }
+
+  /**
+   * Matches each of the given rules against the given path, using a dedicated {@link Context}.
+   *
+   * @return For each rule, in order, the matches it produced.
+   */
+  private static List<List<Description>> match(
+      ImmutableListMultimap<String, CodeTransformer> rules, TreePath path, Context parent) {
+    Context context = new SubContext(parent);
+    List<List<Description>> matches = new ArrayList<>(rules.size());
+    for (CodeTransformer rule : rules.values()) {
+      List<Description> ruleMatches = new ArrayList<>();
+      rule.apply(path, context, ruleMatches::add);
+      matches.add(ruleMatches);
+    }
+    return matches;
+  }
+
+  private static <T> T getUninterruptibly(Future<T> future) {
+    try {
+      return Uninterruptibles.getUninterruptibly(future);
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException("Failed to match Refaster rules", e.getCause());
+    }
+  }
+
+  private boolean isBudgetExhausted(Duration elapsed, int matchCount) {
+    return elapsed.toMillis() >= matchingTimeBudgetMillis || matchCount >= matchBudget;
+  }
+
+  /**
+   * Logs a note stating that not all Refaster rules were applied to the given compilation unit.
+   *
+   * <p>This is not reported as a match, as that would subject the note to the severity with which
+   * this checker is configured, and would cause it to be emitted as though it were a suggested
+   * change.
+   */
+  private static void reportBudgetExhaustion(
+      CompilationUnitTree tree,
+      ImmutableListMultimap<String, CodeTransformer> rules,
+      Map<String, Duration> matchingTimes,
+      Duration elapsed,
+      int matchCount,
+      VisitorState state) {
+    String slowestRules =
+        matchingTimes.entrySet().stream()
+            .sorted(Map.Entry.<String, Duration>comparingByValue().reversed())
+            .limit(REPORTED_SLOWEST_RULES)
+            .map(e -> String.format("%s (%s ms)", e.getKey(), e.getValue().toMillis()))
+            .collect(joining(", "));
+    Log.instance(state.context)
+        .note(
+            (JCTree) tree,
+            new JCDiagnostic.Note(
+                "compiler",
+                "proc.messager",
+                String.format(
+                    "Skipped %s of %s Refaster rules for '%s', as the matching budget was "
+                        + "exhausted after %s ms and %s match(es); slowest rules: %s",
+                    rules.keySet().size() - matchingTimes.size(),
+                    rules.keySet().size(),
+                    tree.getSourceFile().getName(),
+                    elapsed.toMillis(),
+                    matchCount,
+                    slowestRules)));
+  }
+
+  /**
+   * Returns the Refaster rules applicable to the given compilation unit, taking into account the
+   * {@link SourceSet} to which it belongs, if known.
+   */
+  private ImmutableListMultimap<String, CodeTransformer> getApplicableCodeTransformers(
+      CompilationUnitTree tree, VisitorState state) {
+    return Optional.ofNullable(sourceSet)
+        .or(() -> getSourceSet(tree, state))
+        .map(scopedCodeTransformers::get)
+        .orElse(codeTransformers);
+  }
+
+  private static Optional<SourceSet> getSourceSet(CompilationUnitTree tree, VisitorState state) {
+    String sourceFile = tree.getSourceFile().getName();
+    if (state.errorProneOptions().isTestOnlyTarget()
+        || TEST_SOURCE_ROOT.matcher(sourceFile).find()) {
+      return Optional.of(SourceSet.TEST);
+    }
+
+    return MAIN_SOURCE_ROOT.matcher(sourceFile).find()
+        ? Optional.of(SourceSet.MAIN)
+        : Optional.empty();
+  }
+
+  /**
+   * Returns the paths to the subtrees of the given compilation unit that should be matched against
+   * Refaster rules.
+   *
+   * <p>By default this is just the compilation unit itself. If applicable, generated code is
+   * excluded, and the result is further restricted to the subtrees that overlap with the changed
+   * lines of the associated source file.
+   */
+  private ImmutableList<TreePath> getPathsToMatch(CompilationUnitTree tree, VisitorState state) {
+    ImmutableList<TreePath> paths = getNonGeneratedPaths(tree, state);
+    if (changedLines == null) {
+      return paths;
+    }
+
+    ImmutableRangeSet<Integer> lines = changedLines.get(tree.getSourceFile().getName());
+    return paths.stream()
+        .flatMap(
+            path ->
+                path.getLeaf() instanceof CompilationUnitTree
+                    ? tree.getTypeDecls().stream().map(t -> new TreePath(path, t))
+                    : Stream.of(path))
+        .flatMap(path -> getChangedSubtrees(path, lines, tree.getLineMap(), state))
+        .collect(toImmutableList());
+  }
+
+  /**
+   * Returns the paths to the subtrees of the given compilation unit that do not contain generated
+   * code.
+   *
+   * <p>Unless generated code is to be skipped, this is just the compilation unit itself. Otherwise,
+   * if the compilation unit is located below a generated-sources directory, nothing is matched,
+   * while if it contains one or more generated top-level types, then only the remaining types are
+   * matched.
+   */
+  private ImmutableList<TreePath> getNonGeneratedPaths(
+      CompilationUnitTree tree, VisitorState state) {
+    if (!skipGeneratedCode) {
+      return ImmutableList.of(state.getPath());
+    }
+
+    if (GENERATED_SOURCE_ROOT.matcher(tree.getSourceFile().getName()).find()) {
+      return ImmutableList.of();
+    }
+
+    if (tree.getTypeDecls().stream().noneMatch(t -> isGenerated(t, state))) {
+      return ImmutableList.of(state.getPath());
+    }
+
+    return tree.getTypeDecls().stream()
+        .filter(t -> !isGenerated(t, state))
+        .map(t -> new TreePath(state.getPath(), t))
+        .collect(toImmutableList());
+  }
+
+  /**
+   * Returns the paths to the (smallest) subtrees of the tree referenced by the given path that
+   * overlap with the given line ranges.
+   *
+   * <p>Classes that are only partially covered by the given line ranges are descended into, such
+   * that unchanged members are not matched against Refaster rules. Other trees are not descended
+   * into, as a Refaster rule may match an expression spanning multiple lines of which only some
+   * changed.
+   */
+  private static Stream<TreePath> getChangedSubtrees(
+      TreePath path, RangeSet<Integer> lines, LineMap lineMap, VisitorState state) {
+    Tree tree = path.getLeaf();
+    int startPosition = ASTHelpers.getStartPosition(tree);
+    int endPosition = state.getEndPosition(tree);
+    if (startPosition == Position.NOPOS || endPosition == Position.NOPOS) {
+      /* This tree does not correspond to any source code. */
+      return Stream.empty();
+    }
+
+    Range<Integer> treeLines =
+        Range.closed(
+            Math.toIntExact(lineMap.getLineNumber(startPosition)),
+            Math.toIntExact(lineMap.getLineNumber(endPosition)));
+    if (lines.subRangeSet(treeLines).isEmpty()) {
+      return Stream.empty();
+    }
+
+    if (lines.encloses(treeLines)) {
+      return Stream.of(path);
+    }
+
+    if (!(tree instanceof ClassTree)) {
+      return Stream.of(path);
+    }
+
+    return ((ClassTree) tree)
+        .getMembers().stream()
+            .flatMap(
+                member -> getChangedSubtrees(new TreePath(path, member), lines, lineMap, state));
+  }
+
+  private static boolean isGenerated(Tree tree, VisitorState state) {
+    if (!(tree instanceof ClassTree)) {
+      return false;
+    }
+
+    ClassSymbol symbol = ASTHelpers.getSymbol((ClassTree) tree);
+    return GENERATED_ANNOTATIONS.stream()
+        .anyMatch(annotation -> ASTHelpers.hasAnnotation(symbol, annotation, state));
+  }
+
+  /**
+   * Selects a subset of the given matches, such that no two selected matches suggest a replacement
    * of the same part of the source code.
    *
-   * <p>In the common case all matches will be reported. In case of overlap the match that replaces
+   * <p>In the common case all matches will be selected. In case of overlap the match that replaces
    * the largest piece of source code is preferred. In case two matches wish to replace exactly the
    * same piece of code, preference is given to the match that suggests the shortest replacement.
    */
   // XXX: This selection logic solves an issue described in
   // https://github.com/google/error-prone/issues/559. Consider contributing it back upstream.
-  private void applyMatches(
-      Iterable<Description> allMatches, EndPosTable endPositions, VisitorState state) {
+  private static ImmutableList<Description> selectNonOverlappingMatches(
+      Iterable<Description> allMatches, EndPosTable endPositions) {
     ImmutableList<Description> byReplacementSize =
         ImmutableList.sortedCopyOf(
             Comparator.<Description>comparingInt(d -> getReplacedCodeSize(d, endPositions))
@@ -119,15 +655,35 @@ public final class Refaster extends BugChecker implements CompilationUnitTreeMat
                 .thenComparingInt(d -> getInsertedCodeSize(d, endPositions)),
             allMatches);
 
+    ImmutableList.Builder<Description> selectedMatches = ImmutableList.builder();
     RangeSet<Integer> replacedSections = TreeRangeSet.create();
     for (Description description : byReplacementSize) {
       ImmutableRangeSet<Integer> ranges = getReplacementRanges(description, endPositions);
       if (ranges.asRanges().stream().noneMatch(replacedSections::intersects)) {
-        /* This suggested fix does not overlap with any ("larger") replacement seen until now. Apply it. */
-        state.reportMatch(augmentDescription(description, getSeverityOverride(state)));
+        /* This suggested fix does not overlap with any ("larger") replacement seen until now. Select it. */
+        selectedMatches.add(description);
         replacedSections.addAll(ranges);
       }
     }
+    return selectedMatches.build();
+  }
+
+  /** Reports the given matches, either as javac diagnostics or to the {@link MatchReport}. */
+  private void applyMatches(ImmutableList<Description> matches, VisitorState state) {
+    Optional<MatchReport> matchReport = MatchReport.instance(state);
+    Optional<SeverityLevel> severityOverride = getSeverityOverride(state);
+    for (Description description : matches) {
+      if (matchReport.isPresent()) {
+        /* The report identifies each match by the name of the Refaster rule that produced it. */
+        matchReport
+            .orElseThrow()
+            .report(
+                severityOverride.map(description::applySeverityOverride).orElse(description),
+                state);
+      } else {
+        state.reportMatch(augmentDescription(description, severityOverride));
+      }
+    }
   }
 
   private Optional<SeverityLevel> getSeverityOverride(VisitorState state) {
@@ -195,23 +751,55 @@ public final class Refaster extends BugChecker implements CompilationUnitTreeMat
     return description.fixes.stream().flatMap(fix -> fix.getReplacements(endPositions).stream());
   }
 
-  private static CodeTransformer createCompositeCodeTransformer(ErrorProneFlags flags) {
-    ImmutableListMultimap<String, CodeTransformer> allTransformers =
-        CodeTransformers.getAllCodeTransformers();
-    return CompositeCodeTransformer.compose(
-        flags
-            .get(INCLUDED_RULES_PATTERN_FLAG)
-            .map(Pattern::compile)
-            .<ImmutableCollection<CodeTransformer>>map(
-                nameFilter -> filterCodeTransformers(allTransformers, nameFilter))
-            .orElseGet(allTransformers::values));
+  /**
+   * Returns the {@link CodeTransformer}s to be applied, indexed by the name of the Refaster rule
+   * they represent, and ordered by said name.
+   */
+  private static ImmutableListMultimap<String, CodeTransformer> getCodeTransformers(
+      ErrorProneFlags flags, boolean countOnly, boolean cheapOnly) {
+    Optional<Pattern> nameFilter = flags.get(INCLUDED_RULES_PATTERN_FLAG).map(Pattern::compile);
+    return CodeTransformers.getAllCodeTransformers().entries().stream()
+        .filter(e -> nameFilter.map(p -> p.matcher(e.getKey()).matches()).orElse(true))
+        .filter(e -> !cheapOnly || getCostTier(e.getValue()) == Tier.CHEAP)
+        .sorted(Map.Entry.comparingByKey())
+        .collect(
+            toImmutableListMultimap(
+                Map.Entry::getKey,
+                e -> countOnly ? withoutDescriptionAugmentation(e.getValue()) : e.getValue()));
   }
 
-  private static ImmutableList<CodeTransformer> filterCodeTransformers(
-      ImmutableListMultimap<String, CodeTransformer> transformers, Pattern nameFilter) {
-    return transformers.entries().stream()
-        .filter(e -> nameFilter.matcher(e.getKey()).matches())
-        .map(Map.Entry::getValue)
-        .collect(toImmutableList());
+  /**
+   * Returns the {@link CostTier} of the given {@link CodeTransformer}; Refaster rules are expensive
+   * unless indicated otherwise.
+   */
+  private static Tier getCostTier(CodeTransformer transformer) {
+    return Optional.ofNullable(transformer.annotations().getInstance(CostTier.class))
+        .map(CostTier::value)
+        .orElse(Tier.EXPENSIVE);
+  }
+
+  /**
+   * Returns the subset of the given {@link CodeTransformer}s that is applicable to the given {@link
+   * SourceSet}, i.e. those that are not {@link Scope scoped} to another source set.
+   */
+  private static ImmutableListMultimap<String, CodeTransformer> getScopedCodeTransformers(
+      ImmutableListMultimap<String, CodeTransformer> codeTransformers, SourceSet sourceSet) {
+    return ImmutableListMultimap.copyOf(
+        Multimaps.filterValues(
+            codeTransformers,
+            transformer ->
+                Optional.ofNullable(transformer.annotations().getInstance(Scope.class))
+                    .map(scope -> scope.value() == sourceSet)
+                    .orElse(true)));
+  }
+
+  /**
+   * Returns a variant of the given {@link CodeTransformer} that does not derive any custom {@link
+   * Description} details, as those are not required in count-only mode.
+   */
+  private static CodeTransformer withoutDescriptionAugmentation(CodeTransformer transformer) {
+    return transformer instanceof AnnotatedCompositeCodeTransformer
+        ? ((AnnotatedCompositeCodeTransformer) transformer).withoutDescriptionAugmentation()
+        : transformer;
   }
 }
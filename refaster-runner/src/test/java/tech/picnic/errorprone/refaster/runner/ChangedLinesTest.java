@@ -0,0 +1,85 @@
+package tech.picnic.errorprone.refaster.runner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.collect.ImmutableRangeSet;
+import com.google.common.collect.Range;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+final class ChangedLinesTest {
+  @Test
+  void parseLineRanges() {
+    ChangedLines changedLines =
+        ChangedLines.parse(
+            String.join(
+                "\n",
+                "src/main/java/pkg/A.java:3",
+                "src/main/java/pkg/A.java:10-12",
+                "src/main/java/pkg/A.java:11-14",
+                "pkg/B.java:5-6",
+                "src/main/java/pkg/B.java:7"));
+
+    assertThat(changedLines.get("/home/user/project/src/main/java/pkg/A.java").asRanges())
+        .containsExactly(Range.closed(3, 3), Range.closed(10, 14));
+    assertThat(changedLines.get("src\\main\\java\\pkg\\B.java"))
+        .isEqualTo(ImmutableRangeSet.of(Range.closed(7, 7)));
+    assertThat(changedLines.get("other/pkg/B.java"))
+        .isEqualTo(ImmutableRangeSet.of(Range.closed(5, 6)));
+    assertThat(changedLines.get("pkg/AB.java")).isEqualTo(ImmutableRangeSet.of());
+  }
+
+  @Test
+  void parseUnifiedDiff() {
+    ChangedLines changedLines =
+        ChangedLines.parse(
+            String.join(
+                "\n",
+                "diff --git a/pkg/A.java b/pkg/A.java",
+                "index 1234567..89abcde 100644",
+                "--- a/pkg/A.java",
+                "+++ b/pkg/A.java",
+                "@@ -2 +2 @@ class A {",
+                "-  int a;",
+                "+  int b;",
+                "@@ -10,0 +11,3 @@ class A {",
+                "+  int c;",
+                "+  int d;",
+                "+  int e;",
+                "@@ -20,2 +22,0 @@ class A {",
+                "-  int f;",
+                "-  int g;",
+                "@@ -30,2 +30,3 @@ class A {",
+                "   String s =",
+                "+++ b/pkg/C.java",
+                "--- a/pkg/D.java",
+                "+++ b/pkg/D.java",
+                "diff --git a/pkg/B.java b/pkg/B.java",
+                "deleted file mode 100644",
+                "--- a/pkg/B.java",
+                "+++ /dev/null",
+                "@@ -1,3 +0,0 @@",
+                "-class B {",
+                "-  int h;",
+                "-}"));
+
+    assertThat(changedLines.get("project/pkg/A.java").asRanges())
+        .containsExactly(
+            Range.closed(2, 2), Range.closed(11, 13), Range.closed(22, 22), Range.closed(30, 32));
+    assertThat(changedLines.get("project/pkg/B.java")).isEqualTo(ImmutableRangeSet.of());
+    assertThat(changedLines.get("project/pkg/C.java")).isEqualTo(ImmutableRangeSet.of());
+    assertThat(changedLines.get("project/pkg/D.java")).isEqualTo(ImmutableRangeSet.of());
+  }
+
+  @Test
+  void loadMissingFile(@TempDir Path tempDir) {
+    Path file = tempDir.resolve("missing.diff");
+
+    assertThatThrownBy(() -> ChangedLines.load(file))
+        .isInstanceOf(UncheckedIOException.class)
+        .hasMessage("Failed to read changed line ranges from '%s'", file);
+  }
+}
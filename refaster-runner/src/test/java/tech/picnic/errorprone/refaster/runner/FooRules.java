@@ -6,15 +6,20 @@ import static com.google.errorprone.BugPattern.SeverityLevel.WARNING;
 
 import com.google.errorprone.refaster.annotation.AfterTemplate;
 import com.google.errorprone.refaster.annotation.BeforeTemplate;
+import tech.picnic.errorprone.refaster.annotation.CostTier;
+import tech.picnic.errorprone.refaster.annotation.CostTier.Tier;
 import tech.picnic.errorprone.refaster.annotation.Description;
 import tech.picnic.errorprone.refaster.annotation.OnlineDocumentation;
+import tech.picnic.errorprone.refaster.annotation.Scope;
+import tech.picnic.errorprone.refaster.annotation.Scope.SourceSet;
 import tech.picnic.errorprone.refaster.annotation.Severity;
 
 /** An example rule collection used to test {@link CodeTransformers} and {@link Refaster}. */
 final class FooRules {
   private FooRules() {}
 
-  /** A simple rule for testing purposes, lacking any custom annotations. */
+  /** A simple rule for testing purposes, that is cheap to apply. */
+  @CostTier(Tier.CHEAP)
   static final class StringOfSizeZeroRule {
     @BeforeTemplate
     boolean before(String string) {
@@ -62,6 +67,7 @@ final class FooRules {
   /** A nested class with annotations that are inherited by the Refaster rules contained in it. */
   @Description("A custom subgroup description")
   @OnlineDocumentation("https://example.com/rule/${topLevelClassName}#${nestedClassName}")
+  @Scope(SourceSet.TEST)
   @Severity(ERROR)
   static final class ExtraGrouping {
     private ExtraGrouping() {}
@@ -82,6 +88,7 @@ final class FooRules {
     /** A simple rule for testing purposes, overriding custom annotations. */
     @Description("A custom description about matching three-char strings")
     @OnlineDocumentation("https://example.com/custom")
+    @Scope(SourceSet.MAIN)
     @Severity(SUGGESTION)
     static final class StringOfSizeThreeRule {
       @BeforeTemplate
@@ -8,6 +8,7 @@ import static com.google.errorprone.BugPattern.SeverityLevel.WARNING;
 import static java.util.Comparator.comparingInt;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 
 import com.google.common.collect.ImmutableList;
@@ -16,9 +17,17 @@ import com.google.errorprone.BugCheckerRefactoringTestHelper;
 import com.google.errorprone.BugCheckerRefactoringTestHelper.TestMode;
 import com.google.errorprone.BugPattern.SeverityLevel;
 import com.google.errorprone.CompilationTestHelper;
+import com.sun.tools.javac.main.Main.Result;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -218,6 +227,411 @@ final class RefasterTest {
     }
   }
 
+  @Test
+  void identificationSkippingGeneratedCode() {
+    CompilationTestHelper.newInstance(Refaster.class, getClass())
+        .matchAllDiagnostics()
+        .expectErrorMessage("StringOfSizeOneRule", containsPattern("StringOfSizeOneRule"))
+        .setArgs("-XepOpt:Refaster:SkipGeneratedCode=true")
+        .addSourceLines(
+            "A.java",
+            "import javax.annotation.processing.Generated;",
+            "",
+            "class A {",
+            "  // BUG: Diagnostic matches: StringOfSizeOneRule",
+            "  boolean b1 = \"foo\".toCharArray().length == 1;",
+            "}",
+            "",
+            "@Generated(\"SomeProcessor\")",
+            "class B {",
+            "  boolean b2 = \"bar\".toCharArray().length == 1;",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void replacementSkippingGeneratedSources() {
+    refactoringTestHelper
+        .setArgs("-XepOpt:Refaster:SkipGeneratedCode=true")
+        .addInputLines(
+            "target/generated-sources/annotations/C.java",
+            "class C {",
+            "  boolean b3 = \"baz\".toCharArray().length == 1;",
+            "}")
+        .expectUnchanged()
+        .doTest(TestMode.TEXT_MATCH);
+  }
+
+  @Test
+  void replacementCheapChecksOnly() {
+    refactoringTestHelper
+        .setArgs("-XepOpt:ErrorProneSupport:CheapChecksOnly=true")
+        .addInputLines(
+            "A.java",
+            "class A {",
+            "  boolean b0 = \"baz\".toCharArray().length == 0;",
+            "  boolean b1 = \"foo\".toCharArray().length == 1;",
+            "  boolean b2 = \"bar\".toCharArray().length == 2;",
+            "}")
+        .addOutputLines(
+            "A.java",
+            "class A {",
+            "  boolean b0 = \"baz\".isEmpty();",
+            "  boolean b1 = \"foo\".toCharArray().length == 1;",
+            "  boolean b2 = \"bar\".toCharArray().length == 2;",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+
+  @Test
+  void replacementScopedBySourcePath() {
+    refactoringTestHelper
+        .addInputLines(
+            "src/main/java/A.java",
+            "class A {",
+            "  boolean b1 = \"foo\".toCharArray().length == 2;",
+            "  boolean b2 = \"bar\".toCharArray().length == 3;",
+            "}")
+        .addOutputLines(
+            "src/main/java/A.java",
+            "class A {",
+            "  boolean b1 = \"foo\".toCharArray().length == 2;",
+            "  boolean b2 = \"bar\".length() == 3;",
+            "}")
+        .addInputLines(
+            "src/test/java/ATest.java",
+            "class ATest {",
+            "  boolean b1 = \"foo\".toCharArray().length == 2;",
+            "  boolean b2 = \"bar\".toCharArray().length == 3;",
+            "}")
+        .addOutputLines(
+            "src/test/java/ATest.java",
+            "class ATest {",
+            "  boolean b1 = \"foo\".length() == 2;",
+            "  boolean b2 = \"bar\".toCharArray().length == 3;",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+
+  @Test
+  void replacementScopedByFlag() {
+    refactoringTestHelper
+        .setArgs("-XepOpt:Refaster:SourceSet=TEST")
+        .addInputLines(
+            "src/main/java/A.java",
+            "class A {",
+            "  boolean b1 = \"foo\".toCharArray().length == 2;",
+            "  boolean b2 = \"bar\".toCharArray().length == 3;",
+            "}")
+        .addOutputLines(
+            "src/main/java/A.java",
+            "class A {",
+            "  boolean b1 = \"foo\".length() == 2;",
+            "  boolean b2 = \"bar\".toCharArray().length == 3;",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+
+  @Test
+  void identificationWithParallelMatching() {
+    compilationHelper
+        .setArgs("-XepOpt:Refaster:ParallelMatchingThreads=2")
+        .addSourceLines(
+            "A.java",
+            "import java.util.function.Supplier;",
+            "",
+            "class A {",
+            "  void m() {",
+            "    // BUG: Diagnostic matches: StringOfSizeZeroRule",
+            "    boolean b1 = \"foo\".toCharArray().length == 0;",
+            "    // BUG: Diagnostic matches: StringOfSizeOneRule",
+            "    boolean b2 = \"bar\".toCharArray().length == 1;",
+            "  }",
+            "}",
+            "",
+            "class B {",
+            "  // BUG: Diagnostic matches: StringOfSizeTwoRule",
+            "  boolean b3 = \"baz\".toCharArray().length == 2;",
+            "",
+            "  class C {",
+            "    // BUG: Diagnostic matches: StringOfSizeThreeRule",
+            "    Supplier<Boolean> b4 = () -> \"qux\".toCharArray().length == 3;",
+            "  }",
+            "}",
+            "",
+            "@SuppressWarnings(\"StringOfSizeOneRule\")",
+            "class D {",
+            "  boolean b5 = \"quux\".toCharArray().length == 1;",
+            "",
+            "  {",
+            "    // BUG: Diagnostic matches: StringOfSizeTwoRule",
+            "    boolean b6 = \"corge\".toCharArray().length == 2;",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void replacementWithParallelMatching() {
+    refactoringTestHelper
+        .setArgs("-XepOpt:Refaster:ParallelMatchingThreads=3")
+        .addInputLines(
+            "pkg/A.java",
+            "package pkg;",
+            "",
+            "import java.util.function.Supplier;",
+            "",
+            "class A {",
+            "  boolean b1 = \"foo\".toCharArray().length == 0;",
+            "  boolean b2 = \"bar\".toCharArray().length == 1;",
+            "",
+            "  class B {",
+            "    Supplier<Boolean> b3 = () -> \"baz\".toCharArray().length == 2;",
+            "  }",
+            "}")
+        .addOutputLines(
+            "pkg/A.java",
+            "package pkg;",
+            "",
+            "import java.util.function.Supplier;",
+            "",
+            "class A {",
+            "  boolean b1 = \"foo\".isEmpty();",
+            "  boolean b2 = \"bar\".length() == 1;",
+            "",
+            "  class B {",
+            "    Supplier<Boolean> b3 = () -> \"baz\".length() == 2;",
+            "  }",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+
+  @Test
+  void replacementRestrictedToChangedLines(@TempDir Path tempDir) throws IOException {
+    Path changedLines = Files.writeString(tempDir.resolve("changed-lines.txt"), "A.java:3-4\n");
+
+    refactoringTestHelper
+        .setArgs("-XepOpt:Refaster:ChangedLines=" + changedLines)
+        .addInputLines(
+            "A.java",
+            "class A {",
+            "  boolean b1 = \"foo\".toCharArray().length == 1;",
+            "  boolean b2 = \"bar\".toCharArray().length == 1;",
+            "  boolean b3 =",
+            "      \"baz\".toCharArray().length == 2;",
+            "  boolean b4 = \"qux\".toCharArray().length == 3;",
+            "}")
+        .addOutputLines(
+            "A.java",
+            "class A {",
+            "  boolean b1 = \"foo\".toCharArray().length == 1;",
+            "  boolean b2 = \"bar\".length() == 1;",
+            "  boolean b3 =",
+            "      \"baz\".length() == 2;",
+            "  boolean b4 = \"qux\".toCharArray().length == 3;",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+
+  @Test
+  void matchCounts(@TempDir Path tempDir) {
+    Path matchCountsFile = tempDir.resolve("match-counts.tsv");
+
+    CompilationTestHelper.newInstance(Refaster.class, getClass())
+        .setArgs("-XepOpt:Refaster:MatchCountsFile=" + matchCountsFile)
+        .addSourceLines(
+            "A.java",
+            "class A {",
+            "  void m() {",
+            "    boolean b1 = \"foo\".toCharArray().length == 0;",
+            "    boolean b2 = \"bar\".toCharArray().length == 1;",
+            "    boolean b3 = \"baz\".toCharArray().length == 1;",
+            "  }",
+            "}")
+        .addSourceLines(
+            "B.java",
+            "class B {",
+            "  boolean b4 = \"qux\".toCharArray().length == 1;",
+            "  boolean b5 = \"quux\".toCharArray().length == 2;",
+            "}")
+        .doTest();
+
+    assertThat(matchCountsFile)
+        .hasContent(
+            String.join(
+                "\n",
+                "3\ttech.picnic.errorprone.refaster.runner.FooRules.StringOfSizeOneRule",
+                "1\ttech.picnic.errorprone.refaster.runner.FooRules.ExtraGrouping.StringOfSizeTwoRule",
+                "1\ttech.picnic.errorprone.refaster.runner.FooRules.StringOfSizeZeroRule"));
+  }
+
+  @Test
+  void matchCountsMergedWithExistingFile(@TempDir Path tempDir) throws IOException {
+    Path matchCountsFile = tempDir.resolve("match-counts.tsv");
+    Files.writeString(
+        matchCountsFile,
+        String.join(
+            "\n",
+            "3\tpkg.OtherRules.OtherRule",
+            "1\ttech.picnic.errorprone.refaster.runner.FooRules.StringOfSizeOneRule"));
+
+    CompilationTestHelper.newInstance(Refaster.class, getClass())
+        .setArgs("-XepOpt:Refaster:MatchCountsFile=" + matchCountsFile)
+        .addSourceLines(
+            "A.java",
+            "class A {",
+            "  boolean b1 = \"foo\".toCharArray().length == 1;",
+            "  boolean b2 = \"bar\".toCharArray().length == 1;",
+            "  boolean b3 = \"baz\".toCharArray().length == 2;",
+            "}")
+        .doTest();
+
+    assertThat(matchCountsFile)
+        .hasContent(
+            String.join(
+                "\n",
+                "3\tpkg.OtherRules.OtherRule",
+                "3\ttech.picnic.errorprone.refaster.runner.FooRules.StringOfSizeOneRule",
+                "1\ttech.picnic.errorprone.refaster.runner.FooRules.ExtraGrouping.StringOfSizeTwoRule"));
+  }
+
+  @Test
+  void matchReport(@TempDir Path tempDir) throws IOException {
+    Path matchReportFile = tempDir.resolve("match-report.ndjson");
+
+    CompilationTestHelper.newInstance(Refaster.class, getClass())
+        .setArgs("-XepOpt:ErrorProneSupport:MatchReportFile=" + matchReportFile)
+        .addSourceLines(
+            "A.java",
+            "class A {",
+            "  boolean b1 = \"foo\".toCharArray().length == 1;",
+            "  boolean b2 = \"bar\".toCharArray().length == 2;",
+            "}")
+        .expectNoDiagnostics()
+        .doTest();
+
+    assertThat(Files.readAllLines(matchReportFile))
+        .satisfiesExactly(
+            line ->
+                assertThat(line)
+                    .startsWith(
+                        "{\"ruleId\":\"FooRules.ExtraGrouping.StringOfSizeTwoRule\",\"level\":\"error\"")
+                    .contains(
+                        "\"region\":{\"startLine\":3,\"startColumn\":16,\"charOffset\":73,\"charLength\":31}")
+                    .contains("\"insertedContent\":{\"text\":\"\\\"bar\\\".length() == 2\"}"),
+            line ->
+                assertThat(line)
+                    .startsWith(
+                        "{\"ruleId\":\"FooRules.StringOfSizeOneRule\",\"level\":\"warning\"")
+                    .contains(
+                        "\"region\":{\"startLine\":2,\"startColumn\":16,\"charOffset\":25,\"charLength\":31}")
+                    .contains("\"insertedContent\":{\"text\":\"\\\"foo\\\".length() == 1\"}"));
+  }
+
+  @Test
+  void identificationWithMatchBudget() {
+    CompilationTestHelper.newInstance(Refaster.class, getClass())
+        .matchAllDiagnostics()
+        .expectErrorMessage("StringOfSizeTwoRule", containsPattern("StringOfSizeTwoRule"))
+        .expectErrorMessage(
+            "BudgetExhausted",
+            containsPattern(
+                "Skipped 1 of 2 Refaster rules for '.*A\\.java', as the matching budget was "
+                    + "exhausted after \\d+ ms and 2 match\\(es\\); slowest rules: "
+                    + "FooRules\\$ExtraGrouping\\$StringOfSizeTwoRule \\(\\d+ ms\\)"))
+        .setArgs(
+            "-XepOpt:Refaster:NamePattern=.*\\$(StringOfSizeOneRule|StringOfSizeTwoRule)$",
+            "-XepOpt:Refaster:MatchBudget=1")
+        .addSourceLines(
+            "A.java",
+            "// BUG: Diagnostic matches: BudgetExhausted",
+            "class A {",
+            "  void m() {",
+            "    boolean b1 = \"foo\".toCharArray().length == 1;",
+            "    // BUG: Diagnostic matches: StringOfSizeTwoRule",
+            "    boolean b2 = \"bar\".toCharArray().length == 2;",
+            "    // BUG: Diagnostic matches: StringOfSizeTwoRule",
+            "    boolean b3 = \"baz\".toCharArray().length == 2;",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void matchBudgetExhaustionIsNotReportedAsMatch(@TempDir Path tempDir) {
+    CompilationTestHelper.newInstance(Refaster.class, getClass())
+        .matchAllDiagnostics()
+        .expectErrorMessage("BudgetExhausted", containsPattern("Skipped 1 of 2 Refaster rules"))
+        .setArgs(
+            "-Xep:Refaster:ERROR",
+            "-XepOpt:Refaster:MatchCountsFile=" + tempDir.resolve("match-counts.tsv"),
+            "-XepOpt:Refaster:NamePattern=.*\\$(StringOfSizeOneRule|StringOfSizeTwoRule)$",
+            "-XepOpt:Refaster:MatchBudget=1")
+        .addSourceLines(
+            "A.java",
+            "// BUG: Diagnostic matches: BudgetExhausted",
+            "class A {",
+            "  boolean b1 = \"foo\".toCharArray().length == 1;",
+            "  boolean b2 = \"bar\".toCharArray().length == 2;",
+            "}")
+        .expectResult(Result.OK)
+        .doTest();
+  }
+
+  @Test
+  void flightRecorderEvents(@TempDir Path tempDir) throws IOException {
+    Path recordingFile = tempDir.resolve("recording.jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("tech.picnic.errorprone.CheckerMatch");
+      recording.enable("tech.picnic.errorprone.refaster.RefasterRuleApplied");
+      recording.start();
+      compilationHelper
+          .addSourceLines(
+              "FlightRecorderEvents.java",
+              "class FlightRecorderEvents {",
+              "  void m() {",
+              "    // BUG: Diagnostic matches: StringOfSizeZeroRule",
+              "    boolean b1 = \"foo\".toCharArray().length == 0;",
+              "    // BUG: Diagnostic matches: StringOfSizeOneRule",
+              "    boolean b2 = \"bar\".toCharArray().length == 1;",
+              "    // BUG: Diagnostic matches: StringOfSizeTwoRule",
+              "    boolean b3 = \"baz\".toCharArray().length == 2;",
+              "    // BUG: Diagnostic matches: StringOfSizeThreeRule",
+              "    boolean b4 = \"qux\".toCharArray().length == 3;",
+              "  }",
+              "}")
+          .doTest();
+      recording.dump(recordingFile);
+    }
+
+    ImmutableList<RecordedEvent> events =
+        RecordingFile.readAllEvents(recordingFile).stream()
+            .filter(e -> e.getString("compilationUnit").endsWith("/FlightRecorderEvents.java"))
+            .collect(toImmutableList());
+    assertThat(events)
+        .filteredOn(e -> e.getEventType().getName().equals("tech.picnic.errorprone.CheckerMatch"))
+        .singleElement()
+        .satisfies(
+            e -> {
+              assertThat(e.getString("checkerName")).isEqualTo("Refaster");
+              /* This count includes the overlapping `StringOfSizeZeroVerboseRule` match. */
+              assertThat(e.getInt("matchCount")).isEqualTo(5);
+            });
+    assertThat(events)
+        .filteredOn(
+            e ->
+                e.getEventType()
+                    .getName()
+                    .equals("tech.picnic.errorprone.refaster.RefasterRuleApplied"))
+        .extracting(e -> e.getString("ruleName"), e -> e.getInt("matchCount"))
+        .containsExactlyInAnyOrder(
+            tuple("FooRules.StringOfSizeZeroRule", 1),
+            tuple("FooRules.StringOfSizeZeroVerboseRule", 1),
+            tuple("FooRules.StringOfSizeOneRule", 1),
+            tuple("FooRules.ExtraGrouping.StringOfSizeTwoRule", 1),
+            tuple("FooRules.ExtraGrouping.StringOfSizeThreeRule", 1));
+  }
+
   @Test
   void replacement() {
     refactoringTestHelper
@@ -25,6 +25,7 @@ import java.io.Serializable;
 import java.lang.annotation.Annotation;
 import java.util.Iterator;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import tech.picnic.errorprone.refaster.annotation.OnlineDocumentation;
 import tech.picnic.errorprone.refaster.annotation.Severity;
@@ -36,6 +37,9 @@ import tech.picnic.errorprone.refaster.annotation.Severity;
  * <p>The content is augmented based on custom {@link tech.picnic.errorprone.refaster.annotation
  * annotations} available on the matching {@link CodeTransformer} or on this {@link
  * CompositeCodeTransformer} as a fallback, if any.
+ *
+ * <p>The application of the wrapped {@link CodeTransformer}s is reported as a {@code
+ * RefasterRuleApplied} Java Flight Recorder event.
  */
 @AutoValue
 public abstract class AnnotatedCompositeCodeTransformer implements CodeTransformer, Serializable {
@@ -46,6 +50,14 @@ public abstract class AnnotatedCompositeCodeTransformer implements CodeTransform
 
   abstract String packageName();
 
+  /**
+   * Returns the canonical name of the Refaster rule represented by this {@link CodeTransformer},
+   * relative to its package.
+   *
+   * <p>This is the name under which matches of this rule are reported.
+   */
+  abstract String ruleName();
+
   abstract ImmutableList<CodeTransformer> transformers();
 
   @Override
@@ -55,26 +67,58 @@ public abstract class AnnotatedCompositeCodeTransformer implements CodeTransform
    * Creates an instance of an {@link AnnotatedCompositeCodeTransformer}.
    *
    * @param packageName The package in which the wrapped {@link CodeTransformer}s reside.
+   * @param ruleName The canonical name of the Refaster rule represented by the wrapped {@link
+   *     CodeTransformer}s, relative to the given package.
    * @param transformers The {@link CodeTransformer}s to which to delegate.
    * @param annotations The annotations that are applicable to this {@link CodeTransformer}.
    * @return A non-{@code null} {@link AnnotatedCompositeCodeTransformer}.
    */
   public static AnnotatedCompositeCodeTransformer create(
       String packageName,
+      String ruleName,
       ImmutableList<CodeTransformer> transformers,
       ImmutableClassToInstanceMap<Annotation> annotations) {
-    return new AutoValue_AnnotatedCompositeCodeTransformer(packageName, transformers, annotations);
+    return new AutoValue_AnnotatedCompositeCodeTransformer(
+        packageName, ruleName, transformers, annotations);
+  }
+
+  /**
+   * Returns a view of this {@link CodeTransformer} that reports the {@link Description}s produced
+   * by the wrapped {@link CodeTransformer}s as-is.
+   *
+   * <p>Such descriptions carry the fully qualified name of the matching Refaster rule, but lack the
+   * details otherwise derived from any custom annotations. This makes the returned {@link
+   * CodeTransformer} suitable for use cases that only require the name and position of each match.
+   *
+   * @return A non-{@code null} {@link CodeTransformer}.
+   */
+  public final CodeTransformer withoutDescriptionAugmentation() {
+    return new UnaugmentedCodeTransformer(this);
   }
 
   @Override
   public final void apply(TreePath path, Context context, DescriptionListener listener) {
+    applyTransformers(
+        path,
+        context,
+        (description, transformer) ->
+            listener.onDescribed(augmentDescription(description, transformer, context)));
+  }
+
+  private void applyTransformers(
+      TreePath path, Context context, BiConsumer<Description, CodeTransformer> listener) {
+    RefasterRuleAppliedEvent event = new RefasterRuleAppliedEvent();
+    event.begin();
     for (CodeTransformer transformer : transformers()) {
       transformer.apply(
           path,
           context,
-          description ->
-              listener.onDescribed(augmentDescription(description, transformer, context)));
+          description -> {
+            event.recordMatch();
+            listener.accept(description, transformer);
+          });
     }
+    event.complete(ruleName(), path);
   }
 
   private Description augmentDescription(
@@ -151,4 +195,25 @@ public abstract class AnnotatedCompositeCodeTransformer implements CodeTransform
 
     return Comparators.max(Comparators.min(severity, minSeverity), maxSeverity);
   }
+
+  private static final class UnaugmentedCodeTransformer implements CodeTransformer, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final AnnotatedCompositeCodeTransformer delegate;
+
+    UnaugmentedCodeTransformer(AnnotatedCompositeCodeTransformer delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public ImmutableClassToInstanceMap<Annotation> annotations() {
+      return delegate.annotations();
+    }
+
+    @Override
+    public void apply(TreePath path, Context context, DescriptionListener listener) {
+      delegate.applyTransformers(
+          path, context, (description, transformer) -> listener.onDescribed(description));
+    }
+  }
 }
@@ -0,0 +1,24 @@
+package tech.picnic.errorprone.refaster;
+
+import tech.picnic.errorprone.refaster.annotation.CostTier;
+
+/**
+ * Command line flags that apply to all bug checkers provided by Error Prone Support, including the
+ * {@code Refaster} bug checker.
+ *
+ * <p>The flags defined here are compile-time constants, such that referencing them does not
+ * introduce a runtime dependency on this class.
+ */
+public final class ErrorProneSupportFlags {
+  /**
+   * Flag to indicate that only cheap checks should be run.
+   *
+   * <p>If {@code -XepOpt:ErrorProneSupport:CheapChecksOnly=true} is passed, bug checkers and
+   * Refaster rules in the {@link CostTier.Tier#EXPENSIVE expensive} {@link CostTier cost tier}
+   * report nothing. This allows for fast feedback during e.g. local incremental builds, while the
+   * full set of checks is run as part of e.g. CI builds.
+   */
+  public static final String CHEAP_CHECKS_ONLY_FLAG = "ErrorProneSupport:CheapChecksOnly";
+
+  private ErrorProneSupportFlags() {}
+}
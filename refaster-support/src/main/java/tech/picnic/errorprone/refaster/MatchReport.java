@@ -0,0 +1,333 @@
+package tech.picnic.errorprone.refaster;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.joining;
+
+import com.google.errorprone.BugPattern.SeverityLevel;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.errorprone.fixes.Fix;
+import com.google.errorprone.fixes.Replacement;
+import com.google.errorprone.matchers.Description;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.LineMap;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.tools.javac.api.BasicJavacTask;
+import com.sun.tools.javac.tree.EndPosTable;
+import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.DiagnosticSource;
+import com.sun.tools.javac.util.JCDiagnostic;
+import com.sun.tools.javac.util.Log;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * A machine-readable report of Error Prone matches, to be used instead of javac diagnostics when
+ * scanning large code bases.
+ *
+ * <p>The report is enabled by passing {@code -XepOpt:ErrorProneSupport:MatchReportFile=<path>}.
+ * Matches are then appended to the specified file as newline-delimited JSON. Each line is a
+ * self-contained <a href="https://docs.oasis-open.org/sarif/sarif/v2.1.0/sarif-v2.1.0.html">SARIF
+ * 2.1.0</a> {@code result} object, such that the report can be converted into a SARIF log by
+ * wrapping the lines in a JSON array.
+ *
+ * <p>The report captures the diagnostics emitted by all Error Prone bug checkers; these are then no
+ * longer reported by javac. Note that as a result, matches with severity {@link
+ * SeverityLevel#ERROR} no longer cause compilation to fail. The report is enabled at the start of
+ * compilation by the {@link MatchReportPlugin}; absent this plugin, it is enabled once first {@link
+ * #instance(VisitorState) obtained}, in which case diagnostics reported earlier are not captured.
+ *
+ * <p>Bug checkers that produce many matches (such as the {@code Refaster} bug checker) may {@link
+ * #report(Description, VisitorState) report} matches directly, bypassing Error Prone's and javac's
+ * diagnostic formatting altogether.
+ *
+ * <p>Matches are buffered and written only in terms of complete lines, and the file is only ever
+ * appended to; as such multiple compilations may share a report file.
+ */
+public final class MatchReport {
+  /** Flag to pass the path of the file to which matches should be appended. */
+  public static final String MATCH_REPORT_FILE_FLAG = "ErrorProneSupport:MatchReportFile";
+
+  private static final Context.Key<MatchReport> MATCH_REPORT_KEY = new Context.Key<>();
+  private static final String ERROR_PRONE_DIAGNOSTIC_CODE_SUFFIX = ".error.prone";
+  private static final Pattern ERROR_PRONE_DIAGNOSTIC_MESSAGE =
+      Pattern.compile("\\[(?<checkName>[^\\]]+)] (?<message>.*)", Pattern.DOTALL);
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final Path file;
+  private final StringBuilder buffer = new StringBuilder();
+
+  private MatchReport(Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Returns the match report associated with the current compilation, if enabled.
+   *
+   * @param state The current visitor state.
+   * @return The match report, if {@link #MATCH_REPORT_FILE_FLAG} is set.
+   */
+  public static Optional<MatchReport> instance(VisitorState state) {
+    MatchReport instance = state.context.get(MATCH_REPORT_KEY);
+    if (instance != null) {
+      return Optional.of(instance);
+    }
+
+    return state
+        .errorProneOptions()
+        .getFlags()
+        .get(MATCH_REPORT_FILE_FLAG)
+        .map(file -> register(state.context, Path.of(file)));
+  }
+
+  /**
+   * Creates a match report for the compilation associated with the given context, diverts Error
+   * Prone diagnostics to it, and arranges for it to be flushed once compilation completes.
+   */
+  @CanIgnoreReturnValue
+  static MatchReport register(Context context, Path file) {
+    MatchReport matchReport = new MatchReport(file);
+    context.put(MATCH_REPORT_KEY, matchReport);
+    new ReportingDiagnosticHandler(matchReport).installOn(Log.instance(context));
+    BasicJavacTask.instance(context)
+        .addTaskListener(
+            new TaskListener() {
+              @Override
+              public void finished(TaskEvent event) {
+                if (event.getKind() == TaskEvent.Kind.COMPILATION) {
+                  matchReport.flush();
+                }
+              }
+            });
+    return matchReport;
+  }
+
+  /**
+   * Appends the given match to this report, including the replacements suggested by its fixes.
+   *
+   * @param description The match to be reported.
+   * @param state The visitor state associated with the compilation unit in which the match
+   *     occurred.
+   */
+  public void report(Description description, VisitorState state) {
+    CompilationUnitTree compilationUnit = state.getPath().getCompilationUnit();
+    EndPosTable endPositions = ((JCCompilationUnit) compilationUnit).endPositions;
+    LineMap lineMap = compilationUnit.getLineMap();
+    URI uri = compilationUnit.getSourceFile().toUri();
+    int startPosition = description.position.getStartPosition();
+
+    StringBuilder result = new StringBuilder();
+    appendResultHeader(result, description.checkName, getLevel(description.severity));
+    appendMessage(result, description.getMessageWithoutCheckName());
+    appendLocation(
+        result,
+        uri,
+        lineMap.getLineNumber(startPosition),
+        lineMap.getColumnNumber(startPosition),
+        startPosition,
+        description.position.getEndPosition(endPositions) - startPosition);
+    if (!description.fixes.isEmpty()) {
+      result.append(",\"fixes\":[");
+      for (int i = 0; i < description.fixes.size(); i++) {
+        appendFix(result.append(i == 0 ? "" : ","), description.fixes.get(i), uri, endPositions);
+      }
+      result.append(']');
+    }
+    append(result.append('}'));
+  }
+
+  private void report(JCDiagnostic diagnostic) {
+    String text = diagnostic.getMessage(null);
+    Matcher matcher = ERROR_PRONE_DIAGNOSTIC_MESSAGE.matcher(text);
+    boolean hasCheckName = matcher.matches();
+
+    StringBuilder result = new StringBuilder();
+    appendResultHeader(
+        result, hasCheckName ? matcher.group("checkName") : "", getLevel(diagnostic.getKind()));
+    appendMessage(result, hasCheckName ? matcher.group("message") : text);
+    DiagnosticSource source = diagnostic.getDiagnosticSource();
+    JavaFileObject sourceFile = diagnostic.getSource();
+    if (source != null && sourceFile != null) {
+      int startPosition = (int) diagnostic.getStartPosition();
+      appendLocation(
+          result,
+          sourceFile.toUri(),
+          source.getLineNumber(startPosition),
+          source.getColumnNumber(startPosition, /* expandTabs= */ false),
+          startPosition,
+          diagnostic.getEndPosition() - startPosition);
+    }
+    append(result.append('}'));
+  }
+
+  private synchronized void append(CharSequence result) {
+    buffer.append(result).append('\n');
+    if (buffer.length() >= BUFFER_SIZE) {
+      flush();
+    }
+  }
+
+  /** Appends all buffered matches to the report file. */
+  private synchronized void flush() {
+    if (buffer.length() == 0) {
+      return;
+    }
+
+    /*
+     * The buffer is written using a single append operation, such that concurrent compilations
+     * sharing the same report file do not interleave partial lines.
+     */
+    ByteBuffer content = UTF_8.encode(buffer.toString());
+    try (FileChannel channel =
+        FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+      while (content.hasRemaining()) {
+        channel.write(content);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to write match report " + file, e);
+    }
+    buffer.setLength(0);
+  }
+
+  private static void appendResultHeader(StringBuilder result, String ruleId, String level) {
+    appendString(result.append("{\"ruleId\":"), ruleId);
+    appendString(result.append(",\"level\":"), level);
+  }
+
+  private static void appendMessage(StringBuilder result, String message) {
+    appendString(result.append(",\"message\":{\"text\":"), message);
+    result.append('}');
+  }
+
+  private static void appendLocation(
+      StringBuilder result, URI uri, long line, long column, long offset, long length) {
+    appendString(
+        result.append(",\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":"),
+        uri.toString());
+    result
+        .append("},\"region\":{\"startLine\":")
+        .append(line)
+        .append(",\"startColumn\":")
+        .append(column)
+        .append(",\"charOffset\":")
+        .append(offset)
+        .append(",\"charLength\":")
+        .append(Math.max(0, length))
+        .append("}}}]");
+  }
+
+  private static void appendFix(StringBuilder result, Fix fix, URI uri, EndPosTable endPositions) {
+    appendString(
+        result.append("{\"artifactChanges\":[{\"artifactLocation\":{\"uri\":"), uri.toString());
+    result
+        .append("},\"replacements\":[")
+        .append(
+            fix.getReplacements(endPositions).stream()
+                .map(MatchReport::toJson)
+                .collect(joining(",")))
+        .append("]}]}");
+  }
+
+  private static String toJson(Replacement replacement) {
+    StringBuilder result =
+        new StringBuilder("{\"deletedRegion\":{\"charOffset\":")
+            .append(replacement.startPosition())
+            .append(",\"charLength\":")
+            .append(replacement.length())
+            .append("},\"insertedContent\":{\"text\":");
+    appendString(result, replacement.replaceWith());
+    return result.append("}}").toString();
+  }
+
+  /** Appends the given string as a JSON string literal. */
+  private static void appendString(StringBuilder result, String value) {
+    result.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          result.append("\\\"");
+          break;
+        case '\\':
+          result.append("\\\\");
+          break;
+        case '\n':
+          result.append("\\n");
+          break;
+        case '\r':
+          result.append("\\r");
+          break;
+        case '\t':
+          result.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            result.append(String.format("\\u%04x", (int) c));
+          } else {
+            result.append(c);
+          }
+      }
+    }
+    result.append('"');
+  }
+
+  private static String getLevel(SeverityLevel severity) {
+    switch (severity) {
+      case ERROR:
+        return "error";
+      case WARNING:
+        return "warning";
+      default:
+        return "note";
+    }
+  }
+
+  private static String getLevel(Diagnostic.Kind kind) {
+    switch (kind) {
+      case ERROR:
+        return "error";
+      case WARNING:
+      case MANDATORY_WARNING:
+        return "warning";
+      default:
+        return "note";
+    }
+  }
+
+  /**
+   * A {@link Log.DiagnosticHandler} that diverts Error Prone diagnostics to a {@link MatchReport},
+   * while passing on all other diagnostics.
+   */
+  private static final class ReportingDiagnosticHandler extends Log.DiagnosticHandler {
+    private final MatchReport matchReport;
+
+    ReportingDiagnosticHandler(MatchReport matchReport) {
+      this.matchReport = matchReport;
+    }
+
+    void installOn(Log log) {
+      install(log);
+    }
+
+    @Override
+    public void report(JCDiagnostic diagnostic) {
+      if (diagnostic.getCode().endsWith(ERROR_PRONE_DIAGNOSTIC_CODE_SUFFIX)) {
+        matchReport.report(diagnostic);
+      } else {
+        prev.report(diagnostic);
+      }
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package tech.picnic.errorprone.refaster;
+
+import com.google.auto.service.AutoService;
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Streams;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.Plugin;
+import com.sun.tools.javac.api.BasicJavacTask;
+import com.sun.tools.javac.util.Options;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * A javac {@link Plugin} that enables the {@link MatchReport} before any Error Prone bug checker
+ * runs, such that the diagnostics of all bug checkers are diverted to the report, irrespective of
+ * whether any bug checker {@link MatchReport#instance(com.google.errorprone.VisitorState) obtains}
+ * the report itself.
+ *
+ * <p>The report file is derived from the {@code -XepOpt:ErrorProneSupport:MatchReportFile=<path>}
+ * argument passed to the Error Prone javac plugin. This plugin must be enabled explicitly by
+ * passing {@code -Xplugin:MatchReport}, unless running on JDK 14+, in which case it is started
+ * automatically if present on the annotation processor path.
+ */
+@AutoService(Plugin.class)
+public final class MatchReportPlugin implements Plugin {
+  /** The javac option under which the arguments of all enabled plugins are stored. */
+  private static final String PLUGIN_OPTION = "-Xplugin:";
+
+  private static final Splitter PLUGIN_SPLITTER = Splitter.on('\0');
+  private static final Splitter PLUGIN_ARG_SPLITTER =
+      Splitter.on(CharMatcher.whitespace()).omitEmptyStrings();
+  private static final String MATCH_REPORT_FILE_ARG_PREFIX =
+      "-XepOpt:" + MatchReport.MATCH_REPORT_FILE_FLAG + '=';
+
+  /** Instantiates a new {@link MatchReportPlugin} instance. */
+  public MatchReportPlugin() {}
+
+  @Override
+  public String getName() {
+    return "MatchReport";
+  }
+
+  @Override
+  public void init(JavacTask javacTask, String... args) {
+    BasicJavacTask task = (BasicJavacTask) javacTask;
+    getMatchReportFile(Options.instance(task.getContext()))
+        .ifPresent(file -> MatchReport.register(task.getContext(), file));
+  }
+
+  /**
+   * Indicates that this plugin should be started even if not enabled explicitly.
+   *
+   * <p>This method overrides {@code Plugin#autoStart()}, which was introduced in JDK 14; older JDKs
+   * do not invoke it.
+   *
+   * @return {@code true}.
+   */
+  @SuppressWarnings("MissingOverride" /* The overridden method does not exist before JDK 14. */)
+  public boolean autoStart() {
+    return true;
+  }
+
+  /**
+   * Returns the match report file passed to the Error Prone javac plugin, if any.
+   *
+   * <p>As with Error Prone's own flag parsing, the last occurrence of the flag takes precedence.
+   */
+  private static Optional<Path> getMatchReportFile(Options options) {
+    String plugins = options.get(PLUGIN_OPTION);
+    if (plugins == null) {
+      return Optional.empty();
+    }
+
+    return Streams.findLast(
+            Streams.stream(PLUGIN_SPLITTER.split(plugins))
+                .map(PLUGIN_ARG_SPLITTER::splitToList)
+                .filter(plugin -> !plugin.isEmpty() && plugin.get(0).equals("ErrorProne"))
+                .flatMap(plugin -> plugin.stream().skip(1))
+                .filter(arg -> arg.startsWith(MATCH_REPORT_FILE_ARG_PREFIX)))
+        .map(arg -> Path.of(arg.substring(MATCH_REPORT_FILE_ARG_PREFIX.length())));
+  }
+}
@@ -0,0 +1,57 @@
+package tech.picnic.errorprone.refaster;
+
+import com.sun.source.util.TreePath;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.jspecify.nullness.Nullable;
+
+/**
+ * A Java Flight Recorder event that describes the application of a single Refaster rule to a
+ * compilation unit.
+ *
+ * <p>Event details are computed only if the event is actually recorded, so the overhead of this
+ * event is negligible in the absence of an active recording.
+ */
+@Name("tech.picnic.errorprone.refaster.RefasterRuleApplied")
+@Label("Refaster Rule Applied")
+@Category({"Error Prone Support", "Refaster"})
+@Description("The application of a Refaster rule to a compilation unit")
+@StackTrace(false)
+final class RefasterRuleAppliedEvent extends Event {
+  @Label("Rule Name")
+  @SuppressWarnings("UnusedVariable" /* Read by the Java Flight Recorder. */)
+  private @Nullable String ruleName;
+
+  @Label("Compilation Unit")
+  @SuppressWarnings("UnusedVariable" /* Read by the Java Flight Recorder. */)
+  private @Nullable String compilationUnit;
+
+  @Label("Match Count")
+  @SuppressWarnings("UnusedVariable" /* Read by the Java Flight Recorder. */)
+  private int matchCount;
+
+  /** Registers that the Refaster rule under consideration produced a match. */
+  void recordMatch() {
+    matchCount++;
+  }
+
+  /**
+   * Ends the timing of this event and commits it, if it is enabled and exceeds the configured
+   * threshold.
+   *
+   * @param rule The canonical name of the Refaster rule that was applied.
+   * @param path The path to the compilation unit to which the rule was applied.
+   */
+  void complete(String rule, TreePath path) {
+    end();
+    if (shouldCommit()) {
+      ruleName = rule;
+      compilationUnit = path.getCompilationUnit().getSourceFile().getName();
+      commit();
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package tech.picnic.errorprone.refaster;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+/**
+ * Utility class providing object streams using which compiled Refaster rules can be serialized and
+ * deserialized, such that structurally equal template nodes are shared.
+ *
+ * <p>Refaster rules often reference the same names, identifiers, literals and types. By default
+ * each deserialized rule carries its own copy of these objects. The streams provided by this class
+ * instead substitute such objects with a previously encountered equal instance, if any.
+ *
+ * <p>Only strings and template nodes that cannot (transitively) reference a type variable are
+ * shared. Type variables may have self-referential bounds, and are thus not safe to compare
+ * structurally.
+ */
+public final class RefasterRuleSerialization {
+  private static final ImmutableSet<String> INTERNABLE_TEMPLATE_NODE_TYPES =
+      ImmutableSet.of(
+          "com.google.errorprone.refaster.AutoValue_StringName",
+          "com.google.errorprone.refaster.AutoValue_UClassIdent",
+          "com.google.errorprone.refaster.AutoValue_UContinue",
+          "com.google.errorprone.refaster.AutoValue_UFreeIdent",
+          "com.google.errorprone.refaster.AutoValue_ULiteral",
+          "com.google.errorprone.refaster.AutoValue_ULocalVarIdent",
+          "com.google.errorprone.refaster.AutoValue_UPrimitiveType",
+          "com.google.errorprone.refaster.AutoValue_UPrimitiveTypeTree",
+          "com.google.errorprone.refaster.AutoValue_UTypeVarIdent");
+
+  private RefasterRuleSerialization() {}
+
+  /**
+   * Creates an {@link ObjectOutputStream} that writes structurally equal template nodes only once.
+   *
+   * @param out The stream to which to write.
+   * @return A new {@link ObjectOutputStream}.
+   * @throws IOException If the stream header cannot be written.
+   */
+  public static ObjectOutputStream newObjectOutputStream(OutputStream out) throws IOException {
+    return new InterningObjectOutputStream(out);
+  }
+
+  /**
+   * Creates an {@link ObjectInputStream} that substitutes each deserialized template node with a
+   * structurally equal instance previously passed to the given {@link Interner}, if any.
+   *
+   * @param in The stream from which to read.
+   * @param interner The {@link Interner} to share across all deserialized Refaster rules.
+   * @return A new {@link ObjectInputStream}.
+   * @throws IOException If the stream header cannot be read.
+   */
+  public static ObjectInputStream newObjectInputStream(InputStream in, Interner<Object> interner)
+      throws IOException {
+    return new InterningObjectInputStream(in, interner);
+  }
+
+  private static boolean isInternable(Object obj) {
+    return obj instanceof String
+        || INTERNABLE_TEMPLATE_NODE_TYPES.contains(obj.getClass().getName());
+  }
+
+  private static final class InterningObjectOutputStream extends ObjectOutputStream {
+    private final Interner<Object> interner = Interners.newStrongInterner();
+
+    InterningObjectOutputStream(OutputStream out) throws IOException {
+      super(out);
+      enableReplaceObject(true);
+    }
+
+    @Override
+    protected Object replaceObject(Object obj) {
+      return isInternable(obj) ? interner.intern(obj) : obj;
+    }
+  }
+
+  private static final class InterningObjectInputStream extends ObjectInputStream {
+    private final Interner<Object> interner;
+
+    InterningObjectInputStream(InputStream in, Interner<Object> interner) throws IOException {
+      super(in);
+      this.interner = interner;
+      enableResolveObject(true);
+    }
+
+    @Override
+    protected Object resolveObject(Object obj) {
+      return isInternable(obj) ? interner.intern(obj) : obj;
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package tech.picnic.errorprone.refaster.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Describes the relative cost of applying a Refaster rule or group of Refaster rules.
+ *
+ * <p>If {@code -XepOpt:ErrorProneSupport:CheapChecksOnly=true} is passed, only Refaster rules in
+ * the {@link Tier#CHEAP} tier are applied. Rules without this annotation are in the {@link
+ * Tier#EXPENSIVE} tier, as applying the full set of Refaster rules was measured to take
+ * considerably longer than running most other checks. As with other annotations, annotations on
+ * nested classes override the tier associated with any enclosing class.
+ *
+ * <p>Bug checkers may be loaded without this annotation on the classpath, and thus cannot be
+ * annotated with it. Instead, expensive bug checkers list {@link #EXPENSIVE_TAG} among their {@code
+ * BugPattern} tags.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+public @interface CostTier {
+  /** The {@code BugPattern} tag that places a bug checker in the {@link Tier#EXPENSIVE} tier. */
+  String EXPENSIVE_TAG = "Expensive";
+
+  /**
+   * The cost tier of the annotated Refaster rule(s).
+   *
+   * @return A non-{@code null} tier.
+   */
+  Tier value();
+
+  /** A cost tier. */
+  enum Tier {
+    /** Rules and checks whose cost is negligible compared to that of compilation. */
+    CHEAP,
+    /** Rules and checks that may considerably slow down compilation. */
+    EXPENSIVE
+  }
+}
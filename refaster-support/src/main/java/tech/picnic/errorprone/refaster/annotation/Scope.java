@@ -0,0 +1,33 @@
+package tech.picnic.errorprone.refaster.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Describes the kind of source code to which a Refaster rule or group of Refaster rules applies.
+ *
+ * <p>Rules without this annotation apply to all source code. Rules that can only match e.g. test
+ * code (because they reference test libraries) should be assigned scope {@link SourceSet#TEST},
+ * such that they are not applied when compiling production code. As with other annotations,
+ * annotations on nested classes override the scope associated with any enclosing class.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+public @interface Scope {
+  /**
+   * The kind of source code to which the annotated Refaster rule(s) apply.
+   *
+   * @return A non-{@code null} source set.
+   */
+  SourceSet value();
+
+  /** A kind of source code. */
+  enum SourceSet {
+    /** Production code. */
+    MAIN,
+    /** Test code. */
+    TEST
+  }
+}
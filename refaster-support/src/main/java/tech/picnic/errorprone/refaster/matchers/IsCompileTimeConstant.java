@@ -0,0 +1,24 @@
+package tech.picnic.errorprone.refaster.matchers;
+
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ExpressionTree;
+
+/**
+ * A matcher of compile-time constant expressions, as defined by JLS 15.29.
+ *
+ * <p>As javac computes the value of such expressions during attribution, this matcher merely
+ * consults the expression's type.
+ */
+public final class IsCompileTimeConstant implements Matcher<ExpressionTree> {
+  private static final long serialVersionUID = 1L;
+
+  /** Instantiates a new {@link IsCompileTimeConstant} instance. */
+  public IsCompileTimeConstant() {}
+
+  @Override
+  public boolean matches(ExpressionTree tree, VisitorState state) {
+    return ASTHelpers.constValue(tree) != null;
+  }
+}
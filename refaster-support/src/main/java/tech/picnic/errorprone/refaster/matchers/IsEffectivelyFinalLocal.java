@@ -0,0 +1,43 @@
+package tech.picnic.errorprone.refaster.matchers;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.tools.javac.code.Flags;
+import com.sun.tools.javac.code.Symbol;
+import javax.lang.model.element.ElementKind;
+
+/**
+ * A matcher of references to local variables and parameters that are final or effectively final.
+ *
+ * <p>Such references may be freely duplicated or moved (e.g. into a lambda expression), as their
+ * value cannot change.
+ */
+public final class IsEffectivelyFinalLocal implements Matcher<ExpressionTree> {
+  private static final long serialVersionUID = 1L;
+  private static final ImmutableSet<ElementKind> LOCAL_VARIABLE_KINDS =
+      Sets.immutableEnumSet(
+          ElementKind.LOCAL_VARIABLE,
+          ElementKind.PARAMETER,
+          ElementKind.EXCEPTION_PARAMETER,
+          ElementKind.RESOURCE_VARIABLE);
+
+  /** Instantiates a new {@link IsEffectivelyFinalLocal} instance. */
+  public IsEffectivelyFinalLocal() {}
+
+  @Override
+  public boolean matches(ExpressionTree tree, VisitorState state) {
+    if (!(tree instanceof IdentifierTree)) {
+      return false;
+    }
+
+    Symbol symbol = ASTHelpers.getSymbol(tree);
+    return symbol != null
+        && LOCAL_VARIABLE_KINDS.contains(symbol.getKind())
+        && (symbol.flags() & (Flags.FINAL | Flags.EFFECTIVELY_FINAL)) != 0;
+  }
+}
@@ -0,0 +1,96 @@
+package tech.picnic.errorprone.refaster.matchers;
+
+import static com.google.errorprone.matchers.Matchers.anyOf;
+import static com.google.errorprone.matchers.method.MethodMatchers.instanceMethod;
+
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.matchers.Matcher;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.DoWhileLoopTree;
+import com.sun.source.tree.EnhancedForLoopTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.ForLoopTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.WhileLoopTree;
+import com.sun.source.util.TreePath;
+import org.jspecify.nullness.Nullable;
+
+/**
+ * A matcher of expressions that may be evaluated repeatedly, because they are located inside a
+ * loop.
+ *
+ * <p>An expression is considered to be inside a loop if it is part of the condition, update or body
+ * of a {@code for}, {@code while} or {@code do-while} loop, or of the body of an enhanced {@code
+ * for} loop. Likewise, expressions inside a lambda expression passed to a {@link
+ * java.util.stream.BaseStream} or {@code reactor.core.publisher.Flux} operator are considered to be
+ * inside a loop, as such a lambda expression is generally invoked once per element. Method and
+ * class declarations, as well as other lambda expressions, delimit the search.
+ *
+ * <p>As this matcher inspects the context of the given expression, its results are cached.
+ */
+public final class IsInsideLoop implements Matcher<ExpressionTree> {
+  private static final long serialVersionUID = 1L;
+  private static final Matcher<ExpressionTree> PER_ELEMENT_OPERATOR =
+      anyOf(
+          instanceMethod().onDescendantOf("java.util.stream.BaseStream"),
+          instanceMethod().onDescendantOf("reactor.core.publisher.Flux"));
+
+  private final TreeMatchCache<ExpressionTree> cache = new TreeMatchCache<>();
+
+  /** Instantiates a new {@link IsInsideLoop} instance. */
+  public IsInsideLoop() {}
+
+  @Override
+  public boolean matches(ExpressionTree tree, VisitorState state) {
+    return cache.matches(tree, () -> isInsideLoop(state));
+  }
+
+  private static boolean isInsideLoop(VisitorState state) {
+    for (TreePath path = state.getPath();
+        path.getParentPath() != null;
+        path = path.getParentPath()) {
+      TreePath parentPath = path.getParentPath();
+      Tree parent = parentPath.getLeaf();
+      if (isRepeatedlyEvaluatedPart(parent, path.getLeaf())) {
+        return true;
+      }
+
+      if (parent instanceof LambdaExpressionTree) {
+        return isPerElementOperatorArgument(parent, parentPath.getParentPath(), state);
+      }
+
+      if (parent instanceof MethodTree || parent instanceof ClassTree) {
+        return false;
+      }
+    }
+
+    return false;
+  }
+
+  /** Tells whether the given child of the given tree is evaluated once per loop iteration. */
+  private static boolean isRepeatedlyEvaluatedPart(Tree tree, Tree child) {
+    if (tree instanceof ForLoopTree) {
+      return !((ForLoopTree) tree).getInitializer().contains(child);
+    }
+
+    if (tree instanceof EnhancedForLoopTree) {
+      return ((EnhancedForLoopTree) tree).getStatement() == child;
+    }
+
+    return tree instanceof WhileLoopTree || tree instanceof DoWhileLoopTree;
+  }
+
+  private static boolean isPerElementOperatorArgument(
+      Tree lambda, @Nullable TreePath parentPath, VisitorState state) {
+    if (parentPath == null || !(parentPath.getLeaf() instanceof MethodInvocationTree)) {
+      return false;
+    }
+
+    MethodInvocationTree invocation = (MethodInvocationTree) parentPath.getLeaf();
+    return invocation.getArguments().contains(lambda)
+        && PER_ELEMENT_OPERATOR.matches(invocation, state);
+  }
+}
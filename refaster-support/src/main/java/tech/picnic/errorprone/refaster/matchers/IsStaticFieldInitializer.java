@@ -0,0 +1,61 @@
+package tech.picnic.errorprone.refaster.matchers;
+
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreePath;
+import com.sun.tools.javac.code.Symbol;
+
+/**
+ * A matcher of expressions that are evaluated exactly once, as part of the initializer of a static
+ * field.
+ *
+ * <p>Expressions inside lambda expressions, methods and classes declared within the initializer are
+ * not matched, as these may be evaluated any number of times.
+ *
+ * <p>As this matcher inspects the context of the given expression, its results are cached.
+ */
+public final class IsStaticFieldInitializer implements Matcher<ExpressionTree> {
+  private static final long serialVersionUID = 1L;
+
+  private final TreeMatchCache<ExpressionTree> cache = new TreeMatchCache<>();
+
+  /** Instantiates a new {@link IsStaticFieldInitializer} instance. */
+  public IsStaticFieldInitializer() {}
+
+  @Override
+  public boolean matches(ExpressionTree tree, VisitorState state) {
+    return cache.matches(tree, () -> isStaticFieldInitializer(state));
+  }
+
+  private static boolean isStaticFieldInitializer(VisitorState state) {
+    for (TreePath path = state.getPath();
+        path.getParentPath() != null;
+        path = path.getParentPath()) {
+      Tree child = path.getLeaf();
+      Tree parent = path.getParentPath().getLeaf();
+      if (parent instanceof VariableTree && ((VariableTree) parent).getInitializer() == child) {
+        TreePath grandParentPath = path.getParentPath().getParentPath();
+        Symbol symbol = ASTHelpers.getSymbol(parent);
+        return grandParentPath != null
+            && grandParentPath.getLeaf() instanceof ClassTree
+            && symbol != null
+            && ASTHelpers.isStatic(symbol);
+      }
+
+      if (parent instanceof LambdaExpressionTree
+          || parent instanceof MethodTree
+          || parent instanceof ClassTree) {
+        return false;
+      }
+    }
+
+    return false;
+  }
+}
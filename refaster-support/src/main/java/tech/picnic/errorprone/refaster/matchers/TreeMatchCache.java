@@ -0,0 +1,38 @@
+package tech.picnic.errorprone.refaster.matchers;
+
+import com.google.errorprone.matchers.Matcher;
+import com.sun.source.tree.Tree;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.BooleanSupplier;
+import org.jspecify.nullness.Nullable;
+
+/**
+ * A cache of the results produced by a {@link Matcher} for individual {@link Tree} nodes.
+ *
+ * <p>Refaster instantiates each {@link Matcher} referenced by a rule only once, after which the
+ * matcher is consulted for every candidate node. As different rules (and different parameters of a
+ * single rule) may consider the same node, matchers whose result depends on the context of the node
+ * (rather than just the node itself) benefit from retaining their results.
+ *
+ * <p>Nodes are weakly referenced, such that cached results do not outlive the compilation unit to
+ * which they pertain. As {@link Tree} implementations do not override {@link
+ * Object#equals(Object)}, nodes are effectively compared by identity. This class is thread-safe.
+ */
+final class TreeMatchCache<T extends Tree> implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private transient @Nullable Map<T, Boolean> results;
+
+  /**
+   * Returns the cached result for the given tree, computing it using the given function if not
+   * previously cached.
+   */
+  synchronized boolean matches(T tree, BooleanSupplier matcher) {
+    if (results == null) {
+      results = new WeakHashMap<>();
+    }
+    return results.computeIfAbsent(tree, t -> matcher.getAsBoolean());
+  }
+}
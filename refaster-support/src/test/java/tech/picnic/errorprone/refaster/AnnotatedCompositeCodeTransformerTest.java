@@ -30,6 +30,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -121,6 +122,7 @@ final class AnnotatedCompositeCodeTransformerTest {
     CodeTransformer codeTransformer =
         AnnotatedCompositeCodeTransformer.create(
             packageName,
+            expectedDescription.checkName,
             ImmutableList.of(
                 delegateCodeTransformer(
                     delegateAnnotations, context, refasterDescription(ruleName))),
@@ -139,6 +141,28 @@ final class AnnotatedCompositeCodeTransformerTest {
             });
   }
 
+  @Test
+  void withoutDescriptionAugmentation() {
+    Context context = context();
+    Description description = refasterDescription(CUSTOM_PACKAGE + '.' + SIMPLE_CLASS_NAME);
+    ImmutableClassToInstanceMap<Annotation> annotations =
+        indexAnnotations(ImmutableSet.of(descriptionAnnotation("Composite description")));
+    CodeTransformer codeTransformer =
+        AnnotatedCompositeCodeTransformer.create(
+                CUSTOM_PACKAGE,
+                SIMPLE_CLASS_NAME,
+                ImmutableList.of(
+                    delegateCodeTransformer(
+                        ImmutableSet.of(severityAnnotation(ERROR)), context, description)),
+                annotations)
+            .withoutDescriptionAugmentation();
+
+    List<Description> collected = new ArrayList<>();
+    codeTransformer.apply(DUMMY_PATH, context, collected::add);
+    assertThat(collected).containsExactly(description);
+    assertThat(codeTransformer.annotations()).isEqualTo(annotations);
+  }
+
   private static ImmutableClassToInstanceMap<Annotation> indexAnnotations(
       ImmutableSet<? extends Annotation> annotations) {
     return ImmutableClassToInstanceMap.copyOf(
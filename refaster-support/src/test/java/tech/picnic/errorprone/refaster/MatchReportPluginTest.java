@@ -0,0 +1,75 @@
+package tech.picnic.errorprone.refaster;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.FileObjects;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+final class MatchReportPluginTest {
+  private static final JavaFileObject SOURCE =
+      FileObjects.forSourceLines(
+          "A.java", "class A {", "  void m() {", "    new RuntimeException();", "  }", "}");
+
+  @Test
+  void withoutMatchReportFile(@TempDir Path tempDir) {
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+    assertThat(compile(tempDir, diagnostics, "")).isFalse();
+    assertThat(diagnostics.getDiagnostics())
+        .singleElement()
+        .satisfies(d -> assertThat(d.getMessage(null)).startsWith("[DeadException] "));
+  }
+
+  @Test
+  void withMatchReportFile(@TempDir Path tempDir) throws IOException {
+    Path report = tempDir.resolve("report.ndjson");
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+    assertThat(
+            compile(tempDir, diagnostics, " -XepOpt:ErrorProneSupport:MatchReportFile=" + report))
+        .isTrue();
+    assertThat(diagnostics.getDiagnostics()).isEmpty();
+    assertThat(Files.readAllLines(report, UTF_8))
+        .singleElement()
+        .satisfies(
+            line ->
+                assertThat(line)
+                    .startsWith("{\"ruleId\":\"DeadException\",\"level\":\"error\",\"message\":"));
+  }
+
+  /**
+   * Compiles {@link #SOURCE} using the Error Prone javac plugin, with only a single built-in (i.e.,
+   * non-Refaster) check enabled.
+   *
+   * <p>The {@link MatchReportPlugin} is enabled explicitly, as it is started automatically only on
+   * JDK 14+.
+   */
+  private static boolean compile(
+      Path outputDirectory, DiagnosticCollector<JavaFileObject> diagnostics, String extraArgs) {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    return compiler
+        .getTask(
+            null,
+            null,
+            diagnostics,
+            ImmutableList.of(
+                "-d",
+                outputDirectory.toString(),
+                "-XDcompilePolicy=simple",
+                "-Xplugin:MatchReport",
+                "-Xplugin:ErrorProne -XepDisableAllChecks -Xep:DeadException" + extraArgs),
+            null,
+            ImmutableList.of(SOURCE))
+        .call();
+  }
+}
@@ -0,0 +1,113 @@
+package tech.picnic.errorprone.refaster;
+
+import static com.google.errorprone.BugPattern.SeverityLevel.SUGGESTION;
+import static com.google.errorprone.BugPattern.SeverityLevel.WARNING;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.CompilationTestHelper;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.CompilationUnitTreeMatcher;
+import com.google.errorprone.bugpatterns.BugChecker.MethodTreeMatcher;
+import com.google.errorprone.fixes.SuggestedFix;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.scanner.ScannerSupplier;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+final class MatchReportTest {
+  private final CompilationTestHelper compilationTestHelper =
+      CompilationTestHelper.newInstance(
+          ScannerSupplier.fromBugCheckerClasses(
+              DirectlyReportingTestChecker.class, IndirectlyReportingTestChecker.class),
+          getClass());
+
+  @Test
+  void withoutMatchReportFile() {
+    compilationTestHelper
+        .addSourceLines(
+            "A.java",
+            "// BUG: Diagnostic contains: DirectlyReportingTestChecker",
+            "class A {",
+            "  // BUG: Diagnostic contains: IndirectlyReportingTestChecker",
+            "  void m() {}",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void withMatchReportFile(@TempDir Path tempDir) throws IOException {
+    Path report = tempDir.resolve("report.ndjson");
+    Files.writeString(report, "{\"existing\":\"line\"}\n", UTF_8);
+
+    compilationTestHelper
+        .setArgs("-XepOpt:ErrorProneSupport:MatchReportFile=" + report)
+        .addSourceLines("A.java", "class A {", "  void m() {}", "}")
+        .expectNoDiagnostics()
+        .doTest();
+
+    assertThat(Files.readAllLines(report, UTF_8))
+        .containsExactly(
+            "{\"existing\":\"line\"}",
+            "{\"ruleId\":\"DirectlyReportingTestChecker\",\"level\":\"note\",\"message\":{\"text\":"
+                + "\"Reports \\\"matches\\\" directly\\n  "
+                + "(see https://errorprone.info/bugpattern/DirectlyReportingTestChecker)\"},"
+                + "\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":\"file:///A.java\"},"
+                + "\"region\":{\"startLine\":1,\"startColumn\":1,\"charOffset\":0,\"charLength\":25}}}],"
+                + "\"fixes\":[{\"artifactChanges\":[{\"artifactLocation\":{\"uri\":\"file:///A.java\"},"
+                + "\"replacements\":[{\"deletedRegion\":{\"charOffset\":0,\"charLength\":0},"
+                + "\"insertedContent\":{\"text\":\"final \"}}]}]}]}",
+            "{\"ruleId\":\"IndirectlyReportingTestChecker\",\"level\":\"warning\",\"message\":{\"text\":"
+                + "\"Reports matches through javac\\n    "
+                + "(see https://errorprone.info/bugpattern/IndirectlyReportingTestChecker)\"},"
+                + "\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":\"file:///A.java\"},"
+                + "\"region\":{\"startLine\":2,\"startColumn\":3,\"charOffset\":12,\"charLength\":11}}}]}");
+  }
+
+  /**
+   * A {@link BugChecker} that reports each top-level class through the {@link MatchReport}, if
+   * enabled.
+   */
+  @BugPattern(summary = "Reports \"matches\" directly", severity = SUGGESTION)
+  public static final class DirectlyReportingTestChecker extends BugChecker
+      implements CompilationUnitTreeMatcher {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Description matchCompilationUnit(CompilationUnitTree tree, VisitorState state) {
+      Optional<MatchReport> matchReport = MatchReport.instance(state);
+      for (Tree typeDecl : tree.getTypeDecls()) {
+        Description description =
+            describeMatch(typeDecl, SuggestedFix.prefixWith(typeDecl, "final "));
+        if (matchReport.isPresent()) {
+          matchReport.orElseThrow().report(description, state);
+        } else {
+          state.reportMatch(description);
+        }
+      }
+
+      return Description.NO_MATCH;
+    }
+  }
+
+  /** A {@link BugChecker} that flags all method declarations in the usual manner. */
+  @BugPattern(summary = "Reports matches through javac", severity = WARNING)
+  public static final class IndirectlyReportingTestChecker extends BugChecker
+      implements MethodTreeMatcher {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Description matchMethod(MethodTree tree, VisitorState state) {
+      return describeMatch(tree);
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package tech.picnic.errorprone.refaster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+final class RefasterRuleSerializationTest {
+  @Test
+  void newObjectOutputStream() throws IOException, ClassNotFoundException {
+    List<Object> original = new ArrayList<>();
+    original.add(newString("foo"));
+    original.add(newString("foo"));
+    original.add(new ArrayList<>(original));
+
+    List<?> copy = (List<?>) deserialize(serialize(original), Interners.newStrongInterner());
+
+    assertThat(copy).isEqualTo(original);
+    assertThat(copy.get(0)).isSameAs(copy.get(1));
+    assertThat(copy.get(2)).isNotSameAs(original.get(2));
+  }
+
+  @Test
+  void newObjectInputStream() throws IOException, ClassNotFoundException {
+    Interner<Object> interner = Interners.newStrongInterner();
+    Object canonical = interner.intern(newString("bar"));
+
+    Object first = deserialize(serialize(ImmutableList.of(newString("bar"))), interner);
+    Object second = deserialize(serialize(ImmutableList.of(newString("bar"))), interner);
+
+    assertThat(first).isEqualTo(second);
+    assertThat(((List<?>) first).get(0)).isSameAs(canonical);
+    assertThat(((List<?>) second).get(0)).isSameAs(canonical);
+  }
+
+  @SuppressWarnings("StringCopyConstructor" /* Each invocation must yield a distinct instance. */)
+  private static String newString(String value) {
+    return new String(value);
+  }
+
+  private static byte[] serialize(Object object) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = RefasterRuleSerialization.newObjectOutputStream(out)) {
+      oos.writeObject(object);
+    }
+    return out.toByteArray();
+  }
+
+  private static Object deserialize(byte[] bytes, Interner<Object> interner)
+      throws IOException, ClassNotFoundException {
+    try (ObjectInputStream ois =
+        RefasterRuleSerialization.newObjectInputStream(new ByteArrayInputStream(bytes), interner)) {
+      @SuppressWarnings("BanSerializableRead" /* Deserializing trusted test data. */)
+      Object object = ois.readObject();
+      return object;
+    }
+  }
+}
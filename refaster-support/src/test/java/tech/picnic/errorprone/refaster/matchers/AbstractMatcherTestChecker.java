@@ -10,7 +10,8 @@ import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.ImportTree;
 import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
-import com.sun.source.util.TreeScanner;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
 import org.jspecify.nullness.Nullable;
 
 /**
@@ -18,7 +19,8 @@ import org.jspecify.nullness.Nullable;
  * {@link Matcher}.
  *
  * <p>Only {@link ExpressionTree}s that represent proper Java expressions (i.e. {@link
- * ExpressionTree}s that may be matched by Refaster) are considered.
+ * ExpressionTree}s that may be matched by Refaster) are considered. As with Refaster, the given
+ * {@link VisitorState} is associated with the path to the expression under consideration.
  */
 abstract class AbstractMatcherTestChecker extends BugChecker implements CompilationUnitTreeMatcher {
   private static final long serialVersionUID = 1L;
@@ -31,10 +33,12 @@ abstract class AbstractMatcherTestChecker extends BugChecker implements Compilat
 
   @Override
   public Description matchCompilationUnit(CompilationUnitTree compilationUnit, VisitorState state) {
-    new TreeScanner<@Nullable Void, @Nullable Void>() {
+    new TreePathScanner<@Nullable Void, @Nullable Void>() {
       @Override
       public @Nullable Void scan(Tree tree, @Nullable Void unused) {
-        if (tree instanceof ExpressionTree && delegate.matches((ExpressionTree) tree, state)) {
+        if (tree instanceof ExpressionTree
+            && delegate.matches(
+                (ExpressionTree) tree, state.withPath(new TreePath(getCurrentPath(), tree)))) {
           state.reportMatch(
               Description.builder(tree, canonicalName(), null, defaultSeverity(), message())
                   .build());
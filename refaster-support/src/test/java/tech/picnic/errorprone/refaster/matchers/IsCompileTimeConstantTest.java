@@ -0,0 +1,68 @@
+package tech.picnic.errorprone.refaster.matchers;
+
+import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
+
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.CompilationTestHelper;
+import com.google.errorprone.bugpatterns.BugChecker;
+import org.junit.jupiter.api.Test;
+
+final class IsCompileTimeConstantTest {
+  @Test
+  void matches() {
+    CompilationTestHelper.newInstance(MatcherTestChecker.class, getClass())
+        .addSourceLines(
+            "A.java",
+            "class A {",
+            "  // BUG: Diagnostic contains:",
+            "  private static final String CONSTANT = \"foo\";",
+            "  private static final String NON_CONSTANT = A.class.getName();",
+            "",
+            "  Object negative1() {",
+            "    return NON_CONSTANT;",
+            "  }",
+            "",
+            "  Object negative2(int i) {",
+            "    return i;",
+            "  }",
+            "",
+            "  Object negative3() {",
+            "    return toString();",
+            "  }",
+            "",
+            "  Object positive1() {",
+            "    // BUG: Diagnostic contains:",
+            "    return 1;",
+            "  }",
+            "",
+            "  Object positive2() {",
+            "    // BUG: Diagnostic contains:",
+            "    return CONSTANT;",
+            "  }",
+            "",
+            "  Object positive3() {",
+            "    // BUG: Diagnostic contains:",
+            "    return \"bar\" + CONSTANT;",
+            "  }",
+            "",
+            "  Object positive4() {",
+            "    // BUG: Diagnostic contains:",
+            "    return Integer.MAX_VALUE - 1;",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  /** A {@link BugChecker} that simply delegates to {@link IsCompileTimeConstant}. */
+  @BugPattern(summary = "Flags expressions matched by `IsCompileTimeConstant`", severity = ERROR)
+  public static final class MatcherTestChecker extends AbstractMatcherTestChecker {
+    private static final long serialVersionUID = 1L;
+
+    // XXX: This is a false positive reported by Checkstyle. See
+    // https://github.com/checkstyle/checkstyle/issues/10161#issuecomment-1242732120.
+    @SuppressWarnings("RedundantModifier")
+    public MatcherTestChecker() {
+      super(new IsCompileTimeConstant());
+    }
+  }
+}
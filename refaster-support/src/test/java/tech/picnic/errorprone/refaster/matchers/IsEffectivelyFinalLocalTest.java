@@ -0,0 +1,74 @@
+package tech.picnic.errorprone.refaster.matchers;
+
+import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
+
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.CompilationTestHelper;
+import com.google.errorprone.bugpatterns.BugChecker;
+import org.junit.jupiter.api.Test;
+
+final class IsEffectivelyFinalLocalTest {
+  @Test
+  void matches() {
+    CompilationTestHelper.newInstance(MatcherTestChecker.class, getClass())
+        .addSourceLines(
+            "A.java",
+            "class A {",
+            "  private String field = \"foo\";",
+            "",
+            "  Object negative1() {",
+            "    return field;",
+            "  }",
+            "",
+            "  Object negative2(String param) {",
+            "    param = param.trim();",
+            "    return param;",
+            "  }",
+            "",
+            "  Object negative3() {",
+            "    String local = \"foo\";",
+            "    local = local.trim();",
+            "    return local;",
+            "  }",
+            "",
+            "  Object positive1(String param) {",
+            "    // BUG: Diagnostic contains:",
+            "    return param;",
+            "  }",
+            "",
+            "  Object positive2(final String param) {",
+            "    // BUG: Diagnostic contains:",
+            "    return param;",
+            "  }",
+            "",
+            "  Object positive3() {",
+            "    String local = \"foo\";",
+            "    // BUG: Diagnostic contains:",
+            "    return local;",
+            "  }",
+            "",
+            "  Object positive4() {",
+            "    try {",
+            "      return null;",
+            "    } catch (RuntimeException e) {",
+            "      // BUG: Diagnostic contains:",
+            "      return e;",
+            "    }",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  /** A {@link BugChecker} that simply delegates to {@link IsEffectivelyFinalLocal}. */
+  @BugPattern(summary = "Flags expressions matched by `IsEffectivelyFinalLocal`", severity = ERROR)
+  public static final class MatcherTestChecker extends AbstractMatcherTestChecker {
+    private static final long serialVersionUID = 1L;
+
+    // XXX: This is a false positive reported by Checkstyle. See
+    // https://github.com/checkstyle/checkstyle/issues/10161#issuecomment-1242732120.
+    @SuppressWarnings("RedundantModifier")
+    public MatcherTestChecker() {
+      super(new IsEffectivelyFinalLocal());
+    }
+  }
+}
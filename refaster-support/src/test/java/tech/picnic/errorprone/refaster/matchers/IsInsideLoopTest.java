@@ -0,0 +1,103 @@
+package tech.picnic.errorprone.refaster.matchers;
+
+import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
+
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.CompilationTestHelper;
+import com.google.errorprone.bugpatterns.BugChecker;
+import org.junit.jupiter.api.Test;
+
+final class IsInsideLoopTest {
+  @Test
+  void matches() {
+    CompilationTestHelper.newInstance(MatcherTestChecker.class, getClass())
+        .addSourceLines(
+            "Flux.java",
+            "package reactor.core.publisher;",
+            "",
+            "import java.util.function.Function;",
+            "",
+            "public abstract class Flux<T> {",
+            "  public abstract <R> Flux<R> map(Function<? super T, ? extends R> mapper);",
+            "}")
+        .addSourceLines(
+            "A.java",
+            "import java.util.List;",
+            "import java.util.Optional;",
+            "import java.util.stream.Stream;",
+            "import reactor.core.publisher.Flux;",
+            "",
+            "class A {",
+            "  void m(List<String> list, Stream<String> stream, Flux<String> flux) {",
+            "    list.clear();",
+            "    Optional.of(list)",
+            "        .map(",
+            "            l -> {",
+            "              return l.size();",
+            "            });",
+            "",
+            "    for (int i = 0;",
+            "        // BUG: Diagnostic contains:",
+            "        i < list.size();",
+            "        // BUG: Diagnostic contains:",
+            "        i++) {",
+            "      // BUG: Diagnostic contains:",
+            "      list.clear();",
+            "    }",
+            "",
+            "    for (String s : list) {",
+            "      // BUG: Diagnostic contains:",
+            "      s.length();",
+            "      // BUG: Diagnostic contains:",
+            "      Runnable r =",
+            "          // BUG: Diagnostic contains:",
+            "          () -> {",
+            "            s.length();",
+            "          };",
+            "      // BUG: Diagnostic contains:",
+            "      new Object() {",
+            "        int n = s.length();",
+            "      };",
+            "    }",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    while (list.isEmpty()) {",
+            "      // BUG: Diagnostic contains:",
+            "      list.clear();",
+            "    }",
+            "",
+            "    do {",
+            "      // BUG: Diagnostic contains:",
+            "      list.clear();",
+            "      // BUG: Diagnostic contains:",
+            "    } while (list.isEmpty());",
+            "",
+            "    stream.map(",
+            "        s -> {",
+            "          // BUG: Diagnostic contains:",
+            "          return s.length();",
+            "        });",
+            "",
+            "    flux.map(",
+            "        s -> {",
+            "          // BUG: Diagnostic contains:",
+            "          return s.length();",
+            "        });",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  /** A {@link BugChecker} that simply delegates to {@link IsInsideLoop}. */
+  @BugPattern(summary = "Flags expressions matched by `IsInsideLoop`", severity = ERROR)
+  public static final class MatcherTestChecker extends AbstractMatcherTestChecker {
+    private static final long serialVersionUID = 1L;
+
+    // XXX: This is a false positive reported by Checkstyle. See
+    // https://github.com/checkstyle/checkstyle/issues/10161#issuecomment-1242732120.
+    @SuppressWarnings("RedundantModifier")
+    public MatcherTestChecker() {
+      super(new IsInsideLoop());
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package tech.picnic.errorprone.refaster.matchers;
+
+import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
+
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.CompilationTestHelper;
+import com.google.errorprone.bugpatterns.BugChecker;
+import org.junit.jupiter.api.Test;
+
+final class IsStaticFieldInitializerTest {
+  @Test
+  void matches() {
+    CompilationTestHelper.newInstance(MatcherTestChecker.class, getClass())
+        .addSourceLines(
+            "A.java",
+            "import java.util.function.Supplier;",
+            "",
+            "class A {",
+            "  private final String negative1 = String.valueOf(1);",
+            "  private static final Supplier<String> positive1 =",
+            "      // BUG: Diagnostic contains:",
+            "      () -> {",
+            "        return String.valueOf(2);",
+            "      };",
+            "",
+            "  // BUG: Diagnostic contains:",
+            "  private static final String positive2 = String.valueOf(1);",
+            "",
+            "  // BUG: Diagnostic contains:",
+            "  static Object positive3 = new Object();",
+            "",
+            "  void m() {",
+            "    String negative3 = String.valueOf(3);",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  /** A {@link BugChecker} that simply delegates to {@link IsStaticFieldInitializer}. */
+  @BugPattern(summary = "Flags expressions matched by `IsStaticFieldInitializer`", severity = ERROR)
+  public static final class MatcherTestChecker extends AbstractMatcherTestChecker {
+    private static final long serialVersionUID = 1L;
+
+    // XXX: This is a false positive reported by Checkstyle. See
+    // https://github.com/checkstyle/checkstyle/issues/10161#issuecomment-1242732120.
+    @SuppressWarnings("RedundantModifier")
+    public MatcherTestChecker() {
+      super(new IsStaticFieldInitializer());
+    }
+  }
+}
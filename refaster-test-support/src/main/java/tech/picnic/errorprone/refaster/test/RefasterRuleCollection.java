@@ -1,14 +1,20 @@
 package tech.picnic.errorprone.refaster.test;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableListMultimap.flatteningToImmutableListMultimap;
 import static com.google.common.collect.ImmutableListMultimap.toImmutableListMultimap;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
-import static com.google.common.collect.ImmutableSortedSet.toImmutableSortedSet;
 import static com.google.errorprone.BugCheckerRefactoringTestHelper.TestMode.TEXT_MATCH;
 import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
 import static java.util.Comparator.naturalOrder;
+import static java.util.function.Function.identity;
 import static tech.picnic.errorprone.refaster.runner.Refaster.INCLUDED_RULES_PATTERN_FLAG;
 
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Comparators;
+import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
@@ -20,6 +26,8 @@ import com.google.common.collect.Range;
 import com.google.common.collect.Sets;
 import com.google.errorprone.BugCheckerRefactoringTestHelper;
 import com.google.errorprone.BugPattern;
+import com.google.errorprone.CodeTransformer;
+import com.google.errorprone.CompositeCodeTransformer;
 import com.google.errorprone.ErrorProneFlags;
 import com.google.errorprone.SubContext;
 import com.google.errorprone.VisitorState;
@@ -38,12 +46,15 @@ import com.sun.source.util.TreeScanner;
 import com.sun.tools.javac.tree.EndPosTable;
 import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
 import com.sun.tools.javac.util.Position;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 import org.jspecify.nullness.Nullable;
 import tech.picnic.errorprone.refaster.runner.CodeTransformers;
 import tech.picnic.errorprone.refaster.runner.Refaster;
@@ -57,6 +68,13 @@ import tech.picnic.errorprone.refaster.runner.Refaster;
  * rule collection class. Their names are derived from the rule collection class by suffixing {@code
  * TestInput.java} and {@code TestOutput.java}, respectively. Each test method's name must be
  * derived from the rule that modifies said method by prefixing {@code test}.
+ *
+ * <p>Optionally, the time required to match each rule against the test input is measured. Rules
+ * that take more than a configured number of times as long as the median rule in the collection are
+ * then reported, as such rules are likely to slow down the {@link Refaster} checker for all code it
+ * is applied to. As wall-clock measurements depend on machine load, this check is opt-in: it is
+ * enabled by means of the {@code -XepOpt:RefasterRuleCollection:MatchingTimeBudget} flag or, when
+ * using {@link #validate(Class)}, the {@value #MATCHING_TIME_BUDGET_PROPERTY} system property.
  */
 // XXX: This check currently only validates that one `Refaster.anyOf` branch in one
 // `@BeforeTemplate` method is covered by a test. Review how we can make sure that _all_
@@ -65,10 +83,26 @@ import tech.picnic.errorprone.refaster.runner.Refaster;
 public final class RefasterRuleCollection extends BugChecker implements CompilationUnitTreeMatcher {
   private static final long serialVersionUID = 1L;
   private static final String RULE_COLLECTION_FLAG = "RefasterRuleCollection:RuleCollection";
+  private static final String MATCHING_TIME_BUDGET_FLAG =
+      "RefasterRuleCollection:MatchingTimeBudget";
+  private static final String MATCHING_TIME_BUDGET_PROPERTY = "refaster-matching-time-budget";
+  /**
+   * The matching time below which a rule is never reported, to avoid false positives due to
+   * measurement noise on small test inputs.
+   */
+  private static final Duration MIN_REPORTED_MATCHING_TIME = Duration.ofMillis(10);
+  /**
+   * The number of times each rule is matched against the test input; the fastest run is considered
+   * representative.
+   */
+  private static final int MATCHING_TIME_SAMPLES = 3;
+
   private static final String TEST_METHOD_NAME_PREFIX = "test";
 
   private final String ruleCollectionUnderTest;
+  private final ImmutableListMultimap<String, CodeTransformer> ruleTransformersUnderTest;
   private final ImmutableSortedSet<String> rulesUnderTest;
+  private final Optional<Integer> matchingTimeBudget;
   private final Refaster delegate;
 
   /**
@@ -79,7 +113,9 @@ public final class RefasterRuleCollection extends BugChecker implements Compilat
   public RefasterRuleCollection(ErrorProneFlags flags) {
     ruleCollectionUnderTest = getRuleCollectionUnderTest(flags);
     delegate = createRefasterChecker(ruleCollectionUnderTest);
-    rulesUnderTest = getRulesUnderTest(ruleCollectionUnderTest);
+    ruleTransformersUnderTest = getRuleTransformersUnderTest(ruleCollectionUnderTest);
+    rulesUnderTest = ImmutableSortedSet.copyOf(ruleTransformersUnderTest.keySet());
+    matchingTimeBudget = getMatchingTimeBudget(flags);
   }
 
   private static String getRuleCollectionUnderTest(ErrorProneFlags flags) {
@@ -99,11 +135,23 @@ public final class RefasterRuleCollection extends BugChecker implements Compilat
                 INCLUDED_RULES_PATTERN_FLAG, Pattern.quote(ruleCollectionUnderTest) + ".*")));
   }
 
-  private static ImmutableSortedSet<String> getRulesUnderTest(String ruleCollectionUnderTest) {
-    return CodeTransformers.getAllCodeTransformers().keySet().stream()
-        .filter(k -> k.startsWith(ruleCollectionUnderTest))
-        .map(k -> k.replace(ruleCollectionUnderTest + '$', ""))
-        .collect(toImmutableSortedSet(naturalOrder()));
+  private static ImmutableListMultimap<String, CodeTransformer> getRuleTransformersUnderTest(
+      String ruleCollectionUnderTest) {
+    return CodeTransformers.getAllCodeTransformers().asMap().entrySet().stream()
+        .filter(e -> e.getKey().startsWith(ruleCollectionUnderTest))
+        .collect(
+            flatteningToImmutableListMultimap(
+                e -> e.getKey().replace(ruleCollectionUnderTest + '$', ""),
+                e -> e.getValue().stream()));
+  }
+
+  private static Optional<Integer> getMatchingTimeBudget(ErrorProneFlags flags) {
+    Optional<Integer> budget = flags.getInteger(MATCHING_TIME_BUDGET_FLAG);
+    budget.ifPresent(
+        b ->
+            checkArgument(
+                b > 0, "Error Prone flag `%s` must be positive", MATCHING_TIME_BUDGET_FLAG));
+    return budget;
   }
 
   /**
@@ -115,13 +163,22 @@ public final class RefasterRuleCollection extends BugChecker implements Compilat
    * {@code com.google.errorprone.refaster.annotation.BeforeTemplate} methods in case there are
    * multiple.
    *
+   * <p>If the {@value #MATCHING_TIME_BUDGET_PROPERTY} system property is set, then rules that take
+   * more than the specified number of times as long to match as the median rule are reported as
+   * well.
+   *
    * @param clazz The Refaster rule collection under test.
    */
   public static void validate(Class<?> clazz) {
     String className = clazz.getSimpleName();
 
+    ImmutableList.Builder<String> args = ImmutableList.builder();
+    args.add("-XepOpt:" + RULE_COLLECTION_FLAG + '=' + className);
+    Optional.ofNullable(System.getProperty(MATCHING_TIME_BUDGET_PROPERTY))
+        .ifPresent(budget -> args.add("-XepOpt:" + MATCHING_TIME_BUDGET_FLAG + '=' + budget));
+
     BugCheckerRefactoringTestHelper.newInstance(RefasterRuleCollection.class, clazz)
-        .setArgs(ImmutableList.of("-XepOpt:" + RULE_COLLECTION_FLAG + '=' + className))
+        .setArgs(args.build())
         .addInput(className + "TestInput.java")
         .addOutput(className + "TestOutput.java")
         .doTest(TEXT_MATCH);
@@ -143,6 +200,7 @@ public final class RefasterRuleCollection extends BugChecker implements Compilat
     matches.forEach(state::reportMatch);
     reportMissingMatches(tree, indexedMatches, state);
     reportUnexpectedMatches(tree, indexedMatches, state);
+    matchingTimeBudget.ifPresent(budget -> reportExcessiveMatchingTimes(tree, budget, state));
 
     return Description.NO_MATCH;
   }
@@ -214,6 +272,82 @@ public final class RefasterRuleCollection extends BugChecker implements Compilat
     unexpectedMatchReporter.scan(tree.getTypeDecls(), state);
   }
 
+  private void reportExcessiveMatchingTimes(
+      CompilationUnitTree tree, int budget, VisitorState state) {
+    ImmutableMap<String, Duration> matchingTimes =
+        rulesUnderTest.stream()
+            .collect(
+                toImmutableMap(
+                    identity(),
+                    rule ->
+                        measureMatchingTime(
+                            CompositeCodeTransformer.compose(ruleTransformersUnderTest.get(rule)),
+                            state)));
+    ImmutableSet<String> slowRules = getExcessiveMatchingTimes(matchingTimes, budget);
+    if (!slowRules.isEmpty()) {
+      reportViolations(
+          tree,
+          String.format(
+              "The following rule(s) took more than %s times the median rule matching time",
+              budget),
+          slowRules,
+          state);
+    }
+  }
+
+  /**
+   * Describes the rules whose matching time exceeds the given multiple of the median matching time.
+   *
+   * <p>Rules that take less than {@link #MIN_REPORTED_MATCHING_TIME} are never reported.
+   *
+   * @param matchingTimes The matching time of each rule, keyed by rule name.
+   * @param budget The factor by which a rule's matching time may exceed the median.
+   * @return A description of each rule whose matching time exceeds the budget.
+   */
+  static ImmutableSet<String> getExcessiveMatchingTimes(
+      ImmutableMap<String, Duration> matchingTimes, int budget) {
+    if (matchingTimes.isEmpty()) {
+      return ImmutableSet.of();
+    }
+
+    Duration median = getMedian(matchingTimes.values());
+    Duration maxMatchingTime =
+        Comparators.max(median.multipliedBy(budget), MIN_REPORTED_MATCHING_TIME);
+    return matchingTimes.entrySet().stream()
+        .filter(e -> e.getValue().compareTo(maxMatchingTime) > 0)
+        .map(
+            e ->
+                String.format(
+                    "Rule `%s` took %s, while the median is %s.",
+                    e.getKey(), formatDuration(e.getValue()), formatDuration(median)))
+        .collect(toImmutableSet());
+  }
+
+  private static Duration measureMatchingTime(CodeTransformer transformer, VisitorState state) {
+    return IntStream.range(0, MATCHING_TIME_SAMPLES)
+        .mapToObj(i -> timeMatching(transformer, state))
+        .min(naturalOrder())
+        .orElseThrow();
+  }
+
+  private static Duration timeMatching(CodeTransformer transformer, VisitorState state) {
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    transformer.apply(state.getPath(), new SubContext(state.context), description -> {});
+    return stopwatch.elapsed();
+  }
+
+  private static String formatDuration(Duration duration) {
+    return String.format(Locale.ROOT, "%.3f ms", duration.toNanos() / 1_000_000.0);
+  }
+
+  private static Duration getMedian(ImmutableCollection<Duration> durations) {
+    ImmutableList<Duration> sorted = ImmutableList.sortedCopyOf(durations);
+    int middle = sorted.size() / 2;
+    return sorted.size() % 2 == 1
+        ? sorted.get(middle)
+        : sorted.get(middle - 1).plus(sorted.get(middle)).dividedBy(2);
+  }
+
   private void reportViolations(
       Tree tree, String message, ImmutableSet<String> violations, VisitorState state) {
     String violationEnumeration = String.join("\n*  - ", violations);
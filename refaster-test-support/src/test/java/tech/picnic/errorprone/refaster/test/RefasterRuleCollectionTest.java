@@ -1,5 +1,10 @@
 package tech.picnic.errorprone.refaster.test;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
@@ -28,4 +33,26 @@ final class RefasterRuleCollectionTest {
   void verifyRefasterRuleCollections(Class<?> clazz) {
     RefasterRuleCollection.validate(clazz);
   }
+
+  @Test
+  void getExcessiveMatchingTimes() {
+    assertThat(RefasterRuleCollection.getExcessiveMatchingTimes(ImmutableMap.of(), 2)).isEmpty();
+    assertThat(
+            RefasterRuleCollection.getExcessiveMatchingTimes(
+                ImmutableMap.of(
+                    "A", Duration.ofMillis(10),
+                    "B", Duration.ofMillis(20),
+                    "C", Duration.ofMillis(30),
+                    "D", Duration.ofMillis(100)),
+                3))
+        .containsExactly("Rule `D` took 100.000 ms, while the median is 25.000 ms.");
+    assertThat(
+            RefasterRuleCollection.getExcessiveMatchingTimes(
+                ImmutableMap.of(
+                    "A", Duration.ofNanos(10),
+                    "B", Duration.ofNanos(20),
+                    "C", Duration.ofMillis(9)),
+                2))
+        .isEmpty();
+  }
 }